@@ -0,0 +1,124 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.fetch.subphase;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the {@code _source} of a page of hits, which is dominated
+ * by decompressing stored fields, for each stored fields compression codec.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StoredSourceCompressionBenchmark {
+    private static final int NUM_DOCS = 100_000;
+
+    @Param({ CodecService.DEFAULT_CODEC, CodecService.BEST_COMPRESSION_CODEC, CodecService.LZ4_HIGH_COMPRESSION_CODEC })
+    private String codec;
+    @Param({ "short", "one_4k_field" })
+    private String source;
+    @Param({ "500" })
+    private int hits;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private int[] docs;
+
+    @Setup
+    public void setup() throws IOException {
+        String example = Streams.readFully(FetchSourcePhaseBenchmark.class.getResourceAsStream("300b_example.json")).utf8ToString();
+        Random random = new Random(0);
+        directory = new ByteBuffersDirectory();
+        IndexWriterConfig config = new IndexWriterConfig().setCodec(new CodecService(null).codec(codec));
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                String doc;
+                switch (source) {
+                    case "short":
+                        doc = "{\"id\": " + i + "," + example.substring(1);
+                        break;
+                    case "one_4k_field":
+                        doc = "{\"id\": " + i + ",\"huge\": \"" + randomWords(random, 4096) + "\"," + example.substring(1);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown source [" + source + "]");
+                }
+                Document document = new Document();
+                document.add(new StoredField(SourceFieldMapper.NAME, new BytesRef(doc.getBytes(StandardCharsets.UTF_8))));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        docs = new int[hits];
+        for (int i = 0; i < hits; i++) {
+            docs[i] = random.nextInt(NUM_DOCS);
+        }
+        // hits are fetched in doc id order
+        Arrays.sort(docs);
+    }
+
+    private static String randomWords(Random random, int length) {
+        String[] words = { "error", "warn", "info", "GET", "POST", "/index/_search", "200", "404", "timeout", "user" };
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return builder.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public long loadSource() throws IOException {
+        LeafReader leaf = reader.leaves().get(0).reader();
+        long length = 0;
+        for (int doc : docs) {
+            length += leaf.document(doc).getBinaryValue(SourceFieldMapper.NAME).length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.transport;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.DeflateCompressor;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.TransportDecompressor;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the transport compression schemes and levels on a payload that looks like a batch of JSON documents. Compressing at a higher
+ * level is only worth it if the bytes saved on the network outweigh the extra time spent here, so the compressed size of the payload is
+ * reported next to the compression timings as the {@code compressedBytes} counter to put them into context.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TransportCompressionBenchmark {
+
+    private static final String[] LEVELS = new String[] { "[none]", "[error]", "[warn]", "[info]", "[debug]" };
+    private static final String[] HOSTS = new String[] { "web-01", "web-02", "db-01", "cache-01" };
+
+    @Param({ "lz4", "deflate" })
+    public String scheme;
+
+    // 0 is the fast LZ4 compressor and stores DEFLATE blocks without compressing them, the DEFLATE default is 3
+    @Param({ "0", "1", "3", "6", "9" })
+    public int level;
+
+    @Param({ "1048576" })
+    public int payloadSize;
+
+    private DeflateCompressor deflateCompressor;
+    private byte[] payload;
+    private BytesReference compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(42);
+        final StringBuilder builder = new StringBuilder(payloadSize);
+        long timestamp = 1_600_000_000_000L;
+        while (builder.length() < payloadSize) {
+            timestamp += random.nextInt(1000);
+            builder.append("{\"@timestamp\":").append(timestamp)
+                .append(",\"host\":\"").append(HOSTS[random.nextInt(HOSTS.length)])
+                .append("\",\"level\":\"").append(LEVELS[random.nextInt(LEVELS.length)])
+                .append("\",\"status\":").append(200 + random.nextInt(4) * 100)
+                .append(",\"took\":").append(random.nextInt(5000))
+                .append(",\"message\":\"request ").append(Long.toHexString(random.nextLong())).append(" completed\"}\n");
+        }
+        payload = builder.toString().getBytes(StandardCharsets.UTF_8);
+        deflateCompressor = new DeflateCompressor(level);
+        compressed = compressPayload();
+    }
+
+    /**
+     * Reports the compressed size of the payload, JMH prints the last value of the field for each iteration.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class CompressedSize {
+        public long compressedBytes;
+    }
+
+    @Benchmark
+    public BytesReference compress(CompressedSize size) throws IOException {
+        final BytesReference bytes = compressPayload();
+        size.compressedBytes = bytes.length();
+        return bytes;
+    }
+
+    private BytesReference compressPayload() throws IOException {
+        final BytesStreamOutput output = new BytesStreamOutput();
+        try (OutputStream stream = scheme.equals("lz4")
+            ? Compression.Scheme.lz4OutputStream(Streams.flushOnCloseStream(output), level)
+            : deflateCompressor.threadLocalOutputStream(Streams.flushOnCloseStream(output))) {
+            stream.write(payload);
+        }
+        return output.bytes();
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long decompressedBytes = 0;
+        try (TransportDecompressor decompressor = TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE,
+            compressed)) {
+            BytesReference remaining = compressed;
+            while (remaining.length() > 0) {
+                final int consumed = decompressor.decompress(remaining);
+                remaining = remaining.slice(consumed, remaining.length() - consumed);
+                ReleasableBytesReference page;
+                while ((page = decompressor.pollDecompressedPage(remaining.length() == 0)) != null) {
+                    decompressedBytes += page.length();
+                    page.close();
+                }
+            }
+        }
+        return decompressedBytes;
+    }
+}
@@ -29,6 +29,7 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.transport.StatsTracker;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -46,6 +47,14 @@ import static io.netty.channel.internal.ChannelUtils.MAX_BYTES_PER_GATHERING_WRI
  * control how bytes end up being copied to direct memory. If we simply disabled netty pooling, we would rely
  * on the JDK's internal thread local buffer pooling. Instead, this class allows us to create a one thread
  * local buffer with a defined size.
+ *
+ * If the buffers that are written are already all direct then they are written with a single gathering write
+ * without being copied. Outbound transport messages are serialized into heap pages of {@code BigArrays} and
+ * wrapped as they are, so on plaintext connections they are still copied even if {@code es.use_direct_buffers}
+ * is set. Only the buffers that netty allocates itself are direct then, which are those that bytes are read into,
+ * and those that the SSL handler encrypts outbound messages into. Bytes are read straight into direct buffers.
+ * The number of bytes that had to be copied is reported to the {@link StatsTracker} of the transport, if the
+ * channel belongs to one.
  */
 @SuppressForbidden(reason = "Channel#write")
 public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
@@ -55,6 +64,7 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
 
     private static final ThreadLocal<ByteBuffer> ioBuffer = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(MAX_BYTES_PER_WRITE));
     private final WriteConfig writeConfig = new WriteConfig();
+    private volatile StatsTracker statsTracker;
 
     public CopyBytesSocketChannel() {
         super();
@@ -64,6 +74,10 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
         super(parent, socket);
     }
 
+    void setStatsTracker(StatsTracker statsTracker) {
+        this.statsTracker = statsTracker;
+    }
+
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
         int writeSpinCount = config().getWriteSpinCount();
@@ -82,6 +96,17 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
 
             if (nioBufferCnt == 0) {// We have something else beside ByteBuffers to write so fallback to normal writes.
                 writeSpinCount -= doWrite0(in);
+            } else if (allDirect(nioBuffers, nioBufferCnt)) {
+                // The bytes are in direct memory already so the socket can write them as they are.
+                long attemptedBytes = in.nioBufferSize();
+                final long localWrittenBytes = writeToSocketChannel(javaChannel(), nioBuffers, nioBufferCnt);
+                if (localWrittenBytes <= 0) {
+                    incompleteWrite(true);
+                    return;
+                }
+                adjustMaxBytesPerGatheringWrite((int) attemptedBytes, (int) localWrittenBytes, maxBytesPerGatheringWrite);
+                in.removeBytes(localWrittenBytes);
+                --writeSpinCount;
             } else {
                 // Zero length buffers are not added to nioBuffers by ChannelOutboundBuffer, so there is no need
                 // to check if the total size of all the buffers is non-zero.
@@ -90,6 +115,7 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
                 ioBuffer.flip();
 
                 int attemptedBytes = ioBuffer.remaining();
+                markBytesCopiedOnWrite(attemptedBytes);
                 final int localWrittenBytes = writeToSocketChannel(javaChannel(), ioBuffer);
                 if (localWrittenBytes <= 0) {
                     incompleteWrite(true);
@@ -108,22 +134,52 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
     @Override
     protected int doReadBytes(ByteBuf byteBuf) throws Exception {
         final RecvByteBufAllocator.Handle allocHandle = unsafe().recvBufAllocHandle();
+        if (byteBuf.isDirect() && byteBuf.nioBufferCount() == 1) {
+            // Read straight into the direct buffer.
+            int writerIndex = byteBuf.writerIndex();
+            allocHandle.attemptedBytesRead(byteBuf.writableBytes());
+            int bytesRead = readFromSocketChannel(javaChannel(), byteBuf.internalNioBuffer(writerIndex, byteBuf.writableBytes()));
+            if (bytesRead > 0) {
+                byteBuf.writerIndex(writerIndex + bytesRead);
+            }
+            return bytesRead;
+        }
         int writeableBytes = Math.min(byteBuf.writableBytes(), MAX_BYTES_PER_WRITE);
         allocHandle.attemptedBytesRead(writeableBytes);
         ByteBuffer ioBuffer = getIoBuffer().limit(writeableBytes);
         int bytesRead = readFromSocketChannel(javaChannel(), ioBuffer);
         ioBuffer.flip();
         if (bytesRead > 0) {
+            markBytesCopiedOnRead(bytesRead);
             byteBuf.writeBytes(ioBuffer);
         }
         return bytesRead;
     }
 
+    private void markBytesCopiedOnRead(long bytesCopied) {
+        final StatsTracker statsTracker = this.statsTracker;
+        if (statsTracker != null) {
+            statsTracker.markBytesCopiedOnRead(bytesCopied);
+        }
+    }
+
+    private void markBytesCopiedOnWrite(long bytesCopied) {
+        final StatsTracker statsTracker = this.statsTracker;
+        if (statsTracker != null) {
+            statsTracker.markBytesCopiedOnWrite(bytesCopied);
+        }
+    }
+
     // Protected so that tests can verify behavior and simulate partial writes
     protected int writeToSocketChannel(SocketChannel socketChannel, ByteBuffer ioBuffer) throws IOException {
         return socketChannel.write(ioBuffer);
     }
 
+    // Protected so that tests can verify behavior and simulate partial writes
+    protected long writeToSocketChannel(SocketChannel socketChannel, ByteBuffer[] nioBuffers, int nioBufferCnt) throws IOException {
+        return socketChannel.write(nioBuffers, 0, nioBufferCnt);
+    }
+
     // Protected so that tests can verify behavior
     protected int readFromSocketChannel(SocketChannel socketChannel, ByteBuffer ioBuffer) throws IOException {
         return socketChannel.read(ioBuffer);
@@ -165,6 +221,15 @@ public class CopyBytesSocketChannel extends Netty4NioSocketChannel {
         }
     }
 
+    private static boolean allDirect(ByteBuffer[] nioBuffers, int nioBufferCnt) {
+        for (int i = 0; i < nioBufferCnt; i++) {
+            if (nioBuffers[i].isDirect() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void setWrittenBytes(ByteBuffer[] source, int bytesWritten) {
         for (int i = 0; bytesWritten > 0; i++) {
             ByteBuffer buffer = source[i];
@@ -22,6 +22,7 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.InboundPipeline;
+import org.elasticsearch.transport.StatsTracker;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.Transports;
 
@@ -32,21 +33,36 @@ import java.util.Queue;
 /**
  * A handler (must be the last one!) that does size based frame decoding and forwards the actual message
  * to the relevant action.
+ *
+ * Outbound messages are written in chunks of at most {@link #WRITE_CHUNK_SIZE} bytes. Messages that fit into a single chunk are queued
+ * separately from larger messages and are written first whenever a message has been written fully, so that small latency sensitive
+ * messages do not wait for all the large messages that were queued before them on the same channel. A message is always written in one
+ * piece because the other side expects the bytes of a message to be contiguous.
  */
 final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
+    static final int WRITE_CHUNK_SIZE = 1 << 18;
+
+    // the number of small messages that may be written in a row ahead of a large message that was queued before them
+    static final int MAX_PRIORITIZED_WRITES = 16;
+
     private final Netty4Transport transport;
+    private final StatsTracker statsTracker;
 
     private final Queue<WriteOperation> queuedWrites = new ArrayDeque<>();
+    private final Queue<WriteOperation> queuedSmallWrites = new ArrayDeque<>();
 
+    private long writeSeqNo;
+    private int prioritizedWrites;
     private WriteOperation currentWrite;
     private final InboundPipeline pipeline;
 
     Netty4MessageChannelHandler(PageCacheRecycler recycler, Netty4Transport transport) {
         this.transport = transport;
+        this.statsTracker = transport.getStatsTracker();
         final ThreadPool threadPool = transport.getThreadPool();
         final Transport.RequestHandlers requestHandlers = transport.getRequestHandlers();
-        this.pipeline = new InboundPipeline(transport.getVersion(), transport.getStatsTracker(), recycler, threadPool::relativeTimeInMillis,
+        this.pipeline = new InboundPipeline(transport.getVersion(), statsTracker, recycler, threadPool::relativeTimeInMillis,
             transport.getInflightBreaker(), requestHandlers::getHandler, transport::inboundMessage);
     }
 
@@ -82,8 +98,12 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
         assert msg instanceof ByteBuf;
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
-        final boolean queued = queuedWrites.offer(new WriteOperation((ByteBuf) msg, promise));
+        final ByteBuf buf = (ByteBuf) msg;
+        final int readableBytes = buf.readableBytes();
+        final WriteOperation write = new WriteOperation(buf, promise, writeSeqNo++);
+        final boolean queued = readableBytes <= WRITE_CHUNK_SIZE ? queuedSmallWrites.offer(write) : queuedWrites.offer(write);
         assert queued;
+        statsTracker.markWriteQueued(readableBytes);
         assert Transports.assertDefaultThreadContext(transport.getThreadPool().getThreadContext());
     }
 
@@ -122,14 +142,14 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
         boolean needsFlush = true;
         while (channel.isWritable()) {
             if (currentWrite == null) {
-                currentWrite = queuedWrites.poll();
+                currentWrite = pollNextWrite();
             }
             if (currentWrite == null) {
                 break;
             }
             final WriteOperation write = currentWrite;
             final int readableBytes = write.buf.readableBytes();
-            final int bufferSize = Math.min(readableBytes, 1 << 18);
+            final int bufferSize = Math.min(readableBytes, WRITE_CHUNK_SIZE);
             final int readerIndex = write.buf.readerIndex();
             final boolean sliced = readableBytes != bufferSize;
             final ByteBuf writeBuffer;
@@ -174,14 +194,48 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
         return true;
     }
 
+    /**
+     * Returns the next message to write. Small messages are taken ahead of a large message that was queued before them, unless
+     * {@link #MAX_PRIORITIZED_WRITES} small messages were taken ahead of it in a row already so that large messages are never starved.
+     */
+    private WriteOperation pollNextWrite() {
+        final WriteOperation largeWrite = queuedWrites.peek();
+        final WriteOperation smallWrite = queuedSmallWrites.peek();
+        final WriteOperation next;
+        if (smallWrite == null) {
+            next = queuedWrites.poll();
+            prioritizedWrites = 0;
+        } else if (largeWrite == null || smallWrite.seqNo < largeWrite.seqNo) {
+            next = queuedSmallWrites.poll();
+            prioritizedWrites = 0;
+        } else if (prioritizedWrites < MAX_PRIORITIZED_WRITES) {
+            next = queuedSmallWrites.poll();
+            prioritizedWrites++;
+            statsTracker.markWritePrioritized();
+        } else {
+            next = queuedWrites.poll();
+            prioritizedWrites = 0;
+        }
+        if (next != null) {
+            statsTracker.markWriteDequeued(next.buf.readableBytes());
+        }
+        return next;
+    }
+
     private void failQueuedWrites() {
         if (currentWrite != null) {
             final WriteOperation current = currentWrite;
             currentWrite = null;
             current.failAsClosedChannel();
         }
+        failQueuedWrites(queuedSmallWrites);
+        failQueuedWrites(queuedWrites);
+    }
+
+    private void failQueuedWrites(Queue<WriteOperation> queue) {
         WriteOperation queuedWrite;
-        while ((queuedWrite = queuedWrites.poll()) != null) {
+        while ((queuedWrite = queue.poll()) != null) {
+            statsTracker.markWriteDequeued(queuedWrite.buf.readableBytes());
             queuedWrite.failAsClosedChannel();
         }
     }
@@ -192,9 +246,12 @@ final class Netty4MessageChannelHandler extends ChannelDuplexHandler {
 
         private final ChannelPromise promise;
 
-        WriteOperation(ByteBuf buf, ChannelPromise promise) {
+        private final long seqNo;
+
+        WriteOperation(ByteBuf buf, ChannelPromise promise, long seqNo) {
             this.buf = buf;
             this.promise = promise;
+            this.seqNo = seqNo;
         }
 
         void failAsClosedChannel() {
@@ -32,14 +32,17 @@ public class NettyAllocator {
     private static final long SUGGESTED_MAX_ALLOCATION_SIZE;
     private static final ByteBufAllocator ALLOCATOR;
     private static final String DESCRIPTION;
+    private static final boolean DIRECT_BUFFERS;
 
     private static final String USE_UNPOOLED = "es.use_unpooled_allocator";
     private static final String USE_NETTY_DEFAULT = "es.unsafe.use_netty_default_allocator";
     private static final String USE_NETTY_DEFAULT_CHUNK = "es.unsafe.use_netty_default_chunk_and_page_size";
+    private static final String USE_DIRECT_BUFFERS = "es.use_direct_buffers";
 
     static {
         if (Booleans.parseBoolean(System.getProperty(USE_NETTY_DEFAULT), false)) {
             ALLOCATOR = ByteBufAllocator.DEFAULT;
+            DIRECT_BUFFERS = false;
             SUGGESTED_MAX_ALLOCATION_SIZE = 1024 * 1024;
             DESCRIPTION = "[name=netty_default, suggested_max_allocation_size=" + new ByteSizeValue(SUGGESTED_MAX_ALLOCATION_SIZE)
                 + ", factors={es.unsafe.use_netty_default_allocator=true}]";
@@ -54,6 +57,8 @@ public class NettyAllocator {
             ByteBufAllocator delegate;
             if (useUnpooled(heapSizeInBytes, g1gcEnabled, g1gcRegionSizeIsKnown, g1gcRegionSizeInBytes)) {
                 delegate = UnpooledByteBufAllocator.DEFAULT;
+                // unpooled direct buffers are too expensive to allocate and free for every read
+                DIRECT_BUFFERS = false;
                 if (g1gcEnabled && g1gcRegionSizeIsKnown) {
                     // Suggested max allocation size 1/4 of region size. Guard against unknown edge cases
                     // where this value would be less than 256KB.
@@ -90,18 +95,22 @@ public class NettyAllocator {
                 int smallCacheSize = PooledByteBufAllocator.defaultSmallCacheSize();
                 int normalCacheSize = PooledByteBufAllocator.defaultNormalCacheSize();
                 boolean useCacheForAllThreads = PooledByteBufAllocator.defaultUseCacheForAllThreads();
-                delegate = new PooledByteBufAllocator(false, nHeapArena, 0, pageSize, maxOrder, tinyCacheSize,
+                DIRECT_BUFFERS = userRequestedDirectBuffers();
+                int nDirectArena = DIRECT_BUFFERS ? PooledByteBufAllocator.defaultNumDirectArena() : 0;
+                delegate = new PooledByteBufAllocator(DIRECT_BUFFERS, nHeapArena, nDirectArena, pageSize, maxOrder, tinyCacheSize,
                     smallCacheSize, normalCacheSize, useCacheForAllThreads);
                 int chunkSizeInBytes = pageSize << maxOrder;
                 ByteSizeValue chunkSize = new ByteSizeValue(chunkSizeInBytes);
                 SUGGESTED_MAX_ALLOCATION_SIZE = chunkSizeInBytes;
                 DESCRIPTION = "[name=elasticsearch_configured, chunk_size=" + chunkSize
                     + ", suggested_max_allocation_size=" + new ByteSizeValue(SUGGESTED_MAX_ALLOCATION_SIZE)
+                    + ", direct_buffers=" + DIRECT_BUFFERS
                     + ", factors={es.unsafe.use_netty_default_chunk_and_page_size=" + useDefaultChunkAndPageSize()
+                    + ", es.use_direct_buffers=" + System.getProperty(USE_DIRECT_BUFFERS)
                     + ", g1gc_enabled=" + g1gcEnabled
                     + ", g1gc_region_size=" + g1gcRegionSize + "}]";
             }
-            ALLOCATOR = new NoDirectBuffers(delegate);
+            ALLOCATOR = DIRECT_BUFFERS ? delegate : new NoDirectBuffers(delegate);
         }
     }
 
@@ -124,7 +133,7 @@ public class NettyAllocator {
     }
 
     public static Class<? extends Channel> getChannelType() {
-        if (ALLOCATOR instanceof NoDirectBuffers) {
+        if (ALLOCATOR instanceof NoDirectBuffers || DIRECT_BUFFERS) {
             return CopyBytesSocketChannel.class;
         } else {
             return Netty4NioSocketChannel.class;
@@ -132,7 +141,7 @@ public class NettyAllocator {
     }
 
     public static Class<? extends ServerChannel> getServerChannelType() {
-        if (ALLOCATOR instanceof NoDirectBuffers) {
+        if (ALLOCATOR instanceof NoDirectBuffers || DIRECT_BUFFERS) {
             return CopyBytesServerSocketChannel.class;
         } else {
             return NioServerSocketChannel.class;
@@ -172,6 +181,18 @@ public class NettyAllocator {
         }
     }
 
+    /**
+     * Whether the allocator hands out direct buffers. This avoids copying the bytes that are read from the network, and the bytes
+     * that TLS writes, but not the plaintext messages that are written since these are serialized on heap.
+     */
+    private static boolean userRequestedDirectBuffers() {
+        if (System.getProperty(USE_DIRECT_BUFFERS) != null) {
+            return Booleans.parseBoolean(System.getProperty(USE_DIRECT_BUFFERS));
+        } else {
+            return false;
+        }
+    }
+
     private static boolean useDefaultChunkAndPageSize() {
         if (System.getProperty(USE_NETTY_DEFAULT_CHUNK) != null) {
             return Booleans.parseBoolean(System.getProperty(USE_NETTY_DEFAULT_CHUNK));
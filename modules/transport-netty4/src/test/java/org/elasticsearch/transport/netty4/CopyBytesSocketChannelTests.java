@@ -10,6 +10,7 @@ package org.elasticsearch.transport.netty4;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
@@ -21,6 +22,7 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.nio.NioEventLoopGroup;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.transport.StatsTracker;
 import org.elasticsearch.transport.netty4.CopyBytesServerSocketChannel;
 import org.elasticsearch.transport.netty4.CopyBytesSocketChannel;
 
@@ -35,9 +37,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
 public class CopyBytesSocketChannelTests extends ESTestCase {
 
     private final UnpooledByteBufAllocator alloc = new UnpooledByteBufAllocator(false);
+    private final StatsTracker serverStatsTracker = new StatsTracker();
     private final AtomicReference<CopyBytesSocketChannel> accepted = new AtomicReference<>();
     private final AtomicInteger serverBytesReceived = new AtomicInteger();
     private final AtomicInteger clientBytesReceived = new AtomicInteger();
@@ -60,6 +65,7 @@ public class CopyBytesSocketChannelTests extends ESTestCase {
         serverBootstrap.childHandler(new ChannelInitializer<>() {
             @Override
             protected void initChannel(Channel ch) {
+                ((CopyBytesSocketChannel) ch).setStatsTracker(serverStatsTracker);
                 accepted.set((CopyBytesSocketChannel) ch);
                 ch.pipeline().addLast(new SimpleChannelInboundHandler<>() {
                     @Override
@@ -90,10 +96,36 @@ public class CopyBytesSocketChannelTests extends ESTestCase {
     }
 
     public void testSendAndReceive() throws Exception {
+        final StatsTracker clientStatsTracker = new StatsTracker();
+        final int clientBytesToWrite = sendAndReceive(alloc, clientStatsTracker, generateData(), generateData());
+        // partially written bytes are copied again on the next attempt
+        assertThat(clientStatsTracker.getBytesCopiedOnWrite(), greaterThanOrEqualTo((long) clientBytesToWrite));
+        assertEquals(clientBytesToWrite, serverStatsTracker.getBytesCopiedOnRead());
+        assertEquals(clientBytesReceived.get(), clientStatsTracker.getBytesCopiedOnRead());
+        assertThat(serverStatsTracker.getBytesCopiedOnWrite(), greaterThanOrEqualTo((long) clientBytesReceived.get()));
+    }
+
+    public void testSendAndReceiveDirect() throws Exception {
+        final UnpooledByteBufAllocator directAlloc = new UnpooledByteBufAllocator(true);
+        final StatsTracker clientStatsTracker = new StatsTracker();
+        final ByteBuf clientData = generateData();
+        final ByteBuf directClientData = directAlloc.directBuffer(clientData.readableBytes());
+        directClientData.writeBytes(clientData);
+        clientData.release();
+        final int clientBytesToWrite = sendAndReceive(directAlloc, clientStatsTracker, directClientData, generateData());
+        // the client writes from and reads into direct buffers, only the server has to copy
+        assertEquals(0, clientStatsTracker.getBytesCopiedOnWrite());
+        assertEquals(0, clientStatsTracker.getBytesCopiedOnRead());
+        assertEquals(clientBytesToWrite, serverStatsTracker.getBytesCopiedOnRead());
+        assertThat(serverStatsTracker.getBytesCopiedOnWrite(), greaterThanOrEqualTo((long) clientBytesReceived.get()));
+    }
+
+    private int sendAndReceive(ByteBufAllocator clientAlloc, StatsTracker clientStatsTracker, ByteBuf clientData, ByteBuf serverData)
+        throws Exception {
         final Bootstrap bootstrap = new Bootstrap();
         bootstrap.group(eventLoopGroup);
         bootstrap.channel(VerifyingCopyChannel.class);
-        bootstrap.option(ChannelOption.ALLOCATOR, alloc);
+        bootstrap.option(ChannelOption.ALLOCATOR, clientAlloc);
         bootstrap.handler(new ChannelInitializer<>() {
             @Override
             protected void initChannel(Channel ch) {
@@ -112,8 +144,7 @@ public class CopyBytesSocketChannelTests extends ESTestCase {
         connectFuture.await(10, TimeUnit.SECONDS);
         assertTrue(connectFuture.isSuccess());
         CopyBytesSocketChannel copyChannel = (CopyBytesSocketChannel) connectFuture.channel();
-        ByteBuf clientData = generateData();
-        ByteBuf serverData = generateData();
+        copyChannel.setStatsTracker(clientStatsTracker);
 
         try {
             assertBusy(() -> assertNotNull(accepted.get()));
@@ -131,6 +162,7 @@ public class CopyBytesSocketChannelTests extends ESTestCase {
             assertEquals(clientData, compositeServerReceived);
             ByteBuf compositeClientReceived = Unpooled.wrappedBuffer(clientReceived.toArray(new ByteBuf[0]));
             assertEquals(serverData, compositeClientReceived);
+            return clientBytesToWrite;
         } finally {
             clientData.release();
             serverData.release();
@@ -167,6 +199,14 @@ public class CopyBytesSocketChannelTests extends ESTestCase {
             return written;
         }
 
+        @Override
+        protected long writeToSocketChannel(SocketChannel socketChannel, ByteBuffer[] nioBuffers, int nioBufferCnt) throws IOException {
+            for (int i = 0; i < nioBufferCnt; i++) {
+                assertTrue("Only direct buffers are written without copying", nioBuffers[i].isDirect());
+            }
+            return socketChannel.write(nioBuffers, 0, nioBufferCnt);
+        }
+
         @Override
         protected int readFromSocketChannel(SocketChannel socketChannel, ByteBuffer ioBuffer) throws IOException {
             assertTrue("IO Buffer must be a direct byte buffer", ioBuffer.isDirect());
@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.network.NetworkService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.StatsTracker;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class Netty4MessageChannelHandlerTests extends ESTestCase {
+
+    private static final int MAX_SMALL_WRITE_SIZE = 100;
+
+    private ThreadPool threadPool;
+    private Netty4Transport transport;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUpChannel() {
+        final Settings settings = Settings.builder().put("node.name", getTestName()).build();
+        threadPool = new TestThreadPool(getTestName());
+        final PageCacheRecycler recycler = new MockPageCacheRecycler(Settings.EMPTY);
+        transport = new Netty4Transport(settings, Version.CURRENT, threadPool, new NetworkService(Collections.emptyList()), recycler,
+            new NamedWriteableRegistry(Collections.emptyList()), new NoneCircuitBreakerService(), new SharedGroupFactory(settings));
+        channel = new EmbeddedChannel(new Netty4MessageChannelHandler(recycler, transport));
+    }
+
+    @After
+    public void tearDownChannel() {
+        channel.finishAndReleaseAll();
+        terminate(threadPool);
+    }
+
+    public void testSmallWritesOvertakeLargeWritesUpToLimit() {
+        final StatsTracker stats = transport.getStatsTracker();
+        final List<ChannelFuture> futures = new ArrayList<>();
+        long queuedBytes = 0;
+
+        // a small message that was queued before the large one is still written first
+        final byte[] first = smallMessage(0);
+        futures.add(channel.write(Unpooled.wrappedBuffer(first)));
+        queuedBytes += first.length;
+
+        final byte[] large = randomByteArrayOfLength(Netty4MessageChannelHandler.WRITE_CHUNK_SIZE * 2
+            + between(1, Netty4MessageChannelHandler.WRITE_CHUNK_SIZE));
+        futures.add(channel.write(Unpooled.wrappedBuffer(large)));
+        queuedBytes += large.length;
+
+        final int smallWrites = Netty4MessageChannelHandler.MAX_PRIORITIZED_WRITES + between(1, 10);
+        for (int i = 1; i <= smallWrites; i++) {
+            final byte[] small = smallMessage(i);
+            futures.add(channel.write(Unpooled.wrappedBuffer(small)));
+            queuedBytes += small.length;
+        }
+
+        assertThat(stats.getWritesQueued(), equalTo((long) smallWrites + 2));
+        assertThat(stats.getBytesQueued(), equalTo(queuedBytes));
+        assertThat(channel.outboundMessages().size(), equalTo(0));
+
+        channel.flush();
+
+        final List<Integer> expectedOrder = new ArrayList<>();
+        expectedOrder.add(0);
+        for (int i = 1; i <= Netty4MessageChannelHandler.MAX_PRIORITIZED_WRITES; i++) {
+            expectedOrder.add(i);
+        }
+        // the large message is no longer held back once the limit of small messages ahead of it is reached
+        expectedOrder.add(-1);
+        for (int i = Netty4MessageChannelHandler.MAX_PRIORITIZED_WRITES + 1; i <= smallWrites; i++) {
+            expectedOrder.add(i);
+        }
+
+        final List<Integer> order = new ArrayList<>();
+        final ByteArrayOutputStream largeWritten = new ByteArrayOutputStream();
+        int largeChunks = 0;
+        ByteBuf written;
+        while ((written = channel.readOutbound()) != null) {
+            try {
+                final byte[] bytes = new byte[written.readableBytes()];
+                written.readBytes(bytes);
+                // the chunks of the large message are written back to back, the first one is larger than any small message
+                final boolean largeInProgress = largeWritten.size() > 0 && largeWritten.size() < large.length;
+                if (bytes.length > MAX_SMALL_WRITE_SIZE || largeInProgress) {
+                    assertThat(bytes.length, equalTo(Math.min(Netty4MessageChannelHandler.WRITE_CHUNK_SIZE,
+                        large.length - largeWritten.size())));
+                    if (largeWritten.size() == 0) {
+                        order.add(-1);
+                    }
+                    largeWritten.write(bytes, 0, bytes.length);
+                    largeChunks++;
+                } else {
+                    order.add((int) bytes[0]);
+                }
+            } finally {
+                written.release();
+            }
+        }
+        assertThat(order, equalTo(expectedOrder));
+        assertThat(largeChunks, equalTo(3));
+        assertArrayEquals(large, largeWritten.toByteArray());
+
+        for (ChannelFuture future : futures) {
+            assertTrue(future.isSuccess());
+        }
+        assertThat(stats.getWritesQueued(), equalTo(0L));
+        assertThat(stats.getBytesQueued(), equalTo(0L));
+        assertThat(stats.getWritesPrioritized(), equalTo((long) Netty4MessageChannelHandler.MAX_PRIORITIZED_WRITES));
+    }
+
+    public void testQueuedWritesFailWhenChannelCloses() {
+        final StatsTracker stats = transport.getStatsTracker();
+        final List<ChannelFuture> futures = new ArrayList<>();
+        final int writes = between(1, 10);
+        for (int i = 0; i < writes; i++) {
+            final byte[] message = randomBoolean() ? smallMessage(i)
+                : randomByteArrayOfLength(Netty4MessageChannelHandler.WRITE_CHUNK_SIZE + between(1, 1024));
+            futures.add(channel.write(Unpooled.wrappedBuffer(message)));
+        }
+        assertThat(stats.getWritesQueued(), equalTo((long) writes));
+
+        channel.close();
+
+        for (ChannelFuture future : futures) {
+            assertTrue(future.isDone());
+            assertThat(future.cause(), instanceOf(ClosedChannelException.class));
+        }
+        assertThat(stats.getWritesQueued(), equalTo(0L));
+        assertThat(stats.getBytesQueued(), equalTo(0L));
+    }
+
+    private static byte[] smallMessage(int id) {
+        final byte[] message = randomByteArrayOfLength(between(1, MAX_SMALL_WRITE_SIZE));
+        message[0] = (byte) id;
+        return message;
+    }
+}
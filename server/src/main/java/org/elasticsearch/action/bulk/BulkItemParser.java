@@ -0,0 +1,194 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.shard.IndexShard;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parses the documents of the index and create items of a {@link BulkShardRequest} on other write threads while the items before
+ * them are applied to the primary, so that a single shard can use more than one core to parse the documents of a large bulk request.
+ * <p>
+ * The items are still applied one after the other on the thread that executes the request so they get their sequence numbers in
+ * order and dynamic mapping updates are handled as usual: documents that need a mapping update are not parsed ahead and a document
+ * that was parsed with a mapping that changed since is parsed again. Parsing never runs more than {@link #MAX_PARSED_AHEAD} items
+ * ahead of the item that is applied to bound the memory that parsed documents use. The thread that applies the items parses the
+ * items that weren't parsed yet itself instead of waiting for them.
+ * <p>
+ * Helpers only use write threads that are idle: they are only forked while the executor has fewer active threads than it has
+ * threads and nothing in its queue, so they never queue up behind, or take the place of, other write requests. A helper that is
+ * rejected anyway just stops parsing ahead.
+ */
+final class BulkItemParser {
+
+    /**
+     * The minimum number of items in a request for its documents to be parsed ahead, smaller requests don't have enough documents to
+     * make up for the cost of forking.
+     */
+    static final int MIN_ITEMS = 32;
+
+    static final int MAX_PARSED_AHEAD = 128;
+
+    private static final Object CLAIMED = new Object();
+    private static final Object TAKEN = new Object();
+
+    private final BulkItemRequest[] items;
+    private final IndexShard primary;
+    private final Executor executor;
+    private final int maxHelpers;
+    /**
+     * For each item {@code null} if nobody looked at it yet, {@link #CLAIMED} if a helper is parsing it or couldn't parse it,
+     * {@link #TAKEN} once the thread that applies the items got to it or the {@link IndexShard.PreParsedDocument} of the item.
+     */
+    private final AtomicReferenceArray<Object> parsed;
+    /** The next item to parse ahead */
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger activeHelpers = new AtomicInteger();
+    /** The item that is applied to the primary */
+    private volatile int current;
+    private volatile boolean rejected;
+    /** The number of items whose document was parsed ahead and taken, only accessed by the thread that applies the items */
+    private int takenDocuments;
+
+    private BulkItemParser(BulkShardRequest request, IndexShard primary, Executor executor, int maxHelpers) {
+        // copy the items because the request replaces the items of updates once they are translated
+        this.items = request.items().clone();
+        this.primary = primary;
+        this.executor = executor;
+        this.maxHelpers = maxHelpers;
+        this.parsed = new AtomicReferenceArray<>(items.length);
+    }
+
+    /**
+     * Starts parsing the documents of the request ahead on the given executor if the index is configured to and the request is large
+     * enough, returns {@code null} otherwise.
+     */
+    @Nullable
+    static BulkItemParser start(BulkShardRequest request, IndexShard primary, Executor executor) {
+        if (request.items().length < MIN_ITEMS) {
+            return null;
+        }
+        final int helpers = primary.indexSettings().getBulkParseAheadThreads();
+        if (helpers == 0) {
+            return null;
+        }
+        final BulkItemParser parser = new BulkItemParser(request, primary, executor, helpers);
+        // the first item is applied right away
+        parser.next.set(1);
+        parser.forkHelpers();
+        return parser;
+    }
+
+    /**
+     * Returns the document of the item with the given index if it was parsed ahead, {@code null} otherwise. Must be called by the
+     * thread that applies the items, in order.
+     */
+    @Nullable
+    IndexShard.PreParsedDocument take(int index) {
+        current = index;
+        next.accumulateAndGet(index + 1, Math::max);
+        final Object item = parsed.getAndSet(index, TAKEN);
+        forkHelpers();
+        if (item instanceof IndexShard.PreParsedDocument) {
+            takenDocuments++;
+            return (IndexShard.PreParsedDocument) item;
+        }
+        return null;
+    }
+
+    // visible for tests
+    int takenDocuments() {
+        return takenDocuments;
+    }
+
+    private void forkHelpers() {
+        while (rejected == false && next.get() < items.length && next.get() - current <= MAX_PARSED_AHEAD) {
+            final int active = activeHelpers.get();
+            if (active >= maxHelpers || hasIdleThreads() == false) {
+                return;
+            }
+            if (activeHelpers.compareAndSet(active, active + 1)) {
+                try {
+                    executor.execute(new Helper());
+                } catch (EsRejectedExecutionException e) {
+                    // the items are parsed when they are applied
+                    rejected = true;
+                    activeHelpers.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private boolean hasIdleThreads() {
+        if (executor instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+            return threadPoolExecutor.getActiveCount() < threadPoolExecutor.getMaximumPoolSize()
+                && threadPoolExecutor.getQueue().isEmpty();
+        }
+        return true;
+    }
+
+    private void parseAhead() {
+        while (true) {
+            final int index = next.get();
+            if (index >= items.length || index - current > MAX_PARSED_AHEAD) {
+                return;
+            }
+            if (next.compareAndSet(index, index + 1) && parsed.compareAndSet(index, null, CLAIMED)) {
+                final IndexShard.PreParsedDocument doc = parse(items[index].request());
+                if (doc != null) {
+                    parsed.compareAndSet(index, CLAIMED, doc);
+                }
+            }
+        }
+    }
+
+    @Nullable
+    private IndexShard.PreParsedDocument parse(DocWriteRequest<?> request) {
+        if (request.opType() != DocWriteRequest.OpType.INDEX && request.opType() != DocWriteRequest.OpType.CREATE) {
+            return null;
+        }
+        final IndexRequest indexRequest = (IndexRequest) request;
+        return primary.preParseDocument(new SourceToParse(indexRequest.index(), indexRequest.id(), indexRequest.source(),
+            indexRequest.getContentType(), indexRequest.routing(), indexRequest.getDynamicTemplates()));
+    }
+
+    private class Helper extends AbstractRunnable {
+        @Override
+        protected void doRun() {
+            parseAhead();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            assert false : e;
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            // the items are parsed when they are applied
+            rejected = true;
+        }
+
+        @Override
+        public void onAfter() {
+            activeHelpers.decrementAndGet();
+        }
+    }
+}
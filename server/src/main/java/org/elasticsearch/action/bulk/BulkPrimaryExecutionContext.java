@@ -14,6 +14,7 @@ import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.action.support.replication.TransportWriteAction;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
@@ -57,6 +58,8 @@ class BulkPrimaryExecutionContext {
 
     private final BulkShardRequest request;
     private final IndexShard primary;
+    @Nullable
+    private final BulkItemParser itemParser;
     private Translog.Location locationToSync = null;
     private int currentIndex = -1;
 
@@ -67,8 +70,13 @@ class BulkPrimaryExecutionContext {
 
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
+        this(request, primary, null);
+    }
+
+    BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary, @Nullable BulkItemParser itemParser) {
         this.request = request;
         this.primary = primary;
+        this.itemParser = itemParser;
         advance();
     }
 
@@ -173,6 +181,15 @@ class BulkPrimaryExecutionContext {
         return request.items()[currentIndex];
     }
 
+    /**
+     * returns the document that was parsed ahead of executing the current item or {@code null} if it wasn't. The document is only
+     * returned once, a retry of the item has to parse it again.
+     */
+    @Nullable
+    public IndexShard.PreParsedDocument takePreParsedDocument() {
+        return itemParser == null ? null : itemParser.take(currentIndex);
+    }
+
     /** returns the primary shard */
     public IndexShard getPrimary() {
         return primary;
@@ -74,13 +74,13 @@ public final class BulkRequestParser {
         this.restApiVersion = restApiVersion;
     }
 
-    private static int findNextMarker(byte marker, int from, BytesReference data) {
+    private static int findNextMarker(byte marker, int from, BytesReference data, boolean lastData) {
         final int res = data.indexOf(marker, from);
         if (res != -1) {
             assert res >= 0;
             return res;
         }
-        if (from != data.length()) {
+        if (lastData && from != data.length()) {
             throw new IllegalArgumentException("The bulk request must be terminated by a newline [\\n]");
         }
         return res;
@@ -114,6 +114,26 @@ public final class BulkRequestParser {
             BiConsumer<IndexRequest, String> indexRequestConsumer,
             Consumer<UpdateRequest> updateRequestConsumer,
             Consumer<DeleteRequest> deleteRequestConsumer) throws IOException {
+        incrementalParse(data, defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline, defaultRequireAlias,
+            allowExplicitIndex, xContentType, true, indexRequestConsumer, updateRequestConsumer, deleteRequestConsumer);
+    }
+
+    /**
+     * Parse the provided {@code data} like {@link #parse} but, unless {@code lastData} is set, leave a trailing line that isn't
+     * terminated yet and an action whose source line isn't complete yet unparsed instead of failing. This allows to parse a bulk
+     * request as its body arrives.
+     *
+     * @return the number of bytes of {@code data} that were parsed, the remaining bytes must be passed again together with the data
+     *         that follows them
+     */
+    public int incrementalParse(
+            BytesReference data, @Nullable String defaultIndex,
+            @Nullable String defaultRouting, @Nullable FetchSourceContext defaultFetchSourceContext,
+            @Nullable String defaultPipeline, @Nullable Boolean defaultRequireAlias, boolean allowExplicitIndex,
+            XContentType xContentType, boolean lastData,
+            BiConsumer<IndexRequest, String> indexRequestConsumer,
+            Consumer<UpdateRequest> updateRequestConsumer,
+            Consumer<DeleteRequest> deleteRequestConsumer) throws IOException {
         XContent xContent = xContentType.xContent();
         int line = 0;
         int from = 0;
@@ -125,10 +145,11 @@ public final class BulkRequestParser {
         boolean typesDeprecationLogged = false;
 
         while (true) {
-            int nextMarker = findNextMarker(marker, from, data);
+            int nextMarker = findNextMarker(marker, from, data, lastData);
             if (nextMarker == -1) {
                 break;
             }
+            final int actionFrom = from;
             line++;
 
             // now parse the action
@@ -250,8 +271,12 @@ public final class BulkRequestParser {
                     deleteRequestConsumer.accept(new DeleteRequest(index).id(id).routing(routing)
                             .version(version).versionType(versionType).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm));
                 } else {
-                    nextMarker = findNextMarker(marker, from, data);
+                    nextMarker = findNextMarker(marker, from, data, lastData);
                     if (nextMarker == -1) {
+                        if (lastData == false) {
+                            // the source of the action didn't arrive yet, parse the action again once it did
+                            return actionFrom;
+                        }
                         break;
                     }
                     line++;
@@ -315,6 +340,7 @@ public final class BulkRequestParser {
                 }
             }
         }
+        return from;
     }
 
     private static XContentParser createParser(BytesReference data, XContent xContent, RestApiVersion restApiVersion) throws IOException {
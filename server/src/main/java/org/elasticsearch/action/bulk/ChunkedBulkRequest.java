@@ -0,0 +1,284 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executes a bulk request whose body is made of several chunks, like the buffers that the body of an http request arrived in, as a
+ * series of smaller bulk requests. The chunks are only parsed once their items are needed and a batch of items is sent as soon as
+ * it reached the batch size, so the first documents are indexed while the rest of the body wasn't parsed yet. At most
+ * {@link #MAX_IN_FLIGHT_BATCHES} batches are executed at the same time which bounds the coordinating bytes that a large request holds
+ * in the {@link org.elasticsearch.index.IndexingPressure} of the node to a few batches instead of the whole body. A batch that is
+ * rejected because the node is under indexing pressure is retried with a backoff and holds back the batches behind it.
+ * <p>
+ * Each batch is executed as its own bulk request so, unlike a regular bulk request, a request with a malformed line fails after the
+ * batches before that line were executed. Callers that hold the whole body already should validate it before adding the chunks,
+ * like {@code RestBulkAction} does. The responses of all batches are merged into a single {@link BulkResponse} with the items
+ * in the order of the body.
+ */
+public final class ChunkedBulkRequest {
+
+    static final int MAX_IN_FLIGHT_BATCHES = 2;
+
+    private final Client client;
+    private final Supplier<BulkRequest> batchSupplier;
+    private final long batchSizeInBytes;
+    private final BackoffPolicy backoffPolicy;
+    private final ActionListener<BulkResponse> listener;
+    private final BulkRequestParser parser;
+    private final String defaultIndex;
+    private final String defaultRouting;
+    private final FetchSourceContext defaultFetchSourceContext;
+    private final String defaultPipeline;
+    private final Boolean defaultRequireAlias;
+    private final boolean allowExplicitIndex;
+    private final XContentType xContentType;
+    private final long startNanos = System.nanoTime();
+    /** The number of times {@link #drain()} was called and not handled yet, only the caller that brings it above 0 drains */
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+
+    // all fields below are guarded by this
+    private final ArrayDeque<BytesReference> chunks = new ArrayDeque<>();
+    /** The bytes of the chunks that were parsed already but don't make up a complete item yet */
+    private BytesReference remainder = BytesArray.EMPTY;
+    private boolean lastChunkAdded;
+    private BulkRequest batch;
+    /** The position of the first item of {@link #batch} in the whole request */
+    private int batchOffset;
+    private int inFlight;
+    private final List<BulkItemResponse> responses = new ArrayList<>();
+    private long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+    private Exception failure;
+    private boolean done;
+
+    /**
+     * @param batchSupplier supplies the empty bulk requests that the items are added to, with the timeout, refresh policy and other
+     *                      request level options of the whole request
+     */
+    public ChunkedBulkRequest(Client client, Supplier<BulkRequest> batchSupplier, long batchSizeInBytes, BackoffPolicy backoffPolicy,
+                              @Nullable String defaultIndex, @Nullable String defaultRouting,
+                              @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String defaultPipeline,
+                              @Nullable Boolean defaultRequireAlias, boolean allowExplicitIndex, XContentType xContentType,
+                              RestApiVersion restApiVersion, ActionListener<BulkResponse> listener) {
+        if (batchSizeInBytes <= 0) {
+            throw new IllegalArgumentException("batch size must be positive but was [" + batchSizeInBytes + "]");
+        }
+        this.client = client;
+        this.batchSupplier = batchSupplier;
+        this.batchSizeInBytes = batchSizeInBytes;
+        this.backoffPolicy = backoffPolicy;
+        this.listener = listener;
+        this.parser = new BulkRequestParser(true, restApiVersion);
+        this.defaultIndex = defaultIndex;
+        this.defaultRouting = defaultRouting;
+        this.defaultFetchSourceContext = defaultFetchSourceContext;
+        this.defaultPipeline = defaultPipeline;
+        this.defaultRequireAlias = defaultRequireAlias;
+        this.allowExplicitIndex = allowExplicitIndex;
+        this.xContentType = xContentType;
+        this.batch = batchSupplier.get();
+    }
+
+    /**
+     * Adds the next chunk of the body. Chunks must be added in order and must stay valid until the listener was notified.
+     *
+     * @param last whether this is the last chunk of the body
+     */
+    public void addChunk(BytesReference chunk, boolean last) {
+        synchronized (this) {
+            assert lastChunkAdded == false : "chunk added after the last chunk";
+            if (chunk.length() > 0) {
+                chunks.add(chunk);
+            }
+            lastChunkAdded = last;
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (pendingDrains.getAndIncrement() > 0) {
+            // whoever is draining already will do another round, this avoids recursing when a batch completes right away
+            return;
+        }
+        int rounds = 1;
+        do {
+            drainOnce();
+            rounds = pendingDrains.addAndGet(-rounds);
+        } while (rounds > 0);
+    }
+
+    private void drainOnce() {
+        final List<Batch> toSend = new ArrayList<>();
+        final boolean finish;
+        synchronized (this) {
+            while (failure == null && inFlight < MAX_IN_FLIGHT_BATCHES) {
+                final Batch next;
+                try {
+                    next = nextBatch();
+                } catch (Exception e) {
+                    failure = e;
+                    break;
+                }
+                if (next == null) {
+                    break;
+                }
+                inFlight++;
+                toSend.add(next);
+            }
+            finish = done == false && inFlight == 0 && (failure != null || allParsed());
+            if (finish) {
+                done = true;
+            }
+        }
+        for (Batch next : toSend) {
+            next.send();
+        }
+        if (finish) {
+            finish();
+        }
+    }
+
+    private boolean allParsed() {
+        assert Thread.holdsLock(this);
+        return lastChunkAdded && chunks.isEmpty() && remainder.length() == 0 && batch.numberOfActions() == 0;
+    }
+
+    /**
+     * Parses chunks until the current batch is full or all chunks are parsed, returns {@code null} if there is no batch to send yet.
+     */
+    @Nullable
+    private Batch nextBatch() throws IOException {
+        assert Thread.holdsLock(this);
+        while (batch.estimatedSizeInBytes() < batchSizeInBytes) {
+            final BytesReference chunk = chunks.poll();
+            if (chunk != null) {
+                final BytesReference data = remainder.length() == 0 ? chunk : CompositeBytesReference.of(remainder, chunk);
+                final int parsed = parse(data, false);
+                remainder = data.slice(parsed, data.length() - parsed);
+            } else if (lastChunkAdded == false) {
+                return null;
+            } else if (remainder.length() > 0) {
+                // fails if the body isn't terminated by a newline
+                parse(remainder, true);
+                remainder = BytesArray.EMPTY;
+            } else if (batch.numberOfActions() == 0) {
+                return null;
+            } else {
+                break;
+            }
+        }
+        final Batch next = new Batch(batch, batchOffset);
+        for (int i = 0; i < batch.numberOfActions(); i++) {
+            responses.add(null);
+        }
+        batchOffset += batch.numberOfActions();
+        batch = batchSupplier.get();
+        return next;
+    }
+
+    private int parse(BytesReference data, boolean lastData) throws IOException {
+        return parser.incrementalParse(data, defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline,
+            defaultRequireAlias, allowExplicitIndex, xContentType, lastData,
+            (indexRequest, type) -> batch.internalAdd(indexRequest), updateRequest -> batch.internalAdd(updateRequest),
+            deleteRequest -> batch.add(deleteRequest));
+    }
+
+    private void finish() {
+        final Exception e;
+        final BulkItemResponse[] items;
+        final long ingestTook;
+        synchronized (this) {
+            e = failure;
+            items = responses.toArray(new BulkItemResponse[0]);
+            ingestTook = ingestTookInMillis;
+        }
+        if (e != null) {
+            listener.onFailure(e);
+        } else if (items.length == 0) {
+            listener.onFailure(batchSupplier.get().validate());
+        } else {
+            final long tookInMillis = TimeValue.nsecToMSec(System.nanoTime() - startNanos);
+            listener.onResponse(new BulkResponse(items, tookInMillis, ingestTook));
+        }
+    }
+
+    private final class Batch implements ActionListener<BulkResponse> {
+        private final BulkRequest request;
+        private final int offset;
+        private final Iterator<TimeValue> backoff;
+
+        Batch(BulkRequest request, int offset) {
+            this.request = request;
+            this.offset = offset;
+            this.backoff = backoffPolicy.iterator();
+        }
+
+        void send() {
+            client.bulk(request, this);
+        }
+
+        @Override
+        public void onResponse(BulkResponse response) {
+            synchronized (ChunkedBulkRequest.this) {
+                for (BulkItemResponse item : response) {
+                    final int id = offset + item.getItemId();
+                    responses.set(id, item.isFailed()
+                        ? BulkItemResponse.failure(id, item.getOpType(), item.getFailure())
+                        : BulkItemResponse.success(id, item.getOpType(), item.getResponse()));
+                }
+                if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                    ingestTookInMillis = Math.max(ingestTookInMillis, 0) + response.getIngestTookInMillis();
+                }
+                inFlight--;
+            }
+            drain();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            if (ExceptionsHelper.status(e) == RestStatus.TOO_MANY_REQUESTS && backoff.hasNext()) {
+                // the node is under indexing pressure, hold back the rest of the request until this batch gets through
+                client.threadPool().schedule(this::send, backoff.next(), ThreadPool.Names.SAME);
+                return;
+            }
+            synchronized (ChunkedBulkRequest.this) {
+                final List<DocWriteRequest<?>> requests = request.requests();
+                for (int i = 0; i < requests.size(); i++) {
+                    final DocWriteRequest<?> docWriteRequest = requests.get(i);
+                    responses.set(offset + i, BulkItemResponse.failure(offset + i, docWriteRequest.opType(),
+                        new BulkItemResponse.Failure(docWriteRequest.index(), docWriteRequest.id(), e)));
+                }
+                inFlight--;
+            }
+            drain();
+        }
+    }
+}
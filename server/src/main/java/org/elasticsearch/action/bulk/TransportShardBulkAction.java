@@ -156,7 +156,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             private final Executor executor = threadPool.executor(executorName);
 
-            private final BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(request, primary);
+            private final BulkPrimaryExecutionContext context =
+                new BulkPrimaryExecutionContext(request, primary, BulkItemParser.start(request, primary, executor));
 
             final long startBulkTime = System.nanoTime();
 
@@ -277,7 +278,8 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             final SourceToParse sourceToParse = new SourceToParse(request.index(), request.id(), request.source(),
                 request.getContentType(), request.routing(), request.getDynamicTemplates());
             result = primary.applyIndexOperationOnPrimary(version, request.versionType(), sourceToParse,
-                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry());
+                    request.ifSeqNo(), request.ifPrimaryTerm(), request.getAutoGeneratedTimestamp(), request.isRetry(),
+                    context.takePreParsedDocument());
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
 
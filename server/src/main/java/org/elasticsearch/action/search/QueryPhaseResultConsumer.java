@@ -11,6 +11,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -48,6 +49,10 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * Partial reduces run on the provided executor. By default they run one at a time, each one folding the
+ * previous partial result into the next batch. When more than one concurrent partial reduce is allowed,
+ * batches are reduced in parallel into independent partial results that are merged together by the
+ * following partial reduces and by the final reduce.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -68,7 +73,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     /**
      * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
-     * as shard results are consumed.
+     * as shard results are consumed, one partial reduce at a time.
      */
     public QueryPhaseResultConsumer(SearchRequest request,
                                     Executor executor,
@@ -78,7 +83,28 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                                     SearchProgressListener progressListener,
                                     int expectedResultSize,
                                     Consumer<Exception> onPartialMergeFailure) {
+        this(request, executor, circuitBreaker, controller, isCanceled, progressListener, expectedResultSize,
+            onPartialMergeFailure, 1);
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed, running up to <code>maxConcurrentPartialReduces</code> partial
+     * reduces in parallel.
+     */
+    public QueryPhaseResultConsumer(SearchRequest request,
+                                    Executor executor,
+                                    CircuitBreaker circuitBreaker,
+                                    SearchPhaseController controller,
+                                    Supplier<Boolean> isCanceled,
+                                    SearchProgressListener progressListener,
+                                    int expectedResultSize,
+                                    Consumer<Exception> onPartialMergeFailure,
+                                    int maxConcurrentPartialReduces) {
         super(expectedResultSize);
+        if (maxConcurrentPartialReduces < 1) {
+            throw new IllegalArgumentException("maxConcurrentPartialReduces must be >= 1 but was [" + maxConcurrentPartialReduces + "]");
+        }
         this.executor = executor;
         this.circuitBreaker = circuitBreaker;
         this.controller = controller;
@@ -92,7 +118,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
         int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize)  : expectedResultSize;
-        this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
+        this.pendingMerges = new PendingMerges(batchReduceSize, maxConcurrentPartialReduces, request.resolveTrackTotalHitsUpTo());
     }
 
     @Override
@@ -143,22 +169,32 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         return reducePhase;
     }
 
+    /**
+     * Reduces a batch of shard results together with the partial results of previous reduces.
+     *
+     * @param notifyProgress whether the new partial result covers all the shard results consumed so far
+     *                       and should be reported to the {@link SearchProgressListener}
+     */
     private MergeResult partialReduce(QuerySearchResult[] toConsume,
                                       List<SearchShard> emptyResults,
                                       TopDocsStats topDocsStats,
-                                      MergeResult lastMerge,
-                                      int numReducePhases) {
+                                      List<MergeResult> lastMerges,
+                                      int numReducePhases,
+                                      boolean notifyProgress) {
         // ensure consistent ordering
         Arrays.sort(toConsume, Comparator.comparingInt(QuerySearchResult::getShardIndex));
 
-        for (QuerySearchResult result : toConsume) {
-            topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+        // concurrent partial reduces share the stats
+        synchronized (topDocsStats) {
+            for (QuerySearchResult result : toConsume) {
+                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+            }
         }
 
         final TopDocs newTopDocs;
         if (hasTopDocs) {
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 topDocsList.add(lastMerge.reducedTopDocs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -176,7 +212,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         final InternalAggregations newAggs;
         if (hasAggs) {
             List<InternalAggregations> aggsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 aggsList.add(lastMerge.reducedAggs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -187,14 +223,20 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             newAggs = null;
         }
         List<SearchShard> processedShards = new ArrayList<>(emptyResults);
-        if (lastMerge != null) {
+        for (MergeResult lastMerge : lastMerges) {
             processedShards.addAll(lastMerge.processedShards);
         }
         for (QuerySearchResult result : toConsume) {
             SearchShardTarget target = result.getSearchShardTarget();
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
-        progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+        if (notifyProgress) {
+            final TotalHits totalHits;
+            synchronized (topDocsStats) {
+                totalHits = topDocsStats.getTotalHits();
+            }
+            progressListener.notifyPartialReduce(processedShards, totalHits, newAggs, numReducePhases);
+        }
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
         long serializedSize = hasAggs ? DelayableWriteable.getSerializedSize(newAggs) : 0;
@@ -207,6 +249,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     private class PendingMerges implements Releasable {
         private final int batchReduceSize;
+        private final int maxConcurrentMerges;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
         private final List<SearchShard> emptyResults = new ArrayList<>();
         // the memory that is accounted in the circuit breaker for this consumer
@@ -216,16 +259,18 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private volatile long maxAggsCurrentBufferSize = 0;
 
         private final ArrayDeque<MergeTask> queue = new ArrayDeque<>();
-        private final AtomicReference<MergeTask> runningTask = new AtomicReference<>();
+        private final List<MergeTask> runningTasks = new ArrayList<>();
         private final AtomicReference<Exception> failure = new AtomicReference<>();
 
         private final TopDocsStats topDocsStats;
-        private volatile MergeResult mergeResult;
+        // the partial results that are not merged yet, at most one per concurrent merge
+        private final List<MergeResult> mergeResults = new ArrayList<>();
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
 
-        PendingMerges(int batchReduceSize, int trackTotalHitsUpTo) {
+        PendingMerges(int batchReduceSize, int maxConcurrentMerges, int trackTotalHitsUpTo) {
             this.batchReduceSize = batchReduceSize;
+            this.maxConcurrentMerges = maxConcurrentMerges;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
         }
 
@@ -249,8 +294,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             return failure.get() != null;
         }
 
-        boolean hasPendingMerges() {
-            return queue.isEmpty() == false || runningTask.get() != null;
+        synchronized boolean hasPendingMerges() {
+            return queue.isEmpty() == false || runningTasks.isEmpty() == false;
         }
 
         void sortBuffer() {
@@ -352,15 +397,15 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             failure.compareAndSet(null, exc);
             final List<Releasable> toCancels = new ArrayList<>();
             toCancels.add(() -> onPartialMergeFailure.accept(exc));
-            final MergeTask task = runningTask.getAndSet(null);
-            if (task != null) {
+            for (MergeTask task : runningTasks) {
                 toCancels.add(task::cancel);
             }
+            runningTasks.clear();
             MergeTask mergeTask;
             while ((mergeTask = queue.pollFirst()) != null) {
                 toCancels.add(mergeTask::cancel);
             }
-            mergeResult = null;
+            mergeResults.clear();
             Releasables.close(toCancels);
         }
 
@@ -369,37 +414,54 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 if (hasFailure()) {
                     return;
                 }
-                runningTask.compareAndSet(task, null);
-                mergeResult = newResult;
+                runningTasks.remove(task);
+                mergeResults.add(newResult);
                 if (hasAggs) {
                     // Update the circuit breaker to remove the size of the source aggregations
                     // and replace the estimation with the serialized size of the newly reduced result.
-                    long newSize = mergeResult.estimatedSize - estimatedSize;
+                    long newSize = newResult.estimatedSize - estimatedSize;
                     addWithoutBreaking(newSize);
                     logger.trace("aggs partial reduction [{}->{}] max [{}]",
-                        estimatedSize, mergeResult.estimatedSize, maxAggsCurrentBufferSize);
+                        estimatedSize, newResult.estimatedSize, maxAggsCurrentBufferSize);
                 }
                 task.consumeListener();
             }
         }
 
+        private synchronized int incrementReducePhases() {
+            return ++numReducePhases;
+        }
+
         private void tryExecuteNext() {
-            final MergeTask task;
-            synchronized (this) {
-                if (queue.isEmpty()
-                        || hasFailure()
-                        || runningTask.get() != null) {
-                    return;
+            while (true) {
+                final MergeTask task;
+                final List<MergeResult> lastMerges;
+                final boolean isCumulative;
+                synchronized (this) {
+                    if (queue.isEmpty()
+                            || hasFailure()
+                            || runningTasks.size() >= maxConcurrentMerges) {
+                        return;
+                    }
+                    task = queue.poll();
+                    // a merge that starts while no other merge is running folds every result consumed so far
+                    isCumulative = runningTasks.isEmpty();
+                    runningTasks.add(task);
+                    lastMerges = new ArrayList<>(mergeResults);
+                    mergeResults.clear();
                 }
-                task = queue.poll();
-                runningTask.compareAndSet(null, task);
+                executeMerge(task, lastMerges, isCumulative);
             }
+        }
 
+        private void executeMerge(MergeTask task, List<MergeResult> lastMerges, boolean isCumulative) {
             executor.execute(new AbstractRunnable() {
                 @Override
                 protected void doRun() {
-                    final MergeResult thisMergeResult = mergeResult;
-                    long estimatedTotalSize = (thisMergeResult != null ? thisMergeResult.estimatedSize : 0) + task.aggsBufferSize;
+                    long estimatedTotalSize = task.aggsBufferSize;
+                    for (MergeResult lastMerge : lastMerges) {
+                        estimatedTotalSize += lastMerge.estimatedSize;
+                    }
                     final MergeResult newMerge;
                     final QuerySearchResult[] toConsume = task.consumeBuffer();
                     if (toConsume == null) {
@@ -409,8 +471,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         long estimatedMergeSize = estimateRamBytesUsedForReduce(estimatedTotalSize);
                         addEstimateAndMaybeBreak(estimatedMergeSize);
                         estimatedTotalSize += estimatedMergeSize;
-                        ++ numReducePhases;
-                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
+                        int reducePhase = incrementReducePhases();
+                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, lastMerges, reducePhase, isCumulative);
                     } catch (Exception t) {
                         for (QuerySearchResult result : toConsume) {
                             result.releaseAggs();
@@ -441,7 +503,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 return Collections.emptyList();
             }
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (mergeResult != null) {
+            for (MergeResult mergeResult : mergeResults) {
                 topDocsList.add(mergeResult.reducedTopDocs);
             }
             for (QuerySearchResult result : buffer) {
@@ -457,7 +519,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 return Collections.emptyList();
             }
             List<InternalAggregations> aggsList = new ArrayList<>();
-            if (mergeResult != null) {
+            for (MergeResult mergeResult : mergeResults) {
                 aggsList.add(mergeResult.reducedAggs);
             }
             for (QuerySearchResult result : buffer) {
@@ -646,8 +646,23 @@ public final class SearchPhaseController {
                                                    SearchRequest request,
                                                    int numShards,
                                                    Consumer<Exception> onPartialMergeFailure) {
+        return newSearchPhaseResults(executor, circuitBreaker, isCanceled, listener, request, numShards, onPartialMergeFailure, 1);
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally,
+     * running up to <code>maxConcurrentPartialReduces</code> partial reduces concurrently.
+     */
+    QueryPhaseResultConsumer newSearchPhaseResults(Executor executor,
+                                                   CircuitBreaker circuitBreaker,
+                                                   Supplier<Boolean> isCanceled,
+                                                   SearchProgressListener listener,
+                                                   SearchRequest request,
+                                                   int numShards,
+                                                   Consumer<Exception> onPartialMergeFailure,
+                                                   int maxConcurrentPartialReduces) {
         return new QueryPhaseResultConsumer(request, executor, circuitBreaker,
-            this, isCanceled, listener, numShards, onPartialMergeFailure);
+            this, isCanceled, listener, numShards, onPartialMergeFailure, maxConcurrentPartialReduces);
     }
 
     static final class TopDocsStats {
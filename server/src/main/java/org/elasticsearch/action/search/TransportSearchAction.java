@@ -109,6 +109,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     public static final Setting<Integer> DEFAULT_PRE_FILTER_SHARD_SIZE = Setting.intSetting(
         "action.search.pre_filter_shard_size.default", SearchRequest.DEFAULT_PRE_FILTER_SHARD_SIZE, 1, Property.NodeScope);
 
+    /**
+     * The maximum number of partial reduces of shard results that a search request may run concurrently on the coordinating node.
+     */
+    public static final Setting<Integer> MAX_CONCURRENT_PARTIAL_REDUCES = Setting.intSetting(
+        "action.search.max_concurrent_partial_reduces", 1, 1, Property.Dynamic, Property.NodeScope);
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final SearchTransportService searchTransportService;
@@ -120,6 +126,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final CircuitBreaker circuitBreaker;
     private final ExecutorSelector executorSelector;
     private final int defaultPreFilterShardSize;
+    private volatile int maxConcurrentPartialReduces;
 
     @Inject
     public TransportSearchAction(ThreadPool threadPool,
@@ -146,6 +153,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.executorSelector = executorSelector;
         this.defaultPreFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE.get(clusterService.getSettings());
+        this.maxConcurrentPartialReduces = MAX_CONCURRENT_PARTIAL_REDUCES.get(clusterService.getSettings());
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_CONCURRENT_PARTIAL_REDUCES, this::setMaxConcurrentPartialReduces);
+    }
+
+    private void setMaxConcurrentPartialReduces(int maxConcurrentPartialReduces) {
+        this.maxConcurrentPartialReduces = maxConcurrentPartialReduces;
     }
 
     private Map<String, OriginalIndices> buildPerIndexOriginalIndices(ClusterState clusterState,
@@ -872,7 +885,8 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         } else {
             final QueryPhaseResultConsumer queryResultConsumer = searchPhaseController.newSearchPhaseResults(executor,
                 circuitBreaker, task::isCancelled, task.getProgressListener(), searchRequest, shardIterators.size(),
-                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"));
+                exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]"),
+                maxConcurrentPartialReduces);
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction;
             switch (searchRequest.searchType()) {
                 case DFS_QUERY_THEN_FETCH:
@@ -25,6 +25,8 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.FairWriteScheduler;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperParsingException;
@@ -79,6 +81,20 @@ public abstract class TransportWriteAction<
         return executorFunction.apply(executorSelector, shard);
     }
 
+    /**
+     * Executes an operation on the executor of the shard, through the {@link FairWriteScheduler} if the node schedules the operations
+     * on the write executor fairly across indices.
+     */
+    private void execute(IndexShard shard, AbstractRunnable operation) {
+        final String executor = executor(shard);
+        final FairWriteScheduler writeScheduler = indexingPressure.writeScheduler();
+        if (writeScheduler != null && ThreadPool.Names.WRITE.equals(executor)) {
+            writeScheduler.execute(shard, operation);
+        } else {
+            threadPool.executor(executor).execute(operation);
+        }
+    }
+
     @Override
     protected Releasable checkOperationLimits(Request request) {
         return indexingPressure.markPrimaryOperationStarted(primaryOperationCount(request), primaryOperationSize(request), force(request));
@@ -175,7 +191,7 @@ public abstract class TransportWriteAction<
     @Override
     protected void shardOperationOnPrimary(
             Request request, IndexShard primary, ActionListener<PrimaryResult<ReplicaRequest, Response>> listener) {
-        threadPool.executor(executorFunction.apply(executorSelector, primary)).execute(new ActionRunnable<>(listener) {
+        execute(primary, new ActionRunnable<>(listener) {
             @Override
             protected void doRun() {
                 dispatchedShardOperationOnPrimary(request, primary, listener);
@@ -200,7 +216,7 @@ public abstract class TransportWriteAction<
      */
     @Override
     protected void shardOperationOnReplica(ReplicaRequest request, IndexShard replica, ActionListener<ReplicaResult> listener) {
-        threadPool.executor(executorFunction.apply(executorSelector, replica)).execute(new ActionRunnable<>(listener) {
+        execute(replica, new ActionRunnable<>(listener) {
             @Override
             protected void doRun() {
                 dispatchedShardOperationOnReplica(request, replica, listener);
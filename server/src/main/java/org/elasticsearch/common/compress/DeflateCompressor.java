@@ -36,11 +36,40 @@ public class DeflateCompressor implements Compressor {
     // a XContent
     private static final byte[] HEADER = new byte[]{'D', 'F', 'L', '\0'};
     // 3 is a good trade-off between speed and compression ratio
-    private static final int LEVEL = 3;
+    public static final int DEFAULT_LEVEL = 3;
     // We use buffering on the input and output of in/def-laters in order to
     // limit the number of JNI calls
     private static final int BUFFER_SIZE = 4096;
 
+    private final int level;
+
+    // Reusable deflater reference for streaming compression
+    private final ThreadLocal<ReleasableReference<Deflater>> deflaterForStreamRef;
+
+    // Reusable Deflater reference. Note: This is a separate instance from the one used for the compressing stream wrapper because we
+    // want to be able to deal with compressing bytes references to a decompressing stream.
+    private final ThreadLocal<Deflater> deflaterRef;
+
+    public DeflateCompressor() {
+        this(DEFAULT_LEVEL);
+    }
+
+    /**
+     * Creates a compressor that compresses at the given level, from {@code 0} for no compression to {@code 9} for the smallest output.
+     * Its output is decompressed the same way at every level.
+     */
+    public DeflateCompressor(int level) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level must be >= 0 and <= 9 but was [" + level + "]");
+        }
+        this.level = level;
+        this.deflaterForStreamRef = ThreadLocal.withInitial(() -> {
+            final Deflater deflater = new Deflater(level, true);
+            return new ReleasableReference<>(deflater, deflater::reset);
+        });
+        this.deflaterRef = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    }
+
     @Override
     public boolean isCompressed(BytesReference bytes) {
         if (bytes.length() < HEADER.length) {
@@ -65,12 +94,6 @@ public class DeflateCompressor implements Compressor {
         return new ReleasableReference<>(inflater, inflater::reset);
     });
 
-    // Reusable deflater reference for streaming compression
-    private static final ThreadLocal<ReleasableReference<Deflater>> deflaterForStreamRef = ThreadLocal.withInitial(() -> {
-        final Deflater deflater = new Deflater(LEVEL, true);
-        return new ReleasableReference<>(deflater, deflater::reset);
-    });
-
     // Reference to a deflater or inflater that is used to make sure we do not use the same stream twice when nesting streams.
     private static final class ReleasableReference<T> implements Releasable {
 
@@ -179,7 +202,7 @@ public class DeflateCompressor implements Compressor {
         final Deflater deflater;
         if (current.inUse) {
             // Nested compression streams should not happen but we still handle them safely by using a fresh Deflater
-            deflater = new Deflater(LEVEL, true);
+            deflater = new Deflater(level, true);
             releasable = deflater::end;
         } else {
             deflater = current.get();
@@ -221,10 +244,6 @@ public class DeflateCompressor implements Compressor {
         return res;
     }
 
-    // Reusable Deflater reference. Note: This is a separate instance from the one used for the compressing stream wrapper because we
-    // want to be able to deal with compressing bytes references to a decompressing stream.
-    private static final ThreadLocal<Deflater> deflaterRef = ThreadLocal.withInitial(() -> new Deflater(LEVEL, true));
-
     @Override
     public BytesReference compress(BytesReference bytesReference) throws IOException {
         final BytesStreamOutput buffer = baos.get();
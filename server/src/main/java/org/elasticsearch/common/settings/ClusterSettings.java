@@ -68,6 +68,7 @@ import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.engine.NodeMergeScheduler;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
@@ -213,6 +214,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
             RecoverySettings.INDICES_RECOVERY_INTERNAL_ACTION_TIMEOUT_SETTING,
             RecoverySettings.INDICES_RECOVERY_INTERNAL_LONG_ACTION_TIMEOUT_SETTING,
             RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING,
+            RecoverySettings.INDICES_RECOVERY_FILE_RANGE_SIZE_SETTING,
+            RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING,
             RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING,
             RecoverySettings.INDICES_RECOVERY_USE_SNAPSHOTS_SETTING,
             RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS,
@@ -296,6 +299,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
             TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
             TransportSearchAction.DEFAULT_PRE_FILTER_SHARD_SIZE,
+            TransportSearchAction.MAX_CONCURRENT_PARTIAL_REDUCES,
             RemoteClusterService.REMOTE_CLUSTER_SKIP_UNAVAILABLE,
             SniffConnectionStrategy.REMOTE_CONNECTIONS_PER_CLUSTER,
             RemoteClusterService.REMOTE_INITIAL_CONNECTION_TIMEOUT_SETTING,
@@ -409,6 +413,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             SearchService.LOW_LEVEL_CANCELLATION_SETTING,
             SearchService.MAX_OPEN_SCROLL_CONTEXT,
             SearchService.ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER,
+            SearchService.CONCURRENT_SEGMENT_SEARCH_ENABLED,
             SearchService.MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING,
             Node.WRITE_PORTS_FILE_SETTING,
             Node.NODE_NAME_SETTING,
@@ -440,6 +445,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
             PageCacheRecycler.WEIGHT_LONG_SETTING,
             PageCacheRecycler.WEIGHT_OBJECTS_SETTING,
             PageCacheRecycler.TYPE_SETTING,
+            PageCacheRecycler.OFF_HEAP_SETTING,
+            PageCacheRecycler.LIMIT_DIRECT_SETTING,
             PluginsService.MANDATORY_SETTING,
             BootstrapSettings.SECURITY_FILTER_BAD_DEFAULTS_SETTING,
             BootstrapSettings.MEMORY_LOCK_SETTING,
@@ -450,6 +457,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
             IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
             IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
             IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+            IndexingMemoryController.ADAPTIVE_INDEX_BUFFER_SETTING,
             ResourceWatcherService.ENABLED,
             ResourceWatcherService.RELOAD_INTERVAL_HIGH,
             ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -491,6 +499,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
             FsHealthService.REFRESH_INTERVAL_SETTING,
             FsHealthService.SLOW_PATH_LOGGING_THRESHOLD_SETTING,
             IndexingPressure.MAX_INDEXING_BYTES,
+            IndexingPressure.FAIR_SCHEDULING_ENABLED,
+            NodeMergeScheduler.ENABLED_SETTING,
+            NodeMergeScheduler.MAX_CONCURRENT_MERGES_SETTING,
+            NodeMergeScheduler.MIN_BYTES_PER_SEC_SETTING,
             ShardLimitValidator.SETTING_CLUSTER_MAX_SHARDS_PER_NODE_FROZEN,
             DataTier.ENFORCE_DEFAULT_TIER_PREFERENCE_SETTING
         );
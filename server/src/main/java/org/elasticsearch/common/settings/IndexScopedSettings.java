@@ -99,6 +99,10 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSortConfig.INDEX_SORT_MISSING_SETTING,
             IndexSortConfig.INDEX_SORT_MODE_SETTING,
             IndexSettings.INDEX_TRANSLOG_DURABILITY_SETTING,
+            IndexSettings.INDEX_TRANSLOG_GROUP_COMMIT_SETTING,
+            IndexSettings.INDEX_TRANSLOG_MMAP_SETTING,
+            IndexSettings.INDEX_BULK_PARSE_AHEAD_THREADS_SETTING,
+            IndexSettings.INDEX_WRITE_QUEUE_WEIGHT_SETTING,
             IndexSettings.INDEX_WARMER_ENABLED_SETTING,
             IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
             IndexSettings.MAX_RESULT_WINDOW_SETTING,
@@ -121,10 +125,12 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSettings.MAX_REGEX_LENGTH_SETTING,
             ShardsLimitAllocationDecider.INDEX_TOTAL_SHARDS_PER_NODE_SETTING,
             IndexSettings.INDEX_GC_DELETES_SETTING,
+            IndexSettings.INDEX_COMPACT_VERSION_MAP_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING,
             IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING,
+            IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING,
             UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING,
             EnableAllocationDecider.INDEX_ROUTING_REBALANCE_ENABLE_SETTING,
             EnableAllocationDecider.INDEX_ROUTING_ALLOCATION_ENABLE_SETTING,
@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Common implementation for big arrays of 8 byte values whose pages are direct {@link ByteBuffer}s so the values live outside of the
+ * heap. The pages come from the {@link PageCacheRecycler} and go back to it on release, which frees the pages it does not keep for reuse.
+ */
+abstract class AbstractDirectBigArray extends AbstractBigArray {
+
+    private static final int SHIFT = 3;
+
+    protected ByteBuffer[] pages;
+
+    protected AbstractDirectBigArray(int pageSize, long size, BigArrays bigArrays, boolean clearOnResize) {
+        super(pageSize, bigArrays, clearOnResize);
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        for (int i = 0; i < pages.length; ++i) {
+            pages[i] = newDirectPage(i);
+        }
+    }
+
+    /** The offset of the value at the given index in its page. */
+    final int offsetInPage(long index) {
+        return indexInPage(index) << SHIFT;
+    }
+
+    @Override
+    protected final int numBytesPerElement() {
+        return 1 << SHIFT;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    @Override
+    public final void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            pages[i] = newDirectPage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            releasePage(i);
+        }
+        this.size = newSize;
+    }
+
+    /**
+     * Bulk copies the values encoded in native byte order in the given array to this array.
+     */
+    public final void set(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        int indexInPage = indexInPage(index);
+        while (len > 0) {
+            final int copyLen = Math.min(len, pageSize() - indexInPage);
+            // copy through a duplicate so that the position of the shared page is left alone
+            final ByteBuffer page = pages[pageIndex].duplicate();
+            page.position(indexInPage << SHIFT);
+            page.put(buf, offset << SHIFT, copyLen << SHIFT);
+            ++pageIndex;
+            indexInPage = 0;
+            offset += copyLen;
+            len -= copyLen;
+        }
+    }
+}
@@ -466,6 +466,13 @@ public class BigArrays {
         return new BigArrays(recycler, breakerService, breakerName, checkBreaker);
     }
 
+    /**
+     * Whether large arrays of longs and doubles are stored in direct memory, see {@link PageCacheRecycler#OFF_HEAP_SETTING}.
+     */
+    private boolean isOffHeap() {
+        return recycler != null && recycler.isOffHeap();
+    }
+
     public CircuitBreakerService breakerService() {   // TODO this feels like it is for tests but it has escaped
         return this.circuitBreakingInstance.breakerService;
     }
@@ -636,6 +643,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigLongArray.estimateRamBytes(size), false);
+            if (isOffHeap()) {
+                return new DirectBigLongArray(size, this, clearOnResize);
+            }
             return new BigLongArray(size, this, clearOnResize);
         } else {
             return validate(new ByteArrayAsLongArrayWrapper(this, size, clearOnResize));
@@ -654,6 +664,8 @@ public class BigArrays {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof DirectBigLongArray) {
+            return resizeInPlace((DirectBigLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -683,6 +695,9 @@ public class BigArrays {
             // when allocating big arrays, we want to first ensure we have the capacity by
             // checking with the circuit breaker before attempting to allocate
             adjustBreaker(BigDoubleArray.estimateRamBytes(size), false);
+            if (isOffHeap()) {
+                return new DirectBigDoubleArray(size, this, clearOnResize);
+            }
             return new BigDoubleArray(size, this, clearOnResize);
         } else {
             return validate(new ByteArrayAsDoubleArrayWrapper(this, size, clearOnResize));
@@ -698,6 +713,8 @@ public class BigArrays {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof DirectBigDoubleArray) {
+            return resizeInPlace((DirectBigDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
@@ -14,9 +14,12 @@ import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
 
@@ -41,6 +44,15 @@ public class PageCacheRecycler {
     // object pages are less useful to us so we give them a lower weight by default
     public static final Setting<Double> WEIGHT_OBJECTS_SETTING  =
         Setting.doubleSetting("cache.recycler.page.weight.objects", 0.1d, 0d, Property.NodeScope);
+    /**
+     * Whether {@link BigArrays} should store large arrays of longs and doubles in direct memory
+     * rather than on the heap.
+     */
+    public static final Setting<Boolean> OFF_HEAP_SETTING =
+        Setting.boolSetting("cache.recycler.page.off_heap", false, Property.NodeScope);
+    /** The maximum amount of direct memory that is kept around for reuse when pages are off heap. */
+    public static final Setting<ByteSizeValue> LIMIT_DIRECT_SETTING =
+        Setting.byteSizeSetting("cache.recycler.page.limit.direct", new ByteSizeValue(64, ByteSizeUnit.MB), Property.NodeScope);
 
     /** Page size in bytes: 16KB */
     public static final int PAGE_SIZE_IN_BYTES = 1 << 14;
@@ -53,6 +65,8 @@ public class PageCacheRecycler {
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<Object[]> objectPage;
+    private final boolean offHeap;
+    private final Recycler<ByteBuffer> directPage;
 
     public static final PageCacheRecycler NON_RECYCLING_INSTANCE;
 
@@ -98,6 +112,34 @@ public class PageCacheRecycler {
         });
 
         assert PAGE_SIZE_IN_BYTES * (maxBytePageCount + maxObjectPageCount) <= limit;
+
+        offHeap = OFF_HEAP_SETTING.get(settings);
+        if (offHeap) {
+            // direct pages don't count against the heap limit
+            final long directLimit = LIMIT_DIRECT_SETTING.get(settings).getBytes();
+            final int maxDirectPageCount = (int) Math.min(Integer.MAX_VALUE, directLimit / PAGE_SIZE_IN_BYTES);
+            // pages that aren't kept for reuse are freed when they are garbage collected, freeing them explicitly would turn a use
+            // of a page after it was released into a crash of the JVM
+            directPage = build(type, maxDirectPageCount, allocatedProcessors, new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance() {
+                    return ByteBuffer.allocateDirect(PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do
+                }
+            });
+        } else {
+            directPage = null;
+        }
+    }
+
+    /**
+     * Whether pages of primitive values should be allocated in direct memory with {@link #directPage(boolean)}.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -108,6 +150,22 @@ public class PageCacheRecycler {
         return v;
     }
 
+    /**
+     * Returns a page of {@link #PAGE_SIZE_IN_BYTES} bytes of direct memory in native byte order.
+     * Only available when {@link #isOffHeap() off heap} pages are enabled.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        assert offHeap : "off heap pages are disabled";
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v();
+            for (int i = 0; i < PAGE_SIZE_IN_BYTES; i += Long.BYTES) {
+                page.putLong(i, 0L);
+            }
+        }
+        return v;
+    }
+
     public Recycler.V<Object[]> objectPage() {
         // object pages are cleared on release anyway
         return objectPage.obtain();
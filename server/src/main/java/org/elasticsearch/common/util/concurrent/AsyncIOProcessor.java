@@ -8,6 +8,7 @@
 package org.elasticsearch.common.util.concurrent;
 
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 
 import java.io.IOException;
@@ -15,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -24,7 +26,10 @@ import java.util.function.Supplier;
  * This can be used to ensure that threads can continue with other work while the actual IO operation is still processed
  * by a single worker. A worker in this context can be any caller of the {@link #put(Object, Consumer)} method since it will
  * hijack a worker if nobody else is currently processing queued items. If the internal queue has reached it's capacity incoming threads
- * might be blocked until other items are processed
+ * might be blocked until other items are processed.
+ * <p>
+ * If {@link #executor()} returns an executor callers are never hijacked. Instead a single task on that executor processes
+ * the queued items in batches and notifies their listeners, so callers only block when the queue is full.
  */
 public abstract class AsyncIOProcessor<Item> {
     private final Logger logger;
@@ -44,6 +49,18 @@ public abstract class AsyncIOProcessor<Item> {
     public final void put(Item item, Consumer<Exception> listener) {
         Objects.requireNonNull(item, "item must not be null");
         Objects.requireNonNull(listener, "listener must not be null");
+        final Executor executor = executor();
+        if (executor != null) {
+            try {
+                queue.put(new Tuple<>(item, preserveContext(listener)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                listener.accept(e);
+                return;
+            }
+            forkProcessing(executor);
+            return;
+        }
         // the algorithm here tires to reduce the load on each individual caller.
         // we try to have only one caller that processes pending items to disc while others just add to the queue but
         // at the same time never overload the node by pushing too many items into the queue.
@@ -78,6 +95,58 @@ public abstract class AsyncIOProcessor<Item> {
         }
     }
 
+    /**
+     * Forks a task that processes the queued items unless another task or caller already made the promise to process them.
+     */
+    private void forkProcessing(Executor executor) {
+        if (promiseSemaphore.tryAcquire() == false) {
+            return;
+        }
+        final AbstractRunnable processTask = new AbstractRunnable() {
+            @Override
+            protected void doRun() {
+                final List<Tuple<Item, Consumer<Exception>>> candidates = new ArrayList<>();
+                drainAndProcessAndRelease(candidates);
+                while (queue.isEmpty() == false && promiseSemaphore.tryAcquire()) {
+                    // items were added while we were processing and nobody else made the promise to process them
+                    drainAndProcessAndRelease(candidates);
+                }
+            }
+
+            @Override
+            public void onRejection(Exception e) {
+                // we still hold the promise if the task was rejected so the queued items have to be failed here
+                final List<Tuple<Item, Consumer<Exception>>> candidates = new ArrayList<>();
+                try {
+                    queue.drainTo(candidates);
+                } finally {
+                    promiseSemaphore.release();
+                }
+                notifyList(candidates, e);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // processing and notifying never throw, failures are passed to the listeners
+                assert false : e;
+                logger.warn("failed to process items", e);
+            }
+        };
+        // the listeners restore their own context so the task must not leak the context of the caller that forked it
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            executor.execute(processTask);
+        }
+    }
+
+    /**
+     * Returns the executor to process items on or {@code null} if items should be processed by the callers of
+     * {@link #put(Object, Consumer)}. Checked on every call so implementations can switch between both.
+     */
+    @Nullable
+    protected Executor executor() {
+        return null;
+    }
+
     private void drainAndProcessAndRelease(List<Tuple<Item, Consumer<Exception>>> candidates) {
         Exception exception;
         try {
@@ -0,0 +1,251 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.shard.IndexShard;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Schedules the shard level write operations of all indices on the write executor so that indices with many queued operations
+ * don't hold up the operations of other indices. The operations are kept in one queue per index and the scheduler never hands
+ * more operations to the executor than it has threads, so operations wait here rather than in the queue of the executor. Whenever
+ * a thread frees up the queues are served round-robin, each index gets to run as many operations in a row as its
+ * {@link IndexSettings#INDEX_WRITE_QUEUE_WEIGHT_SETTING weight}.
+ * <p>
+ * Once as many operations are queued as the queue of the executor holds, operations that aren't forced are rejected, but only for
+ * the indices that already queued more than their weighted share of that capacity.
+ * <p>
+ * Operations run with the thread context they were submitted with rather than the context of the thread that happens to hand them
+ * to the executor, which is usually the thread of an operation of another request that just completed.
+ */
+public final class FairWriteScheduler {
+
+    private final Executor executor;
+    private final ThreadContext threadContext;
+    private final int maxRunning;
+    private final int maxQueued;
+    private final Runnable onRejection;
+    /** The number of times {@link #dispatch()} was called and not handled yet, only the caller that brings it above 0 dispatches */
+    private final AtomicInteger pendingDispatches = new AtomicInteger();
+
+    // all fields below are guarded by this
+    private final Map<Object, IndexQueue> queues = new HashMap<>();
+    /** The indices with queued operations in the order they are served, the head is served next */
+    private final ArrayDeque<IndexQueue> rotation = new ArrayDeque<>();
+    private long totalWeight;
+    private int queued;
+    private int running;
+
+    /**
+     * @param maxRunning  the number of operations to run on the executor at the same time, the number of threads of the executor
+     * @param maxQueued   the number of operations that can be queued before operations of the indices over their share are rejected
+     * @param onRejection called whenever an operation is rejected
+     */
+    FairWriteScheduler(Executor executor, ThreadContext threadContext, int maxRunning, int maxQueued, Runnable onRejection) {
+        if (maxRunning <= 0) {
+            throw new IllegalArgumentException("maxRunning must be positive but was [" + maxRunning + "]");
+        }
+        this.executor = executor;
+        this.threadContext = threadContext;
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+        this.onRejection = onRejection;
+    }
+
+    /**
+     * Executes the given write operation on the shard once it is the turn of the index of the shard.
+     */
+    public void execute(IndexShard shard, AbstractRunnable operation) {
+        execute(shard.shardId().getIndex(), shard.indexSettings().getWriteQueueWeight(), shard::addWriteQueueTime, operation);
+    }
+
+    void execute(Object key, int weight, LongConsumer queueTimeConsumer, AbstractRunnable operation) {
+        final EsRejectedExecutionException rejection;
+        synchronized (this) {
+            IndexQueue queue = queues.get(key);
+            final int queuedForIndex = queue == null ? 0 : queue.operations.size();
+            final long totalWeightWithIndex = totalWeight - (queue == null ? 0 : queue.weight) + weight;
+            final long share = Math.max(1L, (long) maxQueued * weight / totalWeightWithIndex);
+            if (operation.isForceExecution() == false && queued >= maxQueued && queuedForIndex >= share) {
+                rejection = new EsRejectedExecutionException("rejected execution of write operation on [" + key + "] [queued="
+                    + queued + ", queued_for_index=" + queuedForIndex + ", share_of_index=" + share + "]", false);
+            } else {
+                rejection = null;
+                if (queue == null) {
+                    queue = new IndexQueue(key);
+                    queues.put(key, queue);
+                    rotation.addLast(queue);
+                } else {
+                    totalWeight -= queue.weight;
+                }
+                queue.weight = weight;
+                totalWeight += weight;
+                queue.operations.add(
+                    new QueuedOperation(operation, threadContext.newRestorableContext(false), queueTimeConsumer, System.nanoTime())
+                );
+                queued++;
+            }
+        }
+        if (rejection != null) {
+            onRejection.run();
+            try {
+                operation.onRejection(rejection);
+            } finally {
+                operation.onAfter();
+            }
+            return;
+        }
+        dispatch();
+    }
+
+    /**
+     * The number of operations that wait for their turn.
+     */
+    public synchronized int queued() {
+        return queued;
+    }
+
+    private void dispatch() {
+        if (pendingDispatches.getAndIncrement() > 0) {
+            // whoever is dispatching already will do another round, this avoids recursing when the executor rejects operations
+            return;
+        }
+        int rounds = 1;
+        do {
+            dispatchOnce();
+            rounds = pendingDispatches.addAndGet(-rounds);
+        } while (rounds > 0);
+    }
+
+    private void dispatchOnce() {
+        while (true) {
+            final QueuedOperation next;
+            synchronized (this) {
+                if (running >= maxRunning || rotation.isEmpty()) {
+                    return;
+                }
+                next = poll();
+                running++;
+            }
+            next.queueTimeConsumer.accept(System.nanoTime() - next.queuedNanos);
+            executor.execute(new Running(next.operation, next.context));
+        }
+    }
+
+    private QueuedOperation poll() {
+        assert Thread.holdsLock(this);
+        final IndexQueue queue = rotation.getFirst();
+        final QueuedOperation next = queue.operations.poll();
+        queued--;
+        if (queue.operations.isEmpty()) {
+            rotation.removeFirst();
+            queues.remove(queue.key);
+            totalWeight -= queue.weight;
+        } else if (++queue.served >= queue.weight) {
+            // the index had its turn
+            queue.served = 0;
+            rotation.addLast(rotation.removeFirst());
+        }
+        return next;
+    }
+
+    private void onDone() {
+        synchronized (this) {
+            running--;
+        }
+        dispatch();
+    }
+
+    private static final class IndexQueue {
+        private final Object key;
+        private final ArrayDeque<QueuedOperation> operations = new ArrayDeque<>();
+        private int weight;
+        /** The number of operations that ran in a row in the current turn of the index */
+        private int served;
+
+        IndexQueue(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static final class QueuedOperation {
+        private final AbstractRunnable operation;
+        /** restores the thread context that the operation was submitted with */
+        private final Supplier<ThreadContext.StoredContext> context;
+        private final LongConsumer queueTimeConsumer;
+        private final long queuedNanos;
+
+        QueuedOperation(
+            AbstractRunnable operation,
+            Supplier<ThreadContext.StoredContext> context,
+            LongConsumer queueTimeConsumer,
+            long queuedNanos
+        ) {
+            this.operation = operation;
+            this.context = context;
+            this.queueTimeConsumer = queueTimeConsumer;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+
+    private final class Running extends AbstractRunnable {
+        private final AbstractRunnable operation;
+        private final Supplier<ThreadContext.StoredContext> context;
+
+        Running(AbstractRunnable operation, Supplier<ThreadContext.StoredContext> context) {
+            this.operation = operation;
+            this.context = context;
+        }
+
+        @Override
+        protected void doRun() {
+            try (ThreadContext.StoredContext ignored = context.get()) {
+                operation.run();
+            }
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return operation.isForceExecution();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            try (ThreadContext.StoredContext ignored = context.get()) {
+                operation.onFailure(e);
+            }
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            try (ThreadContext.StoredContext ignored = context.get()) {
+                try {
+                    operation.onRejection(e);
+                } finally {
+                    operation.onAfter();
+                }
+            }
+        }
+
+        @Override
+        public void onAfter() {
+            onDone();
+        }
+    }
+}
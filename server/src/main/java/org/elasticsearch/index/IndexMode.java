@@ -12,12 +12,16 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.RoutingFieldMapper;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toSet;
@@ -44,6 +48,9 @@ public enum IndexMode {
 
         @Override
         public void validateAlias(@Nullable String indexRouting, @Nullable String searchRouting) {}
+
+        @Override
+        public void validateIndexSortFields(Function<String, MappedFieldType> fieldTypeLookup) {}
     },
     TIME_SERIES {
         @Override
@@ -81,6 +88,37 @@ public enum IndexMode {
             }
         }
 
+        @Override
+        public void validateIndexSortFields(Function<String, MappedFieldType> fieldTypeLookup) {
+            MappedFieldType timestamp = fieldTypeLookup.apply(DataStreamTimestampFieldMapper.DEFAULT_PATH);
+            if (timestamp == null) {
+                throw new IllegalArgumentException(
+                    tsdbMode()
+                        + " requires a ["
+                        + DataStreamTimestampFieldMapper.DEFAULT_PATH
+                        + "] field of type ["
+                        + DateFieldMapper.CONTENT_TYPE
+                        + "] or ["
+                        + DateFieldMapper.DATE_NANOS_CONTENT_TYPE
+                        + "] to sort the index on"
+                );
+            }
+            if (timestamp instanceof DateFieldMapper.DateFieldType == false) {
+                throw new IllegalArgumentException(
+                    tsdbMode()
+                        + " requires the ["
+                        + DataStreamTimestampFieldMapper.DEFAULT_PATH
+                        + "] field to be of type ["
+                        + DateFieldMapper.CONTENT_TYPE
+                        + "] or ["
+                        + DateFieldMapper.DATE_NANOS_CONTENT_TYPE
+                        + "] but was ["
+                        + timestamp.typeName()
+                        + "]"
+                );
+            }
+        }
+
         private String routingRequiredBad() {
             return "routing is forbidden on CRUD operations that target indices in " + tsdbMode();
         }
@@ -115,4 +153,9 @@ public enum IndexMode {
      * Validate aliases targeting this index.
      */
     public abstract void validateAlias(@Nullable String indexRouting, @Nullable String searchRouting);
+
+    /**
+     * Validate that the mapping has the fields that the index sort of this mode is built on.
+     */
+    public abstract void validateIndexSortFields(Function<String, MappedFieldType> fieldTypeLookup);
 }
@@ -69,6 +69,30 @@ public final class IndexSettings {
     public static final Setting<Translog.Durability> INDEX_TRANSLOG_DURABILITY_SETTING =
         Setting.enumSetting(Translog.Durability.class, "index.translog.durability", Translog.Durability.REQUEST,
             Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether translog syncs requested by write operations are batched and run on the
+     * {@link org.elasticsearch.threadpool.ThreadPool.Names#TRANSLOG_SYNC} thread pool instead of on a write thread.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_GROUP_COMMIT_SETTING =
+        Setting.boolSetting("index.translog.group_commit", false, Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether translog generations that are no longer written to are mapped into memory so operations can be read
+     * without copying them out of the file first.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_MMAP_SETTING =
+        Setting.boolSetting("index.translog.mmap", false, Property.Dynamic, Property.IndexScope);
+    /**
+     * The number of additional write threads that parse the documents of a bulk request ahead of the thread that indexes them
+     * into the primary, {@code 0} to parse every document on the indexing thread.
+     */
+    public static final Setting<Integer> INDEX_BULK_PARSE_AHEAD_THREADS_SETTING =
+        Setting.intSetting("index.bulk.parse_ahead_threads", 0, 0, 32, Property.Dynamic, Property.IndexScope);
+    /**
+     * The share of the write threads that operations on the shards of the index get relative to the other indices with queued
+     * operations when {@link IndexingPressure#FAIR_SCHEDULING_ENABLED} is set.
+     */
+    public static final Setting<Integer> INDEX_WRITE_QUEUE_WEIGHT_SETTING =
+        Setting.intSetting("index.write.queue_weight", 1, 1, 100, Property.Dynamic, Property.IndexScope);
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING =
         Setting.boolSetting("index.warmer.enabled", true, Property.Dynamic, Property.IndexScope);
     public static final Setting<String> INDEX_CHECK_ON_STARTUP =
@@ -224,6 +248,14 @@ public final class IndexSettings {
         Setting.timeSetting("index.gc_deletes", DEFAULT_GC_DELETES, new TimeValue(-1, TimeUnit.MILLISECONDS),
             Property.Dynamic, Property.IndexScope);
 
+    /**
+     * Index setting to keep the versions of documents that were indexed since the last refresh in compact paged
+     * arrays instead of one object per document. Saves heap on update heavy workloads at the cost of slightly
+     * slower lookups.
+     */
+    public static final Setting<Boolean> INDEX_COMPACT_VERSION_MAP_SETTING =
+        Setting.boolSetting("index.version_map.compact", false, Property.IndexScope);
+
     /**
      * Specifies if the index should use soft-delete instead of hard-delete for update/delete operations.
      * Soft-deletes is enabled by default for 7.0 indices and mandatory for 8.0 indices.
@@ -383,6 +415,10 @@ public final class IndexSettings {
     private final boolean queryStringAllowLeadingWildcard;
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
+    private volatile boolean translogGroupCommit;
+    private volatile boolean translogMmap;
+    private volatile int bulkParseAheadThreads;
+    private volatile int writeQueueWeight;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
@@ -393,6 +429,7 @@ public final class IndexSettings {
     private final IndexSortConfig indexSortConfig;
     private final IndexScopedSettings scopedSettings;
     private long gcDeletesInMillis = DEFAULT_GC_DELETES.millis();
+    private final boolean compactVersionMap;
     private final boolean softDeleteEnabled;
     private volatile long softDeleteRetentionOperations;
 
@@ -522,6 +559,10 @@ public final class IndexSettings {
         this.queryStringAllowLeadingWildcard = QUERY_STRING_ALLOW_LEADING_WILDCARD.get(nodeSettings);
         this.defaultAllowUnmappedFields = scopedSettings.get(ALLOW_UNMAPPED);
         this.durability = scopedSettings.get(INDEX_TRANSLOG_DURABILITY_SETTING);
+        this.translogGroupCommit = scopedSettings.get(INDEX_TRANSLOG_GROUP_COMMIT_SETTING);
+        this.translogMmap = scopedSettings.get(INDEX_TRANSLOG_MMAP_SETTING);
+        this.bulkParseAheadThreads = scopedSettings.get(INDEX_BULK_PARSE_AHEAD_THREADS_SETTING);
+        this.writeQueueWeight = scopedSettings.get(INDEX_WRITE_QUEUE_WEIGHT_SETTING);
         defaultFields = scopedSettings.get(DEFAULT_FIELD_SETTING);
         syncInterval = INDEX_TRANSLOG_SYNC_INTERVAL_SETTING.get(settings);
         refreshInterval = scopedSettings.get(INDEX_REFRESH_INTERVAL_SETTING);
@@ -530,6 +571,7 @@ public final class IndexSettings {
         flushAfterMergeThresholdSize = scopedSettings.get(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING);
         mergeSchedulerConfig = new MergeSchedulerConfig(this);
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
+        compactVersionMap = scopedSettings.get(INDEX_COMPACT_VERSION_MAP_SETTING);
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
@@ -579,6 +621,10 @@ public final class IndexSettings {
             MergeSchedulerConfig.MAX_MERGE_COUNT_SETTING, mergeSchedulerConfig::setMaxThreadAndMergeCount);
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.AUTO_THROTTLE_SETTING, mergeSchedulerConfig::setAutoThrottle);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_DURABILITY_SETTING, this::setTranslogDurability);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_GROUP_COMMIT_SETTING, this::setTranslogGroupCommit);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_MMAP_SETTING, this::setTranslogMmap);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_PARSE_AHEAD_THREADS_SETTING, this::setBulkParseAheadThreads);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_WRITE_QUEUE_WEIGHT_SETTING, this::setWriteQueueWeight);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_SYNC_INTERVAL_SETTING, this::setTranslogSyncInterval);
         scopedSettings.addSettingsUpdateConsumer(MAX_RESULT_WINDOW_SETTING, this::setMaxResultWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_INNER_RESULT_WINDOW_SETTING, this::setMaxInnerResultWindow);
@@ -776,6 +822,50 @@ public final class IndexSettings {
         this.durability = durability;
     }
 
+    /**
+     * Returns true if translog syncs of write operations are batched on a dedicated thread pool.
+     */
+    public boolean isTranslogGroupCommit() {
+        return translogGroupCommit;
+    }
+
+    private void setTranslogGroupCommit(boolean translogGroupCommit) {
+        this.translogGroupCommit = translogGroupCommit;
+    }
+
+    /**
+     * Returns true if translog generations are mapped into memory once they are no longer written to.
+     */
+    public boolean isTranslogMmap() {
+        return translogMmap;
+    }
+
+    private void setTranslogMmap(boolean translogMmap) {
+        this.translogMmap = translogMmap;
+    }
+
+    /**
+     * Returns the number of additional write threads that parse the documents of a bulk request ahead of indexing them.
+     */
+    public int getBulkParseAheadThreads() {
+        return bulkParseAheadThreads;
+    }
+
+    private void setBulkParseAheadThreads(int bulkParseAheadThreads) {
+        this.bulkParseAheadThreads = bulkParseAheadThreads;
+    }
+
+    /**
+     * Returns the weight of the index when write operations are scheduled fairly across indices.
+     */
+    public int getWriteQueueWeight() {
+        return writeQueueWeight;
+    }
+
+    private void setWriteQueueWeight(int writeQueueWeight) {
+        this.writeQueueWeight = writeQueueWeight;
+    }
+
     /**
      * Returns true if index warmers are enabled, otherwise <code>false</code>
      */
@@ -936,6 +1026,13 @@ public final class IndexSettings {
         return gcDeletesInMillis;
     }
 
+    /**
+     * Returns true if the engine keeps the versions of recently indexed documents in compact paged arrays.
+     */
+    public boolean isCompactVersionMap() {
+        return compactVersionMap;
+    }
+
     /**
      * Returns the merge policy that should be used for this index.
      */
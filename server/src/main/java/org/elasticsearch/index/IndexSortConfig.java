@@ -18,7 +18,9 @@ import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.sort.SortOrder;
@@ -112,11 +114,26 @@ public final class IndexSortConfig {
     final FieldSortSpec[] sortSpecs;
     private final Version indexCreatedVersion;
     private final String indexName;
+    private final IndexMode indexMode;
 
     public IndexSortConfig(IndexSettings indexSettings) {
         final Settings settings = indexSettings.getSettings();
         this.indexCreatedVersion = indexSettings.getIndexVersionCreated();
         this.indexName = indexSettings.getIndex().getName();
+        this.indexMode = indexSettings.getMode();
+
+        if (indexSettings.getMode() == IndexMode.TIME_SERIES) {
+            // time series indices are sorted by time series and then by descending timestamp so that the documents
+            // of a time series are stored together, in reverse chronological order. the sort settings are rejected
+            // for time series indices by IndexMode#validateWithOtherSettings.
+            this.sortSpecs = new FieldSortSpec[] {
+                new FieldSortSpec(TimeSeriesIdFieldMapper.NAME),
+                new FieldSortSpec(DataStreamTimestampFieldMapper.DEFAULT_PATH) };
+            sortSpecs[0].order = SortOrder.ASC;
+            sortSpecs[1].order = SortOrder.DESC;
+            return;
+        }
+
         List<String> fields = INDEX_SORT_FIELD_SETTING.get(settings);
         this.sortSpecs = fields.stream()
             .map((name) -> new FieldSortSpec(name))
@@ -178,6 +195,7 @@ public final class IndexSortConfig {
         if (hasIndexSort() == false) {
             return null;
         }
+        indexMode.validateIndexSortFields(fieldTypeLookup);
 
         final SortField[] sortFields = new SortField[sortSpecs.length];
         for (int i = 0; i < sortSpecs.length; i++) {
@@ -10,12 +10,15 @@ package org.elasticsearch.index;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.SizeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.stats.IndexingPressureStats;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -25,6 +28,12 @@ public class IndexingPressure {
     public static final Setting<ByteSizeValue> MAX_INDEXING_BYTES =
         Setting.memorySizeSetting("indexing_pressure.memory.limit", "10%", Setting.Property.NodeScope);
 
+    /**
+     * Whether the shard level write operations are scheduled fairly across indices by a {@link FairWriteScheduler}.
+     */
+    public static final Setting<Boolean> FAIR_SCHEDULING_ENABLED =
+        Setting.boolSetting("indexing_pressure.fair_scheduling.enabled", false, Setting.Property.NodeScope);
+
     private static final Logger logger = LogManager.getLogger(IndexingPressure.class);
 
     private final AtomicLong currentCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
@@ -51,10 +60,35 @@ public class IndexingPressure {
 
     private final long primaryAndCoordinatingLimits;
     private final long replicaLimits;
+    private final FairWriteScheduler writeScheduler;
 
     public IndexingPressure(Settings settings) {
+        this(settings, null);
+    }
+
+    public IndexingPressure(Settings settings, @Nullable ThreadPool threadPool) {
         this.primaryAndCoordinatingLimits = MAX_INDEXING_BYTES.get(settings).getBytes();
         this.replicaLimits = (long) (this.primaryAndCoordinatingLimits * 1.5);
+        if (threadPool != null && FAIR_SCHEDULING_ENABLED.get(settings)) {
+            final ThreadPool.Info info = threadPool.info(ThreadPool.Names.WRITE);
+            // an unbounded write queue has no queue size, the scheduler then never rejects operations either
+            final SizeValue queueSize = info.getQueueSize();
+            final int maxQueued = queueSize == null ? Integer.MAX_VALUE : Math.toIntExact(queueSize.singles());
+            // operations that the scheduler rejects count as primary rejections, replica operations are never rejected
+            this.writeScheduler = new FairWriteScheduler(threadPool.executor(ThreadPool.Names.WRITE), threadPool.getThreadContext(),
+                info.getMax(), maxQueued, primaryRejections::incrementAndGet);
+        } else {
+            this.writeScheduler = null;
+        }
+    }
+
+    /**
+     * Returns the scheduler that write operations go through before they run on the write executor, or {@code null} if they are
+     * executed on the write executor directly.
+     */
+    @Nullable
+    public FairWriteScheduler writeScheduler() {
+        return writeScheduler;
     }
 
     private static Releasable wrapReleasable(Releasable releasable) {
@@ -28,6 +28,8 @@ public class CodecService {
 
     public static final String DEFAULT_CODEC = "default";
     public static final String BEST_COMPRESSION_CODEC = "best_compression";
+    /** stored fields compressed with high compression LZ4, see {@link LZ4HighCompressionCodec} */
+    public static final String LZ4_HIGH_COMPRESSION_CODEC = "lz4_high_compression";
     /** the raw unfiltered lucene default. useful for testing */
     public static final String LUCENE_DEFAULT_CODEC = "lucene_default";
 
@@ -36,11 +38,14 @@ public class CodecService {
         if (mapperService == null) {
             codecs.put(DEFAULT_CODEC, new Lucene90Codec());
             codecs.put(BEST_COMPRESSION_CODEC, new Lucene90Codec(Lucene90Codec.Mode.BEST_COMPRESSION));
+            codecs.put(LZ4_HIGH_COMPRESSION_CODEC, new LZ4HighCompressionCodec());
         } else {
             codecs.put(DEFAULT_CODEC,
                     new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_SPEED, mapperService));
             codecs.put(BEST_COMPRESSION_CODEC,
                     new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_COMPRESSION, mapperService));
+            codecs.put(LZ4_HIGH_COMPRESSION_CODEC,
+                    new LZ4HighCompressionCodec(new PerFieldMapperCodec(Lucene90Codec.Mode.BEST_SPEED, mapperService)));
         }
         codecs.put(LUCENE_DEFAULT_CODEC, Codec.getDefault());
         for (String codec : Codec.availableCodecs()) {
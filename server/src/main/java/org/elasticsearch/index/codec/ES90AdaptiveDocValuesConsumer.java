@@ -0,0 +1,404 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import com.carrotsearch.hppc.LongHashSet;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.MathUtil;
+import org.apache.lucene.util.packed.DirectWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.CONSTANT;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DATA_CODEC;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DATA_EXTENSION;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELEGATE;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELEGATE_SUFFIX;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA_BLOCK_SHIFT;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA_BLOCK_SIZE;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DICTIONARY;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.MAX_DICTIONARY_SIZE;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.META_CODEC;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.META_EXTENSION;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.RUN_LENGTH;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.VERSION_CURRENT;
+
+/**
+ * Writes the fields of {@link ES90AdaptiveDocValuesFormat}, see there for the encodings.
+ */
+final class ES90AdaptiveDocValuesConsumer extends DocValuesConsumer {
+
+    /** the length of the header of a block of deltas of deltas: the first value, the first delta and the bits per value */
+    static final int DELTA_OF_DELTA_HEADER_LENGTH = Long.BYTES + Long.BYTES + Byte.BYTES;
+
+    private final int maxDoc;
+    private final DocValuesConsumer delegate;
+    private IndexOutput data;
+    private IndexOutput meta;
+
+    ES90AdaptiveDocValuesConsumer(SegmentWriteState state, DocValuesFormat delegateFormat) throws IOException {
+        this.maxDoc = state.segmentInfo.maxDoc();
+        boolean success = false;
+        DocValuesConsumer delegate = null;
+        try {
+            String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+            data = state.directory.createOutput(dataName, state.context);
+            CodecUtil.writeIndexHeader(data, DATA_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+            meta = state.directory.createOutput(metaName, state.context);
+            CodecUtil.writeIndexHeader(meta, META_CODEC, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            delegate = delegateFormat.fieldsConsumer(new SegmentWriteState(state, state.segmentSuffix + DELEGATE_SUFFIX));
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(data, meta, delegate);
+            }
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        if (writeDenseField(field, () -> DocValues.singleton(valuesProducer.getNumeric(field))) == false) {
+            delegate.addNumericField(field, valuesProducer);
+        }
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        if (writeDenseField(field, () -> valuesProducer.getSortedNumeric(field)) == false) {
+            delegate.addSortedNumericField(field, valuesProducer);
+        }
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    @FunctionalInterface
+    private interface ValuesSupplier {
+        SortedNumericDocValues get() throws IOException;
+    }
+
+    /**
+     * Writes the field with the encoding that takes the least space if every document has a single value and that encoding takes
+     * less space than the default encoding, returns {@code false} if the field should be delegated.
+     */
+    private boolean writeDenseField(FieldInfo field, ValuesSupplier values) throws IOException {
+        final Stats stats = Stats.collect(values.get(), maxDoc);
+        final byte encoding = stats == null ? DELEGATE : stats.chooseEncoding();
+        meta.writeInt(field.number);
+        meta.writeByte(encoding);
+        switch (encoding) {
+            case DELEGATE:
+                return false;
+            case CONSTANT:
+                meta.writeLong(stats.min);
+                break;
+            case DICTIONARY:
+                writeDictionary(values.get(), stats);
+                break;
+            case RUN_LENGTH:
+                writeRunLength(values, stats);
+                break;
+            case DELTA_OF_DELTA:
+                writeDeltaOfDelta(values.get());
+                break;
+            default:
+                throw new AssertionError("unknown encoding [" + encoding + "]");
+        }
+        return true;
+    }
+
+    private void writeDictionary(SortedNumericDocValues values, Stats stats) throws IOException {
+        final long[] dictionary = stats.sortedUniqueValues();
+        meta.writeVInt(dictionary.length);
+        for (long value : dictionary) {
+            meta.writeLong(value);
+        }
+        final int bitsPerValue = DirectWriter.unsignedBitsRequired(dictionary.length - 1);
+        meta.writeByte((byte) bitsPerValue);
+        final long offset = data.getFilePointer();
+        final DirectWriter writer = DirectWriter.getInstance(data, maxDoc, bitsPerValue);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            writer.add(Arrays.binarySearch(dictionary, values.nextValue()));
+        }
+        writer.finish();
+        meta.writeLong(offset);
+        meta.writeLong(data.getFilePointer() - offset);
+    }
+
+    private void writeRunLength(ValuesSupplier values, Stats stats) throws IOException {
+        meta.writeVInt(stats.runs);
+        meta.writeLong(stats.min);
+
+        // the exclusive end of each run
+        final int endsBitsPerValue = DirectWriter.unsignedBitsRequired(maxDoc);
+        meta.writeByte((byte) endsBitsPerValue);
+        long offset = data.getFilePointer();
+        DirectWriter writer = DirectWriter.getInstance(data, stats.runs, endsBitsPerValue);
+        SortedNumericDocValues it = values.get();
+        long previous = 0;
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            final long value = it.nextValue();
+            if (doc > 0 && value != previous) {
+                writer.add(doc);
+            }
+            previous = value;
+        }
+        writer.add(maxDoc);
+        writer.finish();
+        meta.writeLong(offset);
+        meta.writeLong(data.getFilePointer() - offset);
+
+        // the value of each run
+        final int valuesBitsPerValue = stats.bitsRequiredForRange();
+        meta.writeByte((byte) valuesBitsPerValue);
+        offset = data.getFilePointer();
+        writer = DirectWriter.getInstance(data, stats.runs, valuesBitsPerValue);
+        it = values.get();
+        for (int doc = it.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = it.nextDoc()) {
+            final long value = it.nextValue();
+            if (doc == 0 || value != previous) {
+                writer.add(value - stats.min);
+            }
+            previous = value;
+        }
+        writer.finish();
+        meta.writeLong(offset);
+        meta.writeLong(data.getFilePointer() - offset);
+    }
+
+    private void writeDeltaOfDelta(SortedNumericDocValues values) throws IOException {
+        final int blocks = (maxDoc + DELTA_OF_DELTA_BLOCK_SIZE - 1) >>> DELTA_OF_DELTA_BLOCK_SHIFT;
+        final long[] offsets = new long[blocks + 1];
+        final long[] buffer = new long[DELTA_OF_DELTA_BLOCK_SIZE];
+        int block = 0;
+        int upTo = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            buffer[upTo++] = values.nextValue();
+            if (upTo == DELTA_OF_DELTA_BLOCK_SIZE) {
+                offsets[block++] = data.getFilePointer();
+                writeDeltaOfDeltaBlock(buffer, upTo);
+                upTo = 0;
+            }
+        }
+        if (upTo > 0) {
+            offsets[block++] = data.getFilePointer();
+            writeDeltaOfDeltaBlock(buffer, upTo);
+        }
+        assert block == blocks : block + " != " + blocks;
+        offsets[blocks] = data.getFilePointer();
+        for (long offset : offsets) {
+            meta.writeLong(offset);
+        }
+    }
+
+    private void writeDeltaOfDeltaBlock(long[] buffer, int length) throws IOException {
+        final long firstDelta = length > 1 ? buffer[1] - buffer[0] : 0;
+        long or = 0;
+        for (int i = 2; i < length; i++) {
+            or |= BitUtil.zigZagEncode(deltaOfDelta(buffer, i));
+        }
+        // values with a constant delta, like regularly sampled timestamps, don't need any bits
+        final int bitsPerValue = or == 0 ? 0 : DirectWriter.unsignedBitsRequired(or);
+        data.writeLong(buffer[0]);
+        data.writeLong(firstDelta);
+        data.writeByte((byte) bitsPerValue);
+        if (bitsPerValue > 0) {
+            final DirectWriter writer = DirectWriter.getInstance(data, length - 2, bitsPerValue);
+            for (int i = 2; i < length; i++) {
+                writer.add(BitUtil.zigZagEncode(deltaOfDelta(buffer, i)));
+            }
+            writer.finish();
+        }
+    }
+
+    private static long deltaOfDelta(long[] buffer, int i) {
+        return (buffer[i] - buffer[i - 1]) - (buffer[i - 1] - buffer[i - 2]);
+    }
+
+    /**
+     * The statistics of a field that every document has a single value for, the size estimates are in bits.
+     */
+    // visible for tests
+    static final class Stats {
+        final int maxDoc;
+        int docCount;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long gcd = 0;
+        /** the distinct values, or {@code null} if there are more than {@link ES90AdaptiveDocValuesFormat#MAX_DICTIONARY_SIZE} */
+        LongHashSet uniqueValues = new LongHashSet();
+        int runs;
+        long deltaOfDeltaSize;
+
+        private Stats(int maxDoc) {
+            this.maxDoc = maxDoc;
+        }
+
+        /**
+         * Returns the statistics of the given values, or {@code null} if some documents have no or more than one value.
+         */
+        static Stats collect(SortedNumericDocValues values, int maxDoc) throws IOException {
+            final Stats stats = new Stats(maxDoc);
+            long first = 0;
+            long previous = 0;
+            long previousDelta = 0;
+            long blockOr = 0;
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                if (values.docValueCount() != 1 || doc != stats.docCount) {
+                    // sparse or multi-valued
+                    return null;
+                }
+                stats.docCount++;
+                final long value = values.nextValue();
+                stats.min = Math.min(stats.min, value);
+                stats.max = Math.max(stats.max, value);
+                if (doc == 0) {
+                    first = value;
+                } else if (stats.gcd != 1) {
+                    // same as Lucene's default encoding
+                    if (value < Long.MIN_VALUE / 2 || value > Long.MAX_VALUE / 2) {
+                        stats.gcd = 1;
+                    } else {
+                        stats.gcd = MathUtil.gcd(stats.gcd, value - first);
+                    }
+                }
+                if (stats.uniqueValues != null && stats.uniqueValues.add(value) && stats.uniqueValues.size() > MAX_DICTIONARY_SIZE) {
+                    stats.uniqueValues = null;
+                }
+                if (doc == 0 || value != previous) {
+                    stats.runs++;
+                }
+                final int indexInBlock = doc & (DELTA_OF_DELTA_BLOCK_SIZE - 1);
+                if (indexInBlock == 0) {
+                    stats.addDeltaOfDeltaBlock(doc, blockOr);
+                    blockOr = 0;
+                } else {
+                    final long delta = value - previous;
+                    if (indexInBlock > 1) {
+                        blockOr |= BitUtil.zigZagEncode(delta - previousDelta);
+                    }
+                    previousDelta = delta;
+                }
+                previous = value;
+            }
+            stats.addDeltaOfDeltaBlock(maxDoc, blockOr);
+            return stats.docCount == maxDoc ? stats : null;
+        }
+
+        /** adds the estimated size of the block of deltas of deltas that ends before the given document */
+        private void addDeltaOfDeltaBlock(int endDoc, long or) {
+            if (endDoc == 0) {
+                return;
+            }
+            final int length = ((endDoc - 1) & (DELTA_OF_DELTA_BLOCK_SIZE - 1)) + 1;
+            deltaOfDeltaSize += DELTA_OF_DELTA_HEADER_LENGTH * Byte.SIZE;
+            if (or != 0 && length > 2) {
+                deltaOfDeltaSize += (long) (length - 2) * DirectWriter.unsignedBitsRequired(or);
+            }
+        }
+
+        long[] sortedUniqueValues() {
+            final long[] values = uniqueValues.toArray();
+            Arrays.sort(values);
+            return values;
+        }
+
+        int bitsRequiredForRange() {
+            final long range = max - min;
+            return range < 0 ? 64 : DirectWriter.unsignedBitsRequired(range);
+        }
+
+        byte chooseEncoding() {
+            if (min == max) {
+                return CONSTANT;
+            }
+            // roughly the size that Lucene's default encoding takes, which divides the values by their gcd or uses a table for
+            // up to 256 distinct values
+            final long range = max - min;
+            final int defaultBitsPerValue;
+            if (uniqueValues != null && uniqueValues.size() <= 256) {
+                defaultBitsPerValue = DirectWriter.unsignedBitsRequired(uniqueValues.size() - 1);
+            } else if (range < 0) {
+                defaultBitsPerValue = 64;
+            } else {
+                defaultBitsPerValue = DirectWriter.unsignedBitsRequired(gcd > 1 ? range / gcd : range);
+            }
+            long bestSize = (long) maxDoc * defaultBitsPerValue;
+            byte best = DELEGATE;
+            if (uniqueValues != null) {
+                final long dictionarySize = (long) uniqueValues.size() * Long.SIZE
+                    + (long) maxDoc * DirectWriter.unsignedBitsRequired(uniqueValues.size() - 1);
+                if (dictionarySize < bestSize) {
+                    bestSize = dictionarySize;
+                    best = DICTIONARY;
+                }
+            }
+            final long runLengthSize = (long) runs * (DirectWriter.unsignedBitsRequired(maxDoc) + bitsRequiredForRange());
+            if (runLengthSize < bestSize) {
+                bestSize = runLengthSize;
+                best = RUN_LENGTH;
+            }
+            if (deltaOfDeltaSize < bestSize) {
+                best = DELTA_OF_DELTA;
+            }
+            return best;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (meta != null) {
+                meta.writeInt(-1); // write EOF marker
+                CodecUtil.writeFooter(meta); // write checksum
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data); // write checksum
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(data, meta, delegate);
+            } else {
+                IOUtils.closeWhileHandlingException(data, meta, delegate);
+            }
+            meta = data = null;
+        }
+    }
+}
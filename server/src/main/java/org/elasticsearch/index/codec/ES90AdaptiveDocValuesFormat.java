@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+
+import java.io.IOException;
+
+/**
+ * A doc values format for numeric fields that picks the encoding of each field when a segment is flushed or merged, based on the
+ * values of the field in that segment. Fields where every document has a single value are encoded with whichever of the following
+ * takes the least space, if it takes less than the default encoding:
+ * <ul>
+ *     <li>a dictionary of the distinct values and the ordinal of the value of each document, for low cardinality fields like
+ *     http status codes or log levels</li>
+ *     <li>runs of documents with the same value, for fields that the index is sorted on</li>
+ *     <li>blocks of deltas of deltas between the values of consecutive documents, for monotonic fields like timestamps</li>
+ * </ul>
+ * All other fields, like sparse or multi-valued fields, are delegated to {@link Lucene90DocValuesFormat}.
+ * <p>
+ * The format is selected per field with the {@code doc_values_encoding} mapping parameter and is registered through SPI under
+ * {@link #NAME} so that segments written with it can be read.
+ */
+public final class ES90AdaptiveDocValuesFormat extends DocValuesFormat {
+    public static final String NAME = "ES90AdaptiveDocValues";
+
+    /** the value of the {@code doc_values_encoding} mapping parameter that selects the Lucene default encoding */
+    public static final String DEFAULT_ENCODING = "default";
+    /** the value of the {@code doc_values_encoding} mapping parameter that selects this format */
+    public static final String ADAPTIVE_ENCODING = "adaptive";
+
+    public static final ES90AdaptiveDocValuesFormat INSTANCE = new ES90AdaptiveDocValuesFormat();
+
+    static final String DATA_CODEC = "ES90AdaptiveDocValuesData";
+    static final String DATA_EXTENSION = "advd";
+    static final String META_CODEC = "ES90AdaptiveDocValuesMetadata";
+    static final String META_EXTENSION = "advm";
+    /** the segment suffix of the files of the fields that are delegated to {@link Lucene90DocValuesFormat} */
+    static final String DELEGATE_SUFFIX = "Delegate";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    // the encodings of a field
+    static final byte DELEGATE = 0;
+    static final byte CONSTANT = 1;
+    static final byte DICTIONARY = 2;
+    static final byte RUN_LENGTH = 3;
+    static final byte DELTA_OF_DELTA = 4;
+
+    /** the maximum number of distinct values of a field with a dictionary */
+    static final int MAX_DICTIONARY_SIZE = 1 << 12;
+    /** the number of documents per block of deltas of deltas */
+    static final int DELTA_OF_DELTA_BLOCK_SHIFT = 12;
+    static final int DELTA_OF_DELTA_BLOCK_SIZE = 1 << DELTA_OF_DELTA_BLOCK_SHIFT;
+
+    private final DocValuesFormat delegate = new Lucene90DocValuesFormat();
+
+    /**
+     * Used by SPI to read segments, use {@link #INSTANCE} otherwise.
+     */
+    public ES90AdaptiveDocValuesFormat() {
+        super(NAME);
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        return new ES90AdaptiveDocValuesConsumer(state, delegate);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new ES90AdaptiveDocValuesProducer(state, delegate);
+    }
+}
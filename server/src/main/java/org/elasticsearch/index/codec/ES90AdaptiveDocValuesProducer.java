@@ -0,0 +1,346 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.RandomAccessInput;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.DirectReader;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesConsumer.DELTA_OF_DELTA_HEADER_LENGTH;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.CONSTANT;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DATA_CODEC;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DATA_EXTENSION;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELEGATE;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELEGATE_SUFFIX;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA_BLOCK_SHIFT;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA_BLOCK_SIZE;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.DICTIONARY;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.META_CODEC;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.META_EXTENSION;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.RUN_LENGTH;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.VERSION_CURRENT;
+import static org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat.VERSION_START;
+
+/**
+ * Reads the fields of {@link ES90AdaptiveDocValuesFormat}, see there for the encodings.
+ */
+final class ES90AdaptiveDocValuesProducer extends DocValuesProducer {
+
+    private final Map<String, NumericEntry> numerics = new HashMap<>();
+    private final int maxDoc;
+    private final IndexInput data;
+    private final DocValuesProducer delegate;
+
+    ES90AdaptiveDocValuesProducer(SegmentReadState state, DocValuesFormat delegateFormat) throws IOException {
+        this.maxDoc = state.segmentInfo.maxDoc();
+        String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, META_EXTENSION);
+        int version = -1;
+        // read in the entries from the metadata file.
+        try (ChecksumIndexInput in = state.directory.openChecksumInput(metaName, state.context)) {
+            Throwable priorE = null;
+            try {
+                version = CodecUtil.checkIndexHeader(in, META_CODEC, VERSION_START, VERSION_CURRENT, state.segmentInfo.getId(),
+                    state.segmentSuffix);
+                readFields(in, state.fieldInfos);
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(in, priorE);
+            }
+        }
+
+        String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, DATA_EXTENSION);
+        IndexInput data = null;
+        DocValuesProducer delegate = null;
+        boolean success = false;
+        try {
+            data = state.directory.openInput(dataName, state.context);
+            final int dataVersion = CodecUtil.checkIndexHeader(data, DATA_CODEC, VERSION_START, VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            if (version != dataVersion) {
+                throw new CorruptIndexException("Format versions mismatch: meta=" + version + ", data=" + dataVersion, data);
+            }
+            // NOTE: data file is too costly to verify checksum against all the bytes on open,
+            // but for now we at least verify proper structure of the checksum footer: which looks
+            // for FOOTER_MAGIC + algorithmID. This is cheap and can detect some forms of corruption
+            // such as file truncation.
+            CodecUtil.retrieveChecksum(data);
+            delegate = delegateFormat.fieldsProducer(new SegmentReadState(state, state.segmentSuffix + DELEGATE_SUFFIX));
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(data, delegate);
+            }
+        }
+        this.data = data;
+        this.delegate = delegate;
+    }
+
+    private void readFields(ChecksumIndexInput meta, FieldInfos infos) throws IOException {
+        for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+            final FieldInfo info = infos.fieldInfo(fieldNumber);
+            if (info == null) {
+                throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+            }
+            numerics.put(info.name, readNumeric(meta));
+        }
+    }
+
+    private NumericEntry readNumeric(ChecksumIndexInput meta) throws IOException {
+        final NumericEntry entry = new NumericEntry();
+        entry.encoding = meta.readByte();
+        switch (entry.encoding) {
+            case DELEGATE:
+                break;
+            case CONSTANT:
+                entry.base = meta.readLong();
+                break;
+            case DICTIONARY:
+                entry.dictionary = new long[meta.readVInt()];
+                for (int i = 0; i < entry.dictionary.length; i++) {
+                    entry.dictionary[i] = meta.readLong();
+                }
+                entry.valuesBitsPerValue = meta.readByte();
+                entry.valuesOffset = meta.readLong();
+                entry.valuesLength = meta.readLong();
+                break;
+            case RUN_LENGTH:
+                entry.runs = meta.readVInt();
+                entry.base = meta.readLong();
+                entry.endsBitsPerValue = meta.readByte();
+                entry.endsOffset = meta.readLong();
+                entry.endsLength = meta.readLong();
+                entry.valuesBitsPerValue = meta.readByte();
+                entry.valuesOffset = meta.readLong();
+                entry.valuesLength = meta.readLong();
+                break;
+            case DELTA_OF_DELTA:
+                entry.blockOffsets = new long[((maxDoc + DELTA_OF_DELTA_BLOCK_SIZE - 1) >>> DELTA_OF_DELTA_BLOCK_SHIFT) + 1];
+                for (int i = 0; i < entry.blockOffsets.length; i++) {
+                    entry.blockOffsets[i] = meta.readLong();
+                }
+                break;
+            default:
+                throw new CorruptIndexException("Invalid encoding: " + entry.encoding, meta);
+        }
+        return entry;
+    }
+
+    private static class NumericEntry {
+        byte encoding;
+        /** the value of a constant field, the minimum value of a run length encoded field */
+        long base;
+        long[] dictionary;
+        int runs;
+        int endsBitsPerValue;
+        long endsOffset;
+        long endsLength;
+        int valuesBitsPerValue;
+        long valuesOffset;
+        long valuesLength;
+        /** the offsets of the blocks of deltas of deltas, followed by the end of the last block */
+        long[] blockOffsets;
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        final NumericEntry entry = numerics.get(field.name);
+        if (entry == null || entry.encoding == DELEGATE) {
+            return delegate.getNumeric(field);
+        }
+        return getDenseNumeric(entry);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        final NumericEntry entry = numerics.get(field.name);
+        if (entry == null || entry.encoding == DELEGATE) {
+            return delegate.getSortedNumeric(field);
+        }
+        return DocValues.singleton(getDenseNumeric(entry));
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        return delegate.getBinary(field);
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    private NumericDocValues getDenseNumeric(NumericEntry entry) throws IOException {
+        switch (entry.encoding) {
+            case CONSTANT:
+                return new DenseNumericDocValues(maxDoc) {
+                    @Override
+                    public long longValue() {
+                        return entry.base;
+                    }
+                };
+            case DICTIONARY: {
+                final LongValues ords = DirectReader.getInstance(
+                    data.randomAccessSlice(entry.valuesOffset, entry.valuesLength), entry.valuesBitsPerValue);
+                return new DenseNumericDocValues(maxDoc) {
+                    @Override
+                    public long longValue() {
+                        return entry.dictionary[(int) ords.get(doc)];
+                    }
+                };
+            }
+            case RUN_LENGTH: {
+                final LongValues ends = DirectReader.getInstance(
+                    data.randomAccessSlice(entry.endsOffset, entry.endsLength), entry.endsBitsPerValue);
+                final LongValues values = DirectReader.getInstance(
+                    data.randomAccessSlice(entry.valuesOffset, entry.valuesLength), entry.valuesBitsPerValue);
+                return new DenseNumericDocValues(maxDoc) {
+                    int run = 0;
+
+                    @Override
+                    public long longValue() {
+                        if (ends.get(run) <= doc) {
+                            // documents are visited in order, find the first run after the current one that ends after the doc
+                            int lo = run + 1;
+                            int hi = entry.runs - 1;
+                            while (lo < hi) {
+                                final int mid = (lo + hi) >>> 1;
+                                if (ends.get(mid) <= doc) {
+                                    lo = mid + 1;
+                                } else {
+                                    hi = mid;
+                                }
+                            }
+                            run = lo;
+                        }
+                        return entry.base + values.get(run);
+                    }
+                };
+            }
+            case DELTA_OF_DELTA: {
+                final long start = entry.blockOffsets[0];
+                final RandomAccessInput slice = data.randomAccessSlice(start, entry.blockOffsets[entry.blockOffsets.length - 1] - start);
+                return new DenseNumericDocValues(maxDoc) {
+                    final long[] buffer = new long[DELTA_OF_DELTA_BLOCK_SIZE];
+                    int block = -1;
+
+                    @Override
+                    public long longValue() throws IOException {
+                        final int docBlock = doc >>> DELTA_OF_DELTA_BLOCK_SHIFT;
+                        if (docBlock != block) {
+                            decodeBlock(docBlock);
+                            block = docBlock;
+                        }
+                        return buffer[doc & (DELTA_OF_DELTA_BLOCK_SIZE - 1)];
+                    }
+
+                    private void decodeBlock(int block) throws IOException {
+                        final long offset = entry.blockOffsets[block] - start;
+                        final int length = Math.min(DELTA_OF_DELTA_BLOCK_SIZE, maxDoc - (block << DELTA_OF_DELTA_BLOCK_SHIFT));
+                        long delta = slice.readLong(offset + Long.BYTES);
+                        final int bitsPerValue = slice.readByte(offset + Long.BYTES + Long.BYTES);
+                        final LongValues deltasOfDeltas = bitsPerValue == 0 ? null : DirectReader.getInstance(
+                            data.randomAccessSlice(entry.blockOffsets[block] + DELTA_OF_DELTA_HEADER_LENGTH,
+                                entry.blockOffsets[block + 1] - entry.blockOffsets[block] - DELTA_OF_DELTA_HEADER_LENGTH),
+                            bitsPerValue);
+                        buffer[0] = slice.readLong(offset);
+                        for (int i = 1; i < length; i++) {
+                            if (i > 1 && deltasOfDeltas != null) {
+                                delta += BitUtil.zigZagDecode(deltasOfDeltas.get(i - 2));
+                            }
+                            buffer[i] = buffer[i - 1] + delta;
+                        }
+                    }
+                };
+            }
+            default:
+                throw new AssertionError("unknown encoding [" + entry.encoding + "]");
+        }
+    }
+
+    /**
+     * The doc values of a field that every document has a value for.
+     */
+    private abstract static class DenseNumericDocValues extends NumericDocValues {
+        final int maxDoc;
+        int doc = -1;
+
+        DenseNumericDocValues(int maxDoc) {
+            this.maxDoc = maxDoc;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) {
+            if (target >= maxDoc) {
+                return doc = NO_MORE_DOCS;
+            }
+            return doc = target;
+        }
+
+        @Override
+        public boolean advanceExact(int target) {
+            doc = target;
+            return true;
+        }
+
+        @Override
+        public long cost() {
+            return maxDoc;
+        }
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        CodecUtil.checksumEntireFile(data);
+        delegate.checkIntegrity();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(data, delegate);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
+import org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingStoredFieldsFormat;
+
+/**
+ * A codec that stores fields with {@link LZ4HighCompressionMode} in large
+ * blocks, which gets close to the ratio of {@code best_compression} while
+ * keeping the decompression speed of the {@code default} codec. Everything
+ * but stored fields is delegated to another codec, usually a
+ * {@link PerFieldMapperCodec} when writing.
+ * <p>
+ * The codec is registered through SPI under {@link #NAME} so that segments
+ * written with it can be read with the no-arg constructor.
+ */
+public final class LZ4HighCompressionCodec extends FilterCodec {
+    public static final String NAME = "ES90LZ4HighCompression";
+
+    // same block sizes as Lucene's BEST_COMPRESSION mode
+    private static final int BLOCK_LENGTH = 10 * 48 * 1024;
+    private static final int MAX_DOCS_PER_BLOCK = 4096;
+    private static final int BLOCK_SHIFT = 10;
+
+    private final StoredFieldsFormat storedFieldsFormat = new Lucene90CompressingStoredFieldsFormat(
+        "ES90LZ4HighCompressionStoredFieldsData",
+        new LZ4HighCompressionMode(),
+        BLOCK_LENGTH,
+        MAX_DOCS_PER_BLOCK,
+        BLOCK_SHIFT
+    );
+
+    /**
+     * Used by SPI to read segments.
+     */
+    public LZ4HighCompressionCodec() {
+        this(new Lucene90Codec());
+    }
+
+    public LZ4HighCompressionCodec(Codec delegate) {
+        super(NAME, delegate);
+    }
+
+    @Override
+    public StoredFieldsFormat storedFieldsFormat() {
+        return storedFieldsFormat;
+    }
+}
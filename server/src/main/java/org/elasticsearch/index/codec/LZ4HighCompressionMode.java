@@ -0,0 +1,164 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.compress.LZ4;
+
+import java.io.IOException;
+
+/**
+ * A {@link CompressionMode} that compresses large blocks with LZ4 in its high
+ * compression variant. Like Lucene's preset dictionary modes each block is
+ * split into sub blocks that are compressed independently with the beginning
+ * of the block as a dictionary so that reading a single document only has to
+ * decompress the dictionary and the sub block that contains the document.
+ * <p>
+ * The high compression variant spends more time looking for matches when
+ * compressing, which brings the ratio closer to DEFLATE, but the format is
+ * plain LZ4 so decompression is as fast as with the default codec.
+ */
+final class LZ4HighCompressionMode extends CompressionMode {
+    // Shoot for 10 sub blocks
+    private static final int NUM_SUB_BLOCKS = 10;
+    // And a dictionary whose size is about 2x smaller than sub blocks
+    private static final int DICT_SIZE_FACTOR = 2;
+
+    @Override
+    public Compressor newCompressor() {
+        return new LZ4HighCompressionCompressor();
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+        return new LZ4HighCompressionDecompressor();
+    }
+
+    @Override
+    public String toString() {
+        return "LZ4_HIGH_COMPRESSION";
+    }
+
+    private static final class LZ4HighCompressionDecompressor extends Decompressor {
+        private int[] compressedLengths = new int[0];
+        private byte[] buffer = new byte[0];
+
+        private int readCompressedLengths(DataInput in, int originalLength, int dictLength, int blockLength) throws IOException {
+            in.readVInt(); // compressed length of the dictionary, unused
+            int totalLength = dictLength;
+            int i = 0;
+            while (totalLength < originalLength) {
+                compressedLengths = ArrayUtil.grow(compressedLengths, i + 1);
+                compressedLengths[i++] = in.readVInt();
+                totalLength += blockLength;
+            }
+            return i;
+        }
+
+        @Override
+        public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+            assert offset + length <= originalLength;
+            if (length == 0) {
+                bytes.length = 0;
+                return;
+            }
+            final int dictLength = in.readVInt();
+            final int blockLength = in.readVInt();
+            final int numBlocks = readCompressedLengths(in, originalLength, dictLength, blockLength);
+            buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+            bytes.length = 0;
+            if (LZ4.decompress(in, dictLength, buffer, 0) != dictLength) {
+                throw new CorruptIndexException("Illegal dict length", in);
+            }
+
+            int offsetInBlock = dictLength;
+            int offsetInBytesRef = offset;
+            if (offset >= dictLength) {
+                offsetInBytesRef -= dictLength;
+                // skip the sub blocks that end before the requested range
+                int numBytesToSkip = 0;
+                for (int i = 0; i < numBlocks && offsetInBlock + blockLength < offset; ++i) {
+                    numBytesToSkip += compressedLengths[i];
+                    offsetInBlock += blockLength;
+                    offsetInBytesRef -= blockLength;
+                }
+                in.skipBytes(numBytesToSkip);
+            } else {
+                // the dictionary contains some of the requested bytes
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, dictLength);
+                System.arraycopy(buffer, 0, bytes.bytes, 0, dictLength);
+                bytes.length = dictLength;
+            }
+
+            while (offsetInBlock < offset + length) {
+                final int bytesToDecompress = Math.min(blockLength, offset + length - offsetInBlock);
+                LZ4.decompress(in, bytesToDecompress, buffer, dictLength);
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + bytesToDecompress);
+                System.arraycopy(buffer, dictLength, bytes.bytes, bytes.length, bytesToDecompress);
+                bytes.length += bytesToDecompress;
+                offsetInBlock += blockLength;
+            }
+
+            bytes.offset = offsetInBytesRef;
+            bytes.length = length;
+            assert bytes.isValid();
+        }
+
+        @Override
+        public Decompressor clone() {
+            return new LZ4HighCompressionDecompressor();
+        }
+    }
+
+    private static final class LZ4HighCompressionCompressor extends Compressor {
+        private final ByteBuffersDataOutput compressed = ByteBuffersDataOutput.newResettableInstance();
+        private final LZ4.HighCompressionHashTable hashTable = new LZ4.HighCompressionHashTable();
+        private byte[] buffer = BytesRef.EMPTY_BYTES;
+
+        private void doCompress(byte[] bytes, int dictLength, int length, DataOutput out) throws IOException {
+            long previousCompressedSize = compressed.size();
+            LZ4.compressWithDictionary(bytes, 0, dictLength, length, compressed, hashTable);
+            // lengths are written first so that readers can skip the sub blocks that they don't need
+            out.writeVInt(Math.toIntExact(compressed.size() - previousCompressedSize));
+        }
+
+        @Override
+        public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+            final int dictLength = len / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+            final int blockLength = (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+            buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+            out.writeVInt(dictLength);
+            out.writeVInt(blockLength);
+            final int end = off + len;
+
+            compressed.reset();
+            System.arraycopy(bytes, off, buffer, 0, dictLength);
+            doCompress(buffer, 0, dictLength, out);
+
+            for (int start = off + dictLength; start < end; start += blockLength) {
+                int length = Math.min(blockLength, end - start);
+                System.arraycopy(bytes, start, buffer, dictLength, length);
+                doCompress(buffer, dictLength, length, out);
+            }
+
+            compressed.copyTo(out);
+        }
+
+        @Override
+        public void close() {}
+    }
+}
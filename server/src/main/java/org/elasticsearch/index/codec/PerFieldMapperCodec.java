@@ -19,11 +19,11 @@ import org.elasticsearch.index.mapper.MapperService;
 
 /**
  * {@link PerFieldMapperCodec This Lucene codec} provides the default
- * {@link PostingsFormat} and {@link KnnVectorsFormat} for Elasticsearch. It utilizes the
- * {@link MapperService} to lookup a {@link PostingsFormat} and {@link KnnVectorsFormat} per field. This
- * allows users to change the low level postings format and vectors format for individual fields
- * per index in real time via the mapping API. If no specific postings format or vector format is
- * configured for a specific field the default postings or vector format is used.
+ * {@link PostingsFormat}, {@link KnnVectorsFormat} and {@link DocValuesFormat} for Elasticsearch. It utilizes the
+ * {@link MapperService} to lookup a {@link PostingsFormat}, {@link KnnVectorsFormat} and {@link DocValuesFormat} per field.
+ * This allows users to change the low level postings format, vectors format and doc values format for individual fields
+ * per index in real time via the mapping API. If no specific format is configured for a specific field the default format
+ * is used.
  */
 public class PerFieldMapperCodec extends Lucene90Codec {
     private final MapperService mapperService;
@@ -60,6 +60,10 @@ public class PerFieldMapperCodec extends Lucene90Codec {
 
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
-        return docValuesFormat;
+        DocValuesFormat format = mapperService.mappingLookup().getDocValuesFormatForField(field);
+        if (format == null) {
+            return docValuesFormat;
+        }
+        return format;
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A map from _uid to {@link IndexVersionValue} that stores its entries in paged arrays instead of one
+ * {@link BytesRef}, {@link IndexVersionValue} and {@link Translog.Location} object per entry. The uids are
+ * kept in a {@link BytesRefHash} and the version, sequence number, primary term and translog location of
+ * each uid in parallel arrays indexed by the id that the hash assigned to the uid.
+ * <p>
+ * The entries are split into stripes by the hash of their uid and each stripe is guarded by its own lock so
+ * writes to different uids rarely contend. Removed uids keep their slot until the map is thrown away on the
+ * next refresh. {@link #get} allocates a new {@link IndexVersionValue} on every call.
+ */
+final class CompactVersionMap extends AbstractMap<BytesRef, VersionValue> implements Accountable {
+
+    private static final int STRIPES = 32;
+    private static final int STRIPE_SHIFT = Integer.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CompactVersionMap.class)
+        + RamUsageEstimator.shallowSizeOf(new Object[STRIPES]);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    CompactVersionMap() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(BigArrays.NON_RECYCLING_INSTANCE);
+        }
+    }
+
+    private Stripe stripe(BytesRef uid) {
+        return stripes[BitMixer.mix32(uid.hashCode()) >>> STRIPE_SHIFT];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final Stripe stripe = stripe(uid);
+        synchronized (stripe) {
+            return stripe.get(uid);
+        }
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        assert value instanceof IndexVersionValue : "only index versions are kept in the live maps but got " + value;
+        final Stripe stripe = stripe(uid);
+        synchronized (stripe) {
+            return stripe.put(uid, value);
+        }
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        final Stripe stripe = stripe(uid);
+        synchronized (stripe) {
+            return stripe.remove(uid);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a point in time copy of the entries. Expensive, only meant for tests and assertions.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Set<Entry<BytesRef, VersionValue>> entries = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.addEntriesTo(entries);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = BASE_RAM_BYTES_USED;
+        for (Stripe stripe : stripes) {
+            ramBytesUsed += stripe.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    private static final class Stripe {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Stripe.class);
+        private static final int INITIAL_CAPACITY = 16;
+        // the states of an entry in #states
+        private static final byte NO_LOCATION = 0;
+        private static final byte LOCATION = 1;
+        private static final byte REMOVED = 2;
+
+        private final BigArrays bigArrays;
+        private final BytesRefHash uids;
+        private final BytesRef spare = new BytesRef();
+        private LongArray versions;
+        private LongArray seqNos;
+        private LongArray terms;
+        private ByteArray states;
+        /**
+         * Translog locations of the entries, only allocated once an entry has a location because locations
+         * are only tracked after a realtime get needed one.
+         */
+        private LongArray locationGenerations;
+        private LongArray locationOffsets;
+        private IntArray locationSizes;
+        /**
+         * The number of entries that weren't removed. Only written under the lock but read without it.
+         */
+        private volatile int size;
+        /**
+         * Only written under the lock but read without it.
+         */
+        private volatile long ramBytesUsed;
+
+        Stripe(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            this.uids = new BytesRefHash(INITIAL_CAPACITY, bigArrays);
+            this.versions = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.seqNos = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.terms = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+            this.states = bigArrays.newByteArray(INITIAL_CAPACITY, false);
+            updateRamBytesUsed();
+        }
+
+        VersionValue get(BytesRef uid) {
+            final long id = uids.find(uid);
+            if (id < 0 || states.get(id) == REMOVED) {
+                return null;
+            }
+            return read(id);
+        }
+
+        VersionValue put(BytesRef uid, VersionValue value) {
+            long id = uids.add(uid);
+            final VersionValue previous;
+            if (id < 0) {
+                id = -1 - id;
+                previous = states.get(id) == REMOVED ? null : read(id);
+            } else {
+                versions = bigArrays.grow(versions, id + 1);
+                seqNos = bigArrays.grow(seqNos, id + 1);
+                terms = bigArrays.grow(terms, id + 1);
+                states = bigArrays.grow(states, id + 1);
+                previous = null;
+            }
+            versions.set(id, value.version);
+            seqNos.set(id, value.seqNo);
+            terms.set(id, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                states.set(id, NO_LOCATION);
+            } else {
+                if (locationGenerations == null) {
+                    locationGenerations = bigArrays.newLongArray(id + 1, false);
+                    locationOffsets = bigArrays.newLongArray(id + 1, false);
+                    locationSizes = bigArrays.newIntArray(id + 1, false);
+                } else {
+                    locationGenerations = bigArrays.grow(locationGenerations, id + 1);
+                    locationOffsets = bigArrays.grow(locationOffsets, id + 1);
+                    locationSizes = bigArrays.grow(locationSizes, id + 1);
+                }
+                locationGenerations.set(id, location.generation);
+                locationOffsets.set(id, location.translogLocation);
+                locationSizes.set(id, location.size);
+                states.set(id, LOCATION);
+            }
+            if (previous == null) {
+                size++;
+            }
+            updateRamBytesUsed();
+            return previous;
+        }
+
+        VersionValue remove(BytesRef uid) {
+            final long id = uids.find(uid);
+            if (id < 0 || states.get(id) == REMOVED) {
+                return null;
+            }
+            final VersionValue previous = read(id);
+            states.set(id, REMOVED);
+            size--;
+            return previous;
+        }
+
+        void addEntriesTo(Set<Entry<BytesRef, VersionValue>> entries) {
+            for (long id = 0; id < uids.size(); id++) {
+                if (states.get(id) != REMOVED) {
+                    entries.add(Map.entry(BytesRef.deepCopyOf(uids.get(id, spare)), read(id)));
+                }
+            }
+        }
+
+        private VersionValue read(long id) {
+            final byte state = states.get(id);
+            assert state != REMOVED;
+            final Translog.Location location = state == NO_LOCATION
+                ? null
+                : new Translog.Location(locationGenerations.get(id), locationOffsets.get(id), locationSizes.get(id));
+            return new IndexVersionValue(location, versions.get(id), seqNos.get(id), terms.get(id));
+        }
+
+        private void updateRamBytesUsed() {
+            long bytes = BASE_RAM_BYTES_USED + uids.ramBytesUsed() + versions.ramBytesUsed() + seqNos.ramBytesUsed()
+                + terms.ramBytesUsed() + states.ramBytesUsed();
+            if (locationGenerations != null) {
+                bytes += locationGenerations.ramBytesUsed() + locationOffsets.ramBytesUsed() + locationSizes.ramBytesUsed();
+            }
+            ramBytesUsed = bytes;
+        }
+    }
+}
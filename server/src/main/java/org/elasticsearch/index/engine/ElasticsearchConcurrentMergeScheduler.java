@@ -12,6 +12,8 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
@@ -20,6 +22,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.MergeSchedulerConfig;
 import org.elasticsearch.index.merge.MergeStats;
@@ -29,11 +32,13 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * An extension to the {@link ConcurrentMergeScheduler} that provides tracking on merge times, total
- * and current merges.
+ * and current merges. If a {@link NodeMergeScheduler} is given, merges wait for their turn in the queue
+ * of all merges on the node before they start, and are throttled by it rather than by the auto-throttle.
  */
 class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
 
@@ -49,14 +54,20 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
     private final CounterMetric totalMergeStoppedTime = new CounterMetric();
     private final CounterMetric totalMergeThrottledTime = new CounterMetric();
+    private final CounterMetric currentQueuedMerges = new CounterMetric();
+    private final CounterMetric totalMergeQueuedTime = new CounterMetric();
 
     private final Set<OnGoingMerge> onGoingMerges = ConcurrentCollections.newConcurrentSet();
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
     private final MergeSchedulerConfig config;
+    @Nullable
+    private final NodeMergeScheduler nodeMergeScheduler;
+    private final Map<MergePolicy.OneMerge, NodeMergeScheduler.Ticket> tickets = ConcurrentCollections.newConcurrentMap();
 
-    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
+    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings, @Nullable NodeMergeScheduler nodeMergeScheduler) {
         this.config = indexSettings.getMergeSchedulerConfig();
         this.shardId = shardId;
+        this.nodeMergeScheduler = nodeMergeScheduler;
         this.indexSettings = indexSettings.getSettings();
         this.logger = Loggers.getLogger(getClass(), shardId);
         refreshConfig();
@@ -95,6 +106,26 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     protected void doMerge(MergeSource mergeSource, MergePolicy.OneMerge merge) throws IOException {
         int totalNumDocs = merge.totalNumDocs();
         long totalSizeInBytes = merge.totalBytesSize();
+        NodeMergeScheduler.Ticket ticket = null;
+        if (nodeMergeScheduler != null) {
+            ticket = nodeMergeScheduler.enqueue(merge);
+            tickets.put(merge, ticket);
+            currentQueuedMerges.inc();
+            long queuedNS = 0;
+            try {
+                queuedNS = ticket.await(merge::isAborted);
+            } catch (InterruptedException e) {
+                tickets.remove(merge);
+                ticket.release(0);
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            } finally {
+                currentQueuedMerges.dec();
+                totalMergeQueuedTime.inc(TimeValue.nsecToMSec(queuedNS));
+            }
+        }
+
+        // a queued merge is only counted in the queued stats, it becomes current, and counts towards index throttling, once it starts
         long timeNS = System.nanoTime();
         currentMerges.inc();
         currentMergesNumDocs.inc(totalNumDocs);
@@ -112,7 +143,8 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             beforeMerge(onGoingMerge);
             super.doMerge(mergeSource, merge);
         } finally {
-            long tookMS = TimeValue.nsecToMSec(System.nanoTime() - timeNS);
+            long tookNS = System.nanoTime() - timeNS;
+            long tookMS = TimeValue.nsecToMSec(tookNS);
 
             onGoingMerges.remove(onGoingMerge);
             afterMerge(onGoingMerge);
@@ -124,12 +156,14 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             totalMergesNumDocs.inc(totalNumDocs);
             totalMergesSizeInBytes.inc(totalSizeInBytes);
             totalMerges.inc(tookMS);
-            long stoppedMS = TimeValue.nsecToMSec(
-                merge.getMergeProgress().getPauseTimes().get(MergePolicy.OneMergeProgress.PauseReason.STOPPED)
-            );
-            long throttledMS = TimeValue.nsecToMSec(
-                merge.getMergeProgress().getPauseTimes().get(MergePolicy.OneMergeProgress.PauseReason.PAUSED)
-            );
+            long stoppedNS = merge.getMergeProgress().getPauseTimes().get(MergePolicy.OneMergeProgress.PauseReason.STOPPED);
+            long throttledNS = merge.getMergeProgress().getPauseTimes().get(MergePolicy.OneMergeProgress.PauseReason.PAUSED);
+            if (ticket != null) {
+                tickets.remove(merge);
+                ticket.release(tookNS - stoppedNS - throttledNS);
+            }
+            long stoppedMS = TimeValue.nsecToMSec(stoppedNS);
+            long throttledMS = TimeValue.nsecToMSec(throttledNS);
             totalMergeStoppedTime.inc(stoppedMS);
             totalMergeThrottledTime.inc(throttledMS);
 
@@ -174,6 +208,13 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         return true;
     }
 
+    @Override
+    public Directory wrapForMerge(MergePolicy.OneMerge merge, Directory in) {
+        final Directory wrapped = super.wrapForMerge(merge, in);
+        final NodeMergeScheduler.Ticket ticket = tickets.get(merge);
+        return ticket == null ? wrapped : ticket.wrapForMerge(wrapped);
+    }
+
     @Override
     protected MergeThread getMergeThread(MergeSource mergeSource, MergePolicy.OneMerge merge) throws IOException {
         MergeThread thread = super.getMergeThread(mergeSource, merge);
@@ -188,7 +229,10 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
                 currentMerges.count(), currentMergesNumDocs.count(), currentMergesSizeInBytes.count(),
                 totalMergeStoppedTime.count(),
                 totalMergeThrottledTime.count(),
-                config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY);
+                currentQueuedMerges.count(),
+                totalMergeQueuedTime.count(),
+                nodeMergeScheduler != null ? nodeMergeScheduler.getIORateLimitMBPerSec()
+                    : config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY);
         return mergeStats;
     }
 
@@ -197,9 +241,11 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             this.setMaxMergesAndThreads(config.getMaxMergeCount(), config.getMaxThreadCount());
         }
         boolean isEnabled = getIORateLimitMBPerSec() != Double.POSITIVE_INFINITY;
-        if (config.isAutoThrottle() && isEnabled == false) {
+        // merges are throttled by the node merge scheduler if there is one
+        boolean autoThrottle = config.isAutoThrottle() && nodeMergeScheduler == null;
+        if (autoThrottle && isEnabled == false) {
             enableAutoIOThrottle();
-        } else if (config.isAutoThrottle() == false && isEnabled) {
+        } else if (autoThrottle == false && isEnabled) {
             disableAutoIOThrottle();
         }
     }
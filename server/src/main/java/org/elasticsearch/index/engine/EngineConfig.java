@@ -73,6 +73,8 @@ public final class EngineConfig {
     private final LongSupplier globalCheckpointSupplier;
     private final Supplier<RetentionLeases> retentionLeasesSupplier;
     private final Comparator<LeafReader> leafSorter;
+    @Nullable
+    private final NodeMergeScheduler nodeMergeScheduler;
 
     /**
      * A supplier of the outstanding retention leases. This is used during merged operations to determine which operations that have been
@@ -96,12 +98,13 @@ public final class EngineConfig {
         switch (s) {
             case "default":
             case "best_compression":
+            case "lz4_high_compression":
             case "lucene_default":
                 return s;
             default:
                 if (Codec.availableCodecs().contains(s) == false) { // we don't error message the not officially supported ones
                     throw new IllegalArgumentException(
-                        "unknown value for [index.codec] must be one of [default, best_compression] but was: " + s);
+                        "unknown value for [index.codec] must be one of [default, best_compression, lz4_high_compression] but was: " + s);
                 }
                 return s;
         }
@@ -135,7 +138,8 @@ public final class EngineConfig {
             Supplier<RetentionLeases> retentionLeasesSupplier,
             LongSupplier primaryTermSupplier,
             IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
-            Comparator<LeafReader> leafSorter) {
+            Comparator<LeafReader> leafSorter,
+            @Nullable NodeMergeScheduler nodeMergeScheduler) {
         this.shardId = shardId;
         this.indexSettings = indexSettings;
         this.threadPool = threadPool;
@@ -174,6 +178,7 @@ public final class EngineConfig {
         this.primaryTermSupplier = primaryTermSupplier;
         this.snapshotCommitSupplier = snapshotCommitSupplier;
         this.leafSorter = leafSorter;
+        this.nodeMergeScheduler = nodeMergeScheduler;
     }
 
     /**
@@ -366,4 +371,12 @@ public final class EngineConfig {
     public Comparator<LeafReader> getLeafSorter() {
         return leafSorter;
     }
+
+    /**
+     * Returns the scheduler of the merges of all shards on the node or {@code null} if merges are scheduled per shard.
+     */
+    @Nullable
+    public NodeMergeScheduler getNodeMergeScheduler() {
+        return nodeMergeScheduler;
+    }
 }
@@ -31,7 +31,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
          *  we only account for the CHM entry here, and account for BytesRef/VersionValue against the tombstones, since refresh would not
-         *  clear this RAM. */
+         *  clear this RAM. Not used if the map is a {@link CompactVersionMap} which accounts for its own RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
         private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
@@ -61,6 +61,16 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             return map.get(key);
         }
 
+        /**
+         * Returns the bytes used by this map, i.e. what is freed on refresh.
+         */
+        long ramBytesUsed() {
+            if (map instanceof CompactVersionMap) {
+                return ((CompactVersionMap) map).ramBytesUsed();
+            }
+            return ramBytesUsed.get();
+        }
+
         VersionValue put(BytesRef key, VersionValue value) {
             return map.put(key, value);
         }
@@ -104,17 +114,26 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // have the volatile read of the Maps reference to make it visible even across threads.
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
+        // whether new lookups are backed by a CompactVersionMap
+        final boolean compact;
 
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, boolean compact) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.compact = compact;
+        }
+
+        Maps(boolean compact) {
+            this(newLookup(compact, 16), VersionLookup.EMPTY, false, compact);
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+        private static VersionLookup newLookup(boolean compact, int expectedSize) {
+            if (compact) {
+                return new VersionLookup(new CompactVersionMap());
+            }
+            return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
         }
 
         boolean isSafeAccessMode() {
@@ -132,15 +151,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(newLookup(compact, current.size()), current, shouldInheritSafeAccess(), compact);
         }
 
         /**
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, compact);
         }
 
         void put(BytesRef uid, VersionValue version) {
@@ -180,10 +198,25 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private final boolean compact;
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap;
+
+    LiveVersionMap() {
+        this(false);
+    }
+
+    /**
+     * @param compact whether the versions of documents that were indexed since the last refresh are kept in a
+     *                {@link CompactVersionMap} instead of a {@link java.util.concurrent.ConcurrentHashMap}
+     */
+    LiveVersionMap(boolean compact) {
+        this.compact = compact;
+        this.maps = new Maps(compact);
+        this.unsafeKeysMap = new Maps(compact);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -404,7 +437,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(compact);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -414,7 +447,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -422,7 +455,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     /**
@@ -430,7 +463,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * except does not include tombstones because they don't clear on refresh.
      */
     long getRefreshingBytes() {
-        return maps.old.ramBytesUsed.get();
+        return maps.old.ramBytesUsed();
     }
 
     @Override
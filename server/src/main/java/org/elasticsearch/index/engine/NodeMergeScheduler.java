@@ -0,0 +1,333 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Schedules the merges of all shards on a node as one queue. At most {@link #MAX_CONCURRENT_MERGES_SETTING} merges run at the same
+ * time, or a single one while the search thread pool is saturated. Waiting merges are started by how many segments and deleted
+ * documents they get rid of per byte they have to write, unless they waited for longer than {@link #MAX_QUEUE_TIME}, in which case
+ * they are started in the order they were queued.
+ * <p>
+ * The bytes written by all merges are throttled by a single rate limiter. Its rate goes up while merges are waiting and down while
+ * they are not, like the auto-throttle of {@link org.apache.lucene.index.ConcurrentMergeScheduler}, is halved whenever a merge starts
+ * while the search thread pool is saturated and never goes above the throughput that merges measured when they were not throttled.
+ */
+public final class NodeMergeScheduler {
+
+    public static final Setting<Boolean> ENABLED_SETTING =
+        Setting.boolSetting("indices.merge.scheduler.enabled", false, Property.NodeScope);
+
+    public static final Setting<Integer> MAX_CONCURRENT_MERGES_SETTING = new Setting<>("indices.merge.scheduler.max_concurrent_merges",
+        (s) -> Integer.toString(Math.max(1, Math.min(4, EsExecutors.allocatedProcessors(s) / 2))),
+        (s) -> Setting.parseInt(s, 1, "indices.merge.scheduler.max_concurrent_merges"), Property.Dynamic, Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> MIN_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.scheduler.min_bytes_per_sec", new ByteSizeValue(5, ByteSizeUnit.MB), Property.Dynamic, Property.NodeScope);
+
+    /** the rate that merges are throttled to before anything was measured, the same as Lucene's auto-throttle starts with */
+    static final double START_BYTES_PER_SEC = new ByteSizeValue(20, ByteSizeUnit.MB).getBytes();
+    /** merges that waited for longer than this are started in the order they were queued so that large merges do not starve */
+    static final TimeValue MAX_QUEUE_TIME = TimeValue.timeValueMinutes(1);
+    /** merges of less than this many bytes are too short to measure the throughput of */
+    static final long MIN_MEASURED_BYTES = new ByteSizeValue(1, ByteSizeUnit.MB).getBytes();
+    /** how often waiting merges check whether they were aborted */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final double MEASUREMENT_WEIGHT = 0.3;
+    private static final double MB = 1024 * 1024;
+
+    private final BooleanSupplier searchSaturated;
+    private final LongSupplier relativeTimeInNanos;
+    private final RateLimiter.SimpleRateLimiter rateLimiter;
+
+    // guarded by this
+    private final List<Ticket> queue = new ArrayList<>();
+    private int running;
+    private long queuedCount;
+    private double targetBytesPerSec = START_BYTES_PER_SEC;
+    private double measuredBytesPerSec;
+
+    private volatile int maxConcurrentMerges;
+    private volatile double minBytesPerSec;
+
+    public NodeMergeScheduler(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
+        this(settings, clusterSettings, searchSaturated(threadPool), System::nanoTime);
+    }
+
+    NodeMergeScheduler(Settings settings, ClusterSettings clusterSettings, BooleanSupplier searchSaturated,
+                       LongSupplier relativeTimeInNanos) {
+        this.searchSaturated = searchSaturated;
+        this.relativeTimeInNanos = relativeTimeInNanos;
+        this.maxConcurrentMerges = MAX_CONCURRENT_MERGES_SETTING.get(settings);
+        this.minBytesPerSec = MIN_BYTES_PER_SEC_SETTING.get(settings).getBytes();
+        this.rateLimiter = new RateLimiter.SimpleRateLimiter(targetBytesPerSec / MB);
+        clusterSettings.addSettingsUpdateConsumer(MAX_CONCURRENT_MERGES_SETTING, this::setMaxConcurrentMerges);
+        clusterSettings.addSettingsUpdateConsumer(MIN_BYTES_PER_SEC_SETTING, this::setMinBytesPerSec);
+    }
+
+    private static BooleanSupplier searchSaturated(ThreadPool threadPool) {
+        return () -> {
+            final ExecutorService executor = threadPool.executor(ThreadPool.Names.SEARCH);
+            if (executor instanceof ThreadPoolExecutor) {
+                final ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) executor;
+                return threadPoolExecutor.getQueue().isEmpty() == false
+                    && threadPoolExecutor.getActiveCount() >= threadPoolExecutor.getMaximumPoolSize();
+            }
+            return false;
+        };
+    }
+
+    private synchronized void setMaxConcurrentMerges(int maxConcurrentMerges) {
+        this.maxConcurrentMerges = maxConcurrentMerges;
+        maybeStartMerges();
+    }
+
+    private synchronized void setMinBytesPerSec(ByteSizeValue minBytesPerSec) {
+        this.minBytesPerSec = minBytesPerSec.getBytes();
+        updateRate(targetBytesPerSec);
+    }
+
+    /**
+     * Queues the given merge. The merge thread must then wait for its turn with {@link Ticket#await} and release it with
+     * {@link Ticket#release} once the merge is done.
+     */
+    Ticket enqueue(MergePolicy.OneMerge merge) {
+        long maxDoc = 0;
+        long deletedDocs = 0;
+        for (SegmentCommitInfo info : merge.segments) {
+            maxDoc += info.info.maxDoc();
+            deletedDocs += info.getDelCount() + info.getSoftDelCount();
+        }
+        final int segmentsReduced = merge.segments.size() - 1;
+        final double deletesReclaimed = maxDoc == 0 ? 0 : deletedDocs / (double) maxDoc;
+        return enqueue(segmentsReduced + deletesReclaimed, merge.totalBytesSize());
+    }
+
+    synchronized Ticket enqueue(double benefit, long bytes) {
+        final Ticket ticket = new Ticket(benefit / Math.max(1L, bytes), bytes, queuedCount++, relativeTimeInNanos.getAsLong());
+        queue.add(ticket);
+        maybeStartMerges();
+        return ticket;
+    }
+
+    /**
+     * The rate in MB/sec that the bytes written by all merges on this node are throttled to.
+     */
+    public synchronized double getIORateLimitMBPerSec() {
+        return targetBytesPerSec / MB;
+    }
+
+    /**
+     * The throughput of merges when they are not throttled, or {@code 0} if it was not measured yet.
+     */
+    synchronized double getMeasuredBytesPerSec() {
+        return measuredBytesPerSec;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    private void maybeStartMerges() {
+        assert Thread.holdsLock(this);
+        while (queue.isEmpty() == false) {
+            final boolean saturated = searchSaturated.getAsBoolean();
+            if (running >= (saturated ? 1 : maxConcurrentMerges)) {
+                break;
+            }
+            final Ticket next = nextTicket();
+            queue.remove(next);
+            next.started = true;
+            running++;
+            if (saturated) {
+                updateRate(targetBytesPerSec / 2);
+            } else if (queue.isEmpty()) {
+                updateRate(targetBytesPerSec / 1.1);
+            } else {
+                updateRate(targetBytesPerSec * 1.2);
+            }
+            notifyAll();
+        }
+    }
+
+    private Ticket nextTicket() {
+        final long starvedBefore = relativeTimeInNanos.getAsLong() - MAX_QUEUE_TIME.nanos();
+        Ticket next = null;
+        for (Ticket ticket : queue) {
+            if (next == null) {
+                next = ticket;
+            } else if (next.queuedNanos <= starvedBefore) {
+                if (ticket.order < next.order) {
+                    next = ticket;
+                }
+            } else if (ticket.queuedNanos <= starvedBefore || ticket.benefitPerByte > next.benefitPerByte) {
+                next = ticket;
+            }
+        }
+        return next;
+    }
+
+    private void updateRate(double bytesPerSec) {
+        assert Thread.holdsLock(this);
+        double rate = Math.max(minBytesPerSec, bytesPerSec);
+        if (measuredBytesPerSec > 0) {
+            rate = Math.min(rate, Math.max(minBytesPerSec, measuredBytesPerSec));
+        }
+        if (rate != targetBytesPerSec) {
+            targetBytesPerSec = rate;
+            rateLimiter.setMBPerSec(rate / MB);
+        }
+    }
+
+    /**
+     * A merge that was queued with {@link #enqueue}.
+     */
+    final class Ticket {
+        private final double benefitPerByte;
+        private final long bytes;
+        private final long order;
+        private final long queuedNanos;
+        private final AtomicLong pausedNanos = new AtomicLong();
+        // guarded by NodeMergeScheduler.this
+        private boolean started;
+        private boolean released;
+
+        private Ticket(double benefitPerByte, long bytes, long order, long queuedNanos) {
+            this.benefitPerByte = benefitPerByte;
+            this.bytes = bytes;
+            this.order = order;
+            this.queuedNanos = queuedNanos;
+        }
+
+        boolean isStarted() {
+            synchronized (NodeMergeScheduler.this) {
+                return started;
+            }
+        }
+
+        /**
+         * Blocks until it is the turn of this merge or until the merge is aborted, in which case it is removed from the queue.
+         *
+         * @return the nanoseconds the merge waited for
+         */
+        long await(BooleanSupplier aborted) throws InterruptedException {
+            synchronized (NodeMergeScheduler.this) {
+                while (started == false) {
+                    if (aborted.getAsBoolean()) {
+                        queue.remove(this);
+                        break;
+                    }
+                    // the search thread pool might no longer be saturated
+                    maybeStartMerges();
+                    if (started == false) {
+                        NodeMergeScheduler.this.wait(POLL_INTERVAL_MILLIS);
+                    }
+                }
+            }
+            return relativeTimeInNanos.getAsLong() - queuedNanos;
+        }
+
+        /**
+         * Wraps the directory that the merge writes to so that its writes are throttled together with those of all other merges.
+         */
+        Directory wrapForMerge(Directory in) {
+            final RateLimiter limiter = new RateLimiter() {
+                @Override
+                public void setMBPerSec(double mbPerSec) {
+                    throw new UnsupportedOperationException("the rate of merges is set by the node merge scheduler");
+                }
+
+                @Override
+                public double getMBPerSec() {
+                    return rateLimiter.getMBPerSec();
+                }
+
+                @Override
+                public long pause(long bytes) throws IOException {
+                    final long paused = rateLimiter.pause(bytes);
+                    pausedNanos.addAndGet(paused);
+                    return paused;
+                }
+
+                @Override
+                public long getMinPauseCheckBytes() {
+                    return rateLimiter.getMinPauseCheckBytes();
+                }
+            };
+            return new FilterDirectory(in) {
+                @Override
+                public IndexOutput createOutput(String name, IOContext context) throws IOException {
+                    ensureOpen();
+                    return new RateLimitedIndexOutput(limiter, in.createOutput(name, context));
+                }
+            };
+        }
+
+        /**
+         * Frees the slot of this merge for the next one in the queue.
+         *
+         * @param unthrottledNanos the nanoseconds the merge ran for, minus the time that it was paused or stopped by its own merge
+         *                         scheduler, which are used together with the time it was throttled here to measure the throughput
+         *                         of merges
+         */
+        void release(long unthrottledNanos) {
+            synchronized (NodeMergeScheduler.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                if (started == false) {
+                    queue.remove(this);
+                    return;
+                }
+                running--;
+                final long writingNanos = unthrottledNanos - pausedNanos.get();
+                if (bytes >= MIN_MEASURED_BYTES && writingNanos > 0) {
+                    final double bytesPerSec = bytes * (double) TimeUnit.SECONDS.toNanos(1) / writingNanos;
+                    measuredBytesPerSec = measuredBytesPerSec == 0
+                        ? bytesPerSec
+                        : MEASUREMENT_WEIGHT * bytesPerSec + (1 - MEASUREMENT_WEIGHT) * measuredBytesPerSec;
+                    updateRate(targetBytesPerSec);
+                }
+                maybeStartMerges();
+            }
+        }
+    }
+}
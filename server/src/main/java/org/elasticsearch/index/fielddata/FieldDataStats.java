@@ -8,12 +8,14 @@
 
 package org.elasticsearch.index.fielddata;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.FieldMemoryStats;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
@@ -27,10 +29,18 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private static final String MEMORY_SIZE_IN_BYTES = "memory_size_in_bytes";
     private static final String EVICTIONS = "evictions";
     private static final String FIELDS = "fields";
+    private static final String GLOBAL_ORDINALS = "global_ordinals";
+    private static final String BUILD_COUNT = "build_count";
+    private static final String INCREMENTAL_BUILD_COUNT = "incremental_build_count";
+    private static final String BUILD_TIME = "build_time";
+    private static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
     private long memorySize;
     private long evictions;
     @Nullable
     private FieldMemoryStats fields;
+    private long globalOrdinalsBuildCount;
+    private long globalOrdinalsIncrementalBuildCount;
+    private long globalOrdinalsBuildTimeInMillis;
 
     public FieldDataStats() {
 
@@ -40,17 +50,33 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         fields = in.readOptionalWriteable(FieldMemoryStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            globalOrdinalsBuildCount = in.readVLong();
+            globalOrdinalsIncrementalBuildCount = in.readVLong();
+            globalOrdinalsBuildTimeInMillis = in.readVLong();
+        }
     }
 
     public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields) {
+        this(memorySize, evictions, fields, 0, 0, 0);
+    }
+
+    public FieldDataStats(long memorySize, long evictions, @Nullable FieldMemoryStats fields, long globalOrdinalsBuildCount,
+                          long globalOrdinalsIncrementalBuildCount, long globalOrdinalsBuildTimeInMillis) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.fields = fields;
+        this.globalOrdinalsBuildCount = globalOrdinalsBuildCount;
+        this.globalOrdinalsIncrementalBuildCount = globalOrdinalsIncrementalBuildCount;
+        this.globalOrdinalsBuildTimeInMillis = globalOrdinalsBuildTimeInMillis;
     }
 
     public void add(FieldDataStats stats) {
         this.memorySize += stats.memorySize;
         this.evictions += stats.evictions;
+        this.globalOrdinalsBuildCount += stats.globalOrdinalsBuildCount;
+        this.globalOrdinalsIncrementalBuildCount += stats.globalOrdinalsIncrementalBuildCount;
+        this.globalOrdinalsBuildTimeInMillis += stats.globalOrdinalsBuildTimeInMillis;
         if (stats.fields != null) {
             if (fields == null) {
                 fields = stats.fields.copy();
@@ -77,11 +103,37 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         return fields;
     }
 
+    /**
+     * The number of times global ordinals were built.
+     */
+    public long getGlobalOrdinalsBuildCount() {
+        return globalOrdinalsBuildCount;
+    }
+
+    /**
+     * The number of times global ordinals were built by extending the global ordinals of an older reader rather than from scratch.
+     */
+    public long getGlobalOrdinalsIncrementalBuildCount() {
+        return globalOrdinalsIncrementalBuildCount;
+    }
+
+    /**
+     * The total time spent building global ordinals.
+     */
+    public TimeValue getGlobalOrdinalsBuildTime() {
+        return new TimeValue(globalOrdinalsBuildTimeInMillis);
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeOptionalWriteable(fields);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(globalOrdinalsBuildCount);
+            out.writeVLong(globalOrdinalsIncrementalBuildCount);
+            out.writeVLong(globalOrdinalsBuildTimeInMillis);
+        }
     }
 
     @Override
@@ -89,6 +141,11 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         builder.startObject(FIELDDATA);
         builder.humanReadableField(MEMORY_SIZE_IN_BYTES, MEMORY_SIZE, getMemorySize());
         builder.field(EVICTIONS, getEvictions());
+        builder.startObject(GLOBAL_ORDINALS);
+        builder.field(BUILD_COUNT, globalOrdinalsBuildCount);
+        builder.field(INCREMENTAL_BUILD_COUNT, globalOrdinalsIncrementalBuildCount);
+        builder.humanReadableField(BUILD_TIME_IN_MILLIS, BUILD_TIME, getGlobalOrdinalsBuildTime());
+        builder.endObject();
         if (fields != null) {
             fields.toXContent(builder, FIELDS, MEMORY_SIZE_IN_BYTES, MEMORY_SIZE);
         }
@@ -103,11 +160,15 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
         FieldDataStats that = (FieldDataStats) o;
         return memorySize == that.memorySize &&
             evictions == that.evictions &&
-            Objects.equals(fields, that.fields);
+            Objects.equals(fields, that.fields) &&
+            globalOrdinalsBuildCount == that.globalOrdinalsBuildCount &&
+            globalOrdinalsIncrementalBuildCount == that.globalOrdinalsIncrementalBuildCount &&
+            globalOrdinalsBuildTimeInMillis == that.globalOrdinalsBuildTimeInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, fields);
+        return Objects.hash(memorySize, evictions, fields, globalOrdinalsBuildCount, globalOrdinalsIncrementalBuildCount,
+            globalOrdinalsBuildTimeInMillis);
     }
 }
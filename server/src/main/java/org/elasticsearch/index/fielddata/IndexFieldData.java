@@ -243,5 +243,15 @@ public interface IndexFieldData<FD extends LeafFieldData> {
 
         IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Load a global view for the given {@link DirectoryReader}, possibly reusing
+         * work from {@code previous}, the global view that was loaded for an older
+         * reader of the same shard.
+         */
+        default IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<FD> previous)
+            throws Exception {
+            return loadGlobalDirect(indexReader);
+        }
+
     }
 }
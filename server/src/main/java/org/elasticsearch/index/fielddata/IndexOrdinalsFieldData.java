@@ -11,6 +11,7 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.util.LongValues;
 
 
 /**
@@ -37,6 +38,17 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
      */
     OrdinalMap getOrdinalMap();
 
+    /**
+     * Returns the mapping from the ordinals of the segment at {@code segmentIndex}
+     * to global ordinals or null if global ordinals are not needed (constant value
+     * or single segment). Prefer this to {@link #getOrdinalMap} which might have
+     * to be built on demand.
+     */
+    default LongValues getGlobalOrds(int segmentIndex) {
+        OrdinalMap ordinalMap = getOrdinalMap();
+        return ordinalMap == null ? null : ordinalMap.getGlobalOrds(segmentIndex);
+    }
+
     /**
      * Whether this field data is able to provide a mapping between global and segment ordinals,
      * by returning the underlying {@link OrdinalMap}. If this method returns false, then calling
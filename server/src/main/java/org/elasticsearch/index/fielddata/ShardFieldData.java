@@ -15,6 +15,7 @@ import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.util.Map;
@@ -24,6 +25,9 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
 
     private final CounterMetric evictionsMetric = new CounterMetric();
     private final CounterMetric totalMetric = new CounterMetric();
+    private final CounterMetric globalOrdinalsBuilds = new CounterMetric();
+    private final CounterMetric globalOrdinalsIncrementalBuilds = new CounterMetric();
+    private final CounterMetric globalOrdinalsBuildTimeInMillis = new CounterMetric();
     private final ConcurrentMap<String, CounterMetric> perFieldTotals = ConcurrentCollections.newConcurrentMap();
 
     public FieldDataStats stats(String... fields) {
@@ -37,11 +41,20 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             }
         }
         return new FieldDataStats(totalMetric.count(), evictionsMetric.count(), fieldTotals == null ? null :
-            new FieldMemoryStats(fieldTotals));
+            new FieldMemoryStats(fieldTotals), globalOrdinalsBuilds.count(), globalOrdinalsIncrementalBuilds.count(),
+            globalOrdinalsBuildTimeInMillis.count());
     }
 
     @Override
     public void onCache(ShardId shardId, String fieldName, Accountable ramUsage) {
+        if (ramUsage instanceof GlobalOrdinalsIndexFieldData) {
+            GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) ramUsage;
+            globalOrdinalsBuilds.inc();
+            if (globalOrdinals.isIncremental()) {
+                globalOrdinalsIncrementalBuilds.inc();
+            }
+            globalOrdinalsBuildTimeInMillis.inc(globalOrdinals.getBuildTime().millis());
+        }
         totalMetric.inc(ramUsage.ramBytesUsed());
         CounterMetric total = perFieldTotals.get(fieldName);
         if (total != null) {
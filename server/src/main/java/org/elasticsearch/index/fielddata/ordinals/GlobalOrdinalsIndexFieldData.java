@@ -14,8 +14,11 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -48,22 +51,72 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
     private final ValuesSourceType valuesSourceType;
     private final long memorySizeInBytes;
 
-    private final OrdinalMap ordinalMap;
+    private final IncrementalOrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
+    private final TimeValue buildTime;
+    /**
+     * Lucene's {@link OrdinalMap} over all segments, only built on demand if
+     * {@link #ordinalMap} is {@link IncrementalOrdinalMap#isIncremental() incremental}.
+     */
+    private OrdinalMap luceneOrdinalMap;
 
     protected GlobalOrdinalsIndexFieldData(String fieldName,
                                            ValuesSourceType valuesSourceType,
                                            LeafOrdinalsFieldData[] segmentAfd,
-                                           OrdinalMap ordinalMap,
+                                           IncrementalOrdinalMap ordinalMap,
                                            long memorySizeInBytes,
-                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction) {
+                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction,
+                                           TimeValue buildTime) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
         this.scriptFunction = scriptFunction;
+        this.buildTime = buildTime;
+    }
+
+    /**
+     * The time it took to build these global ordinals.
+     */
+    public TimeValue getBuildTime() {
+        return buildTime;
+    }
+
+    /**
+     * Were these global ordinals built by extending the global ordinals of
+     * an older reader rather than from scratch?
+     */
+    public boolean isIncremental() {
+        return ordinalMap.isIncremental();
+    }
+
+    IncrementalOrdinalMap getIncrementalOrdinalMap() {
+        return ordinalMap;
+    }
+
+    /**
+     * Incremental global ordinals aren't backed by a single {@link OrdinalMap}
+     * so we have to merge all terms the first time someone asks for one. Only
+     * parent/child queries do.
+     */
+    private synchronized OrdinalMap luceneOrdinalMap() {
+        if (ordinalMap.isIncremental() == false) {
+            return ordinalMap.getBase();
+        }
+        if (luceneOrdinalMap == null) {
+            final SortedSetDocValues[] subs = new SortedSetDocValues[segmentAfd.length];
+            for (int i = 0; i < segmentAfd.length; i++) {
+                subs[i] = segmentAfd[i].getOrdinalsValues();
+            }
+            try {
+                luceneOrdinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to build ordinal map", e);
+            }
+        }
+        return luceneOrdinalMap;
     }
 
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
@@ -124,7 +177,12 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     @Override
     public OrdinalMap getOrdinalMap() {
-        return ordinalMap;
+        return luceneOrdinalMap();
+    }
+
+    @Override
+    public LongValues getGlobalOrds(int segmentIndex) {
+        return ordinalMap.getGlobalOrds(segmentIndex);
     }
 
     @Override
@@ -251,7 +309,12 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
         @Override
         public OrdinalMap getOrdinalMap() {
-            return ordinalMap;
+            return luceneOrdinalMap();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
         }
 
     }
@@ -0,0 +1,322 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Maps segment ordinals to global ordinals like Lucene's {@link OrdinalMap}
+ * but can be extended with new segments without merging the term dictionaries
+ * of the segments that it already covers.
+ * <p>
+ * A map that is built from scratch wraps an {@link OrdinalMap}. A map that
+ * <strong>extends</strong> the map of an older point in time reader is built
+ * from that map and a <strong>delta</strong> {@link OrdinalMap} over the
+ * segments that were added by later refreshes. Terms of the delta that are not
+ * in the older map are <i>inserted</i> between its terms so an older global
+ * ordinal {@code g} becomes {@code g} plus the number of inserted terms that
+ * sort before it. Refreshes usually add a few small segments and leave the
+ * others untouched so extending the previous map only has to look up the new
+ * terms in the older segments instead of merging every term of every segment.
+ * The mappings from segment ordinals to global ordinals and back are then
+ * precomputed into packed arrays, so lookups are as cheap as in an
+ * {@link OrdinalMap} and the extended map doesn't keep the older map alive.
+ * Once a segment of the older map goes away, usually because it was merged,
+ * the map has to be built from scratch.
+ */
+public final class IncrementalOrdinalMap implements Accountable {
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IncrementalOrdinalMap.class);
+
+    /**
+     * Extending the map seeks every new term in every segment of the older map.
+     * Seeks are much more expensive than iterating terms so we only extend the
+     * map if the number of seeks is a small fraction of the number of terms that
+     * a rebuild from scratch would have to merge.
+     */
+    static final int MAX_SEEKS_RATIO = 16;
+
+    /**
+     * Core cache keys of the segments covered by this map. {@code null} if any
+     * of them can't be cached in which case the map can't be extended.
+     */
+    @Nullable
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long valueCount;
+    /**
+     * The map over all segments if this map was built from scratch, {@code null}
+     * if it was extended.
+     */
+    @Nullable
+    private final OrdinalMap ordinalMap;
+    /**
+     * Global ordinal of each segment ordinal, per segment, if this map was extended.
+     */
+    private final PackedLongValues[] segmentToGlobalOrds;
+    /**
+     * The first segment that contains each global ordinal if this map was extended.
+     */
+    private final PackedLongValues firstSegments;
+    /**
+     * The ordinal of each global ordinal in its {@link #firstSegments first segment}
+     * if this map was extended.
+     */
+    private final PackedLongValues firstSegmentOrds;
+
+    private IncrementalOrdinalMap(@Nullable IndexReader.CacheKey[] segmentKeys, OrdinalMap ordinalMap) {
+        this.segmentKeys = segmentKeys;
+        this.valueCount = ordinalMap.getValueCount();
+        this.ordinalMap = ordinalMap;
+        this.segmentToGlobalOrds = null;
+        this.firstSegments = null;
+        this.firstSegmentOrds = null;
+    }
+
+    private IncrementalOrdinalMap(
+        IndexReader.CacheKey[] segmentKeys,
+        long valueCount,
+        PackedLongValues[] segmentToGlobalOrds,
+        PackedLongValues firstSegments,
+        PackedLongValues firstSegmentOrds
+    ) {
+        this.segmentKeys = segmentKeys;
+        this.valueCount = valueCount;
+        this.ordinalMap = null;
+        this.segmentToGlobalOrds = segmentToGlobalOrds;
+        this.firstSegments = firstSegments;
+        this.firstSegmentOrds = firstSegmentOrds;
+    }
+
+    /**
+     * Build a map from scratch by merging the terms of all segments.
+     */
+    public static IncrementalOrdinalMap build(IndexReader indexReader, SortedSetDocValues[] subs) throws IOException {
+        OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        return new IncrementalOrdinalMap(coreKeys(indexReader, subs.length), ordinalMap);
+    }
+
+    /**
+     * Extend the map that was built for an older point in time reader of the
+     * same shard with the segments that were added since. Returns {@code null}
+     * if the map can't be extended or if building it from scratch is likely
+     * to be cheaper.
+     */
+    @Nullable
+    public static IncrementalOrdinalMap extend(IncrementalOrdinalMap previous, IndexReader indexReader, SortedSetDocValues[] subs)
+        throws IOException {
+        if (previous.segmentKeys == null || subs.length < previous.segmentKeys.length) {
+            return null;
+        }
+        final int previousCount = previous.segmentKeys.length;
+        for (int i = 0; i < previousCount; i++) {
+            IndexReader.CacheHelper cacheHelper = indexReader.leaves().get(i).reader().getCoreCacheHelper();
+            if (cacheHelper == null || cacheHelper.getKey() != previous.segmentKeys[i]) {
+                return null;
+            }
+        }
+        final IndexReader.CacheKey[] segmentKeys = coreKeys(indexReader, subs.length);
+        if (segmentKeys == null) {
+            return null;
+        }
+        final SortedSetDocValues[] deltaSubs = Arrays.copyOfRange(subs, previousCount, subs.length);
+        // if there are only deletes since the previous map was built the delta is empty
+        final OrdinalMap delta = deltaSubs.length == 0 ? null : OrdinalMap.build(null, deltaSubs, PackedInts.DEFAULT);
+        final long deltaCount = delta == null ? 0 : delta.getValueCount();
+        if (deltaCount * previousCount > previous.getValueCount() / MAX_SEEKS_RATIO) {
+            return null;
+        }
+
+        final TermsEnum[] previousTerms = new TermsEnum[previousCount];
+        final LongValues[] previousGlobalOrds = new LongValues[previousCount];
+        for (int s = 0; s < previousCount; s++) {
+            previousTerms[s] = subs[s].termsEnum();
+            previousGlobalOrds[s] = previous.getGlobalOrds(s);
+        }
+        final TermsEnum[] deltaTerms = new TermsEnum[deltaSubs.length];
+        for (int s = 0; s < deltaSubs.length; s++) {
+            deltaTerms[s] = deltaSubs[s].termsEnum();
+        }
+
+        /*
+         * Find each delta term in the older segments. Delta terms come in ascending
+         * order so every term that is inserted before an older term that is also in
+         * the delta has been seen when we get to that term.
+         */
+        final long[] deltaToGlobal = new long[Math.toIntExact(deltaCount)];
+        final long[] insertionPoints = new long[deltaToGlobal.length];
+        final long[] insertedDeltaOrds = new long[deltaToGlobal.length];
+        int inserted = 0;
+        for (int d = 0; d < deltaToGlobal.length; d++) {
+            TermsEnum lookup = deltaTerms[delta.getFirstSegmentNumber(d)];
+            lookup.seekExact(delta.getFirstSegmentOrd(d));
+            BytesRef term = lookup.term();
+
+            long ceil = previous.getValueCount();
+            boolean found = false;
+            for (int s = 0; s < previousCount; s++) {
+                TermsEnum.SeekStatus status = previousTerms[s].seekCeil(term);
+                if (status == TermsEnum.SeekStatus.END) {
+                    continue;
+                }
+                long globalOrd = previousGlobalOrds[s].get(previousTerms[s].ord());
+                if (status == TermsEnum.SeekStatus.FOUND) {
+                    ceil = globalOrd;
+                    found = true;
+                    break;
+                }
+                ceil = Math.min(ceil, globalOrd);
+            }
+            if (found) {
+                deltaToGlobal[d] = ceil + inserted;
+            } else {
+                insertionPoints[inserted] = ceil;
+                insertedDeltaOrds[inserted] = d;
+                deltaToGlobal[d] = ceil + inserted;
+                inserted++;
+            }
+        }
+
+        // precompute the mappings so lookups don't have to go through the older map or search the inserted terms
+        final PackedLongValues[] segmentToGlobalOrds = new PackedLongValues[subs.length];
+        for (int s = 0; s < previousCount; s++) {
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            int insertedBefore = 0;
+            for (long ord = 0; ord < subs[s].getValueCount(); ord++) {
+                final long previousOrd = previousGlobalOrds[s].get(ord);
+                while (insertedBefore < inserted && insertionPoints[insertedBefore] <= previousOrd) {
+                    insertedBefore++;
+                }
+                builder.add(previousOrd + insertedBefore);
+            }
+            segmentToGlobalOrds[s] = builder.build();
+        }
+        for (int s = previousCount; s < subs.length; s++) {
+            final LongValues deltaOrds = delta.getGlobalOrds(s - previousCount);
+            final PackedLongValues.Builder builder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            for (long ord = 0; ord < subs[s].getValueCount(); ord++) {
+                builder.add(deltaToGlobal[(int) deltaOrds.get(ord)]);
+            }
+            segmentToGlobalOrds[s] = builder.build();
+        }
+        final long valueCount = previous.getValueCount() + inserted;
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder firstSegmentOrds = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        int nextInserted = 0;
+        for (long globalOrd = 0; globalOrd < valueCount; globalOrd++) {
+            if (nextInserted < inserted && insertionPoints[nextInserted] + nextInserted == globalOrd) {
+                final long deltaOrd = insertedDeltaOrds[nextInserted++];
+                firstSegments.add(previousCount + delta.getFirstSegmentNumber(deltaOrd));
+                firstSegmentOrds.add(delta.getFirstSegmentOrd(deltaOrd));
+            } else {
+                final long previousOrd = globalOrd - nextInserted;
+                firstSegments.add(previous.getFirstSegmentNumber(previousOrd));
+                firstSegmentOrds.add(previous.getFirstSegmentOrd(previousOrd));
+            }
+        }
+        return new IncrementalOrdinalMap(segmentKeys, valueCount, segmentToGlobalOrds, firstSegments.build(), firstSegmentOrds.build());
+    }
+
+    @Nullable
+    private static IndexReader.CacheKey[] coreKeys(IndexReader indexReader, int segmentCount) {
+        IndexReader.CacheKey[] keys = new IndexReader.CacheKey[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            IndexReader.CacheHelper cacheHelper = indexReader.leaves().get(i).reader().getCoreCacheHelper();
+            if (cacheHelper == null) {
+                return null;
+            }
+            keys[i] = cacheHelper.getKey();
+        }
+        return keys;
+    }
+
+    /**
+     * Was this map built by extending the map of an older reader rather than from scratch?
+     */
+    public boolean isIncremental() {
+        return ordinalMap == null;
+    }
+
+    /**
+     * The {@link OrdinalMap} over all segments if this map isn't
+     * {@link #isIncremental() incremental}.
+     */
+    OrdinalMap getBase() {
+        assert isIncremental() == false;
+        return ordinalMap;
+    }
+
+    /**
+     * The total number of unique terms in the global ordinal space.
+     */
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * Given a segment number, return a {@link LongValues} instance that maps
+     * segment ordinals to global ordinals.
+     */
+    public LongValues getGlobalOrds(int segmentIndex) {
+        if (ordinalMap != null) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+        return segmentToGlobalOrds[segmentIndex];
+    }
+
+    /**
+     * Given global ordinal, returns the index of the first segment that contains
+     * this term.
+     */
+    public int getFirstSegmentNumber(long globalOrd) {
+        if (ordinalMap != null) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+        return (int) firstSegments.get(globalOrd);
+    }
+
+    /**
+     * Given a global ordinal, returns the ordinal of the first segment which
+     * contains this ordinal (the corresponding to the segment return
+     * {@link #getFirstSegmentNumber}).
+     */
+    public long getFirstSegmentOrd(long globalOrd) {
+        if (ordinalMap != null) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+        return firstSegmentOrds.get(globalOrd);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long size = BASE_RAM_BYTES_USED;
+        if (segmentKeys != null) {
+            size += RamUsageEstimator.shallowSizeOf(segmentKeys);
+        }
+        if (ordinalMap != null) {
+            return size + ordinalMap.ramBytesUsed();
+        }
+        size += RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds);
+        for (PackedLongValues values : segmentToGlobalOrds) {
+            size += values.ramBytesUsed();
+        }
+        return size + firstSegments.ramBytesUsed() + firstSegmentOrds.ramBytesUsed();
+    }
+}
@@ -17,6 +17,7 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -137,12 +138,19 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
 
     @Override
     public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception {
+        return loadGlobalDirect(indexReader, null);
+    }
+
+    @Override
+    public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, IndexFieldData<LeafOrdinalsFieldData> previous)
+        throws Exception {
         return GlobalOrdinalsBuilder.build(
             indexReader,
             this,
             breakerService,
             logger,
-            scriptFunction
+            scriptFunction,
+            previous instanceof GlobalOrdinalsIndexFieldData ? (GlobalOrdinalsIndexFieldData) previous : null
         );
     }
 
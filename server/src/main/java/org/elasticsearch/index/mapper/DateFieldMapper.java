@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StoredField;
@@ -30,6 +31,7 @@ import org.elasticsearch.common.time.DateUtils;
 import org.elasticsearch.common.util.LocaleUtils;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
 import org.elasticsearch.index.fielddata.plain.SortedNumericIndexFieldData;
@@ -63,7 +65,7 @@ import java.util.function.Supplier;
 import static org.elasticsearch.common.time.DateUtils.toLong;
 
 /** A {@link FieldMapper} for dates. */
-public final class DateFieldMapper extends FieldMapper {
+public final class DateFieldMapper extends FieldMapper implements PerFieldDocValuesFormatFieldMapper {
 
     private static final DeprecationLogger DEPRECATION_LOGGER = DeprecationLogger.getLogger(DateFieldMapper.class);
 
@@ -222,6 +224,7 @@ public final class DateFieldMapper extends FieldMapper {
         private final Parameter<Boolean> index = Parameter.indexParam(m -> toType(m).indexed, true);
         private final Parameter<Boolean> docValues = Parameter.docValuesParam(m -> toType(m).hasDocValues, true);
         private final Parameter<Boolean> store = Parameter.storeParam(m -> toType(m).store, false);
+        private final Parameter<String> docValuesEncoding = Parameter.docValuesEncodingParam(m -> toType(m).docValuesEncoding);
 
         private final Parameter<Map<String, String>> meta = Parameter.metaParam();
 
@@ -285,7 +288,8 @@ public final class DateFieldMapper extends FieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(index, docValues, store, format, locale, nullValue, ignoreMalformed, script, onScriptError, meta);
+            return List.of(index, docValues, store, format, locale, nullValue, ignoreMalformed, script, onScriptError, meta,
+                docValuesEncoding);
         }
 
         private Long parseNullValue(DateFieldType fieldType, String indexName) {
@@ -665,6 +669,7 @@ public final class DateFieldMapper extends FieldMapper {
     private final boolean store;
     private final boolean indexed;
     private final boolean hasDocValues;
+    private final String docValuesEncoding;
     private final Locale locale;
     private final String format;
     private final boolean ignoreMalformed;
@@ -691,6 +696,7 @@ public final class DateFieldMapper extends FieldMapper {
         this.store = builder.store.getValue();
         this.indexed = builder.index.getValue();
         this.hasDocValues = builder.docValues.getValue();
+        this.docValuesEncoding = builder.docValuesEncoding.getValue();
         this.locale = builder.locale.getValue();
         this.format = builder.format.getValue();
         this.ignoreMalformed = builder.ignoreMalformed.getValue();
@@ -716,6 +722,14 @@ public final class DateFieldMapper extends FieldMapper {
         return (DateFieldType) super.fieldType();
     }
 
+    @Override
+    public DocValuesFormat getDocValuesFormatForField() {
+        if (hasDocValues && ES90AdaptiveDocValuesFormat.ADAPTIVE_ENCODING.equals(docValuesEncoding)) {
+            return ES90AdaptiveDocValuesFormat.INSTANCE;
+        }
+        return null;
+    }
+
     @Override
     protected String contentType() {
         return fieldType().resolution.type();
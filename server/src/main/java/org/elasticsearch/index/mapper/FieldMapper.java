@@ -23,6 +23,7 @@ import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.support.AbstractXContentParser;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -1047,6 +1048,19 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
                 initializer,
                 "fail", "continue").requiresParameters(dependentScriptParam);
         }
+
+        /**
+         * Defines a doc_values_encoding parameter that selects how the doc values of a numeric field are encoded on disk
+         * @param initializer   retrieves the equivalent parameter from an existing FieldMapper for use in merges
+         * @return a new doc_values_encoding parameter
+         */
+        public static Parameter<String> docValuesEncodingParam(Function<FieldMapper, String> initializer) {
+            return Parameter.restrictedStringParam(
+                "doc_values_encoding",
+                false,
+                initializer,
+                ES90AdaptiveDocValuesFormat.DEFAULT_ENCODING, ES90AdaptiveDocValuesFormat.ADAPTIVE_ENCODING);
+        }
     }
 
     public static final class Conflicts {
@@ -22,6 +22,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.logging.DeprecationCategory;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.network.InetAddresses;
+import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
@@ -478,6 +479,8 @@ public class IpFieldMapper extends FieldMapper {
                     throw new IllegalArgumentException("Dimension field [" + fieldType().name() + "] cannot be a multi-valued field.");
                 }
                 context.doc().addWithKey(fieldType().name(), field);
+                context.doc()
+                    .addDimensionBytes(fieldType().name(), TimeSeriesIdFieldMapper.encodeTsidValue(NetworkAddress.format(address)));
             } else {
                 context.doc().add(field);
             }
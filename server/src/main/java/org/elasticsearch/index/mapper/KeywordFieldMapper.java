@@ -534,6 +534,7 @@ public final class KeywordFieldMapper extends FieldMapper {
                 // Add dimension field with key so that we ensure it is single-valued.
                 // Dimension fields are always indexed.
                 context.doc().addWithKey(fieldType().name(), field);
+                context.doc().addDimensionBytes(fieldType().name(), TimeSeriesIdFieldMapper.encodeTsidValue(value));
             } else {
                 context.doc().add(field);
             }
@@ -10,12 +10,16 @@ package org.elasticsearch.index.mapper;
 
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Fork of {@link org.apache.lucene.document.Document} with additional functionality.
@@ -27,6 +31,11 @@ public class LuceneDocument implements Iterable<IndexableField> {
     private final String prefix;
     private final List<IndexableField> fields;
     private Map<Object, IndexableField> keyedFields;
+    /**
+     * The encoded values of the dimension fields of the document, sorted by field name. Lazily initialized
+     * so that documents without dimensions don't pay for the map.
+     */
+    private SortedMap<String, BytesReference> dimensionFields;
 
     LuceneDocument(String path, LuceneDocument parent) {
         fields = new ArrayList<>();
@@ -99,6 +108,26 @@ public class LuceneDocument implements Iterable<IndexableField> {
         return keyedFields == null ? null : keyedFields.get(key);
     }
 
+    /**
+     * Add the encoded value of a dimension field. The values of all dimension fields are used by
+     * {@link TimeSeriesIdFieldMapper} to build the {@code _tsid} of the document.
+     */
+    public void addDimensionBytes(String fieldName, BytesReference tsidBytes) {
+        if (dimensionFields == null) {
+            dimensionFields = new TreeMap<>();
+        } else if (dimensionFields.containsKey(fieldName)) {
+            throw new IllegalArgumentException("Dimension field [" + fieldName + "] cannot be a multi-valued field.");
+        }
+        dimensionFields.put(fieldName, tsidBytes);
+    }
+
+    /**
+     * Get the encoded values of the dimension fields added with {@link #addDimensionBytes}, sorted by field name.
+     */
+    public SortedMap<String, BytesReference> getDimensionBytes() {
+        return dimensionFields == null ? Collections.emptySortedMap() : dimensionFields;
+    }
+
     public IndexableField[] getFields(String name) {
         List<IndexableField> f = new ArrayList<>();
         for (IndexableField field : fields) {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.PostingsFormat;
 import org.elasticsearch.cluster.metadata.DataStream;
@@ -243,6 +244,20 @@ public final class MappingLookup {
         }
     }
 
+    /**
+     * Returns the doc values format for a particular field
+     * @param field the field to retrieve a doc values format for
+     * @return the doc values format for the field, or {@code null} if the default format should be used
+     */
+    public DocValuesFormat getDocValuesFormatForField(String field) {
+        Mapper fieldMapper = fieldMappers.get(field);
+        if (fieldMapper instanceof PerFieldDocValuesFormatFieldMapper) {
+            return ((PerFieldDocValuesFormatFieldMapper) fieldMapper).getDocValuesFormatForField();
+        } else {
+            return null;
+        }
+    }
+
     void checkLimits(IndexSettings settings) {
         checkFieldLimit(settings.getMappingTotalFieldsLimit());
         checkObjectDepthLimit(settings.getMappingDepthLimit());
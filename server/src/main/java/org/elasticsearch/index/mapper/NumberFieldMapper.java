@@ -11,6 +11,7 @@ package org.elasticsearch.index.mapper;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.exc.InputCoercionException;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.DoublePoint;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.FloatPoint;
@@ -34,6 +35,7 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentParser.Token;
+import org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
 import org.elasticsearch.index.fielddata.plain.SortedNumericIndexFieldData;
@@ -62,7 +64,7 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 /** A {@link FieldMapper} for numeric types: byte, short, int, long, float and double. */
-public class NumberFieldMapper extends FieldMapper {
+public class NumberFieldMapper extends FieldMapper implements PerFieldDocValuesFormatFieldMapper {
 
     public static final Setting<Boolean> COERCE_SETTING =
             Setting.boolSetting("index.mapping.coerce", true, Property.IndexScope);
@@ -76,6 +78,7 @@ public class NumberFieldMapper extends FieldMapper {
         private final Parameter<Boolean> indexed = Parameter.indexParam(m -> toType(m).indexed, true);
         private final Parameter<Boolean> hasDocValues = Parameter.docValuesParam(m -> toType(m).hasDocValues, true);
         private final Parameter<Boolean> stored = Parameter.storeParam(m -> toType(m).stored, false);
+        private final Parameter<String> docValuesEncoding = Parameter.docValuesEncodingParam(m -> toType(m).docValuesEncoding);
 
         private final Parameter<Explicit<Boolean>> ignoreMalformed;
         private final Parameter<Explicit<Boolean>> coerce;
@@ -196,7 +199,8 @@ public class NumberFieldMapper extends FieldMapper {
                 onScriptError,
                 meta,
                 dimension,
-                metric
+                metric,
+                docValuesEncoding
             );
         }
 
@@ -1158,6 +1162,7 @@ public class NumberFieldMapper extends FieldMapper {
     private final boolean indexed;
     private final boolean hasDocValues;
     private final boolean stored;
+    private final String docValuesEncoding;
     private final Explicit<Boolean> ignoreMalformed;
     private final Explicit<Boolean> coerce;
     private final Number nullValue;
@@ -1180,6 +1185,7 @@ public class NumberFieldMapper extends FieldMapper {
         this.indexed = builder.indexed.getValue();
         this.hasDocValues = builder.hasDocValues.getValue();
         this.stored = builder.stored.getValue();
+        this.docValuesEncoding = builder.docValuesEncoding.getValue();
         this.ignoreMalformed = builder.ignoreMalformed.getValue();
         this.coerce = builder.coerce.getValue();
         this.nullValue = builder.nullValue.getValue();
@@ -1196,6 +1202,14 @@ public class NumberFieldMapper extends FieldMapper {
         return coerce.value();
     }
 
+    @Override
+    public DocValuesFormat getDocValuesFormatForField() {
+        if (hasDocValues && ES90AdaptiveDocValuesFormat.ADAPTIVE_ENCODING.equals(docValuesEncoding)) {
+            return ES90AdaptiveDocValuesFormat.INSTANCE;
+        }
+        return null;
+    }
+
     boolean ignoreMalformed() {
         return ignoreMalformed.value();
     }
@@ -1259,6 +1273,7 @@ public class NumberFieldMapper extends FieldMapper {
                 context.doc().addWithKey(fieldType().name(), fields.get(0));
                 context.doc().addAll(fields.subList(1, fields.size()));
             }
+            context.doc().addDimensionBytes(fieldType().name(), TimeSeriesIdFieldMapper.encodeTsidValue(numericValue.longValue()));
         } else {
             context.doc().addAll(fields);
         }
@@ -0,0 +1,209 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.lookup.SearchLookup;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+
+/**
+ * Mapper for the {@code _tsid} field. The {@code _tsid} of a document of an index in
+ * {@link IndexMode#TIME_SERIES time series mode} identifies the time series it belongs to. It is built
+ * from the values of all the dimension fields of the document, sorted by field name, so that all the
+ * documents of a time series share the same {@code _tsid}.
+ *
+ * The field is only stored as doc values. Since time series indices are sorted on {@code _tsid}
+ * first, its values are written in long runs of identical ordinals which compress very well.
+ */
+public class TimeSeriesIdFieldMapper extends MetadataFieldMapper {
+
+    public static final String NAME = "_tsid";
+    public static final String CONTENT_TYPE = "_tsid";
+
+    /**
+     * The maximum length of a {@code _tsid}. This is the maximum length of a term in Lucene.
+     */
+    public static final int LIMIT = BytesRef.MAX_TERM_LENGTH;
+
+    /**
+     * The maximum length of the name of a dimension field.
+     */
+    public static final int DIMENSION_NAME_LIMIT = 512;
+
+    public static final TimeSeriesIdFieldMapper INSTANCE = new TimeSeriesIdFieldMapper();
+
+    public static final TypeParser PARSER = new FixedTypeParser(c -> INSTANCE);
+
+    public static final class TimeSeriesIdFieldType extends MappedFieldType {
+
+        public static final TimeSeriesIdFieldType INSTANCE = new TimeSeriesIdFieldType();
+
+        private TimeSeriesIdFieldType() {
+            super(NAME, false, false, true, TextSearchInfo.NONE, Collections.emptyMap());
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public ValueFetcher valueFetcher(SearchExecutionContext context, String format) {
+            return new DocValueFetcher(docValueFormat(format, null), context.getForField(this));
+        }
+
+        @Override
+        public DocValueFormat docValueFormat(String format, ZoneId timeZone) {
+            checkNoFormat(format);
+            checkNoTimeZone(timeZone);
+            return DocValueFormat.TIME_SERIES_ID;
+        }
+
+        @Override
+        public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> searchLookup) {
+            failIfNoDocValues();
+            return new SortedSetOrdinalsIndexFieldData.Builder(name(), CoreValuesSourceType.KEYWORD);
+        }
+
+        @Override
+        public Query termQuery(Object value, SearchExecutionContext context) {
+            throw new QueryShardException(context, "Field [" + name() + "] of type [" + typeName() + "] is not searchable");
+        }
+    }
+
+    private TimeSeriesIdFieldMapper() {
+        super(TimeSeriesIdFieldType.INSTANCE);
+    }
+
+    @Override
+    public void postParse(DocumentParserContext context) throws IOException {
+        if (context.indexSettings().getMode() != IndexMode.TIME_SERIES) {
+            return;
+        }
+        SortedMap<String, BytesReference> dimensionFields = context.rootDoc().getDimensionBytes();
+        BytesReference timeSeriesId = encodeTsid(dimensionFields);
+        // a single valued sorted set is stored as sorted doc values by the codec
+        context.rootDoc().add(new SortedSetDocValuesField(fieldType().name(), timeSeriesId.toBytesRef()));
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    /**
+     * Encodes the values of the dimension fields of a document, sorted by field name, into a {@code _tsid}.
+     * The encoding is the number of dimensions followed by, for each dimension, its name and its encoded value.
+     */
+    public static BytesReference encodeTsid(SortedMap<String, BytesReference> dimensionFields) throws IOException {
+        if (dimensionFields.isEmpty()) {
+            throw new IllegalArgumentException("Dimension fields are missing.");
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeVInt(dimensionFields.size());
+            for (Map.Entry<String, BytesReference> entry : dimensionFields.entrySet()) {
+                String fieldName = entry.getKey();
+                BytesRef fieldNameBytes = new BytesRef(fieldName);
+                int len = fieldNameBytes.length;
+                if (len > DIMENSION_NAME_LIMIT) {
+                    throw new IllegalArgumentException(
+                        "Dimension name must be less than [" + DIMENSION_NAME_LIMIT + "] bytes but [" + fieldName + "] was [" + len + "]."
+                    );
+                }
+                out.writeBytesRef(fieldNameBytes);
+                entry.getValue().writeTo(out);
+            }
+            BytesReference timeSeriesId = out.bytes();
+            if (timeSeriesId.length() > LIMIT) {
+                throw new IllegalArgumentException(NAME + " longer than [" + LIMIT + "] bytes [" + timeSeriesId.length() + "].");
+            }
+            return timeSeriesId;
+        }
+    }
+
+    /**
+     * Encodes the value of a {@code keyword} or {@code ip} dimension.
+     */
+    public static BytesReference encodeTsidValue(String value) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.write((byte) 's');
+            out.writeBytesRef(new BytesRef(value));
+            return out.bytes();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Dimension field cannot be serialized.", e);
+        }
+    }
+
+    /**
+     * Encodes the value of a numeric dimension.
+     */
+    public static BytesReference encodeTsidValue(long value) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.write((byte) 'l');
+            out.writeLong(value);
+            return out.bytes();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Dimension field cannot be serialized.", e);
+        }
+    }
+
+    /**
+     * Decodes a {@code _tsid} into a map from dimension field name to dimension value.
+     */
+    public static Map<String, Object> decodeTsid(BytesRef tsid) {
+        return decodeTsid(new BytesArray(tsid).streamInput());
+    }
+
+    /**
+     * Decodes a {@code _tsid} into a map from dimension field name to dimension value.
+     */
+    public static Map<String, Object> decodeTsid(StreamInput in) {
+        try {
+            int size = in.readVInt();
+            Map<String, Object> result = new LinkedHashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                String name = in.readBytesRef().utf8ToString();
+                int type = in.read();
+                switch (type) {
+                    case 's':
+                        result.put(name, in.readBytesRef().utf8ToString());
+                        break;
+                    case 'l':
+                        result.put(name, in.readLong());
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Cannot parse [" + name + "]: Unknown type [" + type + "]");
+                }
+            }
+            return result;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Error formatting " + NAME + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -90,6 +90,7 @@ import org.elasticsearch.index.engine.Engine.GetResult;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.NodeMergeScheduler;
 import org.elasticsearch.index.engine.ReadOnlyEngine;
 import org.elasticsearch.index.engine.RefreshFailedEngineException;
 import org.elasticsearch.index.engine.SafeCommitInfo;
@@ -226,6 +227,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final PendingReplicationActions pendingReplicationActions;
     private final ReplicationTracker replicationTracker;
     private final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier;
+    @Nullable
+    private final NodeMergeScheduler nodeMergeScheduler;
 
     protected volatile ShardRouting shardRouting;
     protected volatile IndexShardState state;
@@ -308,7 +311,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             final Runnable globalCheckpointSyncer,
             final RetentionLeaseSyncer retentionLeaseSyncer,
             final CircuitBreakerService circuitBreakerService,
-            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier) throws IOException {
+            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+            final @Nullable NodeMergeScheduler nodeMergeScheduler) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -319,11 +323,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Objects.requireNonNull(store, "Store must be provided to the index shard");
         this.engineFactory = Objects.requireNonNull(engineFactory);
         this.snapshotCommitSupplier = Objects.requireNonNull(snapshotCommitSupplier);
+        this.nodeMergeScheduler = nodeMergeScheduler;
         this.store = store;
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
-        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine,
+            () -> indexSettings.isTranslogGroupCommit() ? threadPool.executor(ThreadPool.Names.TRANSLOG_SYNC) : null);
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -839,29 +845,49 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                                                            long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
                                                            boolean isRetry)
         throws IOException {
+        return applyIndexOperationOnPrimary(version, versionType, sourceToParse, ifSeqNo, ifPrimaryTerm, autoGeneratedTimestamp, isRetry,
+            null);
+    }
+
+    /**
+     * Like {@link #applyIndexOperationOnPrimary(long, VersionType, SourceToParse, long, long, long, boolean)} but uses the
+     * document that {@link #preParseDocument} parsed from the same source if the mapping didn't change since.
+     */
+    public Engine.IndexResult applyIndexOperationOnPrimary(long version, VersionType versionType, SourceToParse sourceToParse,
+                                                           long ifSeqNo, long ifPrimaryTerm, long autoGeneratedTimestamp,
+                                                           boolean isRetry, @Nullable PreParsedDocument preParsed)
+        throws IOException {
         assert versionType.validateVersionForWrites(version);
         return applyIndexOperation(getEngine(), UNASSIGNED_SEQ_NO, getOperationPrimaryTerm(), version, versionType, ifSeqNo,
-            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse);
+            ifPrimaryTerm, autoGeneratedTimestamp, isRetry, Engine.Operation.Origin.PRIMARY, sourceToParse, preParsed);
     }
 
     public Engine.IndexResult applyIndexOperationOnReplica(long seqNo, long opPrimaryTerm, long version, long autoGeneratedTimeStamp,
         boolean isRetry, SourceToParse sourceToParse)
         throws IOException {
         return applyIndexOperation(getEngine(), seqNo, opPrimaryTerm, version, null, UNASSIGNED_SEQ_NO, 0,
-            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse);
+            autoGeneratedTimeStamp, isRetry, Engine.Operation.Origin.REPLICA, sourceToParse, null);
     }
 
     private Engine.IndexResult applyIndexOperation(Engine engine, long seqNo, long opPrimaryTerm, long version,
                                                    @Nullable VersionType versionType, long ifSeqNo, long ifPrimaryTerm,
                                                    long autoGeneratedTimeStamp, boolean isRetry, Engine.Operation.Origin origin,
-                                                   SourceToParse sourceToParse) throws IOException {
+                                                   SourceToParse sourceToParse, @Nullable PreParsedDocument preParsed)
+        throws IOException {
         assert opPrimaryTerm <= getOperationPrimaryTerm()
                 : "op term [ " + opPrimaryTerm + " ] > shard term [" + getOperationPrimaryTerm() + "]";
         ensureWriteAllowed(origin);
         Engine.Index operation;
         try {
-            operation = prepareIndex(mapperService, sourceToParse,
-                seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            if (preParsed != null && preParsed.documentMapper == mapperService.documentMapper()) {
+                // the document was parsed with the current mapping and didn't need to update it
+                operation = new Engine.Index(new Term(IdFieldMapper.NAME, Uid.encodeId(preParsed.doc.id())), preParsed.doc, seqNo,
+                    opPrimaryTerm, version, versionType, origin, System.nanoTime() - preParsed.parseTimeInNanos,
+                    autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            } else {
+                operation = prepareIndex(mapperService, sourceToParse,
+                    seqNo, opPrimaryTerm, version, versionType, origin, autoGeneratedTimeStamp, isRetry, ifSeqNo, ifPrimaryTerm);
+            }
             Mapping update = operation.parsedDoc().dynamicMappingsUpdate();
             if (update != null) {
                 return new Engine.IndexResult(update);
@@ -904,6 +930,45 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             ifSeqNo, ifPrimaryTerm);
     }
 
+    /**
+     * Parses a document with the current mapping so that it doesn't have to be parsed when it's applied to the primary. Safe to
+     * call concurrently with indexing. Returns {@code null} if the document needs a mapping update or fails to parse, it's parsed
+     * again when it's applied in that case so the mapping update or the failure is handled like for any other document.
+     */
+    @Nullable
+    public PreParsedDocument preParseDocument(SourceToParse source) {
+        final DocumentMapper documentMapper = mapperService.documentMapper();
+        if (documentMapper == null) {
+            return null;
+        }
+        final long startTime = System.nanoTime();
+        final ParsedDocument doc;
+        try {
+            doc = documentMapper.parse(source);
+        } catch (Exception e) {
+            return null;
+        }
+        if (doc.dynamicMappingsUpdate() != null) {
+            return null;
+        }
+        return new PreParsedDocument(documentMapper, doc, System.nanoTime() - startTime);
+    }
+
+    /**
+     * A document that was parsed by {@link #preParseDocument} and the mapping that it was parsed with.
+     */
+    public static final class PreParsedDocument {
+        private final DocumentMapper documentMapper;
+        private final ParsedDocument doc;
+        private final long parseTimeInNanos;
+
+        private PreParsedDocument(DocumentMapper documentMapper, ParsedDocument doc, long parseTimeInNanos) {
+            this.documentMapper = documentMapper;
+            this.doc = doc;
+            this.parseTimeInNanos = parseTimeInNanos;
+        }
+    }
+
     private Engine.IndexResult index(Engine engine, Engine.Index index) throws IOException {
         active.set(true);
         final Engine.IndexResult result;
@@ -1590,7 +1655,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 result = applyIndexOperation(engine, index.seqNo(), index.primaryTerm(), index.version(),
                     versionType, UNASSIGNED_SEQ_NO, 0, index.getAutoGeneratedIdTimestamp(), true, origin,
                     new SourceToParse(shardId.getIndexName(), index.id(), index.source(),
-                        XContentHelper.xContentType(index.source()), index.routing(), Map.of()));
+                        XContentHelper.xContentType(index.source()), index.routing(), Map.of()), null);
                 break;
             case DELETE:
                 final Translog.Delete delete = (Translog.Delete) operation;
@@ -2602,6 +2667,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         internalIndexingStats.noopUpdate();
     }
 
+    /**
+     * Should be called with the time that a write operation on this shard waited for its turn before it was executed.
+     */
+    public void addWriteQueueTime(long queueTimeInNanos) {
+        internalIndexingStats.writeQueueTime(queueTimeInNanos);
+    }
+
     public void maybeCheckIndex() {
         recoveryState.setStage(RecoveryState.Stage.VERIFY_INDEX);
         if (Booleans.isTrue(checkIndexOnStartup) || "checksum".equals(checkIndexOnStartup)) {
@@ -2947,7 +3019,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 replicationTracker::getRetentionLeases,
                 this::getOperationPrimaryTerm,
                 snapshotCommitSupplier,
-                isTimeseriesIndex ? TIMESERIES_LEAF_READERS_SORTER : null);
+                isTimeseriesIndex ? TIMESERIES_LEAF_READERS_SORTER : null,
+                nodeMergeScheduler);
     }
 
     /**
@@ -3256,8 +3329,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
 
     private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(Logger logger, ThreadContext threadContext,
-                                                                                   Supplier<Engine> engineSupplier) {
+                                                                                   Supplier<Engine> engineSupplier,
+                                                                                   Supplier<Executor> groupCommitExecutor) {
         return new AsyncIOProcessor<>(logger, 1024, threadContext) {
+            @Override
+            protected Executor executor() {
+                return groupCommitExecutor.get();
+            }
+
             @Override
             protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
                 try {
@@ -3278,7 +3357,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
      * the transaction log the caller thread will be hijacked to run the fsync for all pending fsync operations.
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only
-     * one thread blocking on the sync an all others can continue indexing.
+     * one thread blocking on the sync an all others can continue indexing. If {@link IndexSettings#isTranslogGroupCommit()}
+     * is enabled the caller thread is never hijacked, the fsync runs on the {@link ThreadPool.Names#TRANSLOG_SYNC} thread pool
+     * and the sync listener is called on that thread.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
      */
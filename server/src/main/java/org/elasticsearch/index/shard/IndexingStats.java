@@ -36,6 +36,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         private long noopUpdateCount;
         private long throttleTimeInMillis;
         private boolean isThrottled;
+        private long writeQueueTimeInMillis;
 
         Stats() {}
 
@@ -50,10 +51,20 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             noopUpdateCount = in.readVLong();
             isThrottled = in.readBoolean();
             throttleTimeInMillis = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                writeQueueTimeInMillis = in.readVLong();
+            }
         }
 
         public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount,
                         long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis) {
+            this(indexCount, indexTimeInMillis, indexCurrent, indexFailedCount, deleteCount, deleteTimeInMillis, deleteCurrent,
+                noopUpdateCount, isThrottled, throttleTimeInMillis, 0);
+        }
+
+        public Stats(long indexCount, long indexTimeInMillis, long indexCurrent, long indexFailedCount, long deleteCount,
+                     long deleteTimeInMillis, long deleteCurrent, long noopUpdateCount, boolean isThrottled, long throttleTimeInMillis,
+                     long writeQueueTimeInMillis) {
             this.indexCount = indexCount;
             this.indexTimeInMillis = indexTimeInMillis;
             this.indexCurrent = indexCurrent;
@@ -64,6 +75,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             this.noopUpdateCount = noopUpdateCount;
             this.isThrottled = isThrottled;
             this.throttleTimeInMillis = throttleTimeInMillis;
+            this.writeQueueTimeInMillis = writeQueueTimeInMillis;
         }
 
         public void add(Stats stats) {
@@ -78,6 +90,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
 
             noopUpdateCount += stats.noopUpdateCount;
             throttleTimeInMillis += stats.throttleTimeInMillis;
+            writeQueueTimeInMillis += stats.writeQueueTimeInMillis;
             if (isThrottled != stats.isThrottled) {
                 isThrottled = true; //When combining if one is throttled set result to throttled.
             }
@@ -138,6 +151,13 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             return noopUpdateCount;
         }
 
+        /**
+         * The total amount of time that write operations waited for their turn when they are scheduled fairly across indices.
+         */
+        public TimeValue getWriteQueueTime() {
+            return new TimeValue(writeQueueTimeInMillis);
+        }
+
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             out.writeVLong(indexCount);
@@ -150,7 +170,9 @@ public class IndexingStats implements Writeable, ToXContentFragment {
             out.writeVLong(noopUpdateCount);
             out.writeBoolean(isThrottled);
             out.writeLong(throttleTimeInMillis);
-
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeVLong(writeQueueTimeInMillis);
+            }
         }
 
         @Override
@@ -168,6 +190,7 @@ public class IndexingStats implements Writeable, ToXContentFragment {
 
             builder.field(Fields.IS_THROTTLED, isThrottled);
             builder.humanReadableField(Fields.THROTTLED_TIME_IN_MILLIS, Fields.THROTTLED_TIME, getThrottleTime());
+            builder.humanReadableField(Fields.WRITE_QUEUE_TIME_IN_MILLIS, Fields.WRITE_QUEUE_TIME, getWriteQueueTime());
             return builder;
         }
     }
@@ -242,6 +265,8 @@ public class IndexingStats implements Writeable, ToXContentFragment {
         static final String IS_THROTTLED = "is_throttled";
         static final String THROTTLED_TIME_IN_MILLIS = "throttle_time_in_millis";
         static final String THROTTLED_TIME = "throttle_time";
+        static final String WRITE_QUEUE_TIME_IN_MILLIS = "write_queue_time_in_millis";
+        static final String WRITE_QUEUE_TIME = "write_queue_time";
     }
 
     @Override
@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.stats;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The decisions that the {@link org.elasticsearch.indices.IndexingMemoryController} made about the indexing buffers of the
+ * shards on a node.
+ */
+public class IndexingBufferStats implements Writeable, ToXContentFragment {
+
+    private final boolean adaptive;
+    private final long limitInBytes;
+    private final long usedInBytes;
+    private final long writingInBytes;
+    private final long bufferWrites;
+    private final long throttleActivations;
+    private final int throttledShards;
+
+    public IndexingBufferStats(StreamInput in) throws IOException {
+        adaptive = in.readBoolean();
+        limitInBytes = in.readVLong();
+        usedInBytes = in.readVLong();
+        writingInBytes = in.readVLong();
+        bufferWrites = in.readVLong();
+        throttleActivations = in.readVLong();
+        throttledShards = in.readVInt();
+    }
+
+    public IndexingBufferStats(boolean adaptive, long limitInBytes, long usedInBytes, long writingInBytes, long bufferWrites,
+                               long throttleActivations, int throttledShards) {
+        this.adaptive = adaptive;
+        this.limitInBytes = limitInBytes;
+        this.usedInBytes = usedInBytes;
+        this.writingInBytes = writingInBytes;
+        this.bufferWrites = bufferWrites;
+        this.throttleActivations = throttleActivations;
+        this.throttledShards = throttledShards;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeBoolean(adaptive);
+        out.writeVLong(limitInBytes);
+        out.writeVLong(usedInBytes);
+        out.writeVLong(writingInBytes);
+        out.writeVLong(bufferWrites);
+        out.writeVLong(throttleActivations);
+        out.writeVInt(throttledShards);
+    }
+
+    /**
+     * Whether the buffer is split between shards by how fast they index.
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public long getLimitInBytes() {
+        return limitInBytes;
+    }
+
+    /**
+     * Heap used by the indexing buffers of all shards when they were last checked, not counting the bytes being written.
+     */
+    public long getUsedInBytes() {
+        return usedInBytes;
+    }
+
+    /**
+     * Heap of the indexing buffers that were being written to disk when they were last checked.
+     */
+    public long getWritingInBytes() {
+        return writingInBytes;
+    }
+
+    /**
+     * The number of times a shard was asked to write its indexing buffer to disk to free up heap.
+     */
+    public long getBufferWrites() {
+        return bufferWrites;
+    }
+
+    /**
+     * The number of times indexing into a shard was throttled because segment writing couldn't keep up.
+     */
+    public long getThrottleActivations() {
+        return throttleActivations;
+    }
+
+    public int getThrottledShards() {
+        return throttledShards;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("indexing_buffer");
+        builder.field("adaptive", adaptive);
+        builder.humanReadableField("limit_in_bytes", "limit", new ByteSizeValue(limitInBytes));
+        builder.humanReadableField("used_in_bytes", "used", new ByteSizeValue(usedInBytes));
+        builder.humanReadableField("writing_in_bytes", "writing", new ByteSizeValue(writingInBytes));
+        builder.field("buffer_writes", bufferWrites);
+        builder.field("throttle_activations", throttleActivations);
+        builder.field("throttled_shards", throttledShards);
+        return builder.endObject();
+    }
+}
@@ -8,7 +8,9 @@
 
 package org.elasticsearch.index.translog;
 
+import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.common.io.stream.ByteBufferStreamInput;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.IOException;
@@ -60,15 +62,21 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
 
     /** read the size of the op (i.e., number of bytes, including the op size) written at the given position */
     protected final int readSize(ByteBuffer reusableBuffer, long position) throws IOException {
-        // read op size from disk
-        assert reusableBuffer.capacity() >= 4 : "reusable buffer must have capacity >=4 when reading opSize. got [" +
-            reusableBuffer.capacity() + "]";
-        reusableBuffer.clear();
-        reusableBuffer.limit(4);
-        readBytes(reusableBuffer, position);
-        reusableBuffer.flip();
+        final ByteBuffer buffer;
+        if (mapping() != null) {
+            buffer = mappedSlice(position, 4);
+        } else {
+            // read op size from disk
+            assert reusableBuffer.capacity() >= 4 : "reusable buffer must have capacity >=4 when reading opSize. got [" +
+                reusableBuffer.capacity() + "]";
+            reusableBuffer.clear();
+            reusableBuffer.limit(4);
+            readBytes(reusableBuffer, position);
+            reusableBuffer.flip();
+            buffer = reusableBuffer;
+        }
         // Add an extra 4 to account for the operation size integer itself
-        final int size = reusableBuffer.getInt() + 4;
+        final int size = buffer.getInt() + 4;
         final long maxSize = sizeInBytes() - position;
         if (size < 0 || size > maxSize) {
             throw new TranslogCorruptedException(
@@ -84,20 +92,26 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
 
     /**
      * reads an operation at the given position and returns it. The buffer length is equal to the number
-     * of bytes reads.
+     * of bytes reads. If the file is {@link #mapping() mapped} the operation is read straight from the
+     * mapping and the reusable buffer is not used, the caller must hold a reference to the mapping until the
+     * operation is read, see {@link #acquireMapping()}.
      */
-    protected final BufferedChecksumStreamInput checksummedStream(ByteBuffer reusableBuffer, long position, int opSize,
+    protected final BufferedChecksumStreamInput checksummedStream(@Nullable ByteBuffer reusableBuffer, long position, int opSize,
                                                                         BufferedChecksumStreamInput reuse) throws IOException {
         final ByteBuffer buffer;
-        if (reusableBuffer.capacity() >= opSize) {
-            buffer = reusableBuffer;
+        if (mapping() != null) {
+            buffer = mappedSlice(position, opSize);
         } else {
-            buffer = ByteBuffer.allocate(opSize);
+            if (reusableBuffer != null && reusableBuffer.capacity() >= opSize) {
+                buffer = reusableBuffer;
+            } else {
+                buffer = ByteBuffer.allocate(opSize);
+            }
+            buffer.clear();
+            buffer.limit(opSize);
+            readBytes(buffer, position);
+            buffer.flip();
         }
-        buffer.clear();
-        buffer.limit(opSize);
-        readBytes(buffer, position);
-        buffer.flip();
         return new BufferedChecksumStreamInput(new ByteBufferStreamInput(buffer), path.toString(), reuse);
     }
 
@@ -117,6 +131,49 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
      */
     protected abstract void readBytes(ByteBuffer buffer, long position) throws IOException;
 
+    /**
+     * Returns the whole file mapped into memory or {@code null} if operations have to be read from the {@link #channel}.
+     */
+    @Nullable
+    protected TranslogMapping mapping() {
+        return null;
+    }
+
+    /**
+     * Acquires a reference to the {@link #mapping() mapping} that keeps the file mapped while operations are read from it, returns
+     * {@code null} if the file is not mapped. The reference must be released once the operations have been read.
+     *
+     * @throws AlreadyClosedException if the mapping was released already because the reader was closed
+     */
+    @Nullable
+    protected final TranslogMapping acquireMapping() {
+        final TranslogMapping mapping = mapping();
+        if (mapping != null && mapping.tryIncRef() == false) {
+            throw new AlreadyClosedException(this + " is already closed");
+        }
+        return mapping;
+    }
+
+    /**
+     * Returns a view of the given range of the {@link #mapping() mapped} file. Nothing is copied and the view
+     * is private to the caller so concurrent reads don't interfere with each other.
+     */
+    private ByteBuffer mappedSlice(long position, int length) throws IOException {
+        final ByteBuffer mapped = mapping().buffer();
+        if (position < getFirstOperationOffset()) {
+            throw new IOException("read requested before position of first ops. pos [" + position + "] first op on: [" +
+                getFirstOperationOffset() + "], generation: [" + getGeneration() + "], path: [" + path + "]");
+        }
+        if (position + length > sizeInBytes()) {
+            throw new TranslogCorruptedException(path.toString(), "translog truncated, read of [" + length + "] bytes at pos ["
+                + position + "] ends past [" + sizeInBytes() + "]");
+        }
+        final ByteBuffer slice = mapped.duplicate();
+        slice.position(Math.toIntExact(position));
+        slice.limit(Math.toIntExact(position + length));
+        return slice;
+    }
+
     @Override
     public String toString() {
         return "translog [" + generation + "][" + path + "]";
@@ -141,7 +198,13 @@ public abstract class BaseTranslogReader implements Comparable<BaseTranslogReade
      */
     Translog.Operation read(Translog.Location location) throws IOException {
         assert location.generation == this.generation : "generation mismatch expected: " + generation + " got: " + location.generation;
-        ByteBuffer buffer = ByteBuffer.allocate(location.size);
-        return read(checksummedStream(buffer, location.translogLocation, location.size, null));
+        final TranslogMapping mapping = acquireMapping();
+        try {
+            return read(checksummedStream(null, location.translogLocation, location.size, null));
+        } finally {
+            if (mapping != null) {
+                mapping.decRef();
+            }
+        }
     }
 }
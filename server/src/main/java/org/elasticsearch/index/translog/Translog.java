@@ -293,7 +293,8 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try {
             assert Translog.parseIdFromFileName(path) == checkpoint.generation : "expected generation: " +
                 Translog.parseIdFromFileName(path) + " but got: " + checkpoint.generation;
-            TranslogReader reader = TranslogReader.open(channel, path, checkpoint, translogUUID);
+            final boolean mmap = config.getIndexSettings().isTranslogMmap();
+            TranslogReader reader = TranslogReader.open(channel, path, checkpoint, translogUUID, mmap);
             channel = null;
             return reader;
         } finally {
@@ -1609,7 +1610,7 @@ public class Translog extends AbstractIndexShardComponent implements IndexShardC
         try (Releasable ignored = writeLock.acquire()) {
             ensureOpen();
             try {
-                final TranslogReader reader = current.closeIntoReader();
+                final TranslogReader reader = current.closeIntoReader(config.getIndexSettings().isTranslogMmap());
                 readers.add(reader);
                 assert Checkpoint.read(location.resolve(CHECKPOINT_FILE_NAME)).generation == current.getGeneration();
                 copyCheckpointTo(location.resolve(getCommitCheckpointFileName(current.getGeneration())));
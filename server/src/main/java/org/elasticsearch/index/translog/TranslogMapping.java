@@ -0,0 +1,56 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The operations of a translog generation mapped into memory. The reader of the generation holds a reference to the mapping and every
+ * read of an operation holds another one while it runs. Once the reader is closed and no read is in flight the mapping drops the mapped
+ * buffer, which is unmapped when it is garbage collected, and reads that start afterwards fail rather than keeping it alive.
+ */
+final class TranslogMapping extends AbstractRefCounted {
+
+    private volatile ByteBuffer buffer;
+
+    private TranslogMapping(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps the operations of the given checkpoint into memory. Returns {@code null} if they don't fit in a single mapping
+     * or if the file is shorter than the checkpoint says, in which case reads through the channel report the truncation.
+     */
+    @Nullable
+    static TranslogMapping map(final FileChannel channel, final Checkpoint checkpoint) throws IOException {
+        if (checkpoint.offset > Integer.MAX_VALUE || channel.size() < checkpoint.offset) {
+            return null;
+        }
+        return new TranslogMapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, checkpoint.offset));
+    }
+
+    /**
+     * The mapped bytes, only valid while a reference to the mapping is held.
+     */
+    ByteBuffer buffer() {
+        assert refCount() > 0;
+        return buffer;
+    }
+
+    @Override
+    protected void closeInternal() {
+        // unmapping explicitly needs access to JDK internals, the buffer is unmapped when it is garbage collected instead
+        buffer = null;
+    }
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.index.translog;
 
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
@@ -32,6 +33,8 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
     private final int totalOperations;
     private final Checkpoint checkpoint;
     protected final AtomicBoolean closed = new AtomicBoolean(false);
+    @Nullable
+    private final TranslogMapping mapping;
 
     /**
      * Create a translog writer against the specified translog file channel.
@@ -42,10 +45,22 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
      * @param header     the header of the translog file
      */
     TranslogReader(final Checkpoint checkpoint, final FileChannel channel, final Path path, final TranslogHeader header) {
+        this(checkpoint, channel, path, header, null);
+    }
+
+    /**
+     * Create a translog reader against the specified translog file channel that reads operations from the given mapping of
+     * the file if it isn't {@code null}. The reader takes over the reference to the mapping and releases it when it is closed.
+     */
+    TranslogReader(final Checkpoint checkpoint, final FileChannel channel, final Path path, final TranslogHeader header,
+                   @Nullable final TranslogMapping mapping) {
         super(checkpoint.generation, channel, path, header);
+        assert mapping == null || mapping.buffer().capacity() == checkpoint.offset
+            : "mapped " + mapping.buffer().capacity() + " bytes of " + checkpoint;
         this.length = checkpoint.offset;
         this.totalOperations = checkpoint.numOps;
         this.checkpoint = checkpoint;
+        this.mapping = mapping;
     }
 
     /**
@@ -60,8 +75,16 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
      */
     public static TranslogReader open(
             final FileChannel channel, final Path path, final Checkpoint checkpoint, final String translogUUID) throws IOException {
+        return open(channel, path, checkpoint, translogUUID, false);
+    }
+
+    /**
+     * Like {@link #open(FileChannel, Path, Checkpoint, String)} but maps the file into memory if {@code mmap} is true.
+     */
+    static TranslogReader open(final FileChannel channel, final Path path, final Checkpoint checkpoint, final String translogUUID,
+                               final boolean mmap) throws IOException {
         final TranslogHeader header = TranslogHeader.read(translogUUID, path, channel);
-        return new TranslogReader(checkpoint, channel, path, header);
+        return new TranslogReader(checkpoint, channel, path, header, mmap ? TranslogMapping.map(channel, checkpoint) : null);
     }
 
     /**
@@ -69,7 +92,7 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
      */
     TranslogReader closeIntoTrimmedReader(long aboveSeqNo, ChannelFactory channelFactory) throws IOException {
         if (closed.compareAndSet(false, true)) {
-            Closeable toCloseOnFailure = channel;
+            Closeable toCloseOnFailure = this::closeChannelAndMapping;
             final TranslogReader newReader;
             try {
                 if (aboveSeqNo < checkpoint.trimmedAboveSeqNo
@@ -81,9 +104,9 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
                     Checkpoint.write(channelFactory, checkpointFile, newCheckpoint, StandardOpenOption.WRITE);
                     IOUtils.fsync(checkpointFile.getParent(), true);
 
-                    newReader = new TranslogReader(newCheckpoint, channel, path, header);
+                    newReader = new TranslogReader(newCheckpoint, channel, path, header, mapping);
                 } else {
-                    newReader = new TranslogReader(checkpoint, channel, path, header);
+                    newReader = new TranslogReader(checkpoint, channel, path, header, mapping);
                 }
                 toCloseOnFailure = null;
                 return newReader;
@@ -108,6 +131,11 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
         return checkpoint;
     }
 
+    @Override
+    protected final TranslogMapping mapping() {
+        return mapping;
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
@@ -125,7 +153,18 @@ public class TranslogReader extends BaseTranslogReader implements Closeable {
     @Override
     public final void close() throws IOException {
         if (closed.compareAndSet(false, true)) {
+            closeChannelAndMapping();
+        }
+    }
+
+    private void closeChannelAndMapping() throws IOException {
+        try {
             channel.close();
+        } finally {
+            if (mapping != null) {
+                // unmaps the file once the reads that are in flight are done
+                mapping.decRef();
+            }
         }
     }
 
@@ -8,6 +8,7 @@
 package org.elasticsearch.index.translog;
 
 import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.EOFException;
@@ -20,7 +21,10 @@ final class TranslogSnapshot extends BaseTranslogReader {
     private final Checkpoint checkpoint;
     protected final long length;
 
+    @Nullable
     private final ByteBuffer reusableBuffer;
+    @Nullable
+    private final TranslogMapping mapping;
     private long position;
     private int skippedOperations;
     private int readOperations;
@@ -34,7 +38,8 @@ final class TranslogSnapshot extends BaseTranslogReader {
         this.length = length;
         this.totalOperations = reader.totalOperations();
         this.checkpoint = reader.getCheckpoint();
-        this.reusableBuffer = ByteBuffer.allocate(1024);
+        this.mapping = reader.mapping();
+        this.reusableBuffer = mapping == null ? ByteBuffer.allocate(1024) : null;
         this.readOperations = 0;
         this.position = reader.getFirstOperationOffset();
         this.reuse = null;
@@ -66,18 +71,30 @@ final class TranslogSnapshot extends BaseTranslogReader {
     }
 
     private Translog.Operation readOperation() throws IOException {
-        final int opSize = readSize(reusableBuffer, position);
-        reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
-        Translog.Operation op = read(reuse);
-        position += opSize;
-        readOperations++;
-        return op;
+        final TranslogMapping mapping = acquireMapping();
+        try {
+            final int opSize = readSize(reusableBuffer, position);
+            reuse = checksummedStream(reusableBuffer, position, opSize, reuse);
+            Translog.Operation op = read(reuse);
+            position += opSize;
+            readOperations++;
+            return op;
+        } finally {
+            if (mapping != null) {
+                mapping.decRef();
+            }
+        }
     }
 
     public long sizeInBytes() {
         return length;
     }
 
+    @Override
+    protected TranslogMapping mapping() {
+        return mapping;
+    }
+
     /**
      * reads an operation at the given position into the given buffer.
      */
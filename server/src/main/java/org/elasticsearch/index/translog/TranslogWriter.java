@@ -313,6 +313,13 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
      * @throws IOException if any of the file operations resulted in an I/O exception
      */
     public TranslogReader closeIntoReader() throws IOException {
+        return closeIntoReader(false);
+    }
+
+    /**
+     * Like {@link #closeIntoReader()} but the new reader reads operations from a mapping of the file if {@code mmap} is true.
+     */
+    TranslogReader closeIntoReader(boolean mmap) throws IOException {
         // make sure to acquire the sync lock first, to prevent dead locks with threads calling
         // syncUpTo() , where the sync lock is acquired first, following by the synchronize(this)
         // After the sync lock we acquire the write lock to avoid deadlocks with threads writing where
@@ -333,15 +340,29 @@ public class TranslogWriter extends BaseTranslogReader implements Closeable {
                     assert buffer == null;
                     assert checkChannelPositionWhileHandlingException(totalOffset);
                     assert totalOffset == lastSyncedCheckpoint.offset;
+                    final Checkpoint checkpoint = getLastSyncedCheckpoint();
+                    final TranslogMapping mapping;
+                    try {
+                        mapping = mmap ? TranslogMapping.map(channel, checkpoint) : null;
+                    } catch (final Exception ex) {
+                        closeWithTragicEvent(ex);
+                        throw ex;
+                    }
                     if (closed.compareAndSet(false, true)) {
                         try {
                             checkpointChannel.close();
                         } catch (final Exception ex) {
+                            if (mapping != null) {
+                                mapping.decRef();
+                            }
                             closeWithTragicEvent(ex);
                             throw ex;
                         }
-                        return new TranslogReader(getLastSyncedCheckpoint(), channel, path, header);
+                        return new TranslogReader(checkpoint, channel, path, header, mapping);
                     } else {
+                        if (mapping != null) {
+                            mapping.decRef();
+                        }
                         throw new AlreadyClosedException("translog [" + getGeneration() + "] is already closed (path [" + path + "]",
                             tragedy.get());
                     }
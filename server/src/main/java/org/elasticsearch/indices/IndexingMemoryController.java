@@ -18,12 +18,15 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.stats.IndexingBufferStats;
 import org.elasticsearch.threadpool.Scheduler.Cancellable;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPool.Names;
@@ -32,7 +35,9 @@ import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -78,6 +83,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         TimeValue.timeValueSeconds(5),
         Property.NodeScope);
 
+    /** Whether to split the indexing buffer between shards by how fast they index instead of only writing the largest
+     * buffers first (default: false). */
+    public static final Setting<Boolean> ADAPTIVE_INDEX_BUFFER_SETTING = Setting.boolSetting(
+        "indices.memory.adaptive",
+        false,
+        Property.NodeScope);
+
+    /** Weight of the latest check in the smoothed indexing rate of a shard. */
+    static final double INDEXING_RATE_ALPHA = 0.3;
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -87,6 +102,17 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     private final TimeValue inactiveTime;
     private final TimeValue interval;
 
+    private final boolean adaptive;
+
+    /** Bytes indexed into each shard since the last check, only tracked in adaptive mode */
+    private final Map<ShardId, AtomicLong> indexedBytesSinceCheck = ConcurrentCollections.newConcurrentMap();
+
+    private final AtomicLong bufferWrites = new AtomicLong();
+    private final AtomicLong throttleActivations = new AtomicLong();
+    private volatile long lastBytesUsed;
+    private volatile long lastBytesWriting;
+    private volatile int throttledShards;
+
     /** Contains shards currently being throttled because we can't write segments quickly enough */
     private final Set<IndexShard> throttled = new HashSet<>();
 
@@ -120,13 +146,15 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         this.inactiveTime = SHARD_INACTIVE_TIME_SETTING.get(settings);
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
+        this.adaptive = ADAPTIVE_INDEX_BUFFER_SETTING.get(settings);
 
         this.statusChecker = new ShardsIndicesStatusChecker();
 
-        logger.debug("using indexing buffer size [{}] with {} [{}], {} [{}]",
+        logger.debug("using indexing buffer size [{}] with {} [{}], {} [{}], {} [{}]",
                      this.indexingBuffer,
                      SHARD_INACTIVE_TIME_SETTING.getKey(), this.inactiveTime,
-                     SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(), this.interval);
+                     SHARD_MEMORY_INTERVAL_TIME_SETTING.getKey(), this.interval,
+                     ADAPTIVE_INDEX_BUFFER_SETTING.getKey(), this.adaptive);
         this.scheduler = scheduleTask(threadPool);
 
         // Need to save this so we can later launch async "write indexing buffer to disk" on shards:
@@ -151,6 +179,11 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         return indexingBuffer;
     }
 
+    public IndexingBufferStats stats() {
+        return new IndexingBufferStats(adaptive, indexingBuffer.getBytes(), lastBytesUsed, lastBytesWriting, bufferWrites.get(),
+            throttleActivations.get(), throttledShards);
+    }
+
     protected List<IndexShard> availableShards() {
         List<IndexShard> availableShards = new ArrayList<>();
         for (IndexShard shard : indexShards) {
@@ -186,6 +219,12 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         });
     }
 
+    /** returns how many bytes were indexed into this shard since the last call, only tracked in adaptive mode */
+    protected long takeIndexedBytes(IndexShard shard) {
+        final AtomicLong bytes = indexedBytesSinceCheck.get(shard.shardId());
+        return bytes == null ? 0 : bytes.getAndSet(0);
+    }
+
     /** force checker to run now */
     void forceCheck() {
         statusChecker.run();
@@ -203,34 +242,64 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
 
     @Override
     public void postIndex(ShardId shardId, Engine.Index index, Engine.IndexResult result) {
-        recordOperationBytes(index, result);
+        recordOperationBytes(shardId, index, result);
     }
 
     @Override
     public void postDelete(ShardId shardId, Engine.Delete delete, Engine.DeleteResult result) {
-        recordOperationBytes(delete, result);
+        recordOperationBytes(shardId, delete, result);
     }
 
     /** called by IndexShard to record estimated bytes written to translog for the operation */
-    private void recordOperationBytes(Engine.Operation operation, Engine.Result result) {
+    private void recordOperationBytes(ShardId shardId, Engine.Operation operation, Engine.Result result) {
         if (result.getResultType() == Engine.Result.Type.SUCCESS) {
+            if (adaptive) {
+                indexedBytesSinceCheck.computeIfAbsent(shardId, k -> new AtomicLong()).addAndGet(operation.estimatedSizeInBytes());
+            }
             statusChecker.bytesWritten(operation.estimatedSizeInBytes());
         }
     }
 
+    /**
+     * Splits the indexing buffer between shards that index at the given rates. Half of the buffer is split evenly so that shards
+     * which index slowly still write reasonably large segments and the other half in proportion to the rates, so that the
+     * shards which index the most get larger buffers and write fewer, larger segments. Writing a segment has a fixed cost on top
+     * of the cost per byte, so a byte in a large segment is cheaper to write than a byte in a small one.
+     */
+    static long[] budgets(long indexingBuffer, double[] rates) {
+        final long[] budgets = new long[rates.length];
+        double totalRate = 0;
+        for (double rate : rates) {
+            totalRate += rate;
+        }
+        final double half = indexingBuffer / 2.0;
+        for (int i = 0; i < rates.length; i++) {
+            final double share = totalRate > 0 ? rates[i] / totalRate : 1.0 / rates.length;
+            budgets[i] = (long) (half / rates.length + half * share);
+        }
+        return budgets;
+    }
+
     private static final class ShardAndBytesUsed implements Comparable<ShardAndBytesUsed> {
         final long bytesUsed;
         final IndexShard shard;
+        /** how far over its budget the shard is, only set in adaptive mode where shards are sorted by it */
+        final long overBudget;
 
-        ShardAndBytesUsed(long bytesUsed, IndexShard shard) {
+        ShardAndBytesUsed(long bytesUsed, IndexShard shard, long overBudget) {
             this.bytesUsed = bytesUsed;
             this.shard = shard;
+            this.overBudget = overBudget;
         }
 
         @Override
         public int compareTo(ShardAndBytesUsed other) {
-            // Sort larger shards first:
-            return Long.compare(other.bytesUsed, bytesUsed);
+            // Sort shards that are the most over their budget first, then larger shards first:
+            int cmp = Long.compare(other.overBudget, overBudget);
+            if (cmp == 0) {
+                cmp = Long.compare(other.bytesUsed, bytesUsed);
+            }
+            return cmp;
         }
     }
 
@@ -240,6 +309,9 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         final AtomicLong bytesWrittenSinceCheck = new AtomicLong();
         final ReentrantLock runLock = new ReentrantLock();
 
+        /** Smoothed number of bytes indexed into each shard between two checks, only used in adaptive mode and guarded by runLock */
+        private final Map<IndexShard, ExponentiallyWeightedMovingAverage> indexingRates = new IdentityHashMap<>();
+
         /** Shard calls this on each indexing/delete op */
         public void bytesWritten(int bytes) {
             long totalBytes = bytesWrittenSinceCheck.addAndGet(bytes);
@@ -290,6 +362,7 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             // to disk:
             long totalBytesUsed = 0;
             long totalBytesWriting = 0;
+            final Map<IndexShard, Long> budgets = adaptive ? updateBudgets() : null;
             for (IndexShard shard : availableShards()) {
 
                 // Give shard a chance to transition to inactive so we can flush
@@ -318,6 +391,8 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                     new ByteSizeValue(totalBytesUsed), INDEX_BUFFER_SIZE_SETTING.getKey(), indexingBuffer,
                     new ByteSizeValue(totalBytesWriting));
             }
+            lastBytesUsed = totalBytesUsed;
+            lastBytesWriting = totalBytesWriting;
 
             // If we are using more than 50% of our budget across both indexing buffer and bytes we are still moving to disk, then we now
             // throttle the top shards to send back-pressure to ongoing indexing:
@@ -352,7 +427,11 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                                 logger.trace("shard [{}] is using [{}] heap, not writing any bytes", shard.shardId(), shardBytesUsed);
                             }
                         }
-                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shard));
+                        long overBudget = 0;
+                        if (budgets != null) {
+                            overBudget = shardBytesUsed + shardWritingBytes - budgets.getOrDefault(shard, 0L);
+                        }
+                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shard, overBudget));
                     }
                 }
 
@@ -365,10 +444,15 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                     logger.debug("write indexing buffer to disk for shard [{}] to free up its [{}] indexing buffer",
                         largest.shard.shardId(), new ByteSizeValue(largest.bytesUsed));
                     writeIndexingBufferAsync(largest.shard);
+                    bufferWrites.incrementAndGet();
                     totalBytesUsed -= largest.bytesUsed;
-                    if (doThrottle && throttled.contains(largest.shard) == false) {
+                    // in adaptive mode only the shards that went over their own budget are throttled, the others index slowly
+                    // enough to not be the reason why segment writing can't keep up:
+                    boolean throttleShard = doThrottle && (budgets == null || largest.overBudget > 0);
+                    if (throttleShard && throttled.contains(largest.shard) == false) {
                         logger.info("now throttling indexing for shard [{}]: segment writing can't keep up", largest.shard.shardId());
                         throttled.add(largest.shard);
+                        throttleActivations.incrementAndGet();
                         activateThrottling(largest.shard);
                     }
                 }
@@ -381,6 +465,46 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 }
                 throttled.clear();
             }
+            throttledShards = throttled.size();
+        }
+
+        /**
+         * Updates the indexing rate of every shard with the bytes indexed into it since the last check and returns the share of
+         * the indexing buffer that each shard should stay under.
+         */
+        private Map<IndexShard, Long> updateBudgets() {
+            final List<IndexShard> shards = availableShards();
+            final double[] rates = new double[shards.size()];
+            final Map<IndexShard, ExponentiallyWeightedMovingAverage> updated = new IdentityHashMap<>();
+            for (int i = 0; i < rates.length; i++) {
+                final IndexShard shard = shards.get(i);
+                final long indexedBytes = takeIndexedBytes(shard);
+                ExponentiallyWeightedMovingAverage rate = indexingRates.get(shard);
+                if (rate == null) {
+                    rate = new ExponentiallyWeightedMovingAverage(INDEXING_RATE_ALPHA, indexedBytes);
+                } else {
+                    rate.addValue(indexedBytes);
+                }
+                updated.put(shard, rate);
+                rates[i] = rate.getAverage();
+            }
+            // forget the shards that went away
+            indexingRates.clear();
+            indexingRates.putAll(updated);
+            if (indexedBytesSinceCheck.size() > shards.size()) {
+                final Set<ShardId> shardIds = new HashSet<>();
+                for (IndexShard shard : shards) {
+                    shardIds.add(shard.shardId());
+                }
+                indexedBytesSinceCheck.keySet().retainAll(shardIds);
+            }
+
+            final long[] budgets = budgets(indexingBuffer.getBytes(), rates);
+            final Map<IndexShard, Long> budgetsByShard = new IdentityHashMap<>();
+            for (int i = 0; i < budgets.length; i++) {
+                budgetsByShard.put(shards.get(i), budgets[i]);
+            }
+            return budgetsByShard;
         }
     }
 
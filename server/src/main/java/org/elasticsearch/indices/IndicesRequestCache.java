@@ -12,6 +12,7 @@ import com.carrotsearch.hppc.ObjectHashSet;
 import com.carrotsearch.hppc.ObjectSet;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.CheckedSupplier;
@@ -38,6 +39,7 @@ import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 
 /**
  * The indices request cache allows to cache a shard level request stage responses, helping with improving
@@ -60,6 +62,12 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
      */
     public static final Setting<Boolean> INDEX_CACHE_REQUEST_ENABLED_SETTING =
         Setting.boolSetting("index.requests.cache.enable", true, Property.Dynamic, Property.IndexScope);
+    /**
+     * A setting to additionally cache the aggregation results of each segment so that requests that miss
+     * the cache after a refresh only have to collect the segments that changed.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING =
+        Setting.boolSetting("index.requests.cache.segments.enable", false, Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE =
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
@@ -107,14 +115,7 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         BytesReference value = cache.computeIfAbsent(key, cacheLoader);
         if (cacheLoader.isLoaded()) {
             key.entity.onMiss();
-            // see if its the first time we see this reader, and make sure to register a cleanup key
-            CleanupKey cleanupKey = new CleanupKey(cacheEntity, cacheHelper.getKey());
-            if (registeredClosedListeners.containsKey(cleanupKey) == false) {
-                Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
-                if (previous == null) {
-                    cacheHelper.addClosedListener(cleanupKey);
-                }
-            }
+            registerClosedListener(cacheEntity, cacheHelper.getKey(), cacheHelper::addClosedListener);
             /*
              * Note that we don't use a closed listener for the mapping. Instead
              * we let cache entries for out of date mappings age out. We do this
@@ -130,6 +131,42 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         return value;
     }
 
+    /**
+     * Returns the value cached for a single segment or {@code null} if there is none. Segment entries are
+     * keyed on the reader cache key of the segment, which changes when documents of the segment are deleted,
+     * so they survive refreshes that leave the segment alone. Lookups aren't counted as hits or misses
+     * because they only happen after the request missed the cache for the whole shard.
+     */
+    BytesReference getSegment(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey,
+                              IndexReader.CacheHelper segmentCacheHelper, BytesReference cacheKey) {
+        return cache.get(new Key(cacheEntity, mappingCacheKey, segmentCacheHelper.getKey(), cacheKey));
+    }
+
+    /**
+     * Caches a value computed for a single segment. The entry is removed once the segment's reader is closed.
+     */
+    void putSegment(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey,
+                    IndexReader.CacheHelper segmentCacheHelper, BytesReference cacheKey, BytesReference value) {
+        final Key key = new Key(cacheEntity, mappingCacheKey, segmentCacheHelper.getKey(), cacheKey);
+        cache.put(key, value);
+        cacheEntity.onCached(key, value);
+        registerClosedListener(cacheEntity, segmentCacheHelper.getKey(),
+            cleanupKey -> segmentCacheHelper.addClosedListener(cleanupKey::onClose));
+    }
+
+    /**
+     * Registers a cleanup key the first time we see a reader so its entries are removed once it is closed.
+     */
+    private void registerClosedListener(CacheEntity cacheEntity, Object readerCacheKey, Consumer<CleanupKey> addClosedListener) {
+        CleanupKey cleanupKey = new CleanupKey(cacheEntity, readerCacheKey);
+        if (registeredClosedListeners.containsKey(cleanupKey) == false) {
+            Boolean previous = registeredClosedListeners.putIfAbsent(cleanupKey, Boolean.TRUE);
+            if (previous == null) {
+                addClosedListener.accept(cleanupKey);
+            }
+        }
+    }
+
     /**
      * Invalidates the given the cache entry for the given key and it's context
      * @param cacheEntity the cache entity to invalidate for
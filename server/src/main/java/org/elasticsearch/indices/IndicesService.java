@@ -13,6 +13,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader.CacheHelper;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.CollectionUtil;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -88,6 +89,7 @@ import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.engine.NoOpEngine;
+import org.elasticsearch.index.engine.NodeMergeScheduler;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.flush.FlushStats;
 import org.elasticsearch.index.get.GetStats;
@@ -114,6 +116,7 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.stats.IndexingBufferStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -125,6 +128,8 @@ import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationCache;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
@@ -202,6 +207,8 @@ public class IndicesService extends AbstractLifecycleComponent
     private final CacheCleaner cacheCleaner;
     private final ThreadPool threadPool;
     private final CircuitBreakerService circuitBreakerService;
+    @Nullable
+    private final NodeMergeScheduler nodeMergeScheduler;
     private final BigArrays bigArrays;
     private final ScriptService scriptService;
     private final ClusterService clusterService;
@@ -277,6 +284,8 @@ public class IndicesService extends AbstractLifecycleComponent
         this.scriptService = scriptService;
         this.clusterService = clusterService;
         this.client = client;
+        this.nodeMergeScheduler = NodeMergeScheduler.ENABLED_SETTING.get(settings)
+            ? new NodeMergeScheduler(settings, clusterService.getClusterSettings(), threadPool) : null;
         this.idFieldDataEnabled = INDICES_ID_FIELD_DATA_ENABLED_SETTING.get(clusterService.getSettings());
         clusterService.getClusterSettings().addSettingsUpdateConsumer(INDICES_ID_FIELD_DATA_ENABLED_SETTING, this::setIdFieldDataEnabled);
         this.indicesFieldDataCache = new IndicesFieldDataCache(settings, new IndexFieldDataCache.Listener() {
@@ -680,7 +689,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 this::isIdFieldDataEnabled,
                 valuesSourceRegistry,
                 indexFoldersDeletionListeners,
-                snapshotCommitSuppliers
+                snapshotCommitSuppliers,
+                nodeMergeScheduler
         );
     }
 
@@ -1408,6 +1418,15 @@ public class IndicesService extends AbstractLifecycleComponent
             directoryReader,
             cacheKey,
             out -> {
+                if (canCacheSegments(request, context)) {
+                    context.aggregations().segmentCache(
+                        new ShardSegmentAggregationCache(
+                            context.indexShard(),
+                            context.getSearchExecutionContext().mappingCacheKey(),
+                            cacheKey
+                        )
+                    );
+                }
                 queryPhase.execute(context);
                 context.queryResult().writeToNoId(out);
                 loadedFromCache[0] = false;
@@ -1441,10 +1460,30 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Can the aggregation results of the segments of a shard request that can be {@link #canCache cached} also
+     * be cached on their own?
+     */
+    private static boolean canCacheSegments(ShardSearchRequest request, SearchContext context) {
+        if (context.aggregations() == null
+            || context.indexShard().indexSettings().getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_SEGMENTS_ENABLED_SETTING) == false) {
+            return false;
+        }
+        // terminate_after leaves segments partially collected and min_score depends on the statistics of the whole shard
+        if (context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER || context.minimumScore() != null) {
+            return false;
+        }
+        return request.source().aggregations().supportsSegmentCache();
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
 
+    public IndexingBufferStats getIndexingBufferStats() {
+        return indexingMemoryController.stats();
+    }
+
     /**
      * Cache something calculated at the shard level.
      * @param shard the shard this item is part of
@@ -1480,6 +1519,51 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesRequestCache.getOrCompute(cacheEntity, supplier, mappingCacheKey, reader, cacheKey);
     }
 
+    /**
+     * Caches the aggregation results of the segments of a shard in the {@link IndicesRequestCache}. Results are
+     * keyed on the reader cache key of the segment rather than on its core cache key so segments that had
+     * documents deleted are collected again.
+     */
+    private final class ShardSegmentAggregationCache implements SegmentAggregationCache {
+        private final IndexShardCacheEntity cacheEntity;
+        private final MappingLookup.CacheKey mappingCacheKey;
+        private final BytesReference cacheKey;
+
+        private ShardSegmentAggregationCache(IndexShard shard, MappingLookup.CacheKey mappingCacheKey, BytesReference cacheKey) {
+            this.cacheEntity = new IndexShardCacheEntity(shard);
+            this.mappingCacheKey = mappingCacheKey;
+            this.cacheKey = cacheKey;
+        }
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) throws IOException {
+            CacheHelper cacheHelper = ctx.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return null;
+            }
+            BytesReference bytesReference = indicesRequestCache.getSegment(cacheEntity, mappingCacheKey, cacheHelper, cacheKey);
+            if (bytesReference == null) {
+                return null;
+            }
+            try (StreamInput in = new NamedWriteableAwareStreamInput(bytesReference.streamInput(), namedWriteableRegistry)) {
+                return InternalAggregations.readFrom(in);
+            }
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException {
+            CacheHelper cacheHelper = ctx.reader().getReaderCacheHelper();
+            if (cacheHelper == null) {
+                return;
+            }
+            // see cacheShardLevelResult for the expected size
+            try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                aggregations.writeTo(out);
+                indicesRequestCache.putSegment(cacheEntity, mappingCacheKey, cacheHelper, cacheKey, out.bytes());
+            }
+        }
+    }
+
     static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity {
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IndexShardCacheEntity.class);
         private final IndexShard indexShard;
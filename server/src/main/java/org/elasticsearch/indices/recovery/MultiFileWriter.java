@@ -9,10 +9,13 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
@@ -30,9 +33,13 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -55,6 +62,7 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
     private final ConcurrentMap<String, IndexOutput> openIndexOutputs = ConcurrentCollections.newConcurrentMap();
     private final ConcurrentMap<String, FileChunkWriter> fileChunkWriters = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, FileRangeWriter> fileRangeWriters = ConcurrentCollections.newConcurrentMap();
 
     final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
 
@@ -70,6 +78,25 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         }
     }
 
+    /**
+     * Writes a chunk of a file that is sent in ranges. The chunks of such a file arrive in any order so, rather than buffering them,
+     * each run of consecutive chunks is written to a temporary part file and the parts are concatenated into the temporary file once
+     * all chunks were written, see {@link FileRangeWriter}.
+     */
+    public void writeFileRangeChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content) throws IOException {
+        assert Transports.assertNotTransportThread("multi_file_writer");
+        incRef();
+        try {
+            final FileRangeWriter writer = fileRangeWriters.computeIfAbsent(fileMetadata.name(),
+                name -> new FileRangeWriter(fileMetadata, getTempNameForFile(name)));
+            if (writer.writeChunk(position, content)) {
+                fileRangeWriters.remove(fileMetadata.name(), writer);
+            }
+        } finally {
+            decRef();
+        }
+    }
+
     public void writeFile(StoreFileMetadata fileMetadata, long readSnapshotFileBufferSize, InputStream stream) throws Exception {
         ensureOpen.run();
         assert Transports.assertNotTransportThread("multi_file_writer");
@@ -203,6 +230,8 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
     protected void closeInternal() {
         Releasables.close(fileChunkWriters.values());
         fileChunkWriters.clear();
+        Releasables.close(fileRangeWriters.values());
+        fileRangeWriters.clear();
         // clean open index outputs
         Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
         while (iterator.hasNext()) {
@@ -286,4 +315,132 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
             Releasables.close(pendingChunks);
         }
     }
+
+    /**
+     * Writes the chunks of a file that is sent in ranges, the chunks of the ranges are written concurrently.
+     * <p>
+     * Every run of consecutive chunks is written through the store's directory to its own part file, a chunk that starts where a run
+     * ends is appended to that run. Once all chunks were written the parts are concatenated in order into the temporary file through
+     * a verifying output, so the file is checked against its checksum like any other file. This costs another write of the file, but
+     * every wrapper of the store's directory sees all the writes.
+     */
+    private final class FileRangeWriter implements Releasable {
+        final StoreFileMetadata md;
+        final String tempFileName;
+        // all fields below are guarded by this
+        /** the positions of the chunks that were received, a chunk that is sent again after a retry is ignored */
+        final Set<Long> receivedPositions = new HashSet<>();
+        /** all parts by the position they start at */
+        final TreeMap<Long, Part> parts = new TreeMap<>();
+        /** the parts that no chunk is being written to by the position they end at */
+        final Map<Long, Part> partsByEnd = new HashMap<>();
+        long writtenBytes;
+        boolean closed;
+
+        FileRangeWriter(StoreFileMetadata md, String tempFileName) {
+            this.md = md;
+            this.tempFileName = tempFileName;
+        }
+
+        /**
+         * Writes the given chunk and returns whether it completed the file.
+         */
+        boolean writeChunk(long position, BytesReference content) throws IOException {
+            Part part;
+            synchronized (this) {
+                ensureOpen();
+                if (receivedPositions.add(position) == false) {
+                    return false;
+                }
+                part = partsByEnd.remove(position);
+                if (part == null) {
+                    // register the part before its file is created so that it is deleted if the writer is closed
+                    part = new Part(tempFileName + ".part" + position, position);
+                    parts.put(position, part);
+                    part.output = store.directory().createOutput(part.name, IOContext.DEFAULT);
+                }
+            }
+            final BytesRefIterator iterator = content.iterator();
+            BytesRef scratch;
+            while ((scratch = iterator.next()) != null) {
+                part.output.writeBytes(scratch.bytes, scratch.offset, scratch.length);
+            }
+            indexState.addRecoveredBytesToFile(md.name(), content.length());
+            synchronized (this) {
+                ensureOpen();
+                part.end = position + content.length();
+                writtenBytes += content.length();
+                if (writtenBytes < md.length()) {
+                    partsByEnd.put(part.end, part);
+                    return false;
+                }
+            }
+            finish();
+            return true;
+        }
+
+        private void ensureOpen() {
+            assert Thread.holdsLock(this);
+            if (closed) {
+                throw new IllegalStateException("writer for file [" + md.name() + "] is closed");
+            }
+        }
+
+        private void finish() throws IOException {
+            try {
+                if (tempFileNames.containsKey(tempFileName)) {
+                    throw new IllegalStateException("output for file [" + md.name() + "] has already been created");
+                }
+                // add first, before it's created
+                tempFileNames.put(tempFileName, md.name());
+                final Part[] orderedParts;
+                synchronized (this) {
+                    orderedParts = parts.values().toArray(new Part[0]);
+                }
+                try (IndexOutput output = store.createVerifyingOutput(tempFileName, md, IOContext.DEFAULT)) {
+                    long expectedPosition = 0;
+                    for (Part part : orderedParts) {
+                        if (part.start != expectedPosition) {
+                            throw new CorruptIndexException("part at position [" + part.start + "] doesn't follow the previous part "
+                                + "ending at [" + expectedPosition + "] (resource=" + md + ")", "FileRangeWriter(" + md.name() + ")");
+                        }
+                        part.output.close();
+                        try (IndexInput input = store.directory().openInput(part.name, IOContext.READONCE)) {
+                            output.copyBytes(input, input.length());
+                        }
+                        expectedPosition = part.end;
+                    }
+                    Store.verify(output);
+                }
+                store.directory().sync(Collections.singleton(tempFileName));
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Part part : parts.values()) {
+                IOUtils.closeWhileHandlingException(part.output);
+                store.deleteQuiet(part.name);
+            }
+        }
+    }
+
+    private static final class Part {
+        final String name;
+        final long start;
+        IndexOutput output;
+        long end;
+
+        Part(String name, long start) {
+            this.name = name;
+            this.start = start;
+            this.end = start;
+        }
+    }
 }
@@ -327,7 +327,9 @@ public class PeerRecoverySourceService extends AbstractLifecycleComponent implem
                     recoverySettings.getMaxConcurrentOperations(),
                     recoverySettings.getMaxConcurrentSnapshotFileDownloads(),
                     recoverySettings.getUseSnapshotsDuringRecovery(),
-                    recoveryPlannerService);
+                    recoveryPlannerService,
+                    recoverySettings.getFileRangeSize().getBytes(),
+                    recoverySettings.getMaxConcurrentFileRanges());
                 return Tuple.tuple(handler, recoveryTarget);
             }
         }
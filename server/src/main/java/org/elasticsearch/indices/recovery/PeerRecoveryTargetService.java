@@ -482,8 +482,13 @@ public class PeerRecoveryTargetService implements IndexEventListener {
                         recoveryTarget.indexShard().recoveryStats().addThrottleTime(throttleTimeInNanos);
                     }
                 }
-                recoveryTarget.writeFileChunk(request.metadata(), request.position(), request.content(), request.lastChunk(),
-                    request.totalTranslogOps(), listener);
+                if (request.ranged()) {
+                    recoveryTarget.writeFileRangeChunk(request.metadata(), request.position(), request.content(),
+                        request.totalTranslogOps(), listener);
+                } else {
+                    recoveryTarget.writeFileChunk(request.metadata(), request.position(), request.content(), request.lastChunk(),
+                        request.totalTranslogOps(), listener);
+                }
             }
         }
     }
@@ -8,16 +8,20 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.transport.ZeroCopyWriteable;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted {
+public final class RecoveryFileChunkRequest extends RecoveryTransportRequest implements RefCounted, ZeroCopyWriteable {
     private final boolean lastChunk;
     private final long recoveryId;
     private final ShardId shardId;
@@ -25,6 +29,7 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
     private final ReleasableBytesReference content;
     private final StoreFileMetadata metadata;
     private final long sourceThrottleTimeInNanos;
+    private final boolean ranged;
 
     private final int totalTranslogOps;
 
@@ -36,17 +41,32 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         position = in.readVLong();
         final long length = in.readVLong();
         final String checksum = in.readString();
-        content = in.readReleasableBytesReference();
+        final boolean contentLast = in.getVersion().onOrAfter(Version.V_8_0_0);
+        final ReleasableBytesReference content = contentLast ? null : in.readReleasableBytesReference();
         final String writtenBy = in.readString();
         metadata = new StoreFileMetadata(name, length, checksum, writtenBy);
         lastChunk = in.readBoolean();
         totalTranslogOps = in.readVInt();
         sourceThrottleTimeInNanos = in.readLong();
+        if (contentLast) {
+            ranged = in.readBoolean();
+            this.content = in.readReleasableBytesReference();
+        } else {
+            ranged = false;
+            this.content = content;
+        }
     }
 
     public RecoveryFileChunkRequest(long recoveryId, final long requestSeqNo, ShardId shardId, StoreFileMetadata metadata, long position,
                                     ReleasableBytesReference content, boolean lastChunk, int totalTranslogOps,
                                     long sourceThrottleTimeInNanos) {
+        this(recoveryId, requestSeqNo, shardId, metadata, position, content, lastChunk, totalTranslogOps, sourceThrottleTimeInNanos,
+            false);
+    }
+
+    public RecoveryFileChunkRequest(long recoveryId, final long requestSeqNo, ShardId shardId, StoreFileMetadata metadata, long position,
+                                    ReleasableBytesReference content, boolean lastChunk, int totalTranslogOps,
+                                    long sourceThrottleTimeInNanos, boolean ranged) {
         super(requestSeqNo);
         this.recoveryId = recoveryId;
         this.shardId = shardId;
@@ -56,6 +76,7 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         this.lastChunk = lastChunk;
         this.totalTranslogOps = totalTranslogOps;
         this.sourceThrottleTimeInNanos = sourceThrottleTimeInNanos;
+        this.ranged = ranged;
     }
 
     public long recoveryId() {
@@ -92,6 +113,11 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        writeWithoutTrailingBytes(out).writeTo(out);
+    }
+
+    @Override
+    public BytesReference writeWithoutTrailingBytes(StreamOutput out) throws IOException {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
@@ -99,11 +125,23 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         out.writeVLong(position);
         out.writeVLong(metadata.length());
         out.writeString(metadata.checksum());
-        out.writeBytesReference(content);
+        final boolean contentLast = out.getVersion().onOrAfter(Version.V_8_0_0);
+        if (contentLast == false) {
+            out.writeBytesReference(content);
+        }
         out.writeString(metadata.writtenBy());
         out.writeBoolean(lastChunk);
         out.writeVInt(totalTranslogOps);
         out.writeLong(sourceThrottleTimeInNanos);
+        if (contentLast) {
+            out.writeBoolean(ranged);
+            // the content comes last so that it is sent without copying it into the serialized request
+            out.writeVInt(content.length());
+            return content;
+        } else {
+            assert ranged == false : "file ranges are not supported by " + out.getVersion();
+            return BytesArray.EMPTY;
+        }
     }
 
     @Override
@@ -124,6 +162,14 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         return lastChunk;
     }
 
+    /**
+     * Returns <code>true</code> if the file is sent in ranges that arrive in parallel, the chunk must then be written at its position
+     * and {@link #lastChunk()} only marks the end of its range.
+     */
+    public boolean ranged() {
+        return ranged;
+    }
+
     @Override
     public void incRef() {
         content.incRef();
@@ -97,6 +97,20 @@ public class RecoverySettings {
     public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING =
         Setting.intSetting("indices.recovery.max_concurrent_file_chunks", 2, 1, 8, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Files larger than this are split into ranges of this size that are sent in parallel and written at their position on the
+     * target node, {@code 0} sends the chunks of every file in order.
+     */
+    public static final Setting<ByteSizeValue> INDICES_RECOVERY_FILE_RANGE_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.recovery.file_range_size", ByteSizeValue.ZERO, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * Controls the number of file ranges that are sent in parallel, each of them with up to
+     * {@link #INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING} concurrent file chunk requests.
+     */
+    public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING =
+        Setting.intSetting("indices.recovery.max_concurrent_file_ranges", 2, 1, 8, Property.Dynamic, Property.NodeScope);
+
     /**
      * Controls the maximum number of operation chunk requests that can be sent concurrently from the source node to the target node.
      */
@@ -201,6 +215,8 @@ public class RecoverySettings {
 
     private volatile ByteSizeValue maxBytesPerSec;
     private volatile int maxConcurrentFileChunks;
+    private volatile ByteSizeValue fileRangeSize;
+    private volatile int maxConcurrentFileRanges;
     private volatile int maxConcurrentOperations;
     private volatile SimpleRateLimiter rateLimiter;
     private volatile TimeValue retryDelayStateSync;
@@ -220,6 +236,8 @@ public class RecoverySettings {
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.fileRangeSize = INDICES_RECOVERY_FILE_RANGE_SIZE_SETTING.get(settings);
+        this.maxConcurrentFileRanges = INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
         // doesn't have to be fast as nodes are reconnected every 10s by default (see InternalClusterService.ReconnectToNodes)
         // and we want to give the master time to remove a faulty node
@@ -245,6 +263,8 @@ public class RecoverySettings {
 
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_FILE_RANGE_SIZE_SETTING, this::setFileRangeSize);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_RANGES_SETTING, this::setMaxConcurrentFileRanges);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING,
             this::setMaxConcurrentOperations);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING, this::setRetryDelayStateSync);
@@ -336,6 +356,22 @@ public class RecoverySettings {
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
     }
 
+    public ByteSizeValue getFileRangeSize() {
+        return fileRangeSize;
+    }
+
+    private void setFileRangeSize(ByteSizeValue fileRangeSize) {
+        this.fileRangeSize = fileRangeSize;
+    }
+
+    public int getMaxConcurrentFileRanges() {
+        return maxConcurrentFileRanges;
+    }
+
+    private void setMaxConcurrentFileRanges(int maxConcurrentFileRanges) {
+        this.maxConcurrentFileRanges = maxConcurrentFileRanges;
+    }
+
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
     }
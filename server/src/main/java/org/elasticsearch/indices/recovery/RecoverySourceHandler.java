@@ -24,6 +24,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.StepListener;
+import org.elasticsearch.action.support.GroupedActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.ThreadedActionListener;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
@@ -71,7 +72,6 @@ import org.elasticsearch.transport.Transports;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -119,6 +119,8 @@ public class RecoverySourceHandler {
     private final int maxConcurrentOperations;
     private final int maxConcurrentSnapshotFileDownloads;
     private final boolean useSnapshots;
+    private final long fileRangeSizeInBytes;
+    private final int maxConcurrentFileRanges;
     private final ThreadPool threadPool;
     private final RecoveryPlannerService recoveryPlannerService;
     private final CancellableThreads cancellableThreads = new CancellableThreads();
@@ -129,6 +131,18 @@ public class RecoverySourceHandler {
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
                                  int maxConcurrentOperations, int maxConcurrentSnapshotFileDownloads, boolean useSnapshots,
                                  RecoveryPlannerService recoveryPlannerService) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, maxConcurrentOperations,
+            maxConcurrentSnapshotFileDownloads, useSnapshots, recoveryPlannerService, 0, 1);
+    }
+
+    /**
+     * @param fileRangeSizeInBytes    files larger than this are sent in ranges of this size, {@code 0} sends every file as a whole
+     * @param maxConcurrentFileRanges the number of file ranges that are sent in parallel
+     */
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 int maxConcurrentOperations, int maxConcurrentSnapshotFileDownloads, boolean useSnapshots,
+                                 RecoveryPlannerService recoveryPlannerService, long fileRangeSizeInBytes, int maxConcurrentFileRanges) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -141,6 +155,8 @@ public class RecoverySourceHandler {
         this.maxConcurrentOperations = maxConcurrentOperations;
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
         this.useSnapshots = useSnapshots;
+        this.fileRangeSizeInBytes = fileRangeSizeInBytes;
+        this.maxConcurrentFileRanges = maxConcurrentFileRanges;
     }
 
     public StartRecoveryRequest getRequest() {
@@ -1131,21 +1147,43 @@ public class RecoverySourceHandler {
                 '}';
     }
 
+    /**
+     * The bytes of a file from {@code start} to {@code end}, a file that isn't sent in ranges has a single range over the whole file.
+     */
+    private static class FileRange {
+        final StoreFileMetadata md;
+        final long start;
+        final long end;
+        final boolean ranged;
+
+        FileRange(StoreFileMetadata md, long start, long end, boolean ranged) {
+            this.md = md;
+            this.start = start;
+            this.end = end;
+            this.ranged = ranged;
+        }
+    }
+
     private static class FileChunk implements MultiChunkTransfer.ChunkRequest, Releasable {
         final StoreFileMetadata md;
         final BytesReference content;
         final long position;
         final boolean lastChunk;
+        final boolean ranged;
         final Releasable onClose;
 
-        FileChunk(StoreFileMetadata md, BytesReference content, long position, boolean lastChunk, Releasable onClose) {
+        FileChunk(StoreFileMetadata md, BytesReference content, long position, boolean lastChunk, boolean ranged, Releasable onClose) {
             this.md = md;
             this.content = content;
             this.position = position;
             this.lastChunk = lastChunk;
+            this.ranged = ranged;
             this.onClose = onClose;
         }
 
+        /**
+         * Whether this is the last chunk of its range, which is the last chunk of the file unless the file is sent in ranges.
+         */
         @Override
         public boolean lastChunk() {
             return lastChunk;
@@ -1159,13 +1197,48 @@ public class RecoverySourceHandler {
 
     void sendFiles(Store store, StoreFileMetadata[] files, IntSupplier translogOps, ActionListener<Void> listener) {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
-        // use a smaller buffer than the configured chunk size if we only have files smaller than the chunk size
-        final int bufferSize = files.length == 0 ? 0 : (int) Math.min(chunkSizeInBytes, files[files.length - 1].length());
+        final List<FileRange> ranges = new ArrayList<>(files.length);
+        boolean hasRangedFiles = false;
+        // older nodes only write the chunks of a file in order
+        final boolean splitFiles = fileRangeSizeInBytes > 0 && request.targetNode().getVersion().onOrAfter(Version.V_8_0_0);
+        for (StoreFileMetadata md : files) {
+            if (splitFiles && md.length() > fileRangeSizeInBytes && md.hashEqualsContents() == false) {
+                hasRangedFiles = true;
+                for (long start = 0; start < md.length(); start += fileRangeSizeInBytes) {
+                    ranges.add(new FileRange(md, start, Math.min(start + fileRangeSizeInBytes, md.length()), true));
+                }
+            } else {
+                ranges.add(new FileRange(md, 0, md.length(), false));
+            }
+        }
+        final int senders = hasRangedFiles ? Math.min(maxConcurrentFileRanges, ranges.size()) : 1;
+        if (senders <= 1) {
+            sendFileRanges(store, ranges, translogOps, listener);
+            return;
+        }
+        // deal the ranges out so that the ranges of a large file are sent by different senders, each with its own input and buffers
+        final List<List<FileRange>> rangesPerSender = new ArrayList<>(senders);
+        for (int i = 0; i < senders; i++) {
+            rangesPerSender.add(new ArrayList<>());
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            rangesPerSender.get(i % senders).add(ranges.get(i));
+        }
+        final GroupedActionListener<Void> groupedListener = new GroupedActionListener<>(listener.map(r -> null), senders);
+        for (List<FileRange> senderRanges : rangesPerSender) {
+            sendFileRanges(store, senderRanges, translogOps, groupedListener);
+        }
+    }
+
+    private void sendFileRanges(Store store, List<FileRange> ranges, IntSupplier translogOps, ActionListener<Void> listener) {
+        // use a smaller buffer than the configured chunk size if we only have ranges smaller than the chunk size
+        final long maxRangeLength = ranges.stream().mapToLong(range -> range.end - range.start).max().orElse(0L);
+        final int bufferSize = (int) Math.min(chunkSizeInBytes, maxRangeLength);
         Releasable temporaryStoreRef = acquireStore(store);
         try {
             final Releasable storeRef = temporaryStoreRef;
-            final MultiChunkTransfer<StoreFileMetadata, FileChunk> multiFileSender =
-                new MultiChunkTransfer<>(logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, Arrays.asList(files)) {
+            final MultiChunkTransfer<FileRange, FileChunk> multiFileSender =
+                new MultiChunkTransfer<>(logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, ranges) {
 
                     final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                     final AtomicInteger liveBufferCount = new AtomicInteger(); // only used in assertions to verify proper recycling
@@ -1173,32 +1246,34 @@ public class RecoverySourceHandler {
                     long offset = 0;
 
                     @Override
-                    protected void onNewResource(StoreFileMetadata md) throws IOException {
-                        offset = 0;
+                    protected void onNewResource(FileRange range) throws IOException {
+                        offset = range.start;
                         IOUtils.close(currentInput);
-                        if (md.hashEqualsContents()) {
+                        if (range.md.hashEqualsContents()) {
                             // we already have the file contents on heap no need to open the file again
                             currentInput = null;
                         } else {
-                            currentInput = store.directory().openInput(md.name(), IOContext.READONCE);
+                            currentInput = store.directory().openInput(range.md.name(), IOContext.READONCE);
+                            currentInput.seek(range.start);
                         }
                     }
 
                     @Override
-                    protected FileChunk nextChunkRequest(StoreFileMetadata md) throws IOException {
+                    protected FileChunk nextChunkRequest(FileRange range) throws IOException {
                         assert Transports.assertNotTransportThread("read file chunk");
                         cancellableThreads.checkForCancel();
+                        final StoreFileMetadata md = range.md;
                         if (currentInput == null) {
                             // no input => reading directly from the metadata
                             assert md.hashEqualsContents();
-                            return new FileChunk(md, new BytesArray(md.hash()), 0, true, () -> {});
+                            return new FileChunk(md, new BytesArray(md.hash()), 0, true, false, () -> {});
                         }
                         final byte[] buffer = Objects.requireNonNullElseGet(buffers.pollFirst(), () -> new byte[bufferSize]);
                         assert liveBufferCount.incrementAndGet() > 0;
-                        final int toRead = Math.toIntExact(Math.min(md.length() - offset, buffer.length));
+                        final int toRead = Math.toIntExact(Math.min(range.end - offset, buffer.length));
                         currentInput.readBytes(buffer, 0, toRead, false);
-                        final boolean lastChunk = offset + toRead == md.length();
-                        final FileChunk chunk = new FileChunk(md, new BytesArray(buffer, 0, toRead), offset, lastChunk,
+                        final boolean lastChunk = offset + toRead == range.end;
+                        final FileChunk chunk = new FileChunk(md, new BytesArray(buffer, 0, toRead), offset, lastChunk, range.ranged,
                             () -> {
                                 assert liveBufferCount.decrementAndGet() >= 0;
                                 buffers.addFirst(buffer);
@@ -1211,14 +1286,19 @@ public class RecoverySourceHandler {
                     protected void executeChunkRequest(FileChunk request, ActionListener<Void> listener) {
                         cancellableThreads.checkForCancel();
                         final ReleasableBytesReference content = new ReleasableBytesReference(request.content, request);
-                        recoveryTarget.writeFileChunk(
-                            request.md, request.position, content, request.lastChunk,
-                                translogOps.getAsInt(), ActionListener.runBefore(listener, content::close));
+                        if (request.ranged) {
+                            recoveryTarget.writeFileRangeChunk(request.md, request.position, content, translogOps.getAsInt(),
+                                ActionListener.runBefore(listener, content::close));
+                        } else {
+                            recoveryTarget.writeFileChunk(
+                                request.md, request.position, content, request.lastChunk,
+                                    translogOps.getAsInt(), ActionListener.runBefore(listener, content::close));
+                        }
                     }
 
                     @Override
-                    protected void handleError(StoreFileMetadata md, Exception e) throws Exception {
-                        handleErrorOnSendFiles(store, e, new StoreFileMetadata[]{md});
+                    protected void handleError(FileRange range, Exception e) throws Exception {
+                        handleErrorOnSendFiles(store, e, new StoreFileMetadata[]{range.md});
                     }
 
                     @Override
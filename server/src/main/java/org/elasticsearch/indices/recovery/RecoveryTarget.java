@@ -524,6 +524,18 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
         }
     }
 
+    @Override
+    public void writeFileRangeChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
+                                    int totalTranslogOps, ActionListener<Void> listener) {
+        try {
+            state().getTranslog().totalOperations(totalTranslogOps);
+            multiFileWriter.writeFileRangeChunk(fileMetadata, position, content);
+            listener.onResponse(null);
+        } catch (Exception e) {
+            listener.onFailure(e);
+        }
+    }
+
     @Override
     public void restoreFileFromSnapshot(String repository,
                                         IndexId indexId,
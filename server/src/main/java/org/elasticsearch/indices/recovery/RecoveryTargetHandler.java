@@ -109,5 +109,14 @@ public interface RecoveryTargetHandler {
     void writeFileChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
                         boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener);
 
+    /**
+     * writes a chunk of a file that is sent in ranges to the target store at its position, the chunks of such a file may arrive in any
+     * order and the file is complete once all of its bytes were written
+     */
+    default void writeFileRangeChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
+                                     int totalTranslogOps, ActionListener<Void> listener) {
+        throw new UnsupportedOperationException("file ranges are not supported by [" + getClass().getSimpleName() + "]");
+    }
+
     default void cancel() {}
 }
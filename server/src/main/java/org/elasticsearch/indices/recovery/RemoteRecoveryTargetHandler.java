@@ -193,6 +193,17 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
     @Override
     public void writeFileChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
                                boolean lastChunk, int totalTranslogOps, ActionListener<Void> listener) {
+        sendFileChunk(fileMetadata, position, content, lastChunk, totalTranslogOps, false, listener);
+    }
+
+    @Override
+    public void writeFileRangeChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
+                                    int totalTranslogOps, ActionListener<Void> listener) {
+        sendFileChunk(fileMetadata, position, content, false, totalTranslogOps, true, listener);
+    }
+
+    private void sendFileChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content, boolean lastChunk,
+                               int totalTranslogOps, boolean ranged, ActionListener<Void> listener) {
         // Pause using the rate limiter, if desired, to throttle the recovery
         final long throttleTimeInNanos;
         // always fetch the ratelimiter - it might be updated in real-time on the recovery settings
@@ -222,7 +233,8 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
          * would be in to restart file copy again (new deltas) if we have too many translog ops are piling up.
          */
         final RecoveryFileChunkRequest request = new RecoveryFileChunkRequest(
-            recoveryId, requestSeqNo, shardId, fileMetadata, position, content, lastChunk, totalTranslogOps, throttleTimeInNanos);
+            recoveryId, requestSeqNo, shardId, fileMetadata, position, content, lastChunk, totalTranslogOps, throttleTimeInNanos,
+            ranged);
         final Writeable.Reader<TransportResponse.Empty> reader = in -> TransportResponse.Empty.INSTANCE;
 
         // Fork the actual sending onto a separate thread so we can send them concurrently even if CPU-bound (e.g. using compression).
@@ -9,20 +9,28 @@
 package org.elasticsearch.rest.action.document;
 
 import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestParser;
 import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.bulk.ChunkedBulkRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -40,6 +48,11 @@ public class RestBulkAction extends BaseRestHandler {
     public static final String TYPES_DEPRECATION_MESSAGE = "[types removal]" +
         " Specifying types in bulk requests is deprecated.";
 
+    /**
+     * The size of the chunks that the body of a request with a {@code batch_size} is handed to the {@link ChunkedBulkRequest} in.
+     */
+    static final int CHUNK_SIZE_IN_BYTES = 64 * 1024;
+
     private final boolean allowExplicitIndex;
 
     public RestBulkAction(Settings settings) {
@@ -71,18 +84,29 @@ public class RestBulkAction extends BaseRestHandler {
         if (request.getRestApiVersion() == RestApiVersion.V_7 && request.hasParam("type") ) {
             request.param("type");
         }
-        BulkRequest bulkRequest = Requests.bulkRequest();
         String defaultIndex = request.param("index");
         String defaultRouting = request.param("routing");
         FetchSourceContext defaultFetchSourceContext = FetchSourceContext.parseFromRestRequest(request);
         String defaultPipeline = request.param("pipeline");
         String waitForActiveShards = request.param("wait_for_active_shards");
-        if (waitForActiveShards != null) {
-            bulkRequest.waitForActiveShards(ActiveShardCount.parseString(waitForActiveShards));
-        }
         Boolean defaultRequireAlias = request.paramAsBoolean(DocWriteRequest.REQUIRE_ALIAS, null);
-        bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
-        bulkRequest.setRefreshPolicy(request.param("refresh"));
+        TimeValue timeout = request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT);
+        String refresh = request.param("refresh");
+        Supplier<BulkRequest> bulkRequestSupplier = () -> {
+            BulkRequest bulkRequest = Requests.bulkRequest();
+            if (waitForActiveShards != null) {
+                bulkRequest.waitForActiveShards(ActiveShardCount.parseString(waitForActiveShards));
+            }
+            bulkRequest.timeout(timeout);
+            bulkRequest.setRefreshPolicy(refresh);
+            return bulkRequest;
+        };
+        ByteSizeValue batchSize = request.paramAsSize("batch_size", null);
+        if (batchSize != null) {
+            return prepareChunkedRequest(request, client, bulkRequestSupplier, batchSize, defaultIndex, defaultRouting,
+                defaultFetchSourceContext, defaultPipeline, defaultRequireAlias);
+        }
+        BulkRequest bulkRequest = bulkRequestSupplier.get();
         bulkRequest.add(request.requiredContent(), defaultIndex, defaultRouting,
             defaultFetchSourceContext, defaultPipeline, defaultRequireAlias, allowExplicitIndex, request.getXContentType(),
             request.getRestApiVersion());
@@ -90,6 +114,37 @@ public class RestBulkAction extends BaseRestHandler {
         return channel -> client.bulk(bulkRequest, new RestStatusToXContentListener<>(channel));
     }
 
+    /**
+     * Executes the request in batches of {@code batchSize} that are parsed from the body as they are needed, see
+     * {@link ChunkedBulkRequest}. The whole body was received already, so it is validated up front to fail a malformed request
+     * before any of its batches were executed, like a regular bulk request.
+     */
+    private RestChannelConsumer prepareChunkedRequest(RestRequest request, NodeClient client, Supplier<BulkRequest> bulkRequestSupplier,
+                                                      ByteSizeValue batchSize, String defaultIndex, String defaultRouting,
+                                                      FetchSourceContext defaultFetchSourceContext, String defaultPipeline,
+                                                      Boolean defaultRequireAlias) throws IOException {
+        if (batchSize.getBytes() <= 0) {
+            throw new IllegalArgumentException("[batch_size] must be positive but was [" + batchSize + "]");
+        }
+        BytesReference content = request.requiredContent();
+        XContentType xContentType = request.getXContentType();
+        RestApiVersion restApiVersion = request.getRestApiVersion();
+        new BulkRequestParser(true, restApiVersion).parse(content, defaultIndex, defaultRouting, defaultFetchSourceContext,
+            defaultPipeline, defaultRequireAlias, allowExplicitIndex, xContentType, (indexRequest, type) -> {}, updateRequest -> {},
+            deleteRequest -> {});
+        return channel -> {
+            ChunkedBulkRequest chunkedRequest = new ChunkedBulkRequest(client, bulkRequestSupplier, batchSize.getBytes(),
+                BackoffPolicy.exponentialBackoff(), defaultIndex, defaultRouting, defaultFetchSourceContext, defaultPipeline,
+                defaultRequireAlias, allowExplicitIndex, xContentType, restApiVersion, new RestStatusToXContentListener<>(channel));
+            int from = 0;
+            do {
+                int length = Math.min(CHUNK_SIZE_IN_BYTES, content.length() - from);
+                chunkedRequest.addChunk(content.slice(from, length), from + length == content.length());
+                from += length;
+            } while (from < content.length());
+        };
+    }
+
     @Override
     public boolean supportsContentStream() {
         return true;
@@ -187,6 +187,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Enables collecting slices of a shard's segments concurrently on the {@link Names#SEARCH_WORKER} thread pool
+     * during the query phase. This helps latency when searching few large shards, at the cost of using more threads per search.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_ENABLED = Setting.boolSetting(
+        "search.concurrent_segment_search.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final int DEFAULT_SIZE = 10;
     public static final int DEFAULT_FROM = 0;
 
@@ -224,6 +235,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean concurrentSegmentSearch;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -276,6 +289,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        concurrentSegmentSearch = CONCURRENT_SEGMENT_SEARCH_ENABLED.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_ENABLED, this::setConcurrentSegmentSearch);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -316,6 +332,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -909,7 +929,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(),
                 reader.indexShard().shardId(), request.getClusterAlias());
             searchContext = new DefaultSearchContext(reader, request, shardTarget,
-                threadPool::relativeTimeInMillis, timeout, fetchPhase, lowLevelCancellation);
+                threadPool::relativeTimeInMillis, timeout, fetchPhase, lowLevelCancellation,
+                concurrentSegmentSearch ? threadPool.executor(Names.SEARCH_WORKER) : null);
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
             // during rewrite and normalized / evaluate templates etc.
@@ -1108,7 +1129,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             context.addReleasable(aggContext);
             try {
                 AggregatorFactories factories = source.aggregations().build(aggContext, null);
-                context.aggregations(new SearchContextAggregations(factories));
+                context.aggregations(new SearchContextAggregations(factories, source.aggregations().supportsSlicedCollection()));
             } catch (IOException e) {
                 throw new AggregationInitializationException("Failed to create aggregators", e);
             }
@@ -168,6 +168,16 @@ public abstract class AggregationBuilder
      */
     public abstract BucketCardinality bucketCardinality();
 
+    /**
+     * Whether the shard's documents can be collected in several slices that each have their own {@link Aggregator}s, the results of
+     * the slices being partially reduced on the shard. This must return {@code false} if that gives a different result than collecting
+     * the shard in one go, which is the case if the aggregation truncates its buckets per shard, uses statistics of the whole shard,
+     * or needs to run a script when it is reduced. The default implementation checks the sub-aggregations.
+     */
+    public boolean supportsSlicedCollection() {
+        return factoriesBuilder.supportsSlicedCollection();
+    }
+
     /**
      * Bytes to preallocate on the "request" breaker for this aggregation. The
      * goal is to request a few more bytes than we expect to use at first to
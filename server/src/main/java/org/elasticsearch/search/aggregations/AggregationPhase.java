@@ -9,6 +9,8 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.search.Collector;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -34,15 +36,65 @@ public class AggregationPhase {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
             bucketCollector = MultiBucketCollector.wrap(true, List.of(context.aggregations().aggregators()));
             bucketCollector.preCollection();
+            bucketCollector = maybeCacheSegments(context, bucketCollector);
         } catch (IOException e) {
             throw new AggregationInitializationException("Could not initialize aggregators", e);
         }
         Collector collector = context.getProfilers() == null
-            ? bucketCollector
+            ? BlockBucketCollector.wrap(bucketCollector)
             : new InternalProfileCollector(bucketCollector, CollectorResult.REASON_AGGREGATION, List.of());
         context.queryCollectors().put(AggregationPhase.class, collector);
     }
 
+    /**
+     * Collects each segment with its own tree of top level aggregators if the results of segments can be
+     * cached. The aggregators created in {@link #preProcess} don't collect anything in that case but still
+     * give the shape of the results when the shard has no segments.
+     */
+    private static BucketCollector maybeCacheSegments(SearchContext context, BucketCollector bucketCollector) {
+        SegmentAggregationCache segmentCache = context.aggregations().segmentCache();
+        if (segmentCache == null
+            // the results of the segments are partially reduced like the results of slices
+            || context.aggregations().supportsSlicedCollection() == false
+            || bucketCollector == BucketCollector.NO_OP_COLLECTOR
+            || context.getProfilers() != null
+            // scores depend on the statistics of the whole shard so they can't be cached per segment
+            || bucketCollector.scoreMode().needsScores()) {
+            return bucketCollector;
+        }
+        SegmentCachingBucketCollector collector = new SegmentCachingBucketCollector(
+            context.aggregations().factories(),
+            segmentCache,
+            bucketCollector.scoreMode()
+        );
+        context.aggregations().addSegmentCachingCollector(collector);
+        return collector;
+    }
+
+    /**
+     * Creates a new tree of top level aggregators to collect one slice of the shard concurrently with the
+     * aggregators created in {@link #preProcess}. The results of all slices are reduced in {@link #execute}.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        assert context.getProfilers() == null : "slices are not supported when profiling";
+        List<SegmentCachingBucketCollector> segmentCachingCollectors = context.aggregations().segmentCachingCollectors();
+        if (segmentCachingCollectors.isEmpty() == false) {
+            // every segment is collected by its own aggregators so the slice doesn't need a tree of its own
+            SegmentCachingBucketCollector collector = new SegmentCachingBucketCollector(
+                context.aggregations().factories(),
+                context.aggregations().segmentCache(),
+                segmentCachingCollectors.get(0).scoreMode()
+            );
+            context.aggregations().addSegmentCachingCollector(collector);
+            return collector;
+        }
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+        context.aggregations().addSliceAggregators(aggregators);
+        BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        bucketCollector.preCollection();
+        return bucketCollector;
+    }
+
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
             context.queryResult().aggregations(null);
@@ -54,14 +106,56 @@ public class AggregationPhase {
             return;
         }
 
-        Aggregator[] aggregators = context.aggregations().aggregators();
+        Collector collector = context.queryCollectors().get(AggregationPhase.class);
+        if (collector instanceof BlockBucketCollector) {
+            try {
+                ((BlockBucketCollector) collector).flush();
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to collect aggregations", e);
+            }
+        }
+        InternalAggregations aggregations = buildTopLevel(context, context.aggregations().aggregators());
+        List<InternalAggregations> partials = new ArrayList<>();
+        for (Aggregator[] aggregators : context.aggregations().sliceAggregators()) {
+            partials.add(buildTopLevel(context, aggregators));
+        }
+        // segments that weren't collected entirely because the search timed out must not be cached
+        boolean cacheSegments = context.queryResult().searchTimedOut() == false;
+        for (SegmentCachingBucketCollector segmentCachingCollector : context.aggregations().segmentCachingCollectors()) {
+            try {
+                partials.addAll(segmentCachingCollector.results(aggregators -> buildTopLevel(context, aggregators), cacheSegments));
+            } catch (IOException e) {
+                throw new AggregationExecutionException("Failed to cache aggregations", e);
+            }
+        }
+        if (partials.isEmpty() == false) {
+            partials.add(0, aggregations);
+            AggregationContext aggregationContext = context.aggregations().factories().context();
+            // the shard result is reduced again on the coordinating node so a partial reduction is enough here, which is why
+            // aggregations whose partial reduction differs from collecting the shard in one go must not be split, see
+            // AggregationBuilder#supportsSlicedCollection
+            InternalAggregation.ReduceContext reduceContext = InternalAggregation.ReduceContext.forPartialReduction(
+                aggregationContext.bigArrays(),
+                null,
+                () -> PipelineTree.EMPTY,
+                aggregationContext::isCancelled
+            );
+            aggregations = InternalAggregations.reduce(partials, reduceContext);
+        }
+        context.queryResult().aggregations(aggregations);
+
+        // disable aggregations so that they don't run on next pages in case of scrolling
+        context.aggregations(null);
+        context.queryCollectors().remove(AggregationPhase.class);
+    }
 
+    private static InternalAggregations buildTopLevel(SearchContext context, Aggregator[] aggregators) {
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
         if (context.aggregations().factories().context() != null) {
             // Rollup can end up here with a null context but not null factories.....
             context.aggregations().factories().context().multiBucketConsumer().reset();
         }
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        for (Aggregator aggregator : aggregators) {
             try {
                 aggregator.postCollection();
                 aggregations.add(aggregator.buildTopLevel());
@@ -69,10 +163,6 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
-
-        // disable aggregations so that they don't run on next pages in case of scrolling
-        context.aggregations(null);
-        context.queryCollectors().remove(AggregationPhase.class);
+        return InternalAggregations.from(aggregations);
     }
 }
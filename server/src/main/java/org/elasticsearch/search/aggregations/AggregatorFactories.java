@@ -18,6 +18,7 @@ import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
@@ -330,6 +331,27 @@ public class AggregatorFactories {
             return false;
         }
 
+        /**
+         * Can the results of these aggregations be computed for each segment on its own and be reused for
+         * as long as the segment doesn't change? The results of the segments are partially reduced on the
+         * shard like the results of slices so this requires {@link #supportsSlicedCollection()}. Top hits
+         * also refer to documents by their position in the whole shard so they can't be cached either.
+         */
+        public boolean supportsSegmentCache() {
+            if (supportsSlicedCollection() == false) {
+                return false;
+            }
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder instanceof TopHitsAggregationBuilder) {
+                    return false;
+                }
+                if (builder.factoriesBuilder.supportsSegmentCache() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public Builder addAggregator(AggregationBuilder factory) {
             if (names.add(factory.name) == false) {
                 throw new IllegalArgumentException("Two sibling aggregations cannot have the same name: [" + factory.name + "]");
@@ -504,6 +526,18 @@ public class AggregatorFactories {
             }
         }
 
+        /**
+         * Whether all aggregations can be collected in slices of the shard, see {@link AggregationBuilder#supportsSlicedCollection()}.
+         */
+        public boolean supportsSlicedCollection() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsSlicedCollection() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         public Collection<AggregationBuilder> getAggregatorFactories() {
             return Collections.unmodifiableCollection(aggregationBuilders);
         }
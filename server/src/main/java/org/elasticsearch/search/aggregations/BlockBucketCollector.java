@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+
+/**
+ * A {@link BucketCollector} that buffers the documents matched by the query
+ * and hands them to the wrapped collector in blocks through
+ * {@link LeafBucketCollector#collect(int[], int, long)}. This replaces a
+ * virtual call per document and per aggregator with one per block which lets
+ * aggregators that override the block method run tight loops over the block.
+ * <p>
+ * Buffered documents are only collected when the block is full, when
+ * collection moves to the next segment or when {@link #flush()} is called so
+ * callers <strong>must</strong> call {@link #flush()} once the search is
+ * done and before building the results.
+ */
+public class BlockBucketCollector extends BucketCollector {
+    /**
+     * The number of documents in a block. Large enough to amortize the
+     * dispatch and small enough that the block stays in the L1 cache.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    /**
+     * Wrap a top level collector so it collects in blocks. Collectors that
+     * need scores are returned unchanged because the scorer is only positioned
+     * on the document that is currently being collected.
+     */
+    public static BucketCollector wrap(BucketCollector collector) {
+        if (collector == NO_OP_COLLECTOR || collector.scoreMode().needsScores()) {
+            return collector;
+        }
+        return new BlockBucketCollector(collector);
+    }
+
+    private final BucketCollector delegate;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+    private LeafBucketCollector current;
+    private boolean currentTerminated;
+
+    BlockBucketCollector(BucketCollector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return delegate.scoreMode();
+    }
+
+    @Override
+    public void preCollection() throws IOException {
+        delegate.preCollection();
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        flush();
+        delegate.postCollection();
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        // aggregators keep per segment state so we have to finish the last segment before moving on
+        flush();
+        current = null;
+        LeafBucketCollector leaf = delegate.getLeafCollector(ctx);
+        if (leaf.isNoop()) {
+            return leaf;
+        }
+        current = leaf;
+        currentTerminated = false;
+        return new LeafBucketCollector() {
+            @Override
+            public void setScorer(Scorable scorer) throws IOException {
+                leaf.setScorer(scorer);
+            }
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0 : "block collection is only supported at the top level";
+                docs[count++] = doc;
+                if (count == BLOCK_SIZE) {
+                    flush();
+                    if (currentTerminated) {
+                        throw new CollectionTerminatedException();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Collect all buffered documents.
+     */
+    public void flush() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int toCollect = count;
+        count = 0;
+        try {
+            current.collect(docs, toCollect, 0);
+        } catch (CollectionTerminatedException e) {
+            /*
+             * The collector doesn't want any more documents from this segment.
+             * We can't rethrow because we might be flushing while moving to the
+             * next segment so we remember it and let the leaf collector
+             * terminate the segment.
+             */
+            currentTerminated = true;
+        }
+    }
+}
@@ -73,6 +73,23 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} documents of {@code docs} in the bucket
+     * owned by {@code owningBucketOrd}. The documents are sorted in increasing
+     * order. This has the same effect as calling {@link #collect(int, long)}
+     * for every document but collectors that can make use of a whole block at
+     * a time, like metric aggregations that only need to grow their arrays
+     * once per block, should override it to keep their hot loop tight.
+     * <p>
+     * Implementations must not keep a reference to {@code docs} after
+     * returning, the caller reuses it for the next block.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -7,25 +7,52 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.core.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The aggregation context that is part of the search context.
  */
 public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
+    private final boolean supportsSlicedCollection;
     private Aggregator[] aggregators;
+    private final List<Aggregator[]> sliceAggregators = new ArrayList<>();
+    private SegmentAggregationCache segmentCache;
+    private final List<SegmentCachingBucketCollector> segmentCachingCollectors = new ArrayList<>();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
      */
     public SearchContextAggregations(AggregatorFactories factories) {
+        this(factories, false);
+    }
+
+    /**
+     * Creates a new aggregation context with the parsed aggregator factories
+     *
+     * @param supportsSlicedCollection whether the aggregations can be collected in slices of the shard,
+     *                                 see {@link AggregationBuilder#supportsSlicedCollection()}
+     */
+    public SearchContextAggregations(AggregatorFactories factories, boolean supportsSlicedCollection) {
         this.factories = factories;
+        this.supportsSlicedCollection = supportsSlicedCollection;
     }
 
     public AggregatorFactories factories() {
         return factories;
     }
 
+    /**
+     * Whether the shard can be collected in slices that each have their own {@link #addSliceAggregators aggregators}.
+     */
+    public boolean supportsSlicedCollection() {
+        return supportsSlicedCollection;
+    }
+
     public Aggregator[] aggregators() {
         return aggregators;
     }
@@ -38,4 +65,44 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * Returns the top level aggregators that were created in addition to {@link #aggregators()} to collect
+     * slices of the shard concurrently.
+     */
+    public List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
+
+    /**
+     * Registers additional top level aggregators that collect a slice of the shard concurrently with
+     * the other slices. Their results are reduced with the results of {@link #aggregators()}.
+     */
+    public void addSliceAggregators(Aggregator[] aggregators) {
+        this.sliceAggregators.add(aggregators);
+    }
+
+    /**
+     * Returns the cache for the results of individual segments or {@code null} if they should not be cached.
+     */
+    @Nullable
+    public SegmentAggregationCache segmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Sets the cache for the results of individual segments. Must be set before the aggregation phase is
+     * {@link AggregationPhase#preProcess pre-processed}.
+     */
+    public void segmentCache(SegmentAggregationCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    List<SegmentCachingBucketCollector> segmentCachingCollectors() {
+        return segmentCachingCollectors;
+    }
+
+    void addSegmentCachingCollector(SegmentCachingBucketCollector collector) {
+        this.segmentCachingCollectors.add(collector);
+    }
 }
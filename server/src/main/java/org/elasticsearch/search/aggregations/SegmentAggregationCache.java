@@ -0,0 +1,32 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Caches the results of the top level aggregations of a request for each
+ * segment so that a refresh only requires collecting the segments that
+ * changed since the results were cached.
+ */
+public interface SegmentAggregationCache {
+    /**
+     * Returns the cached results for the segment or {@code null} if there are none.
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Caches the results of a segment whose matching documents have all been collected.
+     */
+    void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException;
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link BucketCollector} that collects every segment with its own tree of
+ * top level aggregators so the results of each segment can be stored in a
+ * {@link SegmentAggregationCache}. Segments that are already in the cache are
+ * skipped by throwing {@link CollectionTerminatedException} which leaves the
+ * other collectors of the query phase, like the top docs collector, alone.
+ * The results of all segments are reduced by the {@link AggregationPhase}.
+ */
+class SegmentCachingBucketCollector extends BucketCollector {
+    private final AggregatorFactories factories;
+    private final SegmentAggregationCache cache;
+    private final ScoreMode scoreMode;
+    private final List<InternalAggregations> cachedResults = new ArrayList<>();
+    private final List<LeafReaderContext> collectedLeaves = new ArrayList<>();
+    private final List<Aggregator[]> collectedAggregators = new ArrayList<>();
+
+    SegmentCachingBucketCollector(AggregatorFactories factories, SegmentAggregationCache cache, ScoreMode scoreMode) {
+        assert scoreMode.needsScores() == false : "scores depend on the statistics of the whole shard";
+        this.factories = factories;
+        this.cache = cache;
+        this.scoreMode = scoreMode;
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return scoreMode;
+    }
+
+    @Override
+    public void preCollection() {
+        // the aggregators of each segment are prepared when the segment is collected
+    }
+
+    @Override
+    public void postCollection() {
+        // the aggregators of each segment are finished when their results are built
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        InternalAggregations cached = cache.get(ctx);
+        if (cached != null) {
+            cachedResults.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        Aggregator[] aggregators = factories.createTopLevelAggregators();
+        collectedLeaves.add(ctx);
+        collectedAggregators.add(aggregators);
+        BucketCollector collector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        collector.preCollection();
+        return collector.getLeafCollector(ctx);
+    }
+
+    /**
+     * Build the results of the segments that were collected and return them
+     * along with the results that came from the cache.
+     *
+     * @param buildTopLevel builds the results of a tree of top level aggregators
+     * @param cacheResults  whether the results of the collected segments should be cached, which is only
+     *                      correct if all of their matching documents were collected
+     */
+    List<InternalAggregations> results(Function<Aggregator[], InternalAggregations> buildTopLevel, boolean cacheResults)
+        throws IOException {
+        List<InternalAggregations> results = new ArrayList<>(cachedResults.size() + collectedAggregators.size());
+        results.addAll(cachedResults);
+        for (int i = 0; i < collectedAggregators.size(); i++) {
+            InternalAggregations aggregations = buildTopLevel.apply(collectedAggregators.get(i));
+            if (cacheResults) {
+                cache.put(collectedLeaves.get(i), aggregations);
+            }
+            results.add(aggregations);
+        }
+        return results;
+    }
+}
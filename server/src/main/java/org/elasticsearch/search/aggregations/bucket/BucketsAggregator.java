@@ -92,6 +92,23 @@ public abstract class BucketsAggregator extends AggregatorBase {
         subCollector.collect(doc, bucketOrd);
     }
 
+    /**
+     * Collect the first {@code count} documents of {@code docs} into the bucket
+     * {@code bucketOrd} and hand them to the sub-aggregators as a single block.
+     * The documents must be sorted in increasing order.
+     */
+    public final void collectBucket(LeafBucketCollector subCollector, int[] docs, int count, long bucketOrd) throws IOException {
+        grow(bucketOrd + 1);
+        long docCount = 0;
+        for (int i = 0; i < count; i++) {
+            docCount += docCountProvider.getDocCount(docs[i]);
+        }
+        if (docCounts.increment(bucketOrd, docCount) == docCount) {
+            multiBucketConsumer.accept(0);
+        }
+        subCollector.collect(docs, count, bucketOrd);
+    }
+
     /**
      * Merge doc counts. If the {@linkplain Aggregator} is delayed then you must also call
      * {@link BestBucketsDeferringCollector#rewriteBuckets(LongUnaryOperator)} to merge the delayed buckets.
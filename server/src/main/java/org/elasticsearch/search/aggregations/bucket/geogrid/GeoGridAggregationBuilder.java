@@ -177,6 +177,12 @@ public abstract class GeoGridAggregationBuilder extends ValuesSourceAggregationB
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice truncates its cells to shard_size before the slices are merged
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
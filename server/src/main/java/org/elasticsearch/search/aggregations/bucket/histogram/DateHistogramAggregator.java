@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.Rounding.DateTimeUnit;
@@ -266,30 +267,83 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         }
         SortedNumericDocValues values = valuesSource.longValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
+            /**
+             * Documents of the current block that fall into the same bucket.
+             */
+            private int[] run = new int[0];
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
-                    int valuesCount = values.docValueCount();
+                    collectValues(doc, owningBucketOrd);
+                }
+            }
 
-                    long previousRounded = Long.MIN_VALUE;
-                    for (int i = 0; i < valuesCount; ++i) {
-                        long value = values.nextValue();
-                        long rounded = preparedRounding.round(value);
-                        assert rounded >= previousRounded;
-                        if (rounded == previousRounded) {
-                            continue;
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                /*
+                 * Neighbouring documents usually fall into the same bucket, especially
+                 * on indices sorted by time, so we collect runs of single valued
+                 * documents that share a bucket as one block.
+                 */
+                run = ArrayUtil.grow(run, count);
+                int runLength = 0;
+                long runBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    int doc = docs[d];
+                    if (values.advanceExact(doc) == false) {
+                        continue;
+                    }
+                    if (values.docValueCount() != 1) {
+                        // sub-aggregators need the documents in order so we have to finish the run first
+                        if (runLength > 0) {
+                            collectBucket(sub, run, runLength, runBucketOrd);
+                            runLength = 0;
                         }
-                        if (hardBounds == null || hardBounds.contain(rounded)) {
-                            long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
-                            if (bucketOrd < 0) { // already seen
-                                bucketOrd = -1 - bucketOrd;
-                                collectExistingBucket(sub, doc, bucketOrd);
-                            } else {
-                                collectBucket(sub, doc, bucketOrd);
-                            }
+                        collectValues(doc, owningBucketOrd);
+                        continue;
+                    }
+                    long rounded = preparedRounding.round(values.nextValue());
+                    if (hardBounds != null && hardBounds.contain(rounded) == false) {
+                        continue;
+                    }
+                    long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
+                    if (bucketOrd < 0) { // already seen
+                        bucketOrd = -1 - bucketOrd;
+                    }
+                    if (bucketOrd != runBucketOrd && runLength > 0) {
+                        collectBucket(sub, run, runLength, runBucketOrd);
+                        runLength = 0;
+                    }
+                    runBucketOrd = bucketOrd;
+                    run[runLength++] = doc;
+                }
+                if (runLength > 0) {
+                    collectBucket(sub, run, runLength, runBucketOrd);
+                }
+            }
+
+            private void collectValues(int doc, long owningBucketOrd) throws IOException {
+                int valuesCount = values.docValueCount();
+
+                long previousRounded = Long.MIN_VALUE;
+                for (int i = 0; i < valuesCount; ++i) {
+                    long value = values.nextValue();
+                    long rounded = preparedRounding.round(value);
+                    assert rounded >= previousRounded;
+                    if (rounded == previousRounded) {
+                        continue;
+                    }
+                    if (hardBounds == null || hardBounds.contain(rounded)) {
+                        long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
+                        if (bucketOrd < 0) { // already seen
+                            bucketOrd = -1 - bucketOrd;
+                            collectExistingBucket(sub, doc, bucketOrd);
+                        } else {
+                            collectBucket(sub, doc, bucketOrd);
                         }
-                        previousRounded = rounded;
                     }
+                    previousRounded = rounded;
                 }
             }
         };
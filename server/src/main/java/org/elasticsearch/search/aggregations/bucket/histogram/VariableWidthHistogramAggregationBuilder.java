@@ -135,6 +135,12 @@ public class VariableWidthHistogramAggregationBuilder extends ValuesSourceAggreg
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice would cluster its own documents into shard_size buckets before the slices are merged
+        return false;
+    }
+
     @Override
     protected AggregationBuilder shallowCopy(AggregatorFactories.Builder factoriesBuilder, Map<String, Object> metaData) {
         return new VariableWidthHistogramAggregationBuilder(this, factoriesBuilder, metaData);
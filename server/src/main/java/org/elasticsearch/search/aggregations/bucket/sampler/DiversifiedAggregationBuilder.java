@@ -151,6 +151,12 @@ public class DiversifiedAggregationBuilder extends ValuesSourceAggregationBuilde
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice would sample shard_size documents of its own
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
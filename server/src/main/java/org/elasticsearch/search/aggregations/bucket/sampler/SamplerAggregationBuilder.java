@@ -77,6 +77,12 @@ public class SamplerAggregationBuilder extends AbstractAggregationBuilder<Sample
         return BucketCardinality.ONE;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice would sample shard_size documents of its own
+        return false;
+    }
+
     @Override
     protected SamplerAggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
         throws IOException {
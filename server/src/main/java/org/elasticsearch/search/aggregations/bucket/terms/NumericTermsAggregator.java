@@ -10,6 +10,7 @@ package org.elasticsearch.search.aggregations.bucket.terms;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.common.util.LongArray;
@@ -84,27 +85,80 @@ public class NumericTermsAggregator extends TermsAggregator {
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         SortedNumericDocValues values = resultStrategy.getValues(ctx);
         return resultStrategy.wrapCollector(new LeafBucketCollectorBase(sub, values) {
+            /**
+             * Documents of the current block that fall into the same bucket.
+             */
+            private int[] run = new int[0];
+
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
                 if (values.advanceExact(doc)) {
-                    int valuesCount = values.docValueCount();
-
-                    long previous = Long.MAX_VALUE;
-                    for (int i = 0; i < valuesCount; ++i) {
-                        long val = values.nextValue();
-                        if (previous != val || i == 0) {
-                            if ((longFilter == null) || (longFilter.accept(val))) {
-                                long bucketOrdinal = bucketOrds.add(owningBucketOrd, val);
-                                if (bucketOrdinal < 0) { // already seen
-                                    bucketOrdinal = -1 - bucketOrdinal;
-                                    collectExistingBucket(sub, doc, bucketOrdinal);
-                                } else {
-                                    collectBucket(sub, doc, bucketOrdinal);
-                                }
-                            }
+                    collectValues(doc, owningBucketOrd);
+                }
+            }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                /*
+                 * Collect runs of single valued documents that share a term as one
+                 * block. Low cardinality fields and fields that correlate with the
+                 * index sort produce long runs.
+                 */
+                run = ArrayUtil.grow(run, count);
+                int runLength = 0;
+                long runBucketOrd = -1;
+                for (int d = 0; d < count; d++) {
+                    int doc = docs[d];
+                    if (values.advanceExact(doc) == false) {
+                        continue;
+                    }
+                    if (values.docValueCount() != 1) {
+                        // sub-aggregators need the documents in order so we have to finish the run first
+                        if (runLength > 0) {
+                            collectBucket(sub, run, runLength, runBucketOrd);
+                            runLength = 0;
+                        }
+                        collectValues(doc, owningBucketOrd);
+                        continue;
+                    }
+                    long val = values.nextValue();
+                    if (longFilter != null && longFilter.accept(val) == false) {
+                        continue;
+                    }
+                    long bucketOrdinal = bucketOrds.add(owningBucketOrd, val);
+                    if (bucketOrdinal < 0) { // already seen
+                        bucketOrdinal = -1 - bucketOrdinal;
+                    }
+                    if (bucketOrdinal != runBucketOrd && runLength > 0) {
+                        collectBucket(sub, run, runLength, runBucketOrd);
+                        runLength = 0;
+                    }
+                    runBucketOrd = bucketOrdinal;
+                    run[runLength++] = doc;
+                }
+                if (runLength > 0) {
+                    collectBucket(sub, run, runLength, runBucketOrd);
+                }
+            }
 
-                            previous = val;
+            private void collectValues(int doc, long owningBucketOrd) throws IOException {
+                int valuesCount = values.docValueCount();
+
+                long previous = Long.MAX_VALUE;
+                for (int i = 0; i < valuesCount; ++i) {
+                    long val = values.nextValue();
+                    if (previous != val || i == 0) {
+                        if ((longFilter == null) || (longFilter.accept(val))) {
+                            long bucketOrdinal = bucketOrds.add(owningBucketOrd, val);
+                            if (bucketOrdinal < 0) { // already seen
+                                bucketOrdinal = -1 - bucketOrdinal;
+                                collectExistingBucket(sub, doc, bucketOrdinal);
+                            } else {
+                                collectBucket(sub, doc, bucketOrdinal);
+                            }
                         }
+
+                        previous = val;
                     }
                 }
             }
@@ -183,6 +183,12 @@ public class RareTermsAggregationBuilder extends ValuesSourceAggregationBuilder<
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // a term that is rare in each slice isn't necessarily rare in the shard, which the partial reduction can't tell
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
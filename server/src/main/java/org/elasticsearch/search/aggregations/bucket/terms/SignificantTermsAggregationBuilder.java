@@ -299,6 +299,12 @@ public class SignificantTermsAggregationBuilder extends ValuesSourceAggregationB
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice counts the background frequencies of the whole shard, reducing the slices would count them several times
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
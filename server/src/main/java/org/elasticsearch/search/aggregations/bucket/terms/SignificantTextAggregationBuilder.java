@@ -311,6 +311,12 @@ public class SignificantTextAggregationBuilder extends AbstractAggregationBuilde
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice counts the background frequencies of the whole shard, reducing the slices would count them several times
+        return false;
+    }
+
     @Override
     protected AggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
         throws IOException {
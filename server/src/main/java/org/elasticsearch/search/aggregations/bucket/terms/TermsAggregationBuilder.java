@@ -354,6 +354,12 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Term
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice truncates its buckets to shard_size, which makes the counts of the shard less accurate
+        return false;
+    }
+
     @Override
     protected ValuesSourceAggregatorFactory innerBuild(
         AggregationContext context,
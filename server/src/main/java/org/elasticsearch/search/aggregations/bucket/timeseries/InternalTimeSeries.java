@@ -0,0 +1,260 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.KeyComparable;
+import org.elasticsearch.search.aggregations.bucket.IteratorAndCurrent;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Results of the {@code time_series} aggregation. Buckets are sorted by
+ * {@code _tsid} on the shards so the reduction is a merge of sorted streams.
+ */
+public class InternalTimeSeries extends InternalMultiBucketAggregation<InternalTimeSeries, InternalTimeSeries.InternalBucket> {
+
+    public static class InternalBucket extends InternalMultiBucketAggregation.InternalBucket implements KeyComparable<InternalBucket> {
+        protected long bucketOrd;
+        protected final BytesRef key;
+        protected long docCount;
+        protected InternalAggregations aggregations;
+        protected final transient boolean keyed;
+
+        public InternalBucket(BytesRef key, long docCount, InternalAggregations aggregations, boolean keyed) {
+            this.key = key;
+            this.docCount = docCount;
+            this.aggregations = aggregations;
+            this.keyed = keyed;
+        }
+
+        /**
+         * Read from a stream.
+         */
+        public InternalBucket(StreamInput in, boolean keyed) throws IOException {
+            this.keyed = keyed;
+            key = in.readBytesRef();
+            docCount = in.readVLong();
+            aggregations = InternalAggregations.readFrom(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeBytesRef(key);
+            out.writeVLong(docCount);
+            aggregations.writeTo(out);
+        }
+
+        @Override
+        public Map<String, Object> getKey() {
+            return TimeSeriesIdFieldMapper.decodeTsid(key);
+        }
+
+        @Override
+        public String getKeyAsString() {
+            return getKey().toString();
+        }
+
+        @Override
+        public long getDocCount() {
+            return docCount;
+        }
+
+        @Override
+        public Aggregations getAggregations() {
+            return aggregations;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            Map<String, Object> decoded = getKey();
+            if (keyed) {
+                builder.startObject(decoded.toString());
+            } else {
+                builder.startObject();
+            }
+            builder.field(CommonFields.KEY.getPreferredName(), decoded);
+            builder.field(CommonFields.DOC_COUNT.getPreferredName(), docCount);
+            aggregations.toXContentInternal(builder, params);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public int compareKey(InternalBucket other) {
+            return key.compareTo(other.key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            InternalBucket that = (InternalBucket) other;
+            // No need to take the keyed parameter into account, it is already stored and tested on the InternalTimeSeries object
+            return Objects.equals(key, that.key) && docCount == that.docCount && Objects.equals(aggregations, that.aggregations);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getClass(), key, docCount, aggregations);
+        }
+    }
+
+    private final List<InternalBucket> buckets;
+    private final boolean keyed;
+
+    public InternalTimeSeries(String name, List<InternalBucket> buckets, boolean keyed, Map<String, Object> metadata) {
+        super(name, metadata);
+        this.buckets = buckets;
+        this.keyed = keyed;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalTimeSeries(StreamInput in) throws IOException {
+        super(in);
+        keyed = in.readBoolean();
+        buckets = in.readList(stream -> new InternalBucket(stream, keyed));
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeBoolean(keyed);
+        out.writeList(buckets);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TimeSeriesAggregationBuilder.NAME;
+    }
+
+    @Override
+    public List<InternalBucket> getBuckets() {
+        return Collections.unmodifiableList(buckets);
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        if (keyed) {
+            builder.startObject(CommonFields.BUCKETS.getPreferredName());
+        } else {
+            builder.startArray(CommonFields.BUCKETS.getPreferredName());
+        }
+        for (InternalBucket bucket : buckets) {
+            bucket.toXContent(builder, params);
+        }
+        if (keyed) {
+            builder.endObject();
+        } else {
+            builder.endArray();
+        }
+        return builder;
+    }
+
+    @Override
+    public InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        final PriorityQueue<IteratorAndCurrent<InternalBucket>> pq = new PriorityQueue<>(aggregations.size()) {
+            @Override
+            protected boolean lessThan(IteratorAndCurrent<InternalBucket> a, IteratorAndCurrent<InternalBucket> b) {
+                return a.current().key.compareTo(b.current().key) < 0;
+            }
+        };
+        for (InternalAggregation aggregation : aggregations) {
+            InternalTimeSeries timeSeries = (InternalTimeSeries) aggregation;
+            if (timeSeries.buckets.isEmpty() == false) {
+                pq.add(new IteratorAndCurrent<>(timeSeries.buckets.iterator()));
+            }
+        }
+
+        List<InternalBucket> reducedBuckets = new ArrayList<>();
+        // buckets with the same key from different shards
+        List<InternalBucket> currentBuckets = new ArrayList<>();
+        BytesRef key = null;
+        while (pq.size() > 0) {
+            final IteratorAndCurrent<InternalBucket> top = pq.top();
+            if (key != null && top.current().key.equals(key) == false) {
+                reducedBuckets.add(reduceBucket(currentBuckets, reduceContext));
+                currentBuckets.clear();
+            }
+            key = top.current().key;
+            currentBuckets.add(top.current());
+
+            if (top.hasNext()) {
+                top.next();
+                assert top.current().key.compareTo(key) >= 0 : "shards must return data sorted by key";
+                pq.updateTop();
+            } else {
+                pq.pop();
+            }
+        }
+        if (currentBuckets.isEmpty() == false) {
+            reducedBuckets.add(reduceBucket(currentBuckets, reduceContext));
+        }
+
+        reduceContext.consumeBucketsAndMaybeBreak(reducedBuckets.size());
+        return new InternalTimeSeries(name, reducedBuckets, keyed, getMetadata());
+    }
+
+    @Override
+    public InternalTimeSeries create(List<InternalBucket> buckets) {
+        return new InternalTimeSeries(name, buckets, keyed, metadata);
+    }
+
+    @Override
+    public InternalBucket createBucket(InternalAggregations aggregations, InternalBucket prototype) {
+        return new InternalBucket(prototype.key, prototype.docCount, aggregations, prototype.keyed);
+    }
+
+    @Override
+    protected InternalBucket reduceBucket(List<InternalBucket> buckets, ReduceContext context) {
+        assert buckets.size() > 0;
+        List<InternalAggregations> aggregations = new ArrayList<>(buckets.size());
+        long docCount = 0;
+        for (InternalBucket bucket : buckets) {
+            docCount += bucket.docCount;
+            aggregations.add(bucket.aggregations);
+        }
+        InternalAggregations aggs = InternalAggregations.reduce(aggregations, context);
+        return new InternalBucket(buckets.get(0).key, docCount, aggs, buckets.get(0).keyed);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (super.equals(obj) == false) return false;
+
+        InternalTimeSeries that = (InternalTimeSeries) obj;
+        return Objects.equals(buckets, that.buckets) && keyed == that.keyed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), buckets, keyed);
+    }
+}
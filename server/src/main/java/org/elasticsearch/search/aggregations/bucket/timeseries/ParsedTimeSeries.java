@@ -0,0 +1,74 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.elasticsearch.search.aggregations.ParsedMultiBucketAggregation;
+import org.elasticsearch.xcontent.ObjectParser;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class ParsedTimeSeries extends ParsedMultiBucketAggregation<ParsedTimeSeries.ParsedBucket> {
+
+    @Override
+    public String getType() {
+        return TimeSeriesAggregationBuilder.NAME;
+    }
+
+    @Override
+    public List<? extends ParsedBucket> getBuckets() {
+        return buckets;
+    }
+
+    private static final ObjectParser<ParsedTimeSeries, Void> PARSER = new ObjectParser<>(
+        ParsedTimeSeries.class.getSimpleName(),
+        true,
+        ParsedTimeSeries::new
+    );
+    static {
+        declareMultiBucketAggregationFields(
+            PARSER,
+            parser -> ParsedBucket.fromXContent(parser, false),
+            parser -> ParsedBucket.fromXContent(parser, true)
+        );
+    }
+
+    public static ParsedTimeSeries fromXContent(XContentParser parser, String name) throws IOException {
+        ParsedTimeSeries aggregation = PARSER.parse(parser, null);
+        aggregation.setName(name);
+        return aggregation;
+    }
+
+    public static class ParsedBucket extends ParsedMultiBucketAggregation.ParsedBucket {
+
+        private Map<String, Object> key;
+
+        @Override
+        public Map<String, Object> getKey() {
+            return key;
+        }
+
+        @Override
+        public String getKeyAsString() {
+            return key.toString();
+        }
+
+        @Override
+        protected XContentBuilder keyToXContent(XContentBuilder builder) throws IOException {
+            return builder.field(CommonFields.KEY.getPreferredName(), key);
+        }
+
+        static ParsedBucket fromXContent(XContentParser parser, boolean keyed) throws IOException {
+            return parseXContent(parser, keyed, ParsedBucket::new, (p, bucket) -> bucket.key = p.mapOrdered());
+        }
+    }
+}
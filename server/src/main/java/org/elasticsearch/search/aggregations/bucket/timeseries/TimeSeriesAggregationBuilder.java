@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.xcontent.ObjectParser;
+import org.elasticsearch.xcontent.ParseField;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Builds an aggregation that creates one bucket per time series of a
+ * {@link org.elasticsearch.index.IndexMode#TIME_SERIES time series index}.
+ */
+public class TimeSeriesAggregationBuilder extends AbstractAggregationBuilder<TimeSeriesAggregationBuilder> {
+    public static final String NAME = "time_series";
+    public static final ParseField KEYED_FIELD = new ParseField("keyed");
+
+    public static final ObjectParser<TimeSeriesAggregationBuilder, String> PARSER = ObjectParser.fromBuilder(
+        NAME,
+        TimeSeriesAggregationBuilder::new
+    );
+    static {
+        PARSER.declareBoolean(TimeSeriesAggregationBuilder::keyed, KEYED_FIELD);
+    }
+
+    private boolean keyed = true;
+
+    public TimeSeriesAggregationBuilder(String name) {
+        super(name);
+    }
+
+    protected TimeSeriesAggregationBuilder(TimeSeriesAggregationBuilder clone, Builder factoriesBuilder, Map<String, Object> metadata) {
+        super(clone, factoriesBuilder, metadata);
+        this.keyed = clone.keyed;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public TimeSeriesAggregationBuilder(StreamInput in) throws IOException {
+        super(in);
+        keyed = in.readBoolean();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeBoolean(keyed);
+    }
+
+    @Override
+    protected AggregationBuilder shallowCopy(Builder factoriesBuilder, Map<String, Object> metadata) {
+        return new TimeSeriesAggregationBuilder(this, factoriesBuilder, metadata);
+    }
+
+    /**
+     * Set whether the buckets are returned as a hash keyed by the time series
+     * rather than as an array.
+     */
+    public TimeSeriesAggregationBuilder keyed(boolean keyed) {
+        this.keyed = keyed;
+        return this;
+    }
+
+    /**
+     * Return whether the buckets are returned as a hash keyed by the time series
+     * rather than as an array.
+     */
+    public boolean keyed() {
+        return keyed;
+    }
+
+    @Override
+    public BucketCardinality bucketCardinality() {
+        return BucketCardinality.MANY;
+    }
+
+    @Override
+    protected AggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subFactoriesBuilder)
+        throws IOException {
+        return new TimeSeriesAggregatorFactory(name, keyed, context, parent, subFactoriesBuilder, metadata);
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(KEYED_FIELD.getPreferredName(), keyed);
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public String getType() {
+        return NAME;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), keyed);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        if (super.equals(obj) == false) return false;
+        TimeSeriesAggregationBuilder other = (TimeSeriesAggregationBuilder) obj;
+        return keyed == other.keyed;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.terms.BytesKeyedBucketOrds;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects one bucket per time series. Segments of time series indices are sorted
+ * by {@code _tsid} so every time series is a contiguous run of documents within a
+ * segment. This lets the aggregator look up the bucket ordinal of a time series only
+ * when the {@code _tsid} ordinal changes rather than for every document. The lookup
+ * goes through a hash table keyed by {@code _tsid} so a time series that spans
+ * several segments still gets a single bucket on the shard.
+ */
+public class TimeSeriesAggregator extends BucketsAggregator {
+
+    private final boolean keyed;
+    private final BytesKeyedBucketOrds bucketOrds;
+
+    public TimeSeriesAggregator(
+        String name,
+        AggregatorFactories factories,
+        boolean keyed,
+        AggregationContext context,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, factories, context, null, CardinalityUpperBound.MANY, metadata);
+        this.keyed = keyed;
+        this.bucketOrds = BytesKeyedBucketOrds.build(bigArrays(), CardinalityUpperBound.ONE);
+    }
+
+    @Override
+    public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        Sort indexSort = ctx.reader().getMetaData().getSort();
+        if (indexSort == null || indexSort.getSort()[0].getField().equals(TimeSeriesIdFieldMapper.NAME) == false) {
+            throw new AggregationExecutionException(
+                "Aggregation [" + name + "] requires segments sorted by [" + TimeSeriesIdFieldMapper.NAME + "] but got [" + indexSort + "]"
+            );
+        }
+        SortedDocValues tsids = DocValues.unwrapSingleton(DocValues.getSortedSet(ctx.reader(), TimeSeriesIdFieldMapper.NAME));
+        if (tsids == null) {
+            throw new AggregationExecutionException("[" + TimeSeriesIdFieldMapper.NAME + "] must be single valued");
+        }
+        return new LeafBucketCollectorBase(sub, null) {
+            private int currentOrd = -1;
+            private long currentBucketOrd = -1;
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                assert owningBucketOrd == 0 : "time_series aggregator can only be a top level aggregator";
+                if (tsids.advanceExact(doc) == false) {
+                    return;
+                }
+                int ord = tsids.ordValue();
+                if (ord != currentOrd) {
+                    assert ord > currentOrd : "documents must be collected in _tsid order";
+                    currentOrd = ord;
+                    currentBucketOrd = bucketOrds.add(owningBucketOrd, tsids.lookupOrd(ord));
+                    if (currentBucketOrd < 0) {
+                        // the time series was collected in an earlier segment
+                        currentBucketOrd = -1 - currentBucketOrd;
+                    }
+                }
+                collectBucket(sub, doc, currentBucketOrd);
+            }
+        };
+    }
+
+    @Override
+    public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
+        assert owningBucketOrds.length == 1 && owningBucketOrds[0] == 0 : "time_series aggregator can only be a top level aggregator";
+        InternalTimeSeries.InternalBucket[] buckets = new InternalTimeSeries.InternalBucket[Math.toIntExact(
+            bucketOrds.bucketsInOrd(owningBucketOrds[0])
+        )];
+        BytesKeyedBucketOrds.BucketOrdsEnum ordsEnum = bucketOrds.ordsEnum(owningBucketOrds[0]);
+        for (int i = 0; ordsEnum.next(); i++) {
+            BytesRef tsid = new BytesRef();
+            ordsEnum.readValue(tsid);
+            buckets[i] = new InternalTimeSeries.InternalBucket(BytesRef.deepCopyOf(tsid), bucketDocCount(ordsEnum.ord()), null, keyed);
+            buckets[i].bucketOrd = ordsEnum.ord();
+        }
+        /*
+         * The buckets are in the order they were first collected in, which is
+         * sorted within each segment, so this is a merge of a few sorted runs
+         * rather than a full sort.
+         */
+        Arrays.sort(buckets, InternalTimeSeries.InternalBucket::compareKey);
+        buildSubAggsForBuckets(buckets, b -> b.bucketOrd, (b, aggs) -> b.aggregations = aggs);
+        return new InternalAggregation[] { new InternalTimeSeries(name, List.of(buckets), keyed, metadata()) };
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalTimeSeries(name, List.of(), keyed, metadata());
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(bucketOrds);
+    }
+}
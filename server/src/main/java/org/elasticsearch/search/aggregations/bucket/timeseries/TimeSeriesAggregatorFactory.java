@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class TimeSeriesAggregatorFactory extends AggregatorFactory {
+
+    private final boolean keyed;
+
+    public TimeSeriesAggregatorFactory(
+        String name,
+        boolean keyed,
+        AggregationContext context,
+        AggregatorFactory parent,
+        AggregatorFactories.Builder subFactoriesBuilder,
+        Map<String, Object> metadata
+    ) throws IOException {
+        super(name, context, parent, subFactoriesBuilder, metadata);
+        this.keyed = keyed;
+    }
+
+    @Override
+    protected Aggregator createInternal(Aggregator parent, CardinalityUpperBound cardinality, Map<String, Object> metadata)
+        throws IOException {
+        if (parent != null) {
+            throw new AggregationExecutionException(
+                "Aggregation ["
+                    + parent.name()
+                    + "] cannot have a time_series "
+                    + "sub-aggregation ["
+                    + name
+                    + "]. Time series aggregations can only be defined as top level aggregations"
+            );
+        }
+        if (context.getIndexSettings().getMode() != IndexMode.TIME_SERIES) {
+            throw new IllegalArgumentException(
+                "Aggregation [" + name + "] of type [" + TimeSeriesAggregationBuilder.NAME + "] requires an index in time_series mode"
+            );
+        }
+        return new TimeSeriesAggregator(name, factories, keyed, context, metadata);
+    }
+}
@@ -93,6 +93,29 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, kahanSummation.delta());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                counts = bigArrays().grow(counts, bucket + 1);
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                // The whole block goes into the same bucket so we can keep the running state in locals
+                long valueCount = 0;
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int d = 0; d < count; d++) {
+                    if (values.advanceExact(docs[d])) {
+                        final int docValueCount = values.docValueCount();
+                        valueCount += docValueCount;
+                        for (int i = 0; i < docValueCount; i++) {
+                            kahanSummation.add(values.nextValue());
+                        }
+                    }
+                }
+                counts.increment(bucket, valueCount);
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+            }
         };
     }
 
@@ -103,6 +103,23 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                // The whole block goes into the same bucket so we can keep the running max in a local
+                double max = maxes.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (values.advanceExact(docs[d])) {
+                        max = Math.max(max, values.doubleValue());
+                    }
+                }
+                maxes.set(bucket, max);
+            }
+
         };
     }
 
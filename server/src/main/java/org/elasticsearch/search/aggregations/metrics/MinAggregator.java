@@ -102,6 +102,23 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays().grow(mins, bucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                // The whole block goes into the same bucket so we can keep the running min in a local
+                double min = mins.get(bucket);
+                for (int d = 0; d < count; d++) {
+                    if (values.advanceExact(docs[d])) {
+                        min = Math.min(min, values.doubleValue());
+                    }
+                }
+                mins.set(bucket, min);
+            }
+
         };
     }
 
@@ -206,6 +206,12 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         return BucketCardinality.NONE;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // the reduce script only runs on the coordinating node, slices of a shard would be combined without it
+        return false;
+    }
+
     @Override
     protected ScriptedMetricAggregatorFactory doBuild(AggregationContext context, AggregatorFactory parent, Builder subfactoriesBuilder)
         throws IOException {
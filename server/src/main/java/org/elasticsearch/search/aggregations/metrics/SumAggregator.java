@@ -84,6 +84,25 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
                     sums.set(bucket, kahanSummation.value());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                // The whole block goes into the same bucket so we can keep the running sum in locals
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int d = 0; d < count; d++) {
+                    if (values.advanceExact(docs[d])) {
+                        final int valuesCount = values.docValueCount();
+                        for (int i = 0; i < valuesCount; i++) {
+                            kahanSummation.add(values.nextValue());
+                        }
+                    }
+                }
+                compensations.set(bucket, kahanSummation.delta());
+                sums.set(bucket, kahanSummation.value());
+            }
         };
     }
 
@@ -16,6 +16,7 @@ import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.CollectionStatistics;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -34,6 +35,9 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -43,11 +47,16 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -63,21 +72,41 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
 
+    @Nullable
+    private final Executor sliceExecutor;
+    @Nullable
+    private final LeafSlice[] leafSlices;
+
     public ContextIndexSearcher(IndexReader reader, Similarity similarity,
                                 QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
                                 boolean wrapWithExitableDirectoryReader) throws IOException {
-        this(reader, similarity, queryCache, queryCachingPolicy, new MutableQueryTimeout(), wrapWithExitableDirectoryReader);
+        this(reader, similarity, queryCache, queryCachingPolicy, wrapWithExitableDirectoryReader, null);
+    }
+
+    /**
+     * Creates a searcher that can collect slices of the index leaves concurrently on the provided
+     * <code>sliceExecutor</code> when searching through {@link #searchConcurrently}. A <code>null</code> executor
+     * disables concurrent collection.
+     */
+    public ContextIndexSearcher(IndexReader reader, Similarity similarity,
+                                QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
+                                boolean wrapWithExitableDirectoryReader, @Nullable Executor sliceExecutor) throws IOException {
+        this(reader, similarity, queryCache, queryCachingPolicy, new MutableQueryTimeout(), wrapWithExitableDirectoryReader,
+            sliceExecutor);
     }
 
     private ContextIndexSearcher(IndexReader reader, Similarity similarity,
                                  QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
                                  MutableQueryTimeout cancellable,
-                                 boolean wrapWithExitableDirectoryReader) throws IOException {
+                                 boolean wrapWithExitableDirectoryReader,
+                                 @Nullable Executor sliceExecutor) throws IOException {
         super(wrapWithExitableDirectoryReader ? new ExitableDirectoryReader((DirectoryReader) reader, cancellable) : reader);
         setSimilarity(similarity);
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
         this.cancellable = cancellable;
+        this.sliceExecutor = sliceExecutor;
+        this.leafSlices = sliceExecutor == null ? null : slices(leafContexts);
     }
 
     public void setProfiler(QueryProfiler profiler) {
@@ -160,6 +189,82 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Returns <code>true</code> if this searcher has an executor to collect slices of its leaves concurrently
+     * and the reader has more than one slice.
+     */
+    public boolean hasConcurrentSlices() {
+        return leafSlices != null && leafSlices.length > 1;
+    }
+
+    /**
+     * Searches the provided query with one collector per slice of the index leaves, collecting the slices
+     * concurrently on the slice executor. The last slice is collected on the calling thread, as well as slices that
+     * the executor rejects. Unlike {@link #search(Query, CollectorManager)} this method does not reduce the
+     * collectors: all slices are waited for, even if some of them fail, so that the caller can safely read the
+     * partial results of the collectors it created, for instance after a timeout.
+     */
+    public <C extends Collector> void searchConcurrently(Query query, CollectorManager<C, ?> collectorManager) throws IOException {
+        if (hasConcurrentSlices() == false) {
+            search(query, collectorManager.newCollector());
+            return;
+        }
+        // collectors are created upfront on the calling thread since creating them might not be thread-safe
+        final List<C> collectors = new ArrayList<>(leafSlices.length);
+        ScoreMode scoreMode = null;
+        for (int i = 0; i < leafSlices.length; i++) {
+            final C collector = collectorManager.newCollector();
+            collectors.add(collector);
+            if (scoreMode == null) {
+                scoreMode = collector.scoreMode();
+            } else if (scoreMode != collector.scoreMode()) {
+                throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
+            }
+        }
+        final Weight weight = createWeight(rewrite(query), scoreMode, 1);
+        final List<FutureTask<Void>> tasks = new ArrayList<>(leafSlices.length);
+        for (int i = 0; i < leafSlices.length; i++) {
+            final List<LeafReaderContext> leaves = Arrays.asList(leafSlices[i].leaves);
+            final C collector = collectors.get(i);
+            tasks.add(new FutureTask<>(() -> {
+                search(leaves, weight, collector);
+                return null;
+            }));
+        }
+        for (int i = 0; i < tasks.size() - 1; i++) {
+            try {
+                sliceExecutor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                tasks.get(i).run();
+            }
+        }
+        tasks.get(tasks.size() - 1).run();
+
+        Throwable failure = null;
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            } catch (ExecutionException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+            }
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new RuntimeException(failure);
+        }
+    }
+
     /**
      * Lower-level search API.
      *
@@ -0,0 +1,177 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.elasticsearch.search.query.QueryCollectorContext.createFilteredCollectorContext;
+import static org.elasticsearch.search.query.QueryCollectorContext.createMinScoreCollectorContext;
+import static org.elasticsearch.search.query.QueryCollectorContext.createMultiCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.createTopDocsCollectorContext;
+import static org.elasticsearch.search.query.TopDocsCollectorContext.shortcutTotalHitCount;
+
+/**
+ * A {@link CollectorManager} that creates one collector chain per slice of the shard when the query phase
+ * is executed concurrently. Each chain has its own top docs collector and its own tree of top level aggregators.
+ * The top docs of the slices are merged in {@link #postProcess} rather than in {@link #reduce} so that
+ * partial results can still be returned when the search timed out. Aggregations are reduced by the
+ * {@link AggregationPhase}.
+ */
+class ConcurrentQueryCollectorManager implements CollectorManager<Collector, Void> {
+    private final SearchContext searchContext;
+    private final boolean hasFilterCollector;
+    private final int shortcutTotalHitCount;
+    private final List<List<QueryCollectorContext>> sliceContexts = new ArrayList<>();
+    private TopDocsCollectorContext firstTopDocsContext;
+
+    ConcurrentQueryCollectorManager(SearchContext searchContext, Query query, boolean hasFilterCollector) throws IOException {
+        this.searchContext = searchContext;
+        this.hasFilterCollector = hasFilterCollector;
+        // the total hit count shortcut applies to the whole reader, so it is computed once rather than per slice
+        if (hasFilterCollector || searchContext.trackTotalHitsUpTo() == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            this.shortcutTotalHitCount = -1;
+        } else {
+            this.shortcutTotalHitCount = shortcutTotalHitCount(searchContext.searcher().getIndexReader(), query);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the query phase of the provided context can be executed with one collector
+     * chain per slice.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext) {
+        if (searchContext.searcher().hasConcurrentSlices() == false) {
+            return false;
+        }
+        // profile breakdowns are not thread-safe, scrolls rely on the order of collection to track the last emitted doc
+        // and collapsing and terminate_after need to see all the shard's documents through a single collector
+        if (searchContext.getProfilers() != null
+            || searchContext.scrollContext() != null
+            || searchContext.collapse() != null
+            || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        if (searchContext.aggregations() != null && searchContext.aggregations().supportsSlicedCollection() == false) {
+            // the results of the slices would be partially reduced on the shard, which changes the result of some aggregations
+            return false;
+        }
+        for (Class<?> key : searchContext.queryCollectors().keySet()) {
+            if (key != AggregationPhase.class) {
+                // we don't know how to create a collector per slice for plugged-in collectors
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Collector newCollector() throws IOException {
+        final boolean hasTotalHitsShortcut = shortcutTotalHitCount != -1;
+        final TopDocsCollectorContext topDocsContext = createTopDocsCollectorContext(
+            searchContext,
+            hasFilterCollector || hasTotalHitsShortcut,
+            hasTotalHitsShortcut ? SearchContext.TRACK_TOTAL_HITS_DISABLED : searchContext.trackTotalHitsUpTo()
+        );
+        final List<QueryCollectorContext> contexts = new ArrayList<>();
+        contexts.add(topDocsContext);
+        if (searchContext.parsedPostFilter() != null) {
+            contexts.add(createFilteredCollectorContext(searchContext.searcher(), searchContext.parsedPostFilter().query()));
+        }
+        final Collector aggsCollector = searchContext.queryCollectors().get(AggregationPhase.class);
+        if (aggsCollector != null) {
+            // the first slice reuses the aggregators that were created in the aggregation phase
+            contexts.add(createMultiCollectorContext(
+                List.of(sliceContexts.isEmpty() ? aggsCollector : AggregationPhase.createSliceCollector(searchContext))
+            ));
+        }
+        if (searchContext.minimumScore() != null) {
+            contexts.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+        if (firstTopDocsContext == null) {
+            firstTopDocsContext = topDocsContext;
+        }
+        sliceContexts.add(contexts);
+        return QueryCollectorContext.createQueryCollector(contexts);
+    }
+
+    @Override
+    public Void reduce(Collection<Collector> collectors) {
+        // see postProcess
+        return null;
+    }
+
+    /**
+     * Returns true if the top docs should be re-scored after initial search
+     */
+    boolean shouldRescore() {
+        return firstTopDocsContext != null && firstTopDocsContext.shouldRescore();
+    }
+
+    /**
+     * Merges the top docs of all slices into the provided <code>result</code>.
+     */
+    void postProcess(QuerySearchResult result) throws IOException {
+        final List<TopDocs> topDocs = new ArrayList<>(sliceContexts.size());
+        float maxScore = Float.NaN;
+        DocValueFormat[] sortValueFormats = null;
+        for (List<QueryCollectorContext> contexts : sliceContexts) {
+            final QuerySearchResult sliceResult = new QuerySearchResult();
+            for (QueryCollectorContext ctx : contexts) {
+                ctx.postProcess(sliceResult);
+            }
+            final TopDocsAndMaxScore sliceTopDocs = sliceResult.topDocs();
+            topDocs.add(sliceTopDocs.topDocs);
+            if (Float.isNaN(maxScore) || sliceTopDocs.maxScore > maxScore) {
+                maxScore = sliceTopDocs.maxScore;
+            }
+            sortValueFormats = sliceResult.sortValueFormats();
+        }
+        final TopDocs merged = mergeTopDocs(topDocs, firstTopDocsContext.numHits());
+        result.topDocs(new TopDocsAndMaxScore(merged, maxScore), sortValueFormats);
+    }
+
+    private TopDocs mergeTopDocs(List<TopDocs> topDocs, int numHits) {
+        long totalHitCount = 0;
+        TotalHits.Relation relation = TotalHits.Relation.EQUAL_TO;
+        for (TopDocs sliceTopDocs : topDocs) {
+            totalHitCount += sliceTopDocs.totalHits.value;
+            if (sliceTopDocs.totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO) {
+                relation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+            }
+        }
+        final TotalHits totalHits = shortcutTotalHitCount != -1
+            ? new TotalHits(shortcutTotalHitCount, TotalHits.Relation.EQUAL_TO)
+            : new TotalHits(totalHitCount, relation);
+        final TopDocs merged;
+        if (topDocs.get(0) instanceof TopFieldDocs) {
+            final TopFieldDocs[] fieldDocs = topDocs.toArray(new TopFieldDocs[0]);
+            final Sort sort = new Sort(fieldDocs[0].fields);
+            final TopFieldDocs mergedFieldDocs = TopDocs.merge(sort, 0, numHits, fieldDocs);
+            merged = new TopFieldDocs(totalHits, mergedFieldDocs.scoreDocs, mergedFieldDocs.fields);
+        } else {
+            merged = new TopDocs(totalHits, TopDocs.merge(0, numHits, topDocs.toArray(new TopDocs[0])).scoreDocs);
+        }
+        return merged;
+    }
+}
@@ -182,7 +182,12 @@ public class QueryPhase {
             }
 
             try {
-                boolean shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                final boolean shouldRescore;
+                if (ConcurrentQueryCollectorManager.canSearchConcurrently(searchContext)) {
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, hasFilterCollector, timeoutSet);
+                } else {
+                    shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                }
                 ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
                 assert executor instanceof EWMATrackingEsThreadPoolExecutor ||
                     (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */) :
@@ -242,6 +247,25 @@ public class QueryPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    private static boolean searchWithCollectorManager(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+            boolean hasFilterCollector, boolean timeoutSet) throws IOException {
+        final ConcurrentQueryCollectorManager collectorManager = new ConcurrentQueryCollectorManager(searchContext, query,
+            hasFilterCollector);
+        QuerySearchResult queryResult = searchContext.queryResult();
+        try {
+            searcher.searchConcurrently(query, collectorManager);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        }
+        collectorManager.postProcess(queryResult);
+        return collectorManager.shouldRescore();
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
@@ -15,6 +15,8 @@ import net.jpountz.lz4.LZ4FastDecompressor;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.DeflateCompressor;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.lz4.ESLZ4Compressor;
 import org.elasticsearch.lz4.ESLZ4Decompressor;
@@ -33,7 +35,9 @@ public class Compression {
         private static final byte[] DEFLATE_HEADER = new byte[]{'D', 'F', 'L', '\0'};
         private static final byte[] LZ4_HEADER = new byte[]{'L', 'Z', '4', '\0'};
         private static final int LZ4_BLOCK_SIZE;
+        private static final int LZ4_LEVEL;
         private static final boolean USE_FORKED_LZ4;
+        private static final DeflateCompressor DEFLATE_COMPRESSOR;
 
         static {
             String blockSizeString = System.getProperty("es.transport.compression.lz4_block_size");
@@ -47,7 +51,23 @@ public class Compression {
                 LZ4_BLOCK_SIZE = 64 * 1024;
             }
 
+            // 0 uses the fast compressor, higher levels use the high compression compressor, whose output needs no other decompressor
+            LZ4_LEVEL = Integer.parseInt(System.getProperty("es.transport.compression.lz4_level", "0"));
+            if (LZ4_LEVEL < 0 || LZ4_LEVEL > 17) {
+                throw new IllegalArgumentException("lz4_level must be >= 0 and <= 17");
+            }
+
             USE_FORKED_LZ4 = Booleans.parseBoolean(System.getProperty("es.compression.use_forked_lz4", "true"));
+
+            int deflateLevel = Integer.parseInt(System.getProperty("es.transport.compression.deflate_level",
+                Integer.toString(DeflateCompressor.DEFAULT_LEVEL)));
+            if (deflateLevel < 1 || deflateLevel > 9) {
+                throw new IllegalArgumentException("deflate_level must be >= 1 and <= 9");
+            }
+            // share the thread-local deflaters of the x-content compressor unless a different level is configured
+            DEFLATE_COMPRESSOR = deflateLevel == DeflateCompressor.DEFAULT_LEVEL
+                ? (DeflateCompressor) CompressorFactory.COMPRESSOR
+                : new DeflateCompressor(deflateLevel);
         }
 
         public static boolean isDeflate(BytesReference bytes) {
@@ -86,15 +106,30 @@ public class Compression {
         }
 
         public static OutputStream lz4OutputStream(OutputStream outputStream) throws IOException {
+            return lz4OutputStream(outputStream, LZ4_LEVEL);
+        }
+
+        /**
+         * Returns a stream that compresses with LZ4 at the given level. Level {@code 0} uses the fast compressor, levels from {@code 1}
+         * to {@code 17} use the high compression compressor which spends more time compressing to get smaller output. Either way the
+         * output is read by the same decompressor.
+         */
+        public static OutputStream lz4OutputStream(OutputStream outputStream, int level) throws IOException {
             outputStream.write(LZ4_HEADER);
             LZ4Compressor lz4Compressor;
-            if (USE_FORKED_LZ4) {
+            if (level > 0) {
+                lz4Compressor = LZ4Factory.safeInstance().highCompressor(level);
+            } else if (USE_FORKED_LZ4) {
                 lz4Compressor = ESLZ4Compressor.INSTANCE;
             } else {
                 lz4Compressor = LZ4Factory.safeInstance().fastCompressor();
             }
             return new ReuseBuffersLZ4BlockOutputStream(outputStream, LZ4_BLOCK_SIZE, lz4Compressor);
         }
+
+        public static OutputStream deflateOutputStream(OutputStream outputStream) throws IOException {
+            return DEFLATE_COMPRESSOR.threadLocalOutputStream(outputStream);
+        }
     }
 
     public enum Enabled {
@@ -27,12 +27,15 @@ public class InboundAggregator implements Releasable {
 
     private final Supplier<CircuitBreaker> circuitBreaker;
     private final Predicate<String> requestCanTripBreaker;
+    private final Predicate<String> requestIsStreaming;
 
     private ReleasableBytesReference firstContent;
     private ArrayList<ReleasableBytesReference> contentAggregation;
     private Header currentHeader;
     private Exception aggregationException;
     private boolean canTripBreaker = true;
+    private boolean streaming = false;
+    private InboundContentStream contentStream;
     private boolean isClosed = false;
 
     public InboundAggregator(Supplier<CircuitBreaker> circuitBreaker,
@@ -44,13 +47,23 @@ public class InboundAggregator implements Releasable {
             } else {
                 return reg.canTripCircuitBreaker();
             }
+        }, actionName -> {
+            final RequestHandlerRegistry<TransportRequest> reg = registryFunction.apply(actionName);
+            return reg != null && reg.isStreaming();
         });
     }
 
     // Visible for testing
     InboundAggregator(Supplier<CircuitBreaker> circuitBreaker, Predicate<String> requestCanTripBreaker) {
+        this(circuitBreaker, requestCanTripBreaker, actionName -> false);
+    }
+
+    // Visible for testing
+    InboundAggregator(Supplier<CircuitBreaker> circuitBreaker, Predicate<String> requestCanTripBreaker,
+                      Predicate<String> requestIsStreaming) {
         this.circuitBreaker = circuitBreaker;
         this.requestCanTripBreaker = requestCanTripBreaker;
+        this.requestIsStreaming = requestIsStreaming;
     }
 
     public void headerReceived(Header header) {
@@ -60,6 +73,9 @@ public class InboundAggregator implements Releasable {
         currentHeader = header;
         if (currentHeader.isRequest() && currentHeader.needsToReadVariableHeader() == false) {
             initializeRequestState();
+            // only requests whose action is known before their content arrives can be streamed to their handler
+            streaming = currentHeader.isHandshake() == false && isShortCircuited() == false
+                && requestIsStreaming.test(currentHeader.getActionName());
         }
     }
 
@@ -70,9 +86,20 @@ public class InboundAggregator implements Releasable {
         currentHeader.setCompressionScheme(compressionScheme);
     }
 
-    public void aggregate(ReleasableBytesReference content) {
+    /**
+     * Aggregates the given content into the current message. The content of a request to a streaming request handler is passed on as it
+     * arrives instead, and the message to dispatch to the handler is returned along with the first content of the request.
+     *
+     * @return the streaming message to dispatch, or {@code null} if there is nothing to dispatch before the end of the message
+     */
+    public InboundMessage aggregate(ReleasableBytesReference content) {
         ensureOpen();
         assert isAggregating();
+        if (isStreaming()) {
+            final InboundMessage streamingMessage = contentStream == null ? startStreaming() : null;
+            contentStream.addFragment(content);
+            return streamingMessage;
+        }
         if (isShortCircuited() == false) {
             if (isFirstContent()) {
                 firstContent = content.retain();
@@ -86,10 +113,42 @@ public class InboundAggregator implements Releasable {
                 contentAggregation.add(content.retain());
             }
         }
+        return null;
     }
 
+    /**
+     * Completes the current message.
+     *
+     * @return the aggregated message, or {@code null} if the message has been streamed to its handler
+     */
     public InboundMessage finishAggregation() throws IOException {
         ensureOpen();
+        if (isStreaming()) {
+            try {
+                final InboundMessage streamingMessage = contentStream == null ? startStreaming() : null;
+                contentStream.finish();
+                return streamingMessage;
+            } finally {
+                resetCurrentAggregation();
+            }
+        }
+        return finishAggregatedMessage();
+    }
+
+    private InboundMessage startStreaming() {
+        assert contentStream == null;
+        // the size of the message on the network bounds its content unless it is compressed
+        final long maxContentLength = currentHeader.isCompressed() ? -1 : currentHeader.getNetworkMessageSize();
+        contentStream = new InboundContentStream(circuitBreaker, currentHeader.getActionName(), canTripBreaker, maxContentLength);
+        return new InboundMessage(currentHeader, contentStream);
+    }
+
+    private boolean isStreaming() {
+        assert streaming == false || isShortCircuited() == false;
+        return streaming;
+    }
+
+    private InboundMessage finishAggregatedMessage() throws IOException {
         final ReleasableBytesReference releasableContent;
         if (isFirstContent()) {
             releasableContent = ReleasableBytesReference.empty();
@@ -154,6 +213,10 @@ public class InboundAggregator implements Releasable {
     }
 
     private void closeCurrentAggregation() {
+        if (contentStream != null) {
+            contentStream.fail(new TransportException("channel closed before the request [" + currentHeader.getActionName()
+                + "] was fully received"));
+        }
         releaseContent();
         resetCurrentAggregation();
     }
@@ -172,6 +235,8 @@ public class InboundAggregator implements Releasable {
         currentHeader = null;
         aggregationException = null;
         canTripBreaker = true;
+        streaming = false;
+        contentStream = null;
     }
 
     private void ensureOpen() {
@@ -0,0 +1,253 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.core.Releasables;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * The content of a request to a streaming request handler. The transport thread adds the fragments of the message as they arrive while
+ * the handler's executor reads them, waiting for more fragments whenever it gets ahead of the network. The bytes of each fragment are
+ * added to the in-flight requests circuit breaker when the fragment arrives and are released, together with the fragment, as soon as
+ * the fragment has been read.
+ */
+final class InboundContentStream extends StreamInput {
+
+    private final Supplier<CircuitBreaker> circuitBreaker;
+    private final String actionName;
+    private final boolean canTripBreaker;
+    private final long maxContentLength;
+
+    // guarded by this
+    private final ArrayDeque<ReleasableBytesReference> fragments = new ArrayDeque<>();
+    private long receivedBytes;
+    private long reservedBytes;
+    private boolean finished;
+    private boolean closed;
+    private ElasticsearchException failure;
+
+    // only accessed by the reading thread
+    private ReleasableBytesReference currentFragment;
+    private StreamInput currentStream;
+
+    /**
+     * @param maxContentLength an upper bound for the length of the content, e.g. the size of the message on the network if it is not
+     *                         compressed, or {@code -1} if the length of the content is not known before the end of the message
+     */
+    InboundContentStream(Supplier<CircuitBreaker> circuitBreaker, String actionName, boolean canTripBreaker, long maxContentLength) {
+        this.circuitBreaker = circuitBreaker;
+        this.actionName = actionName;
+        this.canTripBreaker = canTripBreaker;
+        this.maxContentLength = maxContentLength;
+    }
+
+    /**
+     * Adds the next fragment of the message. The fragment is dropped if the stream has been closed or failed already, and the stream
+     * fails with a {@link CircuitBreakingException} if the fragment does not fit into the in-flight requests circuit breaker.
+     */
+    synchronized void addFragment(ReleasableBytesReference fragment) {
+        assert finished == false : "fragment added after the end of the message";
+        if (closed || failure != null) {
+            return;
+        }
+        try {
+            if (canTripBreaker) {
+                circuitBreaker.get().addEstimateBytesAndMaybeBreak(fragment.length(), actionName);
+            } else {
+                circuitBreaker.get().addWithoutBreaking(fragment.length());
+            }
+        } catch (CircuitBreakingException e) {
+            fail(e);
+            return;
+        }
+        receivedBytes += fragment.length();
+        reservedBytes += fragment.length();
+        fragments.add(fragment.retain());
+        notifyAll();
+    }
+
+    /**
+     * Marks the end of the message, the stream returns end-of-file once all fragments have been read.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Fails the stream before the end of the message has arrived, reading from it throws the given exception from now on.
+     */
+    synchronized void fail(ElasticsearchException e) {
+        if (finished == false && failure == null) {
+            failure = e;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the stream over the fragment that is being read, waiting for the next fragment if this one has been read fully. Returns
+     * {@code null} at the end of the message.
+     */
+    private StreamInput currentStream() throws IOException {
+        while (currentStream == null || currentStream.available() == 0) {
+            releaseCurrentFragment();
+            synchronized (this) {
+                while (fragments.isEmpty() && finished == false && failure == null && closed == false) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("interrupted while waiting for the content of [" + actionName + "]");
+                    }
+                }
+                if (closed) {
+                    throw new IllegalStateException("stream for [" + actionName + "] is closed");
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                if (fragments.isEmpty()) {
+                    return null;
+                }
+                currentFragment = fragments.pollFirst();
+            }
+            currentStream = currentFragment.streamInput();
+        }
+        return currentStream;
+    }
+
+    private void releaseCurrentFragment() {
+        if (currentFragment != null) {
+            final int length = currentFragment.length();
+            currentFragment.close();
+            currentFragment = null;
+            currentStream = null;
+            synchronized (this) {
+                reservedBytes -= length;
+            }
+            circuitBreaker.get().addWithoutBreaking(-length);
+        }
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        final StreamInput stream = currentStream();
+        if (stream == null) {
+            throw new EOFException("tried to read past the end of the content of [" + actionName + "]");
+        }
+        return stream.readByte();
+    }
+
+    @Override
+    public void readBytes(byte[] b, int offset, int len) throws IOException {
+        while (len > 0) {
+            final StreamInput stream = currentStream();
+            if (stream == null) {
+                throw new EOFException("tried to read past the end of the content of [" + actionName + "]");
+            }
+            final int toRead = Math.min(len, stream.available());
+            stream.readBytes(b, offset, toRead);
+            offset += toRead;
+            len -= toRead;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final StreamInput stream = currentStream();
+        return stream == null ? -1 : stream.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        final StreamInput stream = currentStream();
+        return stream == null ? -1 : stream.read(b, off, Math.min(len, stream.available()));
+    }
+
+    /**
+     * Returns the number of bytes that have arrived but have not been read yet.
+     */
+    @Override
+    public synchronized int available() throws IOException {
+        return Math.toIntExact(unreadBytes());
+    }
+
+    // guarded by this
+    private long unreadBytes() throws IOException {
+        long unread = currentStream == null ? 0 : currentStream.available();
+        for (ReleasableBytesReference fragment : fragments) {
+            unread += fragment.length();
+        }
+        return unread;
+    }
+
+    /**
+     * Fails right away if the bytes would go past the end of the message and otherwise waits for them to arrive, so that arrays are
+     * only allocated for bytes that are accounted for in the circuit breaker already, like when reading an aggregated message.
+     */
+    @Override
+    protected void ensureCanReadBytes(int length) throws EOFException {
+        try {
+            synchronized (this) {
+                final long readBytes = receivedBytes - unreadBytes();
+                if (maxContentLength >= 0 && length > maxContentLength - readBytes) {
+                    throw new EOFException("tried to read [" + length + "] bytes but only [" + (maxContentLength - readBytes)
+                        + "] bytes remain in the content of [" + actionName + "]");
+                }
+                while (unreadBytes() < length && finished == false && failure == null && closed == false) {
+                    wait();
+                }
+                if (finished && unreadBytes() < length) {
+                    throw new EOFException("tried to read [" + length + "] bytes but only [" + unreadBytes()
+                        + "] bytes remain in the content of [" + actionName + "]");
+                }
+            }
+        } catch (InterruptedException e) {
+            // the next read fails with an InterruptedIOException
+            Thread.currentThread().interrupt();
+        } catch (EOFException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new AssertionError("the fragments of a message are in memory", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        releaseCurrentFragment();
+        final long toRelease;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Releasables.close(fragments);
+            fragments.clear();
+            toRelease = reservedBytes;
+            reservedBytes = 0;
+            notifyAll();
+        }
+        if (toRelease > 0) {
+            circuitBreaker.get().addWithoutBreaking(-toRelease);
+        }
+    }
+}
@@ -180,6 +180,10 @@ public class InboundHandler {
                 messageListener.onRequestReceived(requestId, action);
                 if (message.isShortCircuit()) {
                     sendErrorResponse(action, transportChannel, message.getException());
+                } else if (message.isStreaming()) {
+                    final RequestHandlerRegistry<T> reg = requestHandlers.getHandler(action);
+                    assert reg != null && reg.isStreaming();
+                    handleStreamingRequest(channel, requestId, reg, message.takeContentStream(), transportChannel);
                 } else {
                     final StreamInput stream = namedWriteableStream(message.openOrGetStreamInput());
                     assertRemoteVersion(stream, header.getVersion());
@@ -244,6 +248,60 @@ public class InboundHandler {
         }
     }
 
+    /**
+     * Reads the request on the handler's executor while its content is still arriving and then passes it to the handler.
+     */
+    private <T extends TransportRequest> void handleStreamingRequest(TcpChannel channel, long requestId, RequestHandlerRegistry<T> reg,
+                                                                     InboundContentStream contentStream,
+                                                                     TransportChannel transportChannel) {
+        assert ThreadPool.Names.SAME.equals(reg.getExecutor()) == false : "streaming requests must not be read on a transport thread";
+        boolean success = false;
+        try {
+            threadPool.executor(reg.getExecutor()).execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    final T request;
+                    try (StreamInput stream = namedWriteableStream(contentStream)) {
+                        request = reg.newRequest(stream);
+                        // waits for the rest of the message, which must not contain anything but the request
+                        final int nextByte = stream.read();
+                        if (nextByte != -1) {
+                            request.decRef();
+                            throw new IllegalStateException("Message not fully read (request) for requestId ["
+                                + requestId + "], action [" + reg.getAction() + "]; resetting");
+                        }
+                    }
+                    try {
+                        request.remoteAddress(new TransportAddress(channel.getRemoteAddress()));
+                        reg.processMessageReceived(request, transportChannel);
+                    } finally {
+                        request.decRef();
+                    }
+                }
+
+                @Override
+                public boolean isForceExecution() {
+                    return reg.isForceExecution();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    sendErrorResponse(reg.getAction(), transportChannel, e);
+                }
+
+                @Override
+                public void onAfter() {
+                    contentStream.close();
+                }
+            });
+            success = true;
+        } finally {
+            if (success == false) {
+                contentStream.close();
+            }
+        }
+    }
+
     private static void sendErrorResponse(String actionName, TransportChannel transportChannel, Exception e) {
         try {
             transportChannel.sendResponse(e);
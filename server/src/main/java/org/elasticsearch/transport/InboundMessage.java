@@ -25,6 +25,7 @@ public class InboundMessage implements Releasable {
     private final boolean isPing;
     private Releasable breakerRelease;
     private StreamInput streamInput;
+    private InboundContentStream contentStream;
 
     public InboundMessage(Header header, ReleasableBytesReference content, Releasable breakerRelease) {
         this.header = header;
@@ -34,6 +35,16 @@ public class InboundMessage implements Releasable {
         this.isPing = false;
     }
 
+    InboundMessage(Header header, InboundContentStream contentStream) {
+        this.header = header;
+        this.content = null;
+        this.breakerRelease = null;
+        this.exception = null;
+        this.isPing = false;
+        this.contentStream = contentStream;
+        contentStream.setVersion(header.getVersion());
+    }
+
     public InboundMessage(Header header, Exception exception) {
         this.header = header;
         this.content = null;
@@ -74,6 +85,23 @@ public class InboundMessage implements Releasable {
         return exception != null;
     }
 
+    /**
+     * Whether this is a request to a streaming request handler whose content is still arriving, see {@link #takeContentStream()}.
+     */
+    public boolean isStreaming() {
+        return contentStream != null;
+    }
+
+    /**
+     * Takes ownership of the content of a streaming request, the caller is responsible for closing the returned stream.
+     */
+    InboundContentStream takeContentStream() {
+        assert contentStream != null;
+        final InboundContentStream toReturn = contentStream;
+        contentStream = null;
+        return toReturn;
+    }
+
     public Releasable takeBreakerReleaseControl() {
         final Releasable toReturn = breakerRelease;
         breakerRelease = null;
@@ -81,7 +109,7 @@ public class InboundMessage implements Releasable {
     }
 
     public StreamInput openOrGetStreamInput() throws IOException {
-        assert isPing == false && content != null;
+        assert isPing == false && content != null : "no content to read from " + this;
         if (streamInput == null) {
             streamInput = content.streamInput();
             streamInput.setVersion(header.getVersion());
@@ -92,7 +120,7 @@ public class InboundMessage implements Releasable {
     @Override
     public void close() {
         try {
-            IOUtils.close(streamInput, content, breakerRelease);
+            IOUtils.close(streamInput, content, contentStream, breakerRelease);
         } catch (Exception e) {
             assert false : e;
             throw new ElasticsearchException(e);
@@ -129,12 +129,19 @@ public class InboundPipeline implements Releasable {
                 assert aggregator.isAggregating();
                 try (InboundMessage aggregated = aggregator.finishAggregation()) {
                     statsTracker.markMessageReceived();
-                    messageHandler.accept(channel, aggregated);
+                    // null if the request was streamed to its handler along with its first content already
+                    if (aggregated != null) {
+                        messageHandler.accept(channel, aggregated);
+                    }
                 }
             } else {
                 assert aggregator.isAggregating();
                 assert fragment instanceof ReleasableBytesReference;
-                aggregator.aggregate((ReleasableBytesReference) fragment);
+                try (InboundMessage streaming = aggregator.aggregate((ReleasableBytesReference) fragment)) {
+                    if (streaming != null) {
+                        messageHandler.accept(channel, streaming);
+                    }
+                }
             }
         }
     }
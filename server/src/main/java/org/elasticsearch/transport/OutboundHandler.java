@@ -121,7 +121,13 @@ final class OutboundHandler {
 
     private void sendMessage(TcpChannel channel, OutboundMessage networkMessage, ActionListener<Void> listener) throws IOException {
         final BytesStreamOutput bytesStreamOutput = new ReleasableBytesStreamOutput(bigArrays);
-        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, bytesStreamOutput::close);
+        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, () -> {
+            try {
+                bytesStreamOutput.close();
+            } finally {
+                networkMessage.releaseTrailingBytes();
+            }
+        });
         final BytesReference message;
         try {
             message = networkMessage.serialize(bytesStreamOutput);
@@ -12,7 +12,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
@@ -25,6 +25,8 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     protected final Writeable message;
+    /** a reference to the trailing bytes of the message that is held until the message was sent, see {@link #releaseTrailingBytes} */
+    private ReleasableBytesReference retainedTrailingBytes;
 
     OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Compression.Scheme compressionScheme,
                     Writeable message) {
@@ -58,6 +60,8 @@ abstract class OutboundMessage extends NetworkMessage {
                 BytesTransportRequest bRequest = (BytesTransportRequest) message;
                 bRequest.writeThin(stream);
                 zeroCopyBuffer = bRequest.bytes;
+            } else if (message instanceof ZeroCopyWriteable && compress == false) {
+                zeroCopyBuffer = ((ZeroCopyWriteable) message).writeWithoutTrailingBytes(stream);
             } else if (message instanceof RemoteTransportException) {
                 stream.writeException((RemoteTransportException) message);
                 zeroCopyBuffer = BytesArray.EMPTY;
@@ -76,6 +80,10 @@ abstract class OutboundMessage extends NetworkMessage {
         if (zeroCopyBuffer.length() == 0) {
             reference = message;
         } else {
+            if (zeroCopyBuffer instanceof ReleasableBytesReference) {
+                // the channel holds on to the bytes until they are written, which may be after the sender released them
+                retainedTrailingBytes = ((ReleasableBytesReference) zeroCopyBuffer).retain();
+            }
             reference = CompositeBytesReference.of(message, zeroCopyBuffer);
         }
 
@@ -85,11 +93,22 @@ abstract class OutboundMessage extends NetworkMessage {
         return reference;
     }
 
+    /**
+     * Releases the reference to the trailing bytes that was acquired when the message was serialized, must be called once the
+     * serialized message was written to the channel or failed to be written.
+     */
+    void releaseTrailingBytes() {
+        if (retainedTrailingBytes != null) {
+            retainedTrailingBytes.decRef();
+            retainedTrailingBytes = null;
+        }
+    }
+
     // compressed stream wrapped bytes must be no-close wrapped since we need to close the compressed wrapper below to release
     // resources and write EOS marker bytes but must not yet release the bytes themselves
     private StreamOutput wrapCompressed(BytesStreamOutput bytesStream) throws IOException {
         if (compressionScheme == Compression.Scheme.DEFLATE) {
-            return new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.noCloseStream(bytesStream)));
+            return new OutputStreamStreamOutput(Compression.Scheme.deflateOutputStream(Streams.noCloseStream(bytesStream)));
         } else if (compressionScheme == Compression.Scheme.LZ4) {
             return new OutputStreamStreamOutput(Compression.Scheme.lz4OutputStream(Streams.noCloseStream(bytesStream)));
         } else {
@@ -27,10 +27,17 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
     private final String executor;
     private final TaskManager taskManager;
     private final Writeable.Reader<Request> requestReader;
+    private final boolean streaming;
 
     public RequestHandlerRegistry(String action, Writeable.Reader<Request> requestReader, TaskManager taskManager,
                                   TransportRequestHandler<Request> handler, String executor, boolean forceExecution,
                                   boolean canTripCircuitBreaker) {
+        this(action, requestReader, taskManager, handler, executor, forceExecution, canTripCircuitBreaker, false);
+    }
+
+    public RequestHandlerRegistry(String action, Writeable.Reader<Request> requestReader, TaskManager taskManager,
+                                  TransportRequestHandler<Request> handler, String executor, boolean forceExecution,
+                                  boolean canTripCircuitBreaker, boolean streaming) {
         this.action = action;
         this.requestReader = requestReader;
         this.handler = handler;
@@ -38,6 +45,7 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
         this.canTripCircuitBreaker = canTripCircuitBreaker;
         this.executor = executor;
         this.taskManager = taskManager;
+        this.streaming = streaming;
     }
 
     public String getAction() {
@@ -77,6 +85,13 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
         return executor;
     }
 
+    /**
+     * Whether requests are read on the executor while their content arrives rather than once they have been received completely.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     public TransportRequestHandler<Request> getHandler() {
         return handler;
     }
@@ -89,6 +104,6 @@ public class RequestHandlerRegistry<Request extends TransportRequest> {
     public static <R extends TransportRequest> RequestHandlerRegistry<R> replaceHandler(RequestHandlerRegistry<R> registry,
                                                                                         TransportRequestHandler<R> handler) {
         return new RequestHandlerRegistry<>(registry.action, registry.requestReader, registry.taskManager, handler,
-            registry.executor, registry.forceExecution, registry.canTripCircuitBreaker);
+            registry.executor, registry.forceExecution, registry.canTripCircuitBreaker, registry.streaming);
     }
 }
@@ -10,6 +10,7 @@ package org.elasticsearch.transport;
 
 import org.elasticsearch.common.metrics.MeanMetric;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 public class StatsTracker {
@@ -17,6 +18,12 @@ public class StatsTracker {
     private final LongAdder bytesRead = new LongAdder();
     private final LongAdder messagesReceived = new LongAdder();
     private final MeanMetric writeBytesMetric = new MeanMetric();
+    private final LongAdder bytesCopiedOnRead = new LongAdder();
+    private final LongAdder bytesCopiedOnWrite = new LongAdder();
+    // gauges rather than counters, they must never read negative because they are serialized as vlongs
+    private final AtomicLong writesQueued = new AtomicLong();
+    private final AtomicLong bytesQueued = new AtomicLong();
+    private final LongAdder writesPrioritized = new LongAdder();
 
     public void markBytesRead(long bytesReceived) {
         bytesRead.add(bytesReceived);
@@ -30,6 +37,28 @@ public class StatsTracker {
         writeBytesMetric.inc(bytesWritten);
     }
 
+    public void markBytesCopiedOnRead(long bytesCopied) {
+        bytesCopiedOnRead.add(bytesCopied);
+    }
+
+    public void markBytesCopiedOnWrite(long bytesCopied) {
+        bytesCopiedOnWrite.add(bytesCopied);
+    }
+
+    public void markWriteQueued(long bytes) {
+        writesQueued.incrementAndGet();
+        bytesQueued.addAndGet(bytes);
+    }
+
+    public void markWriteDequeued(long bytes) {
+        writesQueued.decrementAndGet();
+        bytesQueued.addAndGet(-bytes);
+    }
+
+    public void markWritePrioritized() {
+        writesPrioritized.increment();
+    }
+
     public long getBytesRead() {
         return bytesRead.sum();
     }
@@ -45,4 +74,24 @@ public class StatsTracker {
     public long getMessagesSent() {
         return writeBytesMetric.count();
     }
+
+    public long getBytesCopiedOnRead() {
+        return bytesCopiedOnRead.sum();
+    }
+
+    public long getBytesCopiedOnWrite() {
+        return bytesCopiedOnWrite.sum();
+    }
+
+    public long getWritesQueued() {
+        return writesQueued.get();
+    }
+
+    public long getBytesQueued() {
+        return bytesQueued.get();
+    }
+
+    public long getWritesPrioritized() {
+        return writesPrioritized.sum();
+    }
 }
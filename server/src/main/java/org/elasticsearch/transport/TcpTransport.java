@@ -838,7 +838,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         final long messagesReceived = statsTracker.getMessagesReceived();
         final long bytesRead = statsTracker.getBytesRead();
         return new TransportStats(acceptedChannels.size(), outboundConnectionCount.get(),
-                messagesReceived, bytesRead, messagesSent, bytesWritten);
+                messagesReceived, bytesRead, messagesSent, bytesWritten,
+                statsTracker.getBytesCopiedOnRead(), statsTracker.getBytesCopiedOnWrite(), statsTracker.getWritesQueued(),
+                statsTracker.getBytesQueued(), statsTracker.getWritesPrioritized());
     }
 
     /**
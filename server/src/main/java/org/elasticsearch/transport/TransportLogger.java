@@ -126,7 +126,8 @@ public final class TransportLogger {
             Header header = message.getHeader();
             int networkMessageSize = header.getNetworkMessageSize();
             int messageLengthWithHeader = HEADER_SIZE + networkMessageSize;
-            StreamInput streamInput = message.openOrGetStreamInput();
+            // the content of a streaming request is read by its handler while it arrives
+            StreamInput streamInput = message.isStreaming() ? null : message.openOrGetStreamInput();
             try {
                 final long requestId = header.getRequestId();
                 final boolean isRequest = header.isRequest();
@@ -942,6 +942,34 @@ public class TransportService extends AbstractLifecycleComponent
         transport.registerRequestHandler(reg);
     }
 
+    /**
+     * Registers a new streaming request handler. Its requests are read on the executor while their content is still arriving, so that
+     * large requests are deserialized as they arrive and each part of a request only occupies memory, and the in-flight requests
+     * circuit breaker, until it has been read. Such requests are not read zero-copy, so request readers that retain slices of the input
+     * copy them instead.
+     * <p>
+     * Reading a request blocks a thread of the executor for as long as it takes the request to arrive, which depends on the network and
+     * on the sender rather than on this node. The executor must therefore not be shared with latency-critical work, and each concurrent
+     * request occupies one of its threads, so it should be a bounded executor dedicated to requests that are worth streaming.
+     *
+     * @param action         The action the request handler is associated with
+     * @param executor       The executor the request is read and handled on, which must not be {@link ThreadPool.Names#SAME}
+     * @param requestReader  a callable to be used construct new instances for streaming
+     * @param handler        The handler itself that implements the request handling
+     */
+    public <Request extends TransportRequest> void registerStreamingRequestHandler(String action, String executor,
+                                                                                   Writeable.Reader<Request> requestReader,
+                                                                                   TransportRequestHandler<Request> handler) {
+        validateActionName(action);
+        if (ThreadPool.Names.SAME.equals(executor)) {
+            throw new IllegalArgumentException("streaming request handler for [" + action + "] must not run on the transport thread");
+        }
+        handler = interceptor.interceptHandler(action, executor, false, handler);
+        RequestHandlerRegistry<Request> reg = new RequestHandlerRegistry<>(
+            action, requestReader, taskManager, handler, executor, false, true, true);
+        transport.registerRequestHandler(reg);
+    }
+
     /**
      * called by the {@link Transport} implementation when an incoming request arrives but before
      * any parsing of it has happened (with the exception of the requestId and action)
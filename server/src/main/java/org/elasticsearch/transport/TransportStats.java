@@ -8,6 +8,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -25,14 +26,25 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
-
-    public TransportStats(long serverOpen, long totalOutboundConnections, long rxCount, long rxSize, long txCount, long txSize) {
+    private final long rxCopiedSize;
+    private final long txCopiedSize;
+    private final long txQueuedCount;
+    private final long txQueuedSize;
+    private final long txPrioritizedCount;
+
+    public TransportStats(long serverOpen, long totalOutboundConnections, long rxCount, long rxSize, long txCount, long txSize,
+                          long rxCopiedSize, long txCopiedSize, long txQueuedCount, long txQueuedSize, long txPrioritizedCount) {
         this.serverOpen = serverOpen;
         this.totalOutboundConnections = totalOutboundConnections;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.rxCopiedSize = rxCopiedSize;
+        this.txCopiedSize = txCopiedSize;
+        this.txQueuedCount = txQueuedCount;
+        this.txQueuedSize = txQueuedSize;
+        this.txPrioritizedCount = txPrioritizedCount;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -42,6 +54,19 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            rxCopiedSize = in.readVLong();
+            txCopiedSize = in.readVLong();
+            txQueuedCount = in.readVLong();
+            txQueuedSize = in.readVLong();
+            txPrioritizedCount = in.readVLong();
+        } else {
+            rxCopiedSize = 0;
+            txCopiedSize = 0;
+            txQueuedCount = 0;
+            txQueuedSize = 0;
+            txPrioritizedCount = 0;
+        }
     }
 
     @Override
@@ -52,6 +77,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(rxCopiedSize);
+            out.writeVLong(txCopiedSize);
+            out.writeVLong(txQueuedCount);
+            out.writeVLong(txQueuedSize);
+            out.writeVLong(txPrioritizedCount);
+        }
     }
 
     public long serverOpen() {
@@ -94,6 +126,41 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * The number of received bytes that were copied from an intermediate buffer, i.e. that were not read straight into direct memory.
+     */
+    public ByteSizeValue getRxCopiedSize() {
+        return new ByteSizeValue(rxCopiedSize);
+    }
+
+    /**
+     * The number of sent bytes that were copied to an intermediate buffer, i.e. that were not written straight from direct memory.
+     */
+    public ByteSizeValue getTxCopiedSize() {
+        return new ByteSizeValue(txCopiedSize);
+    }
+
+    /**
+     * The number of outbound messages that are waiting for the messages ahead of them on their channels to be written.
+     */
+    public long getTxQueuedCount() {
+        return txQueuedCount;
+    }
+
+    /**
+     * The size of the outbound messages that are waiting for the messages ahead of them on their channels to be written.
+     */
+    public ByteSizeValue getTxQueuedSize() {
+        return new ByteSizeValue(txQueuedSize);
+    }
+
+    /**
+     * The number of small outbound messages that were written ahead of a large message that was queued before them.
+     */
+    public long getTxPrioritizedCount() {
+        return txPrioritizedCount;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -103,6 +170,11 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        builder.humanReadableField(Fields.RX_COPIED_SIZE_IN_BYTES, Fields.RX_COPIED_SIZE, new ByteSizeValue(rxCopiedSize));
+        builder.humanReadableField(Fields.TX_COPIED_SIZE_IN_BYTES, Fields.TX_COPIED_SIZE, new ByteSizeValue(txCopiedSize));
+        builder.field(Fields.TX_QUEUED_COUNT, txQueuedCount);
+        builder.humanReadableField(Fields.TX_QUEUED_SIZE_IN_BYTES, Fields.TX_QUEUED_SIZE, new ByteSizeValue(txQueuedSize));
+        builder.field(Fields.TX_PRIORITIZED_COUNT, txPrioritizedCount);
         builder.endObject();
         return builder;
     }
@@ -117,5 +189,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String RX_COPIED_SIZE = "rx_copied_size";
+        static final String RX_COPIED_SIZE_IN_BYTES = "rx_copied_size_in_bytes";
+        static final String TX_COPIED_SIZE = "tx_copied_size";
+        static final String TX_COPIED_SIZE_IN_BYTES = "tx_copied_size_in_bytes";
+        static final String TX_QUEUED_COUNT = "tx_queued_count";
+        static final String TX_QUEUED_SIZE = "tx_queued_size";
+        static final String TX_QUEUED_SIZE_IN_BYTES = "tx_queued_size_in_bytes";
+        static final String TX_PRIORITIZED_COUNT = "tx_prioritized_count";
     }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+
+/**
+ * A message that ends with a large block of bytes, such as a chunk of a file. Unless the message is compressed, the network layer
+ * sends these bytes as they are right after the rest of the message instead of copying them into the serialized message. If the
+ * bytes are a {@link org.elasticsearch.common.bytes.ReleasableBytesReference} the network layer holds a reference to them until the
+ * message was written to the channel.
+ */
+public interface ZeroCopyWriteable extends Writeable {
+
+    /**
+     * Writes this message up to and including the length of its trailing bytes and returns these bytes, which must be sent right after
+     * what was written. Returns an empty reference if the whole message was written instead, for instance because the bytes are not
+     * at the end of the message in the wire format of the stream's version.
+     */
+    BytesReference writeWithoutTrailingBytes(StreamOutput out) throws IOException;
+}
@@ -20,6 +20,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.stats.IndexingBufferStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -218,6 +219,12 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getRxCopiedSize(), deserializedNodeStats.getTransport().getRxCopiedSize());
+                    assertEquals(nodeStats.getTransport().getTxCopiedSize(), deserializedNodeStats.getTransport().getTxCopiedSize());
+                    assertEquals(nodeStats.getTransport().getTxQueuedCount(), deserializedNodeStats.getTransport().getTxQueuedCount());
+                    assertEquals(nodeStats.getTransport().getTxQueuedSize(), deserializedNodeStats.getTransport().getTxQueuedSize());
+                    assertEquals(nodeStats.getTransport().getTxPrioritizedCount(),
+                        deserializedNodeStats.getTransport().getTxPrioritizedCount());
                 }
                 if (nodeStats.getHttp() == null) {
                     assertNull(deserializedNodeStats.getHttp());
@@ -447,6 +454,19 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(limited, sum.getCompilationLimitTriggered());
                     assertEquals(compilations, sum.getCompilations());
                 }
+                IndexingBufferStats indexingBufferStats = nodeStats.getIndexingBufferStats();
+                IndexingBufferStats deserializedIndexingBufferStats = deserializedNodeStats.getIndexingBufferStats();
+                if (indexingBufferStats == null) {
+                    assertNull(deserializedIndexingBufferStats);
+                } else {
+                    assertEquals(indexingBufferStats.isAdaptive(), deserializedIndexingBufferStats.isAdaptive());
+                    assertEquals(indexingBufferStats.getLimitInBytes(), deserializedIndexingBufferStats.getLimitInBytes());
+                    assertEquals(indexingBufferStats.getUsedInBytes(), deserializedIndexingBufferStats.getUsedInBytes());
+                    assertEquals(indexingBufferStats.getWritingInBytes(), deserializedIndexingBufferStats.getWritingInBytes());
+                    assertEquals(indexingBufferStats.getBufferWrites(), deserializedIndexingBufferStats.getBufferWrites());
+                    assertEquals(indexingBufferStats.getThrottleActivations(), deserializedIndexingBufferStats.getThrottleActivations());
+                    assertEquals(indexingBufferStats.getThrottledShards(), deserializedIndexingBufferStats.getThrottledShards());
+                }
             }
         }
     }
@@ -551,7 +571,9 @@ public class NodeStatsTests extends ESTestCase {
             fsInfo = new FsInfo(randomNonNegativeLong(), ioStats, paths);
         }
         TransportStats transportStats = frequently() ? new TransportStats(randomNonNegativeLong(), randomNonNegativeLong(),
-                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()) : null;
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong()) : null;
         HttpStats httpStats = null;
         if (frequently()) {
             int numClients = randomIntBetween(0, 50);
@@ -718,10 +740,13 @@ public class NodeStatsTests extends ESTestCase {
             adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
         }
         ScriptCacheStats scriptCacheStats = scriptStats != null ? scriptStats.toScriptCacheStats() : null;
+        IndexingBufferStats indexingBufferStats = frequently() ? new IndexingBufferStats(randomBoolean(), randomNonNegativeLong(),
+            randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomIntBetween(0, 100)) : null;
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats,
                 fsInfo, transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats,
-                ingestStats, adaptiveSelectionStats, scriptCacheStats, null);
+                ingestStats, adaptiveSelectionStats, scriptCacheStats, null, indexingBufferStats);
     }
 
     private static ScriptContextStats.TimeSeries randomTimeSeries() {
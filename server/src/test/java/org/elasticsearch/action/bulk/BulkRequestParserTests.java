@@ -164,4 +164,47 @@ public class BulkRequestParserTests extends ESTestCase {
         assertSame(first.getPipeline(), second.getPipeline());
         assertSame(first.routing(), second.routing());
     }
+
+    public void testIncrementalParse() throws IOException {
+        StringBuilder body = new StringBuilder();
+        List<String> expectedIds = new ArrayList<>();
+        int items = randomIntBetween(1, 50);
+        for (int i = 0; i < items; i++) {
+            String id = Integer.toString(i);
+            expectedIds.add(id);
+            if (randomBoolean()) {
+                body.append("{ \"delete\":{ \"_id\": \"").append(id).append("\" } }\n");
+            } else {
+                body.append("{ \"index\":{ \"_id\": \"").append(id).append("\" } }\n{ \"field\": \"")
+                    .append(randomAlphaOfLength(between(0, 20))).append("\" }\n");
+            }
+        }
+        BytesArray data = new BytesArray(body.toString());
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        List<String> ids = new ArrayList<>();
+        int from = 0;
+        int to = 0;
+        while (to < data.length()) {
+            to = Math.min(data.length(), to + between(1, 40));
+            int consumed = parser.incrementalParse(data.slice(from, to - from), "foo", null, null, null, null, false,
+                XContentType.JSON, to == data.length(),
+                (indexRequest, type) -> ids.add(indexRequest.id()), req -> fail(), deleteRequest -> ids.add(deleteRequest.id()));
+            from += consumed;
+            // only complete items are consumed
+            assertTrue(from == 0 || data.get(from - 1) == '\n');
+        }
+        assertEquals(data.length(), from);
+        assertEquals(expectedIds, ids);
+    }
+
+    public void testIncrementalParseRequiresTrailingNewlineForLastData() throws IOException {
+        BytesArray request = new BytesArray("{ \"index\":{ \"_id\": \"bar\" } }\n{}");
+        BulkRequestParser parser = new BulkRequestParser(randomBoolean(), RestApiVersion.current());
+        assertEquals(0, parser.incrementalParse(request, "foo", null, null, null, null, false, XContentType.JSON, false,
+            (req, type) -> fail(), req -> fail(), req -> fail()));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.incrementalParse(request, "foo", null, null, null, null, false, XContentType.JSON, true,
+                (req, type) -> fail(), req -> fail(), req -> fail()));
+        assertEquals("The bulk request must be terminated by a newline [\\n]", e.getMessage());
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.core.RestApiVersion;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.client.NoOpNodeClient;
+import org.elasticsearch.xcontent.XContentType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ChunkedBulkRequestTests extends ESTestCase {
+
+    public void testExecutesBatchesAndMergesResponses() {
+        int items = randomIntBetween(1, 200);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            body.append("{ \"index\":{ \"_id\": \"").append(i).append("\" } }\n{ \"field\": \"")
+                .append(randomAlphaOfLength(between(0, 100))).append("\" }\n");
+        }
+        BytesArray data = new BytesArray(body.toString());
+        long batchSize = randomLongBetween(1, 2000);
+        List<Tuple<BulkRequest, ActionListener<BulkResponse>>> inFlight = new CopyOnWriteArrayList<>();
+        List<BulkRequest> batches = new ArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+                inFlight.add(Tuple.tuple(request, listener));
+            }
+        }) {
+            PlainActionFuture<BulkResponse> future = PlainActionFuture.newFuture();
+            ChunkedBulkRequest request = newRequest(client, batchSize, future);
+            int from = 0;
+            while (from < data.length()) {
+                int length = Math.min(between(1, 100), data.length() - from);
+                request.addChunk(data.slice(from, length), from + length == data.length());
+                from += length;
+                assertThat(inFlight.size(), lessThanOrEqualTo(ChunkedBulkRequest.MAX_IN_FLIGHT_BATCHES));
+            }
+            while (inFlight.isEmpty() == false) {
+                assertFalse(future.isDone());
+                Tuple<BulkRequest, ActionListener<BulkResponse>> batch = inFlight.remove(between(0, inFlight.size() - 1));
+                batch.v2().onResponse(successResponse(batch.v1()));
+                assertThat(inFlight.size(), lessThanOrEqualTo(ChunkedBulkRequest.MAX_IN_FLIGHT_BATCHES));
+            }
+
+            BulkItemResponse[] responses = future.actionGet().getItems();
+            assertThat(responses.length, equalTo(items));
+            for (int i = 0; i < items; i++) {
+                assertThat(responses[i].getItemId(), equalTo(i));
+                assertThat(responses[i].getId(), equalTo(Integer.toString(i)));
+            }
+            for (int i = 0; i < batches.size() - 1; i++) {
+                assertThat(batches.get(i).estimatedSizeInBytes(), greaterThanOrEqualTo(batchSize));
+            }
+        }
+    }
+
+    public void testRetriesRejectedBatch() throws Exception {
+        List<Tuple<BulkRequest, ActionListener<BulkResponse>>> calls = new CopyOnWriteArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                calls.add(Tuple.tuple(request, listener));
+            }
+        }) {
+            PlainActionFuture<BulkResponse> future = PlainActionFuture.newFuture();
+            ChunkedBulkRequest request = newRequest(client, 1, future);
+            request.addChunk(new BytesArray("{ \"index\":{ \"_id\": \"1\" } }\n{}\n"), true);
+            assertThat(calls.size(), equalTo(1));
+            calls.get(0).v2().onFailure(new EsRejectedExecutionException("rejected"));
+            assertBusy(() -> assertThat(calls.size(), equalTo(2)));
+            assertSame(calls.get(0).v1(), calls.get(1).v1());
+            calls.get(1).v2().onResponse(successResponse(calls.get(1).v1()));
+            BulkResponse response = future.actionGet();
+            assertFalse(response.hasFailures());
+            assertThat(response.getItems().length, equalTo(1));
+        }
+    }
+
+    public void testFailsOnMalformedBodyOnceBatchesComplete() {
+        List<Tuple<BulkRequest, ActionListener<BulkResponse>>> calls = new CopyOnWriteArrayList<>();
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                calls.add(Tuple.tuple(request, listener));
+            }
+        }) {
+            PlainActionFuture<BulkResponse> future = PlainActionFuture.newFuture();
+            ChunkedBulkRequest request = newRequest(client, 1, future);
+            request.addChunk(new BytesArray("{ \"index\":{ \"_id\": \"1\" } }\n{}\n"), false);
+            request.addChunk(new BytesArray("{ \"index\":{ \"_id\": \"2\" } }\n{}"), true);
+            assertThat(calls.size(), equalTo(1));
+            assertFalse(future.isDone());
+            calls.get(0).v2().onResponse(successResponse(calls.get(0).v1()));
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, future::actionGet);
+            assertThat(e.getMessage(), containsString("must be terminated by a newline"));
+        }
+    }
+
+    public void testFailsOnEmptyBody() {
+        try (NodeClient client = new NoOpNodeClient(getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                fail("nothing to send");
+            }
+        }) {
+            PlainActionFuture<BulkResponse> future = PlainActionFuture.newFuture();
+            newRequest(client, randomLongBetween(1, 1000), future).addChunk(BytesArray.EMPTY, true);
+            Exception e = expectThrows(Exception.class, future::actionGet);
+            assertThat(e.getMessage(), containsString("no requests added"));
+        }
+    }
+
+    private static ChunkedBulkRequest newRequest(NodeClient client, long batchSize, ActionListener<BulkResponse> listener) {
+        return new ChunkedBulkRequest(client, BulkRequest::new, batchSize,
+            BackoffPolicy.constantBackoff(TimeValue.timeValueMillis(1), 3), "index", null, null, null, null, true,
+            XContentType.JSON, RestApiVersion.current(), listener);
+    }
+
+    private static BulkResponse successResponse(BulkRequest request) {
+        List<BulkItemResponse> items = new ArrayList<>();
+        for (int i = 0; i < request.requests().size(); i++) {
+            DocWriteRequest<?> docWriteRequest = request.requests().get(i);
+            items.add(BulkItemResponse.success(i, docWriteRequest.opType(),
+                new IndexResponse(new ShardId(docWriteRequest.index(), "_na_", 0), docWriteRequest.id(), i, 1, 1, true)));
+        }
+        Collections.shuffle(items, random());
+        return new BulkResponse(items.toArray(new BulkItemResponse[0]), 1);
+    }
+}
@@ -54,6 +54,8 @@ import java.util.Collections;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -69,6 +71,7 @@ import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -223,6 +226,114 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         latch.await();
     }
 
+    public void testParseAheadLargeBulkIndexRequest() throws Exception {
+        IndexShard shard = newStartedShard(true, Settings.builder()
+            .put(IndexSettings.INDEX_BULK_PARSE_AHEAD_THREADS_SETTING.getKey(), between(1, 4))
+            .build());
+        BulkShardRequest bulkShardRequest = newLargeBulkIndexRequest();
+        final int numItems = bulkShardRequest.items().length;
+
+        // helpers run on the calling thread, so every item after the first one is parsed ahead before it's applied
+        final BulkItemParser parser = BulkItemParser.start(bulkShardRequest, shard, Runnable::run);
+        assertNotNull(parser);
+        BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(bulkShardRequest, shard, parser);
+        while (context.hasMoreOperationsToExecute()) {
+            assertTrue(TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
+                new NoopMappingUpdatePerformer(), listener -> fail("should not wait for a mapping update"), ASSERTING_DONE_LISTENER));
+        }
+        assertThat(parser.takenDocuments(), equalTo(numItems - 1));
+
+        BulkItemResponse[] responses = context.buildShardResponse().getResponses();
+        assertThat(responses, arrayWithSize(numItems));
+        for (int i = 0; i < numItems; i++) {
+            assertFalse(responses[i].isFailed());
+            assertThat(responses[i].getId(), equalTo("id_" + i));
+            // the documents are still indexed in order
+            assertThat(responses[i].getResponse().getSeqNo(), equalTo((long) i));
+        }
+        assertDocCount(shard, numItems);
+        closeShards(shard);
+    }
+
+    public void testParseAheadLargeBulkIndexRequestOnWriteThreads() throws Exception {
+        IndexShard shard = newStartedShard(true, Settings.builder()
+            .put(IndexSettings.INDEX_BULK_PARSE_AHEAD_THREADS_SETTING.getKey(), between(1, 4))
+            .build());
+        BulkShardRequest bulkShardRequest = newLargeBulkIndexRequest();
+        final int numItems = bulkShardRequest.items().length;
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest, shard, null, threadPool::absoluteTimeInMillis, new NoopMappingUpdatePerformer(),
+            listener -> {}, ActionListener.runAfter(
+                ActionTestUtils.assertNoFailureListener(result -> {
+                    assertThat(result.finalResponseIfSuccessful.getResponses(), arrayWithSize(numItems));
+                    for (int i = 0; i < numItems; i++) {
+                        BulkItemResponse response = result.finalResponseIfSuccessful.getResponses()[i];
+                        assertFalse(response.isFailed());
+                        assertThat(response.getId(), equalTo("id_" + i));
+                        // the documents are still indexed in order while the helpers parse the next ones
+                        assertThat(response.getResponse().getSeqNo(), equalTo((long) i));
+                    }
+                }), latch::countDown), threadPool, Names.WRITE);
+
+        latch.await();
+        assertDocCount(shard, numItems);
+        closeShards(shard);
+    }
+
+    public void testParseAheadOnlyForksOnIdleThreads() throws Exception {
+        final ThreadPoolExecutor busyExecutor = mock(ThreadPoolExecutor.class);
+        final int poolSize = between(1, 8);
+        when(busyExecutor.getMaximumPoolSize()).thenReturn(poolSize);
+        when(busyExecutor.getActiveCount()).thenReturn(poolSize);
+        assertParsesEverythingOnTheApplyingThread(busyExecutor);
+        verify(busyExecutor, never()).execute(any());
+
+        final AtomicInteger rejections = new AtomicInteger();
+        assertParsesEverythingOnTheApplyingThread(command -> {
+            rejections.incrementAndGet();
+            throw new EsRejectedExecutionException("rejected", true);
+        });
+        // the helper isn't forked again once it was rejected
+        assertThat(rejections.get(), equalTo(1));
+    }
+
+    private void assertParsesEverythingOnTheApplyingThread(Executor executor) throws Exception {
+        IndexShard shard = newStartedShard(true, Settings.builder()
+            .put(IndexSettings.INDEX_BULK_PARSE_AHEAD_THREADS_SETTING.getKey(), between(1, 4))
+            .build());
+        BulkShardRequest bulkShardRequest = newLargeBulkIndexRequest();
+        final int numItems = bulkShardRequest.items().length;
+
+        final BulkItemParser parser = BulkItemParser.start(bulkShardRequest, shard, executor);
+        assertNotNull(parser);
+        BulkPrimaryExecutionContext context = new BulkPrimaryExecutionContext(bulkShardRequest, shard, parser);
+        while (context.hasMoreOperationsToExecute()) {
+            assertTrue(TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
+                new NoopMappingUpdatePerformer(), listener -> fail("should not wait for a mapping update"), ASSERTING_DONE_LISTENER));
+        }
+        assertThat(parser.takenDocuments(), equalTo(0));
+        BulkItemResponse[] responses = context.buildShardResponse().getResponses();
+        assertThat(responses, arrayWithSize(numItems));
+        for (BulkItemResponse response : responses) {
+            assertFalse(response.isFailed());
+        }
+        assertDocCount(shard, numItems);
+        closeShards(shard);
+    }
+
+    private BulkShardRequest newLargeBulkIndexRequest() {
+        BulkItemRequest[] items = new BulkItemRequest[between(BulkItemParser.MIN_ITEMS, BulkItemParser.MAX_PARSED_AHEAD * 3)];
+        for (int i = 0; i < items.length; i++) {
+            DocWriteRequest<IndexRequest> writeRequest = new IndexRequest("index").id("id_" + i)
+                .source(Requests.INDEX_CONTENT_TYPE)
+                .opType(randomFrom(DocWriteRequest.OpType.INDEX, DocWriteRequest.OpType.CREATE));
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        return new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+    }
+
     public void testExecuteBulkIndexRequestWithMappingUpdates() throws Exception {
 
         BulkItemRequest[] items = new BulkItemRequest[1];
@@ -239,7 +350,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(mappingUpdate);
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
 
@@ -261,9 +372,9 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
         // Verify that the shard "executed" the operation once
-        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(1)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any());
 
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(success);
 
         TransportShardBulkAction.executeBulkItemRequest(context, null, threadPool::absoluteTimeInMillis,
@@ -273,7 +384,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         // Verify that the shard "executed" the operation only once (1 for previous invocations plus
         // 1 for this execution)
-        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+        verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any());
 
 
         BulkItemResponse primaryResponse = bulkShardRequest.items()[0].getPrimaryResponse();
@@ -480,7 +591,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Exception err = new ElasticsearchException("I'm dead <(x.x)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
 
@@ -529,7 +640,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
             "I'm conflicted <(;_;)>");
         Engine.IndexResult indexResult = new Engine.IndexResult(err, 0, 0, 0);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
 
@@ -575,7 +686,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Translog.Location resultLocation = new Translog.Location(42, 42, 42);
         Engine.IndexResult indexResult = new FakeIndexResult(1, 1, 13, created, resultLocation);
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
             .thenReturn(indexResult);
         when(shard.indexSettings()).thenReturn(indexSettings);
         when(shard.shardId()).thenReturn(shardId);
@@ -767,16 +878,17 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         Engine.IndexResult success = new FakeIndexResult(1, 1, 13, true, resultLocation);
 
         IndexShard shard = mock(IndexShard.class);
-        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenAnswer(ir -> {
-            if (randomBoolean()) {
-                return conflictedResult;
-            }
-            if (randomBoolean()) {
-                return mappingUpdate;
-            } else {
-                return success;
-            }
-        });
+        when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
+            .thenAnswer(ir -> {
+                if (randomBoolean()) {
+                    return conflictedResult;
+                }
+                if (randomBoolean()) {
+                    return mappingUpdate;
+                } else {
+                    return success;
+                }
+            });
         when(shard.indexSettings()).thenReturn(indexSettings);
         when(shard.shardId()).thenReturn(shardId);
         when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -850,7 +962,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             IndexShard shard = mock(IndexShard.class);
             when(shard.shardId()).thenReturn(shardId);
-            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean()))
+            when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any()))
                 .thenReturn(success1, mappingUpdate, success2);
             when(shard.getFailedIndexResult(any(EsRejectedExecutionException.class), anyLong())).thenCallRealMethod();
             when(shard.mapperService()).thenReturn(mock(MapperService.class));
@@ -884,7 +996,8 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             assertThat("mappings were \"updated\" once", updateCalled.get(), equalTo(1));
 
-            verify(shard, times(2)).applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean());
+            verify(shard, times(2))
+                .applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean(), any());
 
             BulkItemResponse primaryResponse1 = bulkShardRequest.items()[0].getPrimaryResponse();
             assertThat(primaryResponse1.getItemId(), equalTo(0));
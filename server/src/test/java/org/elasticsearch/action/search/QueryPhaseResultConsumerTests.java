@@ -112,6 +112,43 @@ public class QueryPhaseResultConsumerTests extends ESTestCase {
         assertEquals(1, searchProgressListener.onFinalReduce.get());
     }
 
+    public void testConcurrentPartialReduces() throws Exception {
+        int numShards = randomIntBetween(20, 200);
+        int maxConcurrentPartialReduces = randomIntBetween(2, 4);
+        EsThreadPoolExecutor concurrentExecutor = EsExecutors.newFixed("test_concurrent", maxConcurrentPartialReduces, 100,
+            EsExecutors.daemonThreadFactory("test_concurrent"), threadPool.getThreadContext(), randomBoolean());
+        try {
+            SearchRequest searchRequest = new SearchRequest("index");
+            searchRequest.setBatchedReduceSize(randomIntBetween(2, 10));
+            AtomicReference<Exception> onPartialMergeFailure = new AtomicReference<>();
+            QueryPhaseResultConsumer queryPhaseResultConsumer = new QueryPhaseResultConsumer(searchRequest, concurrentExecutor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST), searchPhaseController, () -> false, SearchProgressListener.NOOP,
+                numShards, onPartialMergeFailure::set, maxConcurrentPartialReduces);
+
+            CountDownLatch partialReduceLatch = new CountDownLatch(numShards);
+            for (int i = 0; i < numShards; i++) {
+                SearchShardTarget searchShardTarget = new SearchShardTarget("node", new ShardId("index", "uuid", i), null);
+                QuerySearchResult querySearchResult = new QuerySearchResult();
+                TopDocs topDocs = new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[] { new ScoreDoc(0, i) });
+                querySearchResult.topDocs(new TopDocsAndMaxScore(topDocs, i), new DocValueFormat[0]);
+                querySearchResult.setSearchShardTarget(searchShardTarget);
+                querySearchResult.setShardIndex(i);
+                queryPhaseResultConsumer.consumeResult(querySearchResult, partialReduceLatch::countDown);
+            }
+            assertTrue(partialReduceLatch.await(10, TimeUnit.SECONDS));
+            assertNull(onPartialMergeFailure.get());
+
+            SearchPhaseController.ReducedQueryPhase reduce = queryPhaseResultConsumer.reduce();
+            assertEquals(numShards, reduce.totalHits.value);
+            assertEquals(numShards - 1, reduce.maxScore, 0f);
+            // the best hits of all partial reduces are kept
+            assertEquals(Math.min(10, numShards), reduce.sortedTopDocs.scoreDocs.length);
+            assertEquals(numShards - 1, reduce.sortedTopDocs.scoreDocs[0].shardIndex);
+        } finally {
+            concurrentExecutor.shutdownNow();
+        }
+    }
+
     private static class ThrowingSearchProgressListener extends SearchProgressListener {
         private final AtomicInteger onQueryResult = new AtomicInteger(0);
         private final AtomicInteger onPartialReduce = new AtomicInteger(0);
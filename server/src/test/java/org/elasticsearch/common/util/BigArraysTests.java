@@ -22,6 +22,8 @@ import org.elasticsearch.test.ESTestCase;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -31,11 +33,16 @@ import java.util.function.Function;
 import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class BigArraysTests extends ESTestCase {
     private final BigArrays bigArrays = new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), new NoneCircuitBreakerService());
+    private final BigArrays offHeapBigArrays = new MockBigArrays(
+        new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+        new NoneCircuitBreakerService()
+    );
 
     public void testByteArrayGrowth() {
         final int totalLen = randomIntBetween(1, 4000000);
@@ -242,6 +249,100 @@ public class BigArraysTests extends ESTestCase {
         array2.close();
     }
 
+    public void testOffHeapLongArray() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        LongArray array = offHeapBigArrays.newLongArray(startLen, randomBoolean());
+        long[] ref = new long[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomLong();
+            array = offHeapBigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+        }
+        final int fromIndex = randomIntBetween(0, totalLen - 1);
+        final int toIndex = randomIntBetween(fromIndex, totalLen);
+        final long rand = randomLong();
+        Arrays.fill(ref, fromIndex, toIndex, rand);
+        array.fill(fromIndex, toIndex, rand);
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+            assertEquals(ref[i] + 1, array.increment(i, 1));
+        }
+        array.close();
+    }
+
+    public void testOffHeapDoubleArray() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        DoubleArray array = offHeapBigArrays.newDoubleArray(startLen, randomBoolean());
+        double[] ref = new double[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomDouble();
+            array = offHeapBigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i), 0.001d);
+        }
+        final int fromIndex = randomIntBetween(0, totalLen - 1);
+        final int toIndex = randomIntBetween(fromIndex, totalLen);
+        final double rand = randomDouble();
+        Arrays.fill(ref, fromIndex, toIndex, rand);
+        array.fill(fromIndex, toIndex, rand);
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i), 0.001d);
+        }
+        array.close();
+    }
+
+    public void testOffHeapArraysUseTheSameBreakerAccounting() {
+        final long size = randomIntBetween(PageCacheRecycler.LONG_PAGE_SIZE + 1, 1 << 20);
+        final HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+            Settings.EMPTY,
+            Collections.emptyList(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        final BigArrays breakingOffHeapBigArrays = new BigArrays(
+            new MockPageCacheRecycler(Settings.builder().put(PageCacheRecycler.OFF_HEAP_SETTING.getKey(), true).build()),
+            hcbs,
+            CircuitBreaker.REQUEST
+        ).withCircuitBreaking();
+        final LongArray longs = breakingOffHeapBigArrays.newLongArray(size);
+        assertThat(longs, instanceOf(DirectBigLongArray.class));
+        assertEquals(BigLongArray.estimateRamBytes(size), hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+        final DoubleArray doubles = breakingOffHeapBigArrays.newDoubleArray(size);
+        assertThat(doubles, instanceOf(DirectBigDoubleArray.class));
+        assertEquals(
+            BigLongArray.estimateRamBytes(size) + BigDoubleArray.estimateRamBytes(size),
+            hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed()
+        );
+        Releasables.close(longs, doubles);
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.REQUEST).getUsed());
+    }
+
+    public void testOffHeapLongArrayBulkSet() {
+        final int totalLen = randomIntBetween(1, 100000);
+        final long[] ref = new long[totalLen];
+        final ByteBuffer bytes = ByteBuffer.allocate(totalLen * Long.BYTES).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomLong();
+            bytes.putLong(i * Long.BYTES, ref[i]);
+        }
+        final LongArray array = offHeapBigArrays.newLongArray(totalLen, randomBoolean());
+        for (int i = 0; i < totalLen; ) {
+            final int len = Math.min(totalLen - i, randomIntBetween(1, 3 * PageCacheRecycler.LONG_PAGE_SIZE));
+            array.set(i, bytes.array(), i, len);
+            i += len;
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+        }
+        array.close();
+    }
+
     public void testByteArrayBulkGet() {
         final byte[] array1 = new byte[randomIntBetween(1, 4000000)];
         random().nextBytes(array1);
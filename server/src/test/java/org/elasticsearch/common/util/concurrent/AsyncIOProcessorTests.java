@@ -10,6 +10,7 @@ package org.elasticsearch.common.util.concurrent;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Before;
 
 import java.io.IOException;
@@ -18,14 +19,19 @@ import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
+
 public class AsyncIOProcessorTests extends ESTestCase {
 
     private ThreadContext threadContext;
@@ -274,4 +280,83 @@ public class AsyncIOProcessorTests extends ESTestCase {
         assertEquals(threadCount, received.get());
         threads.forEach(t -> assertFalse(t.isAlive()));
     }
+
+    public void testProcessOnExecutor() throws InterruptedException {
+        final String threadPrefix = getTestName() + "_executor";
+        final EsThreadPoolExecutor executor = EsExecutors.newScaling(threadPrefix, 1, 1, 1, TimeUnit.MINUTES,
+            EsExecutors.daemonThreadFactory(threadPrefix), threadContext);
+        try {
+            AtomicInteger received = new AtomicInteger(0);
+            AsyncIOProcessor<Object> processor = new AsyncIOProcessor<Object>(logger, scaledRandomIntBetween(1, 2024), threadContext) {
+                @Override
+                protected void write(List<Tuple<Object, Consumer<Exception>>> candidates) throws IOException {
+                    assertThat(Thread.currentThread().getName(), startsWith(threadPrefix));
+                    received.addAndGet(candidates.size());
+                }
+
+                @Override
+                protected Executor executor() {
+                    return executor;
+                }
+            };
+            final int count = randomIntBetween(1000, 5000);
+            Thread[] thread = new Thread[randomIntBetween(2, 5)];
+            CountDownLatch notified = new CountDownLatch(count * thread.length);
+            AtomicReference<String> wrongThread = new AtomicReference<>();
+            for (int i = 0; i < thread.length; i++) {
+                thread[i] = new Thread(getTestName() + "_" + i) {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < count; i++) {
+                            processor.put(new Object(), (ex) -> {
+                                assertNull(ex);
+                                if (Thread.currentThread().getName().startsWith(threadPrefix) == false) {
+                                    wrongThread.set(Thread.currentThread().getName());
+                                }
+                                notified.countDown();
+                            });
+                        }
+                    }
+                };
+                thread[i].start();
+            }
+            for (int i = 0; i < thread.length; i++) {
+                thread[i].join();
+            }
+            assertTrue(notified.await(10, TimeUnit.SECONDS));
+            assertNull(wrongThread.get());
+            assertEquals(count * thread.length, received.get());
+        } finally {
+            ThreadPool.terminate(executor, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testRejectionFailsListeners() throws InterruptedException {
+        final EsThreadPoolExecutor executor = EsExecutors.newFixed(getTestName(), 1, 1,
+            EsExecutors.daemonThreadFactory(getTestName()), threadContext, false);
+        // a fixed executor rejects everything once it is shut down
+        ThreadPool.terminate(executor, 10, TimeUnit.SECONDS);
+        AtomicInteger received = new AtomicInteger(0);
+        AsyncIOProcessor<Object> processor = new AsyncIOProcessor<Object>(logger, scaledRandomIntBetween(1, 2024), threadContext) {
+            @Override
+            protected void write(List<Tuple<Object, Consumer<Exception>>> candidates) throws IOException {
+                received.addAndGet(candidates.size());
+            }
+
+            @Override
+            protected Executor executor() {
+                return executor;
+            }
+        };
+        final int count = randomIntBetween(1, 10);
+        AtomicInteger failed = new AtomicInteger(0);
+        for (int i = 0; i < count; i++) {
+            processor.put(new Object(), (ex) -> {
+                assertThat(ex, instanceOf(EsRejectedExecutionException.class));
+                failed.incrementAndGet();
+            });
+        }
+        assertEquals(count, failed.get());
+        assertEquals(0, received.get());
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class FairWriteSchedulerTests extends ESTestCase {
+
+    private final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+
+    public void testServesIndicesRoundRobinByWeight() {
+        ArrayDeque<Runnable> executor = new ArrayDeque<>();
+        FairWriteScheduler scheduler = new FairWriteScheduler(executor::add, threadContext, 1, 100, () -> fail("no rejections"));
+        List<String> executed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            scheduler.execute("a", 1, time -> assertThat(time, greaterThanOrEqualTo(0L)), new Operation(executed, "a"));
+        }
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute("b", 2, time -> assertThat(time, greaterThanOrEqualTo(0L)), new Operation(executed, "b"));
+        }
+        assertThat(executor.size(), equalTo(1));
+        assertThat(scheduler.queued(), equalTo(7));
+        while (executor.isEmpty() == false) {
+            executor.poll().run();
+            assertThat(executor.size(), equalTo(executed.size() < 8 ? 1 : 0));
+        }
+        assertThat(executed, contains("a", "a", "b", "b", "a", "b", "a", "a"));
+        assertThat(scheduler.queued(), equalTo(0));
+    }
+
+    public void testRejectsOnlyIndicesOverTheirShare() {
+        ArrayDeque<Runnable> executor = new ArrayDeque<>();
+        AtomicInteger rejections = new AtomicInteger();
+        FairWriteScheduler scheduler = new FairWriteScheduler(executor::add, threadContext, 1, 4, rejections::incrementAndGet);
+        List<String> executed = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            scheduler.execute("a", 1, time -> {}, new Operation(executed, "a"));
+        }
+        assertThat(scheduler.queued(), equalTo(4));
+        assertThat(rejections.get(), equalTo(0));
+
+        Operation rejected = new Operation(executed, "a");
+        scheduler.execute("a", 1, time -> {}, rejected);
+        assertThat(rejections.get(), equalTo(1));
+        assertThat(rejected.rejection, instanceOf(EsRejectedExecutionException.class));
+
+        // the other index gets its share even though the queue is full
+        scheduler.execute("b", 1, time -> {}, new Operation(executed, "b"));
+        scheduler.execute("b", 1, time -> {}, new Operation(executed, "b"));
+        assertThat(rejections.get(), equalTo(1));
+        scheduler.execute("b", 1, time -> {}, new Operation(executed, "b"));
+        assertThat(rejections.get(), equalTo(2));
+
+        Operation forced = new Operation(executed, "a");
+        forced.force = true;
+        scheduler.execute("a", 1, time -> {}, forced);
+        assertThat(rejections.get(), equalTo(2));
+        assertThat(scheduler.queued(), equalTo(7));
+    }
+
+    public void testExecutorRejection() {
+        List<String> executed = new ArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        FairWriteScheduler scheduler = new FairWriteScheduler(command -> {
+            if (calls.incrementAndGet() == 1) {
+                ((AbstractRunnable) command).onRejection(new EsRejectedExecutionException("rejected"));
+                ((AbstractRunnable) command).onAfter();
+            } else {
+                command.run();
+            }
+        }, threadContext, 1, 100, () -> fail("no rejections"));
+        Operation rejected = new Operation(executed, "a");
+        scheduler.execute("a", 1, time -> {}, rejected);
+        assertThat(rejected.rejection, instanceOf(EsRejectedExecutionException.class));
+        scheduler.execute("a", 1, time -> {}, new Operation(executed, "a"));
+        assertThat(executed, contains("a"));
+        assertThat(scheduler.queued(), equalTo(0));
+    }
+
+    public void testRunsWithTheContextOfTheSubmitter() {
+        ArrayDeque<Runnable> executor = new ArrayDeque<>();
+        FairWriteScheduler scheduler = new FairWriteScheduler(executor::add, threadContext, 1, 100, () -> fail("no rejections"));
+        List<String> executed = new ArrayList<>();
+        for (String request : new String[] { "first", "second", "third" }) {
+            try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+                threadContext.putHeader("request", request);
+                scheduler.execute("a", 1, time -> {}, new Operation(executed, "a") {
+                    @Override
+                    protected void doRun() {
+                        executed.add(threadContext.getHeader("request"));
+                    }
+
+                    @Override
+                    public void onRejection(Exception e) {
+                        executed.add("rejected " + threadContext.getHeader("request"));
+                    }
+                });
+            }
+        }
+
+        // each operation is handed to the executor by the thread of the operation before it, which holds the context of another request
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("request", "dispatcher");
+            executor.poll().run();
+            assertThat(threadContext.getHeader("request"), equalTo("dispatcher"));
+            executor.poll().run();
+            AbstractRunnable rejected = (AbstractRunnable) executor.poll();
+            rejected.onRejection(new EsRejectedExecutionException("rejected"));
+            rejected.onAfter();
+            assertThat(threadContext.getHeader("request"), equalTo("dispatcher"));
+        }
+        assertThat(executed, contains("first", "second", "rejected third"));
+        assertThat(executor.size(), equalTo(0));
+        assertThat(scheduler.queued(), equalTo(0));
+    }
+
+    private static class Operation extends AbstractRunnable {
+        private final List<String> executed;
+        private final String index;
+        private boolean force;
+        private Exception rejection;
+
+        Operation(List<String> executed, String index) {
+            this.executed = executed;
+            this.index = index;
+        }
+
+        @Override
+        protected void doRun() {
+            executed.add(index);
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return force;
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            throw new AssertionError(e);
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            rejection = e;
+        }
+    }
+}
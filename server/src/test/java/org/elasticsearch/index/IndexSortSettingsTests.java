@@ -10,6 +10,7 @@ package org.elasticsearch.index;
 
 import org.apache.lucene.search.Query;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataService;
@@ -207,4 +208,31 @@ public class IndexSortSettingsTests extends ESTestCase {
         assertWarnings("Index sort for index [test] defined on field [field] which resolves to field [aliased]. " +
             "You will not be able to define an index sort over aliased fields in new indexes");
     }
+
+    public void testTimeSeriesSortRequiresTimestamp() {
+        IndexSettings indexSettings = indexSettings(Settings.builder()
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim")
+            .build());
+        IndexSortConfig config = indexSettings.getIndexSortConfig();
+        assertTrue(config.hasIndexSort());
+        IndicesFieldDataCache cache = new IndicesFieldDataCache(Settings.EMPTY, null);
+        NoneCircuitBreakerService circuitBreakerService = new NoneCircuitBreakerService();
+        final IndexFieldDataService indexFieldDataService = new IndexFieldDataService(indexSettings, cache, circuitBreakerService);
+
+        Exception e = expectThrows(IllegalArgumentException.class, () -> config.buildIndexSort(
+            field -> null,
+            (ft, s) -> indexFieldDataService.getForField(ft, "index", s)
+        ));
+        assertEquals("[index.mode=time_series] requires a [@timestamp] field of type [date] or [date_nanos] to sort the index on",
+            e.getMessage());
+
+        MappedFieldType keyword = new KeywordFieldMapper.KeywordFieldType("@timestamp");
+        e = expectThrows(IllegalArgumentException.class, () -> config.buildIndexSort(
+            field -> field.equals("@timestamp") ? keyword : null,
+            (ft, s) -> indexFieldDataService.getForField(ft, "index", s)
+        ));
+        assertEquals("[index.mode=time_series] requires the [@timestamp] field to be of type [date] or [date_nanos] but was [keyword]",
+            e.getMessage());
+    }
 }
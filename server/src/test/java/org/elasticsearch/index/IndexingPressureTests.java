@@ -10,9 +10,15 @@ package org.elasticsearch.index;
 
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.stats.IndexingPressureStats;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class IndexingPressureTests extends ESTestCase {
 
@@ -143,4 +149,33 @@ public class IndexingPressureTests extends ESTestCase {
         }
         assertEquals(0, indexingPressure.stats().getCurrentCoordinatingBytes());
     }
+
+    public void testFairSchedulingWithUnboundedWriteQueue() throws InterruptedException {
+        final ThreadPool threadPool = new TestThreadPool(getTestName(), Settings.builder().put("thread_pool.write.queue_size", -1).build());
+        try {
+            final IndexingPressure indexingPressure = new IndexingPressure(
+                Settings.builder().put(settings).put(IndexingPressure.FAIR_SCHEDULING_ENABLED.getKey(), true).build(), threadPool);
+            final FairWriteScheduler scheduler = indexingPressure.writeScheduler();
+            assertNotNull(scheduler);
+            final int operations = between(1, 1000);
+            final CountDownLatch latch = new CountDownLatch(operations);
+            for (int i = 0; i < operations; i++) {
+                scheduler.execute(randomFrom("a", "b"), between(1, 10), time -> {}, new AbstractRunnable() {
+                    @Override
+                    public void onFailure(Exception e) {
+                        throw new AssertionError(e);
+                    }
+
+                    @Override
+                    protected void doRun() {
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, indexingPressure.stats().getPrimaryRejections());
+        } finally {
+            terminate(threadPool);
+        }
+    }
 }
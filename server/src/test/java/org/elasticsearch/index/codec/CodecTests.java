@@ -12,9 +12,11 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
@@ -54,6 +56,41 @@ public class CodecTests extends ESTestCase {
         assertStoredFieldsCompressionEquals(Lucene90Codec.Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testLZ4HighCompression() throws Exception {
+        Codec codec = createCodecService().codec("lz4_high_compression");
+        assertThat(codec, instanceOf(LZ4HighCompressionCodec.class));
+        assertThat(Codec.forName(LZ4HighCompressionCodec.NAME), instanceOf(LZ4HighCompressionCodec.class));
+
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(null);
+        iwc.setCodec(codec);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numDocs = between(1, 2000);
+        String[] values = new String[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            // repetitive values so the dictionary and the matches within a sub block both help
+            values[i] = randomFrom("GET", "POST") + " /index/_doc/" + i + " " + randomAlphaOfLength(between(0, 1024));
+            Document doc = new Document();
+            doc.add(new StoredField("id", i));
+            doc.add(new StoredField("value", values[i]));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        iw.close();
+        DirectoryReader ir = DirectoryReader.open(dir);
+        assertEquals(numDocs, ir.numDocs());
+        for (LeafReaderContext ctx : ir.leaves()) {
+            SegmentReader sr = (SegmentReader) ctx.reader();
+            assertEquals(LZ4HighCompressionCodec.NAME, sr.getSegmentInfo().info.getCodec().getName());
+            for (int doc = 0; doc < sr.maxDoc(); doc++) {
+                Document stored = sr.document(doc);
+                assertEquals(values[stored.getField("id").numericValue().intValue()], stored.get("value"));
+            }
+        }
+        ir.close();
+        dir.close();
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertStoredFieldsCompressionEquals(Lucene90Codec.Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
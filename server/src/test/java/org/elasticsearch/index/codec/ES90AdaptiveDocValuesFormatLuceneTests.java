@@ -0,0 +1,27 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.index.BaseDocValuesFormatTestCase;
+import org.apache.lucene.util.TestUtil;
+
+/**
+ * Runs Lucene's tests for doc values formats against {@link ES90AdaptiveDocValuesFormat}, which covers the types that are delegated
+ * to the default format as well as the edge cases of the numeric encodings.
+ */
+public class ES90AdaptiveDocValuesFormatLuceneTests extends BaseDocValuesFormatTestCase {
+
+    private final Codec codec = TestUtil.alwaysDocValuesFormat(new ES90AdaptiveDocValuesFormat());
+
+    @Override
+    protected Codec getCodec() {
+        return codec;
+    }
+}
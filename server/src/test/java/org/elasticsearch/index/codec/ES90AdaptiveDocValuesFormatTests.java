@@ -0,0 +1,260 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase.SuppressCodecs;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+@SuppressCodecs("*") // we test against our own format so never get a random codec here!
+public class ES90AdaptiveDocValuesFormatTests extends ESTestCase {
+
+    public void testRegisteredThroughSpi() {
+        assertThat(DocValuesFormat.forName(ES90AdaptiveDocValuesFormat.NAME), instanceOf(ES90AdaptiveDocValuesFormat.class));
+    }
+
+    public void testConstant() throws IOException {
+        long value = randomLong();
+        assertRoundTrip(between(1, 10000), doc -> value);
+        assertRoundTrip(between(1, 10000), doc -> value, ES90AdaptiveDocValuesFormat.CONSTANT);
+    }
+
+    public void testLowCardinality() throws IOException {
+        long[] statusCodes = new long[] { 200, 201, 301, 404, 500, 503 };
+        assertRoundTrip(between(1, 10000), doc -> statusCodes[between(0, statusCodes.length - 1)]);
+        // the table of the default encoding takes less space than a dictionary for up to 256 distinct values
+        assertRoundTrip(
+            between(100, 10000),
+            doc -> statusCodes[between(0, statusCodes.length - 1)],
+            ES90AdaptiveDocValuesFormat.DELEGATE
+        );
+    }
+
+    public void testDictionary() throws IOException {
+        long[] dictionary = new long[between(300, 1000)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = randomLong();
+        }
+        assertRoundTrip(
+            between(5000, 10000),
+            doc -> dictionary[between(0, dictionary.length - 1)],
+            ES90AdaptiveDocValuesFormat.DICTIONARY
+        );
+    }
+
+    public void testRuns() throws IOException {
+        int runLength = between(1, 1000);
+        long base = randomLong();
+        assertRoundTrip(between(1, 10000), doc -> base + doc / runLength);
+
+        int longRunLength = between(100, 1000);
+        long longRunBase = randomLongBetween(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2);
+        assertRoundTrip(
+            between(longRunLength * 2, 10000),
+            doc -> longRunBase + doc / longRunLength,
+            ES90AdaptiveDocValuesFormat.RUN_LENGTH
+        );
+    }
+
+    public void testTimestamps() throws IOException {
+        long start = randomLongBetween(0, 1L << 42);
+        long interval = randomLongBetween(1, 10000);
+        boolean jitter = randomBoolean();
+        assertRoundTrip(between(1, 20000), doc -> start + doc * interval + (jitter ? doc % 7 : 0));
+        assertRoundTrip(
+            between(1000, 20000),
+            doc -> start + doc * interval + (jitter ? doc % 7 : 0),
+            ES90AdaptiveDocValuesFormat.DELTA_OF_DELTA
+        );
+    }
+
+    public void testRandomValues() throws IOException {
+        assertRoundTrip(between(1, 10000), doc -> randomLong());
+    }
+
+    public void testSparseValues() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, newConfig());
+        int numDocs = between(2, 5000);
+        Long[] values = new Long[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StoredField("id", i));
+            if (i == 0 || randomBoolean()) {
+                values[i] = randomLongBetween(0, 3);
+                doc.add(new SortedNumericDocValuesField("field", values[i]));
+            }
+            iw.addDocument(doc);
+        }
+        maybeForceMerge(iw);
+        iw.close();
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext context : reader.leaves()) {
+                LeafReader leaf = context.reader();
+                SortedNumericDocValues dv = DocValues.getSortedNumeric(leaf, "field");
+                for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+                    Long expected = values[leaf.document(doc).getField("id").numericValue().intValue()];
+                    assertThat(dv.advanceExact(doc), equalTo(expected != null));
+                    if (expected != null) {
+                        assertThat(dv.docValueCount(), equalTo(1));
+                        assertThat(dv.nextValue(), equalTo(expected));
+                    }
+                }
+            }
+        }
+        dir.close();
+    }
+
+    public void testMultiValued() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter iw = new IndexWriter(dir, newConfig());
+        int numDocs = between(1, 5000);
+        long[][] values = new long[numDocs][];
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StoredField("id", i));
+            values[i] = new long[between(1, 3)];
+            for (int j = 0; j < values[i].length; j++) {
+                values[i][j] = randomLongBetween(0, 3);
+                doc.add(new SortedNumericDocValuesField("field", values[i][j]));
+            }
+            Arrays.sort(values[i]);
+            iw.addDocument(doc);
+        }
+        maybeForceMerge(iw);
+        iw.close();
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext context : reader.leaves()) {
+                LeafReader leaf = context.reader();
+                SortedNumericDocValues dv = DocValues.getSortedNumeric(leaf, "field");
+                for (int doc = dv.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = dv.nextDoc()) {
+                    long[] expected = values[leaf.document(doc).getField("id").numericValue().intValue()];
+                    assertThat(dv.docValueCount(), equalTo(expected.length));
+                    for (long value : expected) {
+                        assertThat(dv.nextValue(), equalTo(value));
+                    }
+                }
+            }
+        }
+        dir.close();
+    }
+
+    private void assertRoundTrip(int numDocs, IntToLongFunction valueFunction) throws IOException {
+        assertRoundTrip(numDocs, valueFunction, null);
+    }
+
+    /**
+     * Indexes a numeric and a sorted numeric field with a value for every document and checks that both read back the same values
+     * whether they are iterated or advanced to. If an encoding is expected the documents are merged into a single segment in the
+     * order they were added and both fields must be written with that encoding.
+     */
+    private void assertRoundTrip(int numDocs, IntToLongFunction valueFunction, Byte expectedEncoding) throws IOException {
+        Directory dir = newDirectory();
+        IndexWriterConfig config = newConfig();
+        if (expectedEncoding != null) {
+            // unlike the tiered merge policy this only merges adjacent segments, which keeps the documents in order
+            config.setMergePolicy(newLogMergePolicy());
+        }
+        IndexWriter iw = new IndexWriter(dir, config);
+        long[] values = new long[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            values[i] = valueFunction.applyAsLong(i);
+            Document doc = new Document();
+            doc.add(new StoredField("id", i));
+            doc.add(new NumericDocValuesField("numeric", values[i]));
+            doc.add(new SortedNumericDocValuesField("sorted_numeric", values[i]));
+            iw.addDocument(doc);
+        }
+        if (expectedEncoding != null) {
+            iw.forceMerge(1);
+            iw.commit();
+        } else {
+            maybeForceMerge(iw);
+        }
+        iw.close();
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext context : reader.leaves()) {
+                LeafReader leaf = context.reader();
+                if (expectedEncoding != null) {
+                    assertThat(chosenEncoding(leaf, "numeric"), equalTo(expectedEncoding));
+                    assertThat(chosenEncoding(leaf, "sorted_numeric"), equalTo(expectedEncoding));
+                }
+                long[] expected = new long[leaf.maxDoc()];
+                for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+                    expected[doc] = values[leaf.document(doc).getField("id").numericValue().intValue()];
+                }
+
+                NumericDocValues numeric = DocValues.getNumeric(leaf, "numeric");
+                for (int doc = 0; doc < leaf.maxDoc(); doc++) {
+                    assertThat(numeric.nextDoc(), equalTo(doc));
+                    assertThat(numeric.longValue(), equalTo(expected[doc]));
+                }
+                assertThat(numeric.nextDoc(), equalTo(DocIdSetIterator.NO_MORE_DOCS));
+
+                SortedNumericDocValues sortedNumeric = DocValues.getSortedNumeric(leaf, "sorted_numeric");
+                for (int doc = between(0, 100); doc < leaf.maxDoc(); doc += between(1, 5000)) {
+                    if (randomBoolean()) {
+                        assertTrue(sortedNumeric.advanceExact(doc));
+                    } else {
+                        assertThat(sortedNumeric.advance(doc), equalTo(doc));
+                    }
+                    assertThat(sortedNumeric.docValueCount(), equalTo(1));
+                    assertThat(sortedNumeric.nextValue(), equalTo(expected[doc]));
+                }
+            }
+        }
+        dir.close();
+    }
+
+    /**
+     * Returns the encoding that the values of the field in the given segment are written with.
+     */
+    private static byte chosenEncoding(LeafReader leaf, String field) throws IOException {
+        ES90AdaptiveDocValuesConsumer.Stats stats = ES90AdaptiveDocValuesConsumer.Stats.collect(
+            DocValues.getSortedNumeric(leaf, field),
+            leaf.maxDoc()
+        );
+        return stats == null ? ES90AdaptiveDocValuesFormat.DELEGATE : stats.chooseEncoding();
+    }
+
+    private static IndexWriterConfig newConfig() {
+        IndexWriterConfig config = newIndexWriterConfig(null);
+        config.setCodec(TestUtil.alwaysDocValuesFormat(new ES90AdaptiveDocValuesFormat()));
+        return config;
+    }
+
+    private static void maybeForceMerge(IndexWriter iw) throws IOException {
+        if (randomBoolean()) {
+            iw.forceMerge(1);
+        }
+        iw.commit();
+    }
+}
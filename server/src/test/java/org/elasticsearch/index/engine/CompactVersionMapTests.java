@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageTester;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class CompactVersionMapTests extends ESTestCase {
+
+    public void testMatchesHashMap() {
+        CompactVersionMap map = new CompactVersionMap();
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        List<BytesRef> uids = randomList(1, 500, () -> new BytesRef(randomAlphaOfLengthBetween(1, 20)));
+        int iterations = randomIntBetween(100, 5000);
+        for (int i = 0; i < iterations; i++) {
+            BytesRef uid = randomFrom(uids);
+            if (randomBoolean()) {
+                VersionValue value = randomIndexVersionValue();
+                assertThat(map.put(uid, value), equalTo(expected.put(uid, value)));
+            } else {
+                assertThat(map.remove(uid), equalTo(expected.remove(uid)));
+            }
+            assertThat(map.get(uid), equalTo(expected.get(uid)));
+            assertThat(map.size(), equalTo(expected.size()));
+            assertThat(map.isEmpty(), equalTo(expected.isEmpty()));
+        }
+        for (BytesRef uid : uids) {
+            assertThat(map.get(uid), equalTo(expected.get(uid)));
+        }
+        assertThat(new HashMap<>(map), equalTo(expected));
+    }
+
+    public void testRamBytesUsed() {
+        CompactVersionMap map = new CompactVersionMap();
+        long empty = map.ramBytesUsed();
+        assertEquals(RamUsageTester.ramUsed(map), empty, empty / 2);
+        int numDocs = randomIntBetween(10000, 50000);
+        for (int i = 0; i < numDocs; i++) {
+            map.put(new BytesRef(randomAlphaOfLengthBetween(10, 20)), randomIndexVersionValue());
+        }
+        long actual = RamUsageTester.ramUsed(map);
+        long estimated = map.ramBytesUsed();
+        assertThat(estimated, greaterThan(empty));
+        // less than 25% off
+        assertEquals(actual, estimated, actual / 4);
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        Translog.Location location = randomBoolean()
+            ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
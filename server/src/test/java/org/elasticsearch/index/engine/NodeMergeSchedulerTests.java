@@ -0,0 +1,160 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class NodeMergeSchedulerTests extends ESTestCase {
+
+    private final AtomicBoolean searchSaturated = new AtomicBoolean();
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private NodeMergeScheduler newScheduler(Settings settings, ClusterSettings clusterSettings) {
+        return new NodeMergeScheduler(settings, clusterSettings, searchSaturated::get, nanoTime::get);
+    }
+
+    private NodeMergeScheduler newScheduler(int maxConcurrentMerges) {
+        final Settings settings = Settings.builder()
+            .put(NodeMergeScheduler.MAX_CONCURRENT_MERGES_SETTING.getKey(), maxConcurrentMerges)
+            .put(NodeMergeScheduler.MIN_BYTES_PER_SEC_SETTING.getKey(), "1mb")
+            .build();
+        return newScheduler(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+    }
+
+    public void testStartsMergesByBenefitPerByte() {
+        final NodeMergeScheduler scheduler = newScheduler(1);
+        final NodeMergeScheduler.Ticket first = scheduler.enqueue(1, 100);
+        assertTrue(first.isStarted());
+        final NodeMergeScheduler.Ticket large = scheduler.enqueue(1, 1000);
+        final NodeMergeScheduler.Ticket small = scheduler.enqueue(1, 10);
+        final NodeMergeScheduler.Ticket manySegments = scheduler.enqueue(5, 100);
+        assertThat(scheduler.running(), equalTo(1));
+        assertThat(scheduler.queued(), equalTo(3));
+
+        first.release(0);
+        assertTrue(small.isStarted());
+        assertFalse(manySegments.isStarted());
+        assertFalse(large.isStarted());
+
+        small.release(0);
+        assertTrue(manySegments.isStarted());
+        assertFalse(large.isStarted());
+
+        manySegments.release(0);
+        assertTrue(large.isStarted());
+        large.release(0);
+        assertThat(scheduler.running(), equalTo(0));
+        assertThat(scheduler.queued(), equalTo(0));
+    }
+
+    public void testStartsStarvedMergesInOrder() {
+        final NodeMergeScheduler scheduler = newScheduler(1);
+        final NodeMergeScheduler.Ticket first = scheduler.enqueue(1, 100);
+        final NodeMergeScheduler.Ticket large = scheduler.enqueue(1, 1000);
+        nanoTime.addAndGet(NodeMergeScheduler.MAX_QUEUE_TIME.nanos());
+        final NodeMergeScheduler.Ticket small = scheduler.enqueue(1, 10);
+        first.release(0);
+        assertTrue(large.isStarted());
+        assertFalse(small.isStarted());
+    }
+
+    public void testRunsConcurrentMergesUpToTheLimit() {
+        final Settings settings = Settings.builder().put(NodeMergeScheduler.MAX_CONCURRENT_MERGES_SETTING.getKey(), 2).build();
+        final ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final NodeMergeScheduler scheduler = newScheduler(settings, clusterSettings);
+        for (int i = 0; i < 4; i++) {
+            scheduler.enqueue(1, between(1, 1000));
+        }
+        assertThat(scheduler.running(), equalTo(2));
+        assertThat(scheduler.queued(), equalTo(2));
+
+        clusterSettings.applySettings(Settings.builder().put(NodeMergeScheduler.MAX_CONCURRENT_MERGES_SETTING.getKey(), 3).build());
+        assertThat(scheduler.running(), equalTo(3));
+        assertThat(scheduler.queued(), equalTo(1));
+    }
+
+    public void testBacksOffWhileSearchIsSaturated() throws InterruptedException {
+        final NodeMergeScheduler scheduler = newScheduler(4);
+        searchSaturated.set(true);
+        final NodeMergeScheduler.Ticket first = scheduler.enqueue(1, 100);
+        final NodeMergeScheduler.Ticket second = scheduler.enqueue(1, 100);
+        assertTrue(first.isStarted());
+        assertFalse(second.isStarted());
+        assertThat(scheduler.getIORateLimitMBPerSec(), closeTo(NodeMergeScheduler.START_BYTES_PER_SEC / 2 / 1024 / 1024, 0.001));
+
+        first.release(0);
+        assertTrue(second.isStarted());
+        final NodeMergeScheduler.Ticket third = scheduler.enqueue(1, 100);
+        assertFalse(third.isStarted());
+        assertThat(scheduler.getIORateLimitMBPerSec(), closeTo(NodeMergeScheduler.START_BYTES_PER_SEC / 4 / 1024 / 1024, 0.001));
+
+        // waiting merges start as soon as search is no longer saturated
+        searchSaturated.set(false);
+        third.await(() -> false);
+        assertTrue(third.isStarted());
+        assertThat(scheduler.running(), equalTo(2));
+    }
+
+    public void testRateNeverGoesBelowMinimum() {
+        final NodeMergeScheduler scheduler = newScheduler(1);
+        searchSaturated.set(true);
+        for (int i = 0; i < 20; i++) {
+            scheduler.enqueue(1, 100).release(0);
+        }
+        assertThat(scheduler.getIORateLimitMBPerSec(), closeTo(1.0, 0.001));
+    }
+
+    public void testRateIsCappedByMeasuredThroughput() {
+        final NodeMergeScheduler scheduler = newScheduler(1);
+        final long bytes = new ByteSizeValue(10, ByteSizeUnit.MB).getBytes();
+        final NodeMergeScheduler.Ticket first = scheduler.enqueue(1, bytes);
+        assertThat(scheduler.getMeasuredBytesPerSec(), equalTo(0.0));
+        first.release(TimeUnit.SECONDS.toNanos(1));
+        assertThat(scheduler.getMeasuredBytesPerSec(), closeTo(bytes, 1.0));
+        assertThat(scheduler.getIORateLimitMBPerSec(), lessThanOrEqualTo(10.0));
+
+        // a backlog of merges raises the rate up to the measured throughput only
+        final NodeMergeScheduler.Ticket running = scheduler.enqueue(1, 100);
+        for (int i = 0; i < 20; i++) {
+            scheduler.enqueue(1, 100);
+        }
+        running.release(0);
+        assertThat(scheduler.getIORateLimitMBPerSec(), closeTo(10.0, 0.001));
+        // merges that are too small are not measured
+        assertThat(scheduler.getMeasuredBytesPerSec(), closeTo(bytes, 1.0));
+    }
+
+    public void testAbortedMergesLeaveTheQueue() throws InterruptedException {
+        final NodeMergeScheduler scheduler = newScheduler(1);
+        final NodeMergeScheduler.Ticket first = scheduler.enqueue(1, 100);
+        final NodeMergeScheduler.Ticket aborted = scheduler.enqueue(1, 10);
+        assertThat(scheduler.queued(), equalTo(1));
+        nanoTime.addAndGet(100);
+        assertThat(aborted.await(() -> true), equalTo(100L));
+        assertFalse(aborted.isStarted());
+        assertThat(scheduler.queued(), equalTo(0));
+        aborted.release(0);
+        assertThat(scheduler.running(), equalTo(1));
+        first.release(0);
+        first.release(0);
+        assertThat(scheduler.running(), equalTo(0));
+    }
+}
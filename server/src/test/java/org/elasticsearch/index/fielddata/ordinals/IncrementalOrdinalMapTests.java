@@ -0,0 +1,170 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IncrementalOrdinalMapTests extends ESTestCase {
+
+    public void testExtendMatchesFullBuild() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config())) {
+            int baseSegments = between(2, 4);
+            for (int s = 0; s < baseSegments; s++) {
+                addDocs(writer, between(2000, 3000));
+            }
+            try (DirectoryReader first = DirectoryReader.open(writer)) {
+                IncrementalOrdinalMap previous = IncrementalOrdinalMap.build(first, subs(first));
+                assertFalse(previous.isIncremental());
+
+                int newSegments = between(1, 3);
+                for (int s = 0; s < newSegments; s++) {
+                    addDocs(writer, between(1, 5));
+                }
+                if (randomBoolean()) {
+                    writer.deleteDocuments(new Term("id", "0"));
+                }
+                try (DirectoryReader second = DirectoryReader.openIfChanged(first, writer)) {
+                    SortedSetDocValues[] subs = subs(second);
+                    IncrementalOrdinalMap extended = IncrementalOrdinalMap.extend(previous, second, subs);
+                    assertNotNull(extended);
+                    assertTrue(extended.isIncremental());
+                    assertSameAsFullBuild(extended, subs(second));
+
+                    // an extended map can be extended again
+                    addDocs(writer, between(1, 5));
+                    try (DirectoryReader third = DirectoryReader.openIfChanged(second, writer)) {
+                        IncrementalOrdinalMap extendedAgain = IncrementalOrdinalMap.extend(extended, third, subs(third));
+                        assertNotNull(extendedAgain);
+                        assertTrue(extendedAgain.isIncremental());
+                        assertSameAsFullBuild(extendedAgain, subs(third));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testOnlyDeletes() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config())) {
+            addDocs(writer, between(10, 100));
+            addDocs(writer, between(10, 100));
+            try (DirectoryReader first = DirectoryReader.open(writer)) {
+                IncrementalOrdinalMap previous = IncrementalOrdinalMap.build(first, subs(first));
+                writer.deleteDocuments(new Term("id", "0"));
+                try (DirectoryReader second = DirectoryReader.openIfChanged(first, writer)) {
+                    IncrementalOrdinalMap extended = IncrementalOrdinalMap.extend(previous, second, subs(second));
+                    assertNotNull(extended);
+                    assertTrue(extended.isIncremental());
+                    assertSameAsFullBuild(extended, subs(second));
+                }
+            }
+        }
+    }
+
+    public void testMergedSegmentsRequireFullBuild() throws IOException {
+        IndexWriterConfig config = newIndexWriterConfig();
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config)) {
+            addDocs(writer, between(10, 100));
+            addDocs(writer, between(10, 100));
+            try (DirectoryReader first = DirectoryReader.open(writer)) {
+                IncrementalOrdinalMap previous = IncrementalOrdinalMap.build(first, subs(first));
+                addDocs(writer, between(1, 5));
+                writer.forceMerge(1);
+                try (DirectoryReader second = DirectoryReader.openIfChanged(first, writer)) {
+                    assertThat(IncrementalOrdinalMap.extend(previous, second, subs(second)), nullValue());
+                }
+            }
+        }
+    }
+
+    public void testTooManyNewTermsRequireFullBuild() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config())) {
+            addDocs(writer, between(20, 40));
+            addDocs(writer, between(20, 40));
+            try (DirectoryReader first = DirectoryReader.open(writer)) {
+                IncrementalOrdinalMap previous = IncrementalOrdinalMap.build(first, subs(first));
+                addDocs(writer, between(100, 200));
+                try (DirectoryReader second = DirectoryReader.openIfChanged(first, writer)) {
+                    assertThat(IncrementalOrdinalMap.extend(previous, second, subs(second)), nullValue());
+                }
+            }
+        }
+    }
+
+    private static IndexWriterConfig config() {
+        return new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+    }
+
+    private int nextId;
+
+    private void addDocs(IndexWriter writer, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("id", Integer.toString(nextId++), Field.Store.NO));
+            int values = between(0, 2);
+            for (int v = 0; v < values; v++) {
+                doc.add(new SortedSetDocValuesField("field", new BytesRef(randomAlphaOfLength(between(1, 6)))));
+            }
+            writer.addDocument(doc);
+        }
+        writer.flush();
+    }
+
+    private static SortedSetDocValues[] subs(DirectoryReader reader) throws IOException {
+        SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            subs[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "field");
+        }
+        return subs;
+    }
+
+    private static void assertSameAsFullBuild(IncrementalOrdinalMap map, SortedSetDocValues[] subs) throws IOException {
+        OrdinalMap full = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        assertThat(map.getValueCount(), equalTo(full.getValueCount()));
+        for (int s = 0; s < subs.length; s++) {
+            LongValues expected = full.getGlobalOrds(s);
+            LongValues actual = map.getGlobalOrds(s);
+            for (long ord = 0; ord < subs[s].getValueCount(); ord++) {
+                assertThat(actual.get(ord), equalTo(expected.get(ord)));
+            }
+        }
+        TermsEnum[] lookups = new TermsEnum[subs.length];
+        for (int s = 0; s < subs.length; s++) {
+            lookups[s] = subs[s].termsEnum();
+        }
+        for (long globalOrd = 0; globalOrd < full.getValueCount(); globalOrd++) {
+            TermsEnum expected = lookups[full.getFirstSegmentNumber(globalOrd)];
+            expected.seekExact(full.getFirstSegmentOrd(globalOrd));
+            BytesRef expectedTerm = BytesRef.deepCopyOf(expected.term());
+            TermsEnum actual = lookups[map.getFirstSegmentNumber(globalOrd)];
+            actual.seekExact(map.getFirstSegmentOrd(globalOrd));
+            assertThat(actual.term(), equalTo(expectedTerm));
+        }
+    }
+}
@@ -56,6 +56,7 @@ public class DateFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("format", b -> b.field("format", "yyyy-MM-dd"));
         checker.registerConflictCheck("locale", b -> b.field("locale", "es"));
         checker.registerConflictCheck("null_value", b -> b.field("null_value", "34500000"));
+        checker.registerConflictCheck("doc_values_encoding", b -> b.field("doc_values_encoding", "adaptive"));
         checker.registerUpdateCheck(b -> b.field("ignore_malformed", true),
             m -> assertTrue(((DateFieldMapper)m).getIgnoreMalformed()));
     }
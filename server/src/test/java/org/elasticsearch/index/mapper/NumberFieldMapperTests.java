@@ -11,6 +11,7 @@ package org.elasticsearch.index.mapper;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.index.codec.ES90AdaptiveDocValuesFormat;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.index.mapper.NumberFieldTypeTests.OutOfRangeSpec;
 import org.elasticsearch.index.termvectors.TermVectorsService;
@@ -24,6 +25,8 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public abstract class NumberFieldMapperTests extends MapperTestCase {
 
@@ -50,6 +53,7 @@ public abstract class NumberFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("index", b -> b.field("index", false));
         checker.registerConflictCheck("store", b -> b.field("store", true));
         checker.registerConflictCheck("null_value", b -> b.field("null_value", 1));
+        checker.registerConflictCheck("doc_values_encoding", b -> b.field("doc_values_encoding", "adaptive"));
         checker.registerUpdateCheck(b -> b.field("coerce", false),
             m -> assertFalse(((NumberFieldMapper) m).coerce()));
         checker.registerUpdateCheck(b -> b.field("ignore_malformed", true),
@@ -131,6 +135,31 @@ public abstract class NumberFieldMapperTests extends MapperTestCase {
         assertEquals(123, pointField.numericValue().doubleValue(), 0d);
     }
 
+    public void testDocValuesEncoding() throws Exception {
+        MapperService mapperService = createMapperService(fieldMapping(this::minimalMapping));
+        assertThat(mapperService.mappingLookup().getDocValuesFormatForField("field"), nullValue());
+
+        mapperService = createMapperService(fieldMapping(b -> {
+            minimalMapping(b);
+            b.field("doc_values_encoding", "adaptive");
+        }));
+        assertThat(mapperService.mappingLookup().getDocValuesFormatForField("field"),
+            sameInstance(ES90AdaptiveDocValuesFormat.INSTANCE));
+
+        mapperService = createMapperService(fieldMapping(b -> {
+            minimalMapping(b);
+            b.field("doc_values_encoding", "adaptive");
+            b.field("doc_values", false);
+        }));
+        assertThat(mapperService.mappingLookup().getDocValuesFormatForField("field"), nullValue());
+
+        Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            minimalMapping(b);
+            b.field("doc_values_encoding", "rle");
+        })));
+        assertThat(e.getMessage(), containsString("Unknown value [rle] for field [doc_values_encoding]"));
+    }
+
     public void testStore() throws Exception {
         DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> {
             minimalMapping(b);
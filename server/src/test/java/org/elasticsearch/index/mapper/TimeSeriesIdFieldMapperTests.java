@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TimeSeriesIdFieldMapperTests extends MapperServiceTestCase {
+
+    private DocumentMapper createTimeSeriesDocumentMapper(String routingPath, CheckedConsumer<XContentBuilder, IOException> properties)
+        throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), routingPath)
+            .build();
+        return createMapperService(settings, mapping(properties)).documentMapper();
+    }
+
+    private BytesRef parseTsid(DocumentMapper mapper, CheckedConsumer<XContentBuilder, IOException> source) throws IOException {
+        ParsedDocument doc = mapper.parse(source(source));
+        IndexableField[] fields = doc.rootDoc().getFields(TimeSeriesIdFieldMapper.NAME);
+        assertThat(fields.length, equalTo(1));
+        assertThat(fields[0].fieldType().docValuesType(), equalTo(DocValuesType.SORTED_SET));
+        return fields[0].binaryValue();
+    }
+
+    public void testEnabledInTimeSeriesMode() throws IOException {
+        DocumentMapper mapper = createTimeSeriesDocumentMapper("a", b -> {
+            b.startObject("a").field("type", "keyword").field("time_series_dimension", true).endObject();
+            b.startObject("b").field("type", "long").field("time_series_dimension", true).endObject();
+            b.startObject("c").field("type", "ip").field("time_series_dimension", true).endObject();
+        });
+        BytesRef tsid = parseTsid(mapper, b -> b.field("a", "foo").field("b", 100).field("c", "192.168.0.1").field("d", 1));
+        Map<String, Object> decoded = TimeSeriesIdFieldMapper.decodeTsid(tsid);
+        assertThat(decoded, equalTo(Map.of("a", "foo", "b", 100L, "c", "192.168.0.1")));
+        assertThat(DocValueFormat.TIME_SERIES_ID.format(tsid), equalTo(decoded));
+    }
+
+    public void testDisabledInStandardMode() throws IOException {
+        DocumentMapper mapper = createDocumentMapper(mapping(b -> {
+            b.startObject("a").field("type", "keyword").field("time_series_dimension", true).endObject();
+        }));
+        ParsedDocument doc = mapper.parse(source(b -> b.field("a", "foo")));
+        assertThat(doc.rootDoc().getField(TimeSeriesIdFieldMapper.NAME), nullValue());
+    }
+
+    public void testSameDimensionsInAnyOrder() throws IOException {
+        DocumentMapper mapper = createTimeSeriesDocumentMapper("a", b -> {
+            b.startObject("a").field("type", "keyword").field("time_series_dimension", true).endObject();
+            b.startObject("b").field("type", "integer").field("time_series_dimension", true).endObject();
+        });
+        BytesRef first = parseTsid(mapper, b -> b.field("a", "foo").field("b", 7));
+        BytesRef second = parseTsid(mapper, b -> b.field("b", 7).field("a", "foo"));
+        assertThat(first, equalTo(second));
+        BytesRef other = parseTsid(mapper, b -> b.field("a", "foo").field("b", 8));
+        assertNotEquals(first, other);
+    }
+
+    public void testMissingDimensions() throws IOException {
+        DocumentMapper mapper = createTimeSeriesDocumentMapper("a", b -> {
+            b.startObject("a").field("type", "keyword").field("time_series_dimension", true).endObject();
+        });
+        Exception e = expectThrows(MapperParsingException.class, () -> mapper.parse(source(b -> b.field("b", "foo"))));
+        assertThat(e.getCause().getMessage(), containsString("Dimension fields are missing."));
+    }
+
+    public void testMultiValuedDimension() throws IOException {
+        DocumentMapper mapper = createTimeSeriesDocumentMapper("a", b -> {
+            b.startObject("a").field("type", "keyword").field("time_series_dimension", true).endObject();
+        });
+        Exception e = expectThrows(MapperParsingException.class, () -> mapper.parse(source(b -> b.array("a", "foo", "bar"))));
+        assertThat(e.getCause().getMessage(), containsString("Dimension field [a] cannot be a multi-valued field."));
+    }
+}
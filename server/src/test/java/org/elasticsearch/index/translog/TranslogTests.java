@@ -607,6 +607,59 @@ public class TranslogTests extends ESTestCase {
         assertNull(translog.readOperation(new Location(100, 0, 0)));
     }
 
+    public void testReadFromMappedGenerations() throws IOException {
+        translog.close();
+        final Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, org.elasticsearch.Version.CURRENT)
+            .put(IndexSettings.INDEX_TRANSLOG_MMAP_SETTING.getKey(), true)
+            .build();
+        final TranslogConfig config = getTranslogConfig(translogDir, settings);
+        final String translogUUID = Translog.createEmptyTranslog(translogDir, SequenceNumbers.NO_OPS_PERFORMED, shardId, primaryTerm.get());
+        translog = openTranslog(config, translogUUID);
+        final List<Translog.Operation> ops = new ArrayList<>();
+        final List<Translog.Location> locations = new ArrayList<>();
+        final int generations = randomIntBetween(1, 4);
+        for (int gen = 0; gen < generations; gen++) {
+            final int numOps = randomIntBetween(1, 100);
+            for (int i = 0; i < numOps; i++) {
+                final byte[] source = randomByteArrayOfLength(randomIntBetween(1, 2048));
+                locations.add(addToTranslogAndList(translog, ops, new Translog.Index(randomAlphaOfLength(8), ops.size(),
+                    primaryTerm.get(), source)));
+            }
+            translog.rollGeneration();
+        }
+        final List<TranslogReader> readers = new ArrayList<>(translog.getReaders());
+        for (TranslogReader reader : readers) {
+            assertNotNull(reader.mapping());
+            assertThat(reader.mapping().refCount(), equalTo(1));
+        }
+        for (int i = 0; i < ops.size(); i++) {
+            assertEquals(ops.get(i), translog.readOperation(locations.get(i)));
+        }
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, SnapshotMatchers.containsOperationsInAnyOrder(ops));
+        }
+
+        // closing the readers releases the mappings and reads from them fail instead of keeping the mappings alive
+        final Translog.Snapshot openSnapshot = translog.newSnapshot();
+        translog.close();
+        for (TranslogReader reader : readers) {
+            assertThat(reader.mapping().refCount(), equalTo(0));
+            expectThrows(AlreadyClosedException.class, () -> reader.read(locations.get(0)));
+        }
+        expectThrows(AlreadyClosedException.class, openSnapshot::next);
+        openSnapshot.close();
+
+        // readers that are opened from disk are mapped too
+        translog = openTranslog(config, translogUUID);
+        for (TranslogReader reader : translog.getReaders()) {
+            assertNotNull(reader.mapping());
+        }
+        try (Translog.Snapshot snapshot = translog.newSnapshot()) {
+            assertThat(snapshot, SnapshotMatchers.containsOperationsInAnyOrder(ops));
+        }
+    }
+
     public void testSnapshotWithNewTranslog() throws IOException {
         List<Closeable> toClose = new ArrayList<>();
         try {
@@ -42,6 +42,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class IndexingMemoryControllerTests extends IndexShardTestCase {
 
@@ -56,6 +57,9 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         // Shards that are currently throttled
         final Set<IndexShard> throttled = new HashSet<>();
 
+        // How many bytes were indexed into this shard since the last check
+        final Map<IndexShard, Long> indexedBytes = new HashMap<>();
+
         MockController(Settings settings) {
             super(Settings.builder()
                             .put("indices.memory.interval", "200h") // disable it
@@ -88,6 +92,12 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
             }
         }
 
+        @Override
+        protected long takeIndexedBytes(IndexShard shard) {
+            Long bytes = indexedBytes.remove(shard);
+            return bytes == null ? 0 : bytes;
+        }
+
         @Override
         protected void checkIdle(IndexShard shard, long inactiveTimeNS) {
         }
@@ -147,6 +157,7 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
             // Each doc we index takes up a megabyte!
             bytes += 1024*1024;
             indexBufferRAMBytesUsed.put(shard, bytes);
+            indexedBytes.merge(shard, 1024L * 1024, Long::sum);
             forceCheck();
         }
 
@@ -222,6 +233,55 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         closeShards(shard0, shard1);
     }
 
+    public void testAdaptiveWritesShardsOverTheirBudgetFirst() throws IOException {
+        MockController controller = new MockController(Settings.builder()
+                                                       .put("indices.memory.index_buffer_size", "10mb")
+                                                       .put("indices.memory.adaptive", true)
+                                                       .build());
+        IndexShard slow = newStartedShard();
+        IndexShard fast = newStartedShard();
+        for (int i = 0; i < 4; i++) {
+            controller.simulateIndexing(slow);
+        }
+        // only the fast shard indexes from now on so it gets most of the buffer
+        for (int i = 0; i < 6; i++) {
+            controller.simulateIndexing(fast);
+        }
+        controller.assertBuffer(slow, 4);
+        controller.assertBuffer(fast, 6);
+        assertEquals(0, controller.stats().getBufferWrites());
+
+        // crosses the 10mb limit, the fast shard has the larger buffer but the slow one is over its share of the buffer
+        controller.simulateIndexing(fast);
+        controller.assertBuffer(slow, 0);
+        controller.assertWriting(slow, 4);
+        controller.assertBuffer(fast, 7);
+        assertTrue(controller.stats().isAdaptive());
+        assertEquals(1, controller.stats().getBufferWrites());
+        assertEquals(7 * 1024 * 1024, controller.stats().getUsedInBytes());
+        assertEquals(4 * 1024 * 1024, controller.stats().getWritingInBytes());
+        closeShards(slow, fast);
+    }
+
+    public void testBudgets() {
+        assertArrayEquals(new long[0], IndexingMemoryController.budgets(100, new double[0]));
+        assertArrayEquals(new long[] {50, 50}, IndexingMemoryController.budgets(100, new double[] {0, 0}));
+        assertArrayEquals(new long[] {62, 37}, IndexingMemoryController.budgets(100, new double[] {3, 1}));
+        assertArrayEquals(new long[] {75, 25}, IndexingMemoryController.budgets(100, new double[] {1, 0}));
+
+        long indexingBuffer = randomLongBetween(0, ByteSizeUnit.TB.toBytes(1));
+        double[] rates = new double[between(1, 100)];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = randomDoubleBetween(0, 1000, true);
+        }
+        long total = 0;
+        for (long budget : IndexingMemoryController.budgets(indexingBuffer, rates)) {
+            assertThat(budget, greaterThanOrEqualTo(indexingBuffer / 2 / rates.length));
+            total += budget;
+        }
+        assertThat(total, lessThanOrEqualTo(indexingBuffer));
+    }
+
     public void testMinBufferSizes() {
         MockController controller = new MockController(Settings.builder()
                                                        .put("indices.memory.index_buffer_size", "0.001%")
@@ -371,7 +431,7 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
             config.getQueryCachingPolicy(), config.getTranslogConfig(), config.getFlushMergesAfter(),
             config.getExternalRefreshListener(), internalRefreshListener, config.getIndexSort(),
             config.getCircuitBreakerService(), config.getGlobalCheckpointSupplier(), config.retentionLeasesSupplier(),
-            config.getPrimaryTermSupplier(), config.getSnapshotCommitSupplier(), config.getLeafSorter());
+            config.getPrimaryTermSupplier(), config.getSnapshotCommitSupplier(), config.getLeafSorter(), config.getNodeMergeScheduler());
     }
 
     ThreadPoolStats.Stats getRefreshThreadPoolStats() {
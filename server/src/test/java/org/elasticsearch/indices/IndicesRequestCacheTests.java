@@ -15,6 +15,8 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -23,6 +25,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.AbstractBytesReference;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -406,6 +409,58 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     }
 
+    public void testSegmentEntriesSurviveRefresh() throws Exception {
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard);
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        BytesReference termBytes = XContentHelper.toXContent(new TermQueryBuilder("id", "0"), XContentType.JSON, false);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+
+        writer.addDocument(newDoc(0, "foo"));
+        writer.flush();
+        writer.addDocument(newDoc(1, "bar"));
+        DirectoryReader reader = DirectoryReader.open(writer);
+        assertEquals(2, reader.leaves().size());
+        for (LeafReaderContext ctx : reader.leaves()) {
+            IndexReader.CacheHelper cacheHelper = ctx.reader().getReaderCacheHelper();
+            assertNull(cache.getSegment(entity, mappingKey, cacheHelper, termBytes));
+            cache.putSegment(entity, mappingKey, cacheHelper, termBytes, new BytesArray("segment" + ctx.ord));
+        }
+        assertEquals(2, cache.count());
+        assertEquals(2, cache.numRegisteredCloseListeners());
+        assertEquals(0, requestCacheStats.stats().getHitCount());
+        assertEquals(0, requestCacheStats.stats().getMissCount());
+        assertTrue(requestCacheStats.stats().getMemorySize().getBytes() > 0);
+
+        // a new segment and a delete in the second segment only leave the first segment's entry usable
+        writer.addDocument(newDoc(2, "baz"));
+        writer.deleteDocuments(new Term("id", "1"));
+        DirectoryReader secondReader = DirectoryReader.openIfChanged(reader, writer);
+        assertEquals(3, secondReader.leaves().size());
+        List<LeafReaderContext> leaves = secondReader.leaves();
+        assertEquals(
+            new BytesArray("segment0"),
+            cache.getSegment(entity, mappingKey, leaves.get(0).reader().getReaderCacheHelper(), termBytes)
+        );
+        assertNull(cache.getSegment(entity, mappingKey, leaves.get(1).reader().getReaderCacheHelper(), termBytes));
+        assertNull(cache.getSegment(entity, mappingKey, leaves.get(2).reader().getReaderCacheHelper(), termBytes));
+
+        // the entry of the second segment goes away once the only reader that uses it is closed
+        reader.close();
+        cache.cleanCache();
+        assertEquals(1, cache.count());
+        assertEquals(1, cache.numRegisteredCloseListeners());
+
+        secondReader.close();
+        cache.cleanCache();
+        assertEquals(0, cache.count());
+        assertEquals(0L, requestCacheStats.stats().getMemorySize().getBytes());
+        IOUtils.close(writer, dir, cache);
+    }
+
     public Iterable<Field> newDoc(int id, String value) {
         return Arrays.asList(newField("id", Integer.toString(id), StringField.TYPE_STORED), newField("value", value,
             StringField.TYPE_STORED));
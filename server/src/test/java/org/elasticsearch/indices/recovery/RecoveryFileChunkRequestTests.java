@@ -0,0 +1,96 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class RecoveryFileChunkRequestTests extends ESTestCase {
+
+    public void testSerialization() throws IOException {
+        final Version version = VersionUtils.randomCompatibleVersion(random(), Version.CURRENT);
+        final RecoveryFileChunkRequest outRequest = randomRequest(version);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            outRequest.writeTo(out);
+            assertSameRequest(outRequest, readRequest(out.bytes(), version));
+        } finally {
+            outRequest.decRef();
+        }
+    }
+
+    public void testContentIsSentWithoutCopying() throws IOException {
+        final RecoveryFileChunkRequest outRequest = randomRequest(Version.CURRENT);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            final BytesReference trailingBytes = outRequest.writeWithoutTrailingBytes(out);
+            assertThat(trailingBytes, sameInstance(outRequest.content()));
+            assertSameRequest(outRequest, readRequest(CompositeBytesReference.of(out.bytes(), trailingBytes), Version.CURRENT));
+        } finally {
+            outRequest.decRef();
+        }
+    }
+
+    public void testContentIsCopiedForOlderVersions() throws IOException {
+        final Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        final RecoveryFileChunkRequest outRequest = randomRequest(version);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            assertThat(outRequest.writeWithoutTrailingBytes(out), sameInstance(BytesArray.EMPTY));
+            assertSameRequest(outRequest, readRequest(out.bytes(), version));
+        } finally {
+            outRequest.decRef();
+        }
+    }
+
+    private static RecoveryFileChunkRequest randomRequest(Version version) {
+        final StoreFileMetadata metadata = new StoreFileMetadata(randomAlphaOfLength(10), randomNonNegativeLong(),
+            randomAlphaOfLength(10), Version.CURRENT.luceneVersion.toString());
+        final BytesArray content = new BytesArray(randomByteArrayOfLength(between(0, 1024)));
+        return new RecoveryFileChunkRequest(randomNonNegativeLong(), randomNonNegativeLong(),
+            new ShardId("test", "_na_", between(0, 10)), metadata, randomNonNegativeLong(), ReleasableBytesReference.wrap(content),
+            randomBoolean(), between(0, 1000), randomNonNegativeLong(), version.onOrAfter(Version.V_8_0_0) && randomBoolean());
+    }
+
+    private static RecoveryFileChunkRequest readRequest(BytesReference bytes, Version version) throws IOException {
+        try (StreamInput in = bytes.streamInput()) {
+            in.setVersion(version);
+            return new RecoveryFileChunkRequest(in);
+        }
+    }
+
+    private static void assertSameRequest(RecoveryFileChunkRequest expected, RecoveryFileChunkRequest actual) {
+        assertThat(actual.recoveryId(), equalTo(expected.recoveryId()));
+        assertThat(actual.requestSeqNo(), equalTo(expected.requestSeqNo()));
+        assertThat(actual.shardId(), equalTo(expected.shardId()));
+        assertThat(actual.name(), equalTo(expected.name()));
+        assertThat(actual.position(), equalTo(expected.position()));
+        assertThat(actual.length(), equalTo(expected.length()));
+        assertThat(actual.metadata().checksum(), equalTo(expected.metadata().checksum()));
+        assertThat(actual.metadata().writtenBy(), equalTo(expected.metadata().writtenBy()));
+        assertThat(actual.content(), equalTo(expected.content()));
+        assertThat(actual.lastChunk(), equalTo(expected.lastChunk()));
+        assertThat(actual.totalTranslogOps(), equalTo(expected.totalTranslogOps()));
+        assertThat(actual.sourceThrottleTimeInNanos(), equalTo(expected.sourceThrottleTimeInNanos()));
+        assertThat(actual.ranged(), equalTo(expected.ranged()));
+    }
+}
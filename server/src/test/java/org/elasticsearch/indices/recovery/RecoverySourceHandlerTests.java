@@ -19,8 +19,10 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
+import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -216,6 +218,152 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testSendFilesInRanges() throws Exception {
+        final int chunkSize = between(1, 32);
+        final long fileRangeSize = between(chunkSize, chunkSize * 4);
+        Store store = newStore(createTempDir(), false);
+        List<StoreFileMetadata> files = generateFiles(store, between(1, 10), () -> between(1, chunkSize * 20));
+        // the ranges are written through the directory of the store, whether or not it is backed by a file system
+        Store targetStore = randomBoolean()
+            ? newStore(createTempDir(), false)
+            : new Store(shardId, INDEX_SETTINGS, new ByteBuffersDirectory(), new DummyShardLock(shardId));
+        MultiFileWriter multiFileWriter = new MultiFileWriter(targetStore, mock(RecoveryState.Index.class), "", logger, () -> {});
+        final Queue<FileChunkRequest> rangeChunks = ConcurrentCollections.newQueue();
+        final Set<String> wholeFiles = ConcurrentCollections.newConcurrentSet();
+        RecoveryTargetHandler target = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileChunk(StoreFileMetadata md, long position, ReleasableBytesReference content, boolean lastChunk,
+                                       int totalTranslogOps, ActionListener<Void> listener) {
+                ActionListener.completeWith(listener, () -> {
+                    wholeFiles.add(md.name());
+                    multiFileWriter.writeFileChunk(md, position, content, lastChunk);
+                    return null;
+                });
+            }
+
+            @Override
+            public void writeFileRangeChunk(StoreFileMetadata md, long position, ReleasableBytesReference content,
+                                            int totalTranslogOps, ActionListener<Void> listener) {
+                ActionListener.completeWith(listener, () -> {
+                    rangeChunks.add(new FileChunkRequest(md.name(), position, content.length()));
+                    multiFileWriter.writeFileRangeChunk(md, position, content);
+                    return null;
+                });
+            }
+        };
+        RecoverySourceHandler handler = new RecoverySourceHandler(null, new AsyncRecoveryTarget(target, recoveryExecutor), threadPool,
+            getStartRecoveryRequest(), chunkSize, between(1, 5), between(1, 5), between(1, 5), false, recoveryPlannerService,
+            fileRangeSize, between(1, 5));
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, files.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        sendFilesFuture.actionGet();
+
+        for (StoreFileMetadata md : files) {
+            final List<FileChunkRequest> chunks = rangeChunks.stream()
+                .filter(chunk -> chunk.name.equals(md.name()))
+                .sorted(Comparator.comparingLong(chunk -> chunk.position))
+                .collect(Collectors.toList());
+            if (md.length() > fileRangeSize) {
+                assertFalse("file [" + md.name() + "] should be sent in ranges", wholeFiles.contains(md.name()));
+                long expectedPosition = 0;
+                for (FileChunkRequest chunk : chunks) {
+                    assertThat(chunk.position, equalTo(expectedPosition));
+                    // a chunk never spans two ranges
+                    assertThat((chunk.position + chunk.length - 1) / fileRangeSize, equalTo(chunk.position / fileRangeSize));
+                    expectedPosition += chunk.length;
+                }
+                assertThat(expectedPosition, equalTo(md.length()));
+            } else {
+                assertTrue("file [" + md.name() + "] should be sent as a whole", wholeFiles.contains(md.name()));
+                assertThat(chunks, hasSize(0));
+            }
+        }
+        // the chunks were written at their position into the temporary files, and verified against their checksums
+        for (Map.Entry<String, String> tempFile : multiFileWriter.tempFileNames.entrySet()) {
+            assertArrayEquals(readFile(store, tempFile.getValue()), readFile(targetStore, tempFile.getKey()));
+        }
+        assertThat(multiFileWriter.tempFileNames.size(), equalTo(files.size()));
+        IOUtils.close(multiFileWriter, store, targetStore);
+    }
+
+    public void testSendFileRangesConcurrently() throws Exception {
+        final Object mutex = new Object();
+        final List<FileChunkRequest> unrepliedChunks = new ArrayList<>();
+        final List<ActionListener<Void>> unrepliedListeners = new ArrayList<>();
+        final AtomicBoolean autoReply = new AtomicBoolean();
+        final AtomicInteger sentChunks = new AtomicInteger();
+        final TestRecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void writeFileRangeChunk(StoreFileMetadata md, long position, ReleasableBytesReference content,
+                                            int totalTranslogOps, ActionListener<Void> listener) {
+                sentChunks.incrementAndGet();
+                synchronized (mutex) {
+                    if (autoReply.get() == false) {
+                        unrepliedChunks.add(new FileChunkRequest(md.name(), position, content.length()));
+                        unrepliedListeners.add(listener);
+                        return;
+                    }
+                }
+                listener.onResponse(null);
+            }
+        };
+        final int chunkSize = between(1, 16);
+        final int maxConcurrentFileRanges = between(2, 5);
+        final long fileRangeSize = between(Math.max(chunkSize, 8), chunkSize * 4 + 8);
+        // a single chunk in flight per sender, so that the chunks in flight show how the ranges were dealt out
+        final RecoverySourceHandler handler = new RecoverySourceHandler(null, new AsyncRecoveryTarget(recoveryTarget, recoveryExecutor),
+            threadPool, getStartRecoveryRequest(), chunkSize, 1, between(1, 5), between(1, 5), false, recoveryPlannerService,
+            fileRangeSize, maxConcurrentFileRanges);
+        Store store = newStore(createTempDir(), false);
+        final int numRanges = between(maxConcurrentFileRanges, maxConcurrentFileRanges * 3);
+        List<StoreFileMetadata> files = generateFiles(store, 1, () -> Math.toIntExact(fileRangeSize * numRanges - 8));
+        final StoreFileMetadata md = files.get(0);
+        int totalChunks = 0;
+        for (long start = 0; start < md.length(); start += fileRangeSize) {
+            totalChunks += (Math.min(fileRangeSize, md.length() - start) + chunkSize - 1) / chunkSize;
+        }
+
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, files.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        // every sender sends the first chunk of the first range it was dealt
+        assertBusy(() -> assertThat(sentChunks.get(), equalTo(maxConcurrentFileRanges)));
+        final Set<Long> expectedPositions = new HashSet<>();
+        for (int i = 0; i < maxConcurrentFileRanges; i++) {
+            expectedPositions.add(i * fileRangeSize);
+        }
+        final List<ActionListener<Void>> listeners;
+        synchronized (mutex) {
+            assertThat(unrepliedChunks.stream().map(chunk -> chunk.position).collect(Collectors.toSet()), equalTo(expectedPositions));
+            autoReply.set(true);
+            listeners = new ArrayList<>(unrepliedListeners);
+            unrepliedListeners.clear();
+        }
+        listeners.forEach(listener -> listener.onResponse(null));
+        sendFilesFuture.actionGet();
+        assertThat(sentChunks.get(), equalTo(totalChunks));
+        store.close();
+    }
+
+    private static byte[] readFile(Store store, String name) throws IOException {
+        try (IndexInput input = store.directory().openInput(name, IOContext.READONCE)) {
+            final byte[] bytes = new byte[Math.toIntExact(input.length())];
+            input.readBytes(bytes, 0, bytes.length);
+            return bytes;
+        }
+    }
+
+    private static final class FileChunkRequest {
+        final String name;
+        final long position;
+        final int length;
+
+        FileChunkRequest(String name, long position, int length) {
+            this.name = name;
+            this.position = position;
+            this.length = length;
+        }
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
@@ -9,16 +9,30 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.backward_codecs.store.EndiannessReverserUtil;
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.Matchers.equalTo;
 
 public class RecoveryStatusTests extends ESSingleNodeTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
@@ -67,4 +81,98 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         assertFalse(strings.toString(), strings.contains(expectedFile));
         multiFileWriter.close();
     }
+
+    public void testWriteFileRangeChunksInAnyOrder() throws IOException {
+        IndexService service = createIndex("foo");
+        IndexShard indexShard = service.getShardOrNull(0);
+        byte[] bytes = randomFileWithFooter(between(1, 1 << 16));
+        StoreFileMetadata metadata = new StoreFileMetadata("foo.bar", bytes.length, checksum(bytes),
+            MIN_SUPPORTED_LUCENE_VERSION.toString());
+        List<long[]> chunks = randomChunks(bytes.length);
+        RecoveryState.Index indexState = new RecoveryState.Index();
+        indexState.addFileDetail("foo.bar", bytes.length, false);
+        try (MultiFileWriter multiFileWriter = new MultiFileWriter(indexShard.store(), indexState, "recovery.test.", logger, () -> {})) {
+            for (long[] chunk : chunks) {
+                multiFileWriter.writeFileRangeChunk(metadata, chunk[0], chunk(bytes, chunk));
+                if (randomBoolean()) {
+                    // a chunk that is sent again after a retry is ignored
+                    multiFileWriter.writeFileRangeChunk(metadata, chunk[0], chunk(bytes, chunk));
+                }
+            }
+            String tempFileName = multiFileWriter.getTempNameForFile("foo.bar");
+            try (IndexInput input = indexShard.store().directory().openInput(tempFileName, IOContext.READONCE)) {
+                byte[] written = new byte[bytes.length];
+                input.readBytes(written, 0, written.length);
+                assertArrayEquals(bytes, written);
+            }
+            // the parts of the file were deleted once they were concatenated
+            for (String file : indexShard.store().directory().listAll()) {
+                assertFalse(file, file.startsWith(tempFileName + ".part"));
+            }
+            assertThat(indexState.getFileDetails("foo.bar").recovered(), equalTo((long) bytes.length));
+        }
+    }
+
+    public void testWriteFileRangeChunksDetectsCorruption() throws IOException {
+        IndexService service = createIndex("foo");
+        IndexShard indexShard = service.getShardOrNull(0);
+        byte[] bytes = randomFileWithFooter(between(1, 1 << 16));
+        StoreFileMetadata metadata = new StoreFileMetadata("foo.bar", bytes.length, checksum(bytes),
+            MIN_SUPPORTED_LUCENE_VERSION.toString());
+        bytes[randomIntBetween(0, bytes.length - 1)] ^= 1;
+        List<long[]> chunks = randomChunks(bytes.length);
+        RecoveryState.Index indexState = new RecoveryState.Index();
+        indexState.addFileDetail("foo.bar", bytes.length, false);
+        try (MultiFileWriter multiFileWriter = new MultiFileWriter(indexShard.store(), indexState, "recovery.test.", logger, () -> {})) {
+            CorruptIndexException corruption = null;
+            for (long[] chunk : chunks) {
+                try {
+                    multiFileWriter.writeFileRangeChunk(metadata, chunk[0], chunk(bytes, chunk));
+                } catch (CorruptIndexException e) {
+                    corruption = e;
+                    break;
+                }
+            }
+            assertNotNull("corruption was not detected", corruption);
+        }
+    }
+
+    private static byte[] randomFileWithFooter(int length) throws IOException {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexOutput output = directory.createOutput("file", IOContext.DEFAULT)) {
+                output.writeBytes(randomByteArrayOfLength(length), length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput("file", IOContext.READONCE)) {
+                byte[] bytes = new byte[Math.toIntExact(input.length())];
+                input.readBytes(bytes, 0, bytes.length);
+                return bytes;
+            }
+        }
+    }
+
+    private static String checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        return Store.digestToString(crc.getValue());
+    }
+
+    /**
+     * Splits a file of the given length into chunks of random size, in random order, as {@code [position, length]} pairs.
+     */
+    private static List<long[]> randomChunks(int length) {
+        List<long[]> chunks = new ArrayList<>();
+        int position = 0;
+        while (position < length) {
+            int chunkLength = Math.min(between(1, 4096), length - position);
+            chunks.add(new long[] { position, chunkLength });
+            position += chunkLength;
+        }
+        Collections.shuffle(chunks, random());
+        return chunks;
+    }
+
+    private static ReleasableBytesReference chunk(byte[] bytes, long[] chunk) {
+        return ReleasableBytesReference.wrap(new BytesArray(bytes, Math.toIntExact(chunk[0]), Math.toIntExact(chunk[1])));
+    }
 }
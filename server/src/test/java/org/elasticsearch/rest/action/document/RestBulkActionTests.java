@@ -11,11 +11,13 @@ package org.elasticsearch.rest.action.document;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xcontent.XContentType;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
@@ -23,9 +25,13 @@ import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.client.NoOpNodeClient;
 import org.elasticsearch.test.rest.FakeRestRequest;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.mock;
@@ -66,4 +72,68 @@ public class RestBulkActionTests extends ESTestCase {
             assertThat(bulkCalled.get(), equalTo(true));
         }
     }
+
+    public void testBulkWithBatchSize() throws Exception {
+        List<BulkRequest> batches = new ArrayList<>();
+        try (NodeClient verifyingClient = new NoOpNodeClient(this.getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+                assertThat(request.timeout(), equalTo(TimeValue.timeValueSeconds(5)));
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+            }
+        }) {
+            final Map<String, String> params = new HashMap<>();
+            params.put("batch_size", "1b");
+            params.put("timeout", "5s");
+            new RestBulkAction(settings(Version.CURRENT).build())
+                .handleRequest(
+                    new FakeRestRequest.Builder(
+                        xContentRegistry()).withPath("my_index/_bulk").withParams(params)
+                        .withContent(
+                            new BytesArray(
+                                "{\"index\":{\"_id\":\"1\"}}\n" +
+                                    "{\"field1\":\"val1\"}\n" +
+                                    "{\"delete\":{\"_id\":\"2\"}}\n"
+                            ),
+                            XContentType.JSON
+                        ).withMethod(RestRequest.Method.POST).build(),
+                    mock(RestChannel.class), verifyingClient
+                );
+            assertThat(batches, hasSize(2));
+            assertThat(batches.get(0).requests(), hasSize(1));
+            assertThat(batches.get(1).requests(), hasSize(1));
+        }
+    }
+
+    public void testBulkWithBatchSizeValidatesTheWholeBodyFirst() throws Exception {
+        List<BulkRequest> batches = new ArrayList<>();
+        try (NodeClient verifyingClient = new NoOpNodeClient(this.getTestName()) {
+            @Override
+            public void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+                batches.add(request);
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 0));
+            }
+        }) {
+            final Map<String, String> params = new HashMap<>();
+            params.put("batch_size", "1b");
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () ->
+                new RestBulkAction(settings(Version.CURRENT).build())
+                    .handleRequest(
+                        new FakeRestRequest.Builder(
+                            xContentRegistry()).withPath("my_index/_bulk").withParams(params)
+                            .withContent(
+                                new BytesArray(
+                                    "{\"index\":{\"_id\":\"1\"}}\n" +
+                                        "{\"field1\":\"val1\"}\n" +
+                                        "{\"delete\":{\"_id\":\"2\"}}"
+                                ),
+                                XContentType.JSON
+                            ).withMethod(RestRequest.Method.POST).build(),
+                        mock(RestChannel.class), verifyingClient
+                    ));
+            assertThat(e.getMessage(), containsString("must be terminated by a newline"));
+            assertThat(batches, empty());
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.TopHitsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.query.QueryPhase;
+import org.elasticsearch.test.TestSearchContext;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AggregationPhaseTests extends AggregatorTestCase {
+
+    private final MappedFieldType valueFieldType = new NumberFieldMapper.NumberFieldType("value", NumberFieldMapper.NumberType.LONG);
+
+    private IndexShard indexShard;
+    private Directory directory;
+    private IndexReader reader;
+    private int numSegments;
+
+    @Before
+    public void setUpIndex() throws IOException {
+        indexShard = mock(IndexShard.class);
+        when(indexShard.shardId()).thenReturn(new ShardId("test", "test", 0));
+        directory = newDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int segments = randomIntBetween(2, 10);
+            for (int i = 0; i < segments; i++) {
+                final int docsInSegment = randomIntBetween(1, 50);
+                for (int j = 0; j < docsInSegment; j++) {
+                    final Document doc = new Document();
+                    doc.add(new SortedNumericDocValuesField("value", randomLongBetween(-1000, 1000)));
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(directory);
+        numSegments = reader.leaves().size();
+    }
+
+    @After
+    public void tearDownIndex() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    public void testCachedSegmentResultsMatchUncachedResults() throws IOException {
+        final InternalAggregations uncached = search(newSearchContext(), null);
+
+        final TestSegmentCache cache = new TestSegmentCache();
+        final InternalAggregations computed = search(newSearchContext(), cache);
+        assertThat(cache.misses, equalTo(numSegments));
+        assertThat(cache.entries.size(), equalTo(numSegments));
+        assertSameResults(computed, uncached);
+
+        // every segment comes from the cache now
+        final InternalAggregations cached = search(newSearchContext(), cache);
+        assertThat(cache.hits, equalTo(numSegments));
+        assertThat(cache.misses, equalTo(numSegments));
+        assertThat(cache.puts, equalTo(numSegments));
+        assertSameResults(cached, uncached);
+    }
+
+    public void testTimedOutSearchIsNotCached() throws IOException {
+        final AtomicLong clock = new AtomicLong();
+        final TestSearchContext context = new TestSearchContext(null, indexShard, newContextSearcher()) {
+            @Override
+            public TimeValue timeout() {
+                return TimeValue.timeValueMillis(1);
+            }
+
+            @Override
+            public long getRelativeTimeInMillis() {
+                // the first call starts the search and every later call is past its timeout
+                return clock.getAndAdd(10);
+            }
+        };
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+
+        final TestSegmentCache cache = new TestSegmentCache();
+        search(context, cache);
+        assertTrue(context.queryResult().searchTimedOut());
+        // the segments that were collected entirely before the timeout aren't cached either
+        assertThat(cache.puts, equalTo(0));
+        assertThat(cache.entries.size(), equalTo(0));
+    }
+
+    public void testAggregationsThatCantBeReducedPerSegmentAreNotCached() throws IOException {
+        // top hits refer to documents by their position in the shard
+        assertFalse(AggregatorFactories.builder().addAggregator(new TopHitsAggregationBuilder("top_hits")).supportsSegmentCache());
+
+        // partially reducing terms truncates their buckets
+        final AggregatorFactories.Builder aggregations = AggregatorFactories.builder()
+            .addAggregator(new SumAggregationBuilder("sum").field("value"))
+            .addAggregator(new TermsAggregationBuilder("terms").field("value"));
+        assertFalse(aggregations.supportsSegmentCache());
+
+        // the aggregation phase doesn't use the cache even if it is set
+        final TestSegmentCache cache = new TestSegmentCache();
+        final TestSearchContext context = newSearchContext();
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(0);
+        setAggregations(context, aggregations, cache);
+        new QueryPhase().execute(context);
+        assertThat(cache.misses, equalTo(0));
+        assertThat(cache.puts, equalTo(0));
+    }
+
+    private InternalAggregations search(TestSearchContext context, SegmentAggregationCache cache) throws IOException {
+        final AggregatorFactories.Builder aggregations = AggregatorFactories.builder()
+            .addAggregator(new SumAggregationBuilder("sum").field("value"))
+            .addAggregator(new MaxAggregationBuilder("max").field("value"))
+            .addAggregator(new ValueCountAggregationBuilder("count").field("value"))
+            .addAggregator(new HistogramAggregationBuilder("histogram").field("value").interval(100).minDocCount(1));
+        assertTrue(aggregations.supportsSegmentCache());
+
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(0);
+        setAggregations(context, aggregations, cache);
+        new QueryPhase().execute(context);
+        assertThat(context.aggregations(), nullValue());
+        return context.queryResult().aggregations().expand();
+    }
+
+    private void setAggregations(TestSearchContext context, AggregatorFactories.Builder aggregations, SegmentAggregationCache cache)
+        throws IOException {
+        final SearchContextAggregations contextAggregations = new SearchContextAggregations(
+            aggregations.build(createAggregationContext(context.searcher(), new MatchAllDocsQuery(), valueFieldType), null),
+            aggregations.supportsSlicedCollection()
+        );
+        if (cache != null) {
+            contextAggregations.segmentCache(cache);
+        }
+        context.aggregations(contextAggregations);
+    }
+
+    private static void assertSameResults(InternalAggregations actual, InternalAggregations expected) {
+        assertThat(((Sum) actual.get("sum")).getValue(), equalTo(((Sum) expected.get("sum")).getValue()));
+        assertThat(((Max) actual.get("max")).getValue(), equalTo(((Max) expected.get("max")).getValue()));
+        assertThat(((ValueCount) actual.get("count")).getValue(), equalTo(((ValueCount) expected.get("count")).getValue()));
+        assertThat(buckets(actual.get("histogram")), equalTo(buckets(expected.get("histogram"))));
+    }
+
+    private static Map<Object, Long> buckets(Histogram histogram) {
+        final Map<Object, Long> buckets = new HashMap<>();
+        for (Histogram.Bucket bucket : histogram.getBuckets()) {
+            buckets.put(bucket.getKey(), bucket.getDocCount());
+        }
+        return buckets;
+    }
+
+    private TestSearchContext newSearchContext() throws IOException {
+        final TestSearchContext context = new TestSearchContext(null, indexShard, newContextSearcher());
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        return context;
+    }
+
+    private ContextIndexSearcher newContextSearcher() throws IOException {
+        return new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            true
+        );
+    }
+
+    /**
+     * Caches the results of segments by their reader cache key, like the request cache does.
+     */
+    private static class TestSegmentCache implements SegmentAggregationCache {
+        private final Map<Object, InternalAggregations> entries = new HashMap<>();
+        private int hits;
+        private int misses;
+        private int puts;
+
+        @Override
+        public InternalAggregations get(LeafReaderContext ctx) {
+            final InternalAggregations cached = entries.get(ctx.reader().getReaderCacheHelper().getKey());
+            if (cached == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return cached;
+        }
+
+        @Override
+        public void put(LeafReaderContext ctx, InternalAggregations aggregations) {
+            puts++;
+            entries.put(ctx.reader().getReaderCacheHelper().getKey(), aggregations);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.elasticsearch.search.aggregations.bucket.terms.SignificantLongTermsTe
 import org.elasticsearch.search.aggregations.bucket.terms.SignificantStringTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.StringRareTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
+import org.elasticsearch.search.aggregations.bucket.timeseries.InternalTimeSeriesTests;
 import org.elasticsearch.search.aggregations.metrics.InternalAvgTests;
 import org.elasticsearch.search.aggregations.metrics.InternalCardinalityTests;
 import org.elasticsearch.search.aggregations.metrics.InternalExtendedStatsTests;
@@ -138,6 +139,7 @@ public class AggregationsTests extends ESTestCase {
         new InternalGeoDistanceTests(),
         new InternalFiltersTests(),
         new InternalAdjacencyMatrixTests(),
+        new InternalTimeSeriesTests(),
         new SignificantLongTermsTests(),
         new SignificantStringTermsTests(),
         new InternalScriptedMetricTests(),
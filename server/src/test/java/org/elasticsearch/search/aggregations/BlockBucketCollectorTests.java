@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BlockBucketCollectorTests extends ESTestCase {
+
+    /**
+     * Records every document it collects and the size of every block.
+     */
+    private static class RecordingBucketCollector extends BucketCollector {
+        private final ScoreMode scoreMode;
+        private final int terminateAfterPerSegment;
+        private final List<Integer> docs = new ArrayList<>();
+        private final List<Integer> blockSizes = new ArrayList<>();
+
+        RecordingBucketCollector(ScoreMode scoreMode, int terminateAfterPerSegment) {
+            this.scoreMode = scoreMode;
+            this.terminateAfterPerSegment = terminateAfterPerSegment;
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx) {
+            return new LeafBucketCollector() {
+                private int collected = 0;
+
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    if (collected >= terminateAfterPerSegment) {
+                        throw new CollectionTerminatedException();
+                    }
+                    collected++;
+                    docs.add(ctx.docBase + doc);
+                }
+
+                @Override
+                public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+                    blockSizes.add(count);
+                    super.collect(docs, count, owningBucketOrd);
+                }
+            };
+        }
+
+        @Override
+        public void preCollection() {}
+
+        @Override
+        public void postCollection() {}
+
+        @Override
+        public ScoreMode scoreMode() {
+            return scoreMode;
+        }
+    }
+
+    public void testWrapNeedsScores() {
+        RecordingBucketCollector collector = new RecordingBucketCollector(ScoreMode.COMPLETE, Integer.MAX_VALUE);
+        assertThat(BlockBucketCollector.wrap(collector), sameInstance(collector));
+        assertThat(BlockBucketCollector.wrap(BucketCollector.NO_OP_COLLECTOR), sameInstance(BucketCollector.NO_OP_COLLECTOR));
+    }
+
+    public void testCollectsAllDocsInBlocks() throws IOException {
+        try (Directory directory = newDirectory()) {
+            int numDocs = indexDocs(directory);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                RecordingBucketCollector collector = new RecordingBucketCollector(ScoreMode.COMPLETE_NO_SCORES, Integer.MAX_VALUE);
+                BucketCollector wrapped = BlockBucketCollector.wrap(collector);
+                assertThat(wrapped, instanceOf(BlockBucketCollector.class));
+                wrapped.preCollection();
+                searcher.search(new MatchAllDocsQuery(), wrapped);
+                ((BlockBucketCollector) wrapped).flush();
+
+                assertThat(collector.docs.size(), equalTo(numDocs));
+                for (int i = 0; i < numDocs; i++) {
+                    assertThat(collector.docs.get(i), equalTo(i));
+                }
+                for (int blockSize : collector.blockSizes) {
+                    assertThat(blockSize, greaterThan(0));
+                    assertThat(blockSize, lessThanOrEqualTo(BlockBucketCollector.BLOCK_SIZE));
+                }
+            }
+        }
+    }
+
+    public void testTerminatedSegmentDoesNotStopOtherSegments() throws IOException {
+        try (Directory directory = newDirectory()) {
+            indexDocs(directory);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                int terminateAfter = between(1, 10);
+                RecordingBucketCollector collector = new RecordingBucketCollector(ScoreMode.COMPLETE_NO_SCORES, terminateAfter);
+                BlockBucketCollector wrapped = (BlockBucketCollector) BlockBucketCollector.wrap(collector);
+                wrapped.preCollection();
+                searcher.search(new MatchAllDocsQuery(), wrapped);
+                wrapped.flush();
+
+                int expected = 0;
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    expected += Math.min(terminateAfter, ctx.reader().maxDoc());
+                }
+                assertThat(collector.docs.size(), equalTo(expected));
+            }
+        }
+    }
+
+    private int indexDocs(Directory directory) throws IOException {
+        int numDocs = 0;
+        try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory)) {
+            int numSegments = between(1, 4);
+            for (int s = 0; s < numSegments; s++) {
+                int docs = between(1, BlockBucketCollector.BLOCK_SIZE * 3);
+                for (int d = 0; d < docs; d++) {
+                    iw.addDocument(new Document());
+                }
+                numDocs += docs;
+                iw.commit();
+            }
+        }
+        return numDocs;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.ParsedMultiBucketAggregation;
+import org.elasticsearch.test.InternalMultiBucketAggregationTestCase;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class InternalTimeSeriesTests extends InternalMultiBucketAggregationTestCase<InternalTimeSeries> {
+
+    @Override
+    protected InternalTimeSeries createTestInstance(String name, Map<String, Object> metadata, InternalAggregations aggregations) {
+        boolean keyed = randomBoolean();
+        // the buckets are sorted by _tsid and every _tsid has a single bucket
+        TreeSet<BytesRef> tsids = new TreeSet<>();
+        int numBuckets = randomNumberOfBuckets();
+        for (int i = 0; i < numBuckets; i++) {
+            tsids.add(randomTsid());
+        }
+        List<InternalTimeSeries.InternalBucket> buckets = new ArrayList<>(tsids.size());
+        for (BytesRef tsid : tsids) {
+            buckets.add(new InternalTimeSeries.InternalBucket(tsid, randomLongBetween(1, 1000), aggregations, keyed));
+        }
+        return new InternalTimeSeries(name, buckets, keyed, metadata);
+    }
+
+    /**
+     * A {@code _tsid} made of a couple of keyword dimensions with few values so that the results of different shards overlap.
+     */
+    private static BytesRef randomTsid() {
+        SortedMap<String, BytesReference> dimensions = new TreeMap<>();
+        dimensions.put("dim1", TimeSeriesIdFieldMapper.encodeTsidValue(randomFrom("a", "b", "c")));
+        if (randomBoolean()) {
+            dimensions.put("dim2", TimeSeriesIdFieldMapper.encodeTsidValue(randomAlphaOfLength(1)));
+        }
+        try {
+            return TimeSeriesIdFieldMapper.encodeTsid(dimensions).toBytesRef();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void assertReduced(InternalTimeSeries reduced, List<InternalTimeSeries> inputs) {
+        Map<BytesRef, Long> expectedDocCounts = new TreeMap<>();
+        for (InternalTimeSeries input : inputs) {
+            for (InternalTimeSeries.InternalBucket bucket : input.getBuckets()) {
+                expectedDocCounts.merge(bucket.key, bucket.getDocCount(), Long::sum);
+            }
+        }
+        // the reduced buckets are still sorted by _tsid
+        Map<BytesRef, Long> actualDocCounts = new TreeMap<>();
+        BytesRef previous = null;
+        for (InternalTimeSeries.InternalBucket bucket : reduced.getBuckets()) {
+            if (previous != null) {
+                assertThat(previous.compareTo(bucket.key) < 0, equalTo(true));
+            }
+            previous = bucket.key;
+            actualDocCounts.put(bucket.key, bucket.getDocCount());
+        }
+        assertThat(actualDocCounts, equalTo(expectedDocCounts));
+    }
+
+    @Override
+    protected Class<? extends ParsedMultiBucketAggregation<?>> implementationClass() {
+        return ParsedTimeSeries.class;
+    }
+
+    @Override
+    protected Predicate<String> excludePathsFromXContentInsertion() {
+        // the key is an object of dimensions, extra fields in there would change the key
+        return path -> path.endsWith(Aggregation.CommonFields.KEY.getPreferredName());
+    }
+
+    @Override
+    protected InternalTimeSeries mutateInstance(InternalTimeSeries instance) {
+        String name = instance.getName();
+        List<InternalTimeSeries.InternalBucket> buckets = instance.getBuckets();
+        boolean keyed = buckets.isEmpty() ? randomBoolean() : buckets.get(0).keyed;
+        Map<String, Object> metadata = instance.getMetadata();
+        switch (between(0, 2)) {
+            case 0:
+                name += randomAlphaOfLength(5);
+                break;
+            case 1:
+                buckets = new ArrayList<>(buckets);
+                if (buckets.isEmpty()) {
+                    buckets.add(
+                        new InternalTimeSeries.InternalBucket(randomTsid(), randomLongBetween(1, 1000), InternalAggregations.EMPTY, keyed)
+                    );
+                } else {
+                    InternalTimeSeries.InternalBucket last = buckets.remove(buckets.size() - 1);
+                    buckets.add(new InternalTimeSeries.InternalBucket(last.key, last.getDocCount() + 1, last.aggregations, last.keyed));
+                }
+                break;
+            case 2:
+                if (metadata == null) {
+                    metadata = new HashMap<>(1);
+                } else {
+                    metadata = new HashMap<>(instance.getMetadata());
+                }
+                metadata.put(randomAlphaOfLength(15), randomInt());
+                break;
+            default:
+                throw new AssertionError("Illegal randomisation branch");
+        }
+        return new InternalTimeSeries(name, buckets, keyed, metadata);
+    }
+}
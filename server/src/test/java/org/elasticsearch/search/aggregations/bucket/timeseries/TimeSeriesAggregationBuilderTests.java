@@ -0,0 +1,23 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
+
+public class TimeSeriesAggregationBuilderTests extends BaseAggregationTestCase<TimeSeriesAggregationBuilder> {
+
+    @Override
+    protected TimeSeriesAggregationBuilder createTestAggregatorBuilder() {
+        TimeSeriesAggregationBuilder builder = new TimeSeriesAggregationBuilder(randomAlphaOfLength(10));
+        if (randomBoolean()) {
+            builder.keyed(randomBoolean());
+        }
+        return builder;
+    }
+}
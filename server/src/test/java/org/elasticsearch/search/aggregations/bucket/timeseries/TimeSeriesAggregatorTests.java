@@ -0,0 +1,183 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.timeseries;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class TimeSeriesAggregatorTests extends AggregatorTestCase {
+
+    @Override
+    protected IndexSettings createIndexSettings() {
+        Settings settings = Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim1")
+            .build();
+        return new IndexSettings(
+            IndexMetadata.builder("_index").settings(settings).numberOfShards(1).numberOfReplicas(0).creationDate(0).build(),
+            Settings.EMPTY
+        );
+    }
+
+    public void testStandAlone() throws IOException {
+        TimeSeriesAggregationBuilder aggregationBuilder = new TimeSeriesAggregationBuilder("ts").subAggregation(
+            new SumAggregationBuilder("sum").field("val1")
+        );
+        timeSeriesTestCase(aggregationBuilder, new MatchAllDocsQuery(), iw -> {
+            writeTS(iw, 1000, "aaa", 1, 1);
+            writeTS(iw, 2000, "aaa", 1, 2);
+            writeTS(iw, 1000, "aaa", 2, 4);
+            writeTS(iw, 1000, "bbb", 1, 8);
+            iw.commit();
+            // the same time series in another segment
+            writeTS(iw, 3000, "aaa", 1, 16);
+            writeTS(iw, 2000, "bbb", 1, 32);
+        }, ts -> {
+            assertThat(ts.getBuckets(), hasSize(3));
+
+            InternalTimeSeries.InternalBucket bucket = ts.getBuckets().get(0);
+            assertThat(bucket.getKey(), equalTo(Map.of("dim1", "aaa", "dim2", 1L)));
+            assertThat(bucket.getDocCount(), equalTo(3L));
+            assertThat(((Sum) bucket.getAggregations().get("sum")).getValue(), equalTo(19.0));
+
+            bucket = ts.getBuckets().get(1);
+            assertThat(bucket.getKey(), equalTo(Map.of("dim1", "aaa", "dim2", 2L)));
+            assertThat(bucket.getDocCount(), equalTo(1L));
+            assertThat(((Sum) bucket.getAggregations().get("sum")).getValue(), equalTo(4.0));
+
+            bucket = ts.getBuckets().get(2);
+            assertThat(bucket.getKey(), equalTo(Map.of("dim1", "bbb", "dim2", 1L)));
+            assertThat(bucket.getDocCount(), equalTo(2L));
+            assertThat(((Sum) bucket.getAggregations().get("sum")).getValue(), equalTo(40.0));
+        },
+            new KeywordFieldMapper.KeywordFieldType("dim1"),
+            new NumberFieldMapper.NumberFieldType("dim2", NumberFieldMapper.NumberType.LONG),
+            new NumberFieldMapper.NumberFieldType("val1", NumberFieldMapper.NumberType.LONG)
+        );
+    }
+
+    public void testMergesTimeSeriesAcrossSegmentsOnTheShard() throws IOException {
+        TimeSeriesAggregationBuilder aggregationBuilder = new TimeSeriesAggregationBuilder("ts");
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+            config.setIndexSort(
+                new Sort(
+                    new SortedSetSortField(TimeSeriesIdFieldMapper.NAME, false),
+                    new SortedNumericSortField(DataStreamTimestampFieldMapper.DEFAULT_PATH, SortField.Type.LONG, true)
+                )
+            );
+            try (RandomIndexWriter iw = new RandomIndexWriter(random(), directory, config)) {
+                writeTS(iw, 1000, "aaa", 1, 1);
+                writeTS(iw, 1000, "bbb", 1, 2);
+                iw.commit();
+                writeTS(iw, 2000, "aaa", 1, 4);
+                iw.commit();
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newIndexSearcher(reader);
+                TimeSeriesAggregator aggregator = createAggregator(aggregationBuilder, searcher);
+                aggregator.preCollection();
+                searcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                // not reduced, the shard already returns a single bucket per time series
+                InternalTimeSeries ts = (InternalTimeSeries) aggregator.buildTopLevel();
+                assertThat(ts.getBuckets(), hasSize(2));
+                assertThat(ts.getBuckets().get(0).getKey(), equalTo(Map.of("dim1", "aaa", "dim2", 1L)));
+                assertThat(ts.getBuckets().get(0).getDocCount(), equalTo(2L));
+                assertThat(ts.getBuckets().get(1).getKey(), equalTo(Map.of("dim1", "bbb", "dim2", 1L)));
+                assertThat(ts.getBuckets().get(1).getDocCount(), equalTo(1L));
+            }
+        }
+    }
+
+    public void testNoDocs() throws IOException {
+        timeSeriesTestCase(new TimeSeriesAggregationBuilder("ts"), new MatchAllDocsQuery(), iw -> {}, ts -> {
+            assertThat(ts.getBuckets(), hasSize(0));
+        });
+    }
+
+    private static void writeTS(RandomIndexWriter iw, long timestamp, String dim1, long dim2, long val1) throws IOException {
+        SortedMap<String, BytesReference> dimensions = new TreeMap<>();
+        dimensions.put("dim1", TimeSeriesIdFieldMapper.encodeTsidValue(dim1));
+        dimensions.put("dim2", TimeSeriesIdFieldMapper.encodeTsidValue(dim2));
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField(TimeSeriesIdFieldMapper.NAME, TimeSeriesIdFieldMapper.encodeTsid(dimensions).toBytesRef()));
+        doc.add(new SortedNumericDocValuesField(DataStreamTimestampFieldMapper.DEFAULT_PATH, timestamp));
+        doc.add(new SortedSetDocValuesField("dim1", new BytesRef(dim1)));
+        doc.add(new SortedNumericDocValuesField("dim2", dim2));
+        doc.add(new SortedNumericDocValuesField("val1", val1));
+        iw.addDocument(doc);
+    }
+
+    private void timeSeriesTestCase(
+        TimeSeriesAggregationBuilder builder,
+        Query query,
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
+        Consumer<InternalTimeSeries> verify,
+        MappedFieldType... fieldTypes
+    ) throws IOException {
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig();
+            config.setIndexSort(
+                new Sort(
+                    new SortedSetSortField(TimeSeriesIdFieldMapper.NAME, false),
+                    new SortedNumericSortField(DataStreamTimestampFieldMapper.DEFAULT_PATH, SortField.Type.LONG, true)
+                )
+            );
+            RandomIndexWriter iw = new RandomIndexWriter(random(), directory, config);
+            buildIndex.accept(iw);
+            iw.close();
+
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newIndexSearcher(reader);
+                InternalTimeSeries result = searchAndReduce(searcher, query, builder, fieldTypes);
+                verify.accept(result);
+            }
+        }
+    }
+}
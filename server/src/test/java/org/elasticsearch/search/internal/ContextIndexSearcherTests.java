@@ -27,6 +27,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BoostQuery;
 import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Explanation;
@@ -40,6 +41,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Accountable;
@@ -53,6 +55,8 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
@@ -63,15 +67,20 @@ import org.elasticsearch.test.IndexSettingsModule;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableLeafReader;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -176,6 +185,50 @@ public class ContextIndexSearcherTests extends ESTestCase {
         doTestContextIndexSearcher(false, true);
     }
 
+    public void testSearchConcurrently() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(6, 12);
+        int numDocs = 0;
+        for (int i = 0; i < numSegments; i++) {
+            int docsInSegment = randomIntBetween(1, 20);
+            for (int j = 0; j < docsInSegment; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", "bar", Field.Store.NO));
+                w.addDocument(doc);
+            }
+            numDocs += docsInSegment;
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        ThreadPoolExecutor executor = EsExecutors.newFixed("test", 2, -1, EsExecutors.daemonThreadFactory("test"),
+            new ThreadContext(Settings.EMPTY), false);
+        try {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true, executor);
+            assertTrue(searcher.hasConcurrentSlices());
+            List<TotalHitCountCollector> collectors = new ArrayList<>();
+            searcher.searchConcurrently(new TermQuery(new Term("foo", "bar")), new CollectorManager<TotalHitCountCollector, Void>() {
+                @Override
+                public TotalHitCountCollector newCollector() {
+                    TotalHitCountCollector collector = new TotalHitCountCollector();
+                    collectors.add(collector);
+                    return collector;
+                }
+
+                @Override
+                public Void reduce(Collection<TotalHitCountCollector> sliceCollectors) {
+                    throw new AssertionError("collectors should be reduced by the caller");
+                }
+            });
+            assertThat(collectors.size(), greaterThan(1));
+            assertThat(collectors.stream().mapToInt(TotalHitCountCollector::getTotalHits).sum(), equalTo(numDocs));
+        } finally {
+            terminate(executor);
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     public void doTestContextIndexSearcher(boolean sparse, boolean deletions) throws IOException {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null));
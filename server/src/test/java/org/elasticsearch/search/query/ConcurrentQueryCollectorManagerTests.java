@@ -0,0 +1,283 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.ParsedQuery;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.sort.SortAndFormats;
+import org.elasticsearch.tasks.TaskCancelHelper;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the query phase with one collector chain per slice of the shard and checks that the results match a sequential search.
+ */
+public class ConcurrentQueryCollectorManagerTests extends AggregatorTestCase {
+
+    private final MappedFieldType valueFieldType = new NumberFieldMapper.NumberFieldType("value", NumberFieldMapper.NumberType.LONG);
+
+    private ThreadPool threadPool;
+    private IndexShard indexShard;
+    private Directory directory;
+    private IndexReader reader;
+    private int numDocs;
+    private long sum;
+    private long max;
+
+    @Before
+    public void setUpIndex() throws IOException {
+        threadPool = new TestThreadPool(getTestName());
+        indexShard = mock(IndexShard.class);
+        when(indexShard.getThreadPool()).thenReturn(threadPool);
+        when(indexShard.shardId()).thenReturn(new ShardId("test", "test", 0));
+
+        directory = newDirectory();
+        // enough segments for the searcher to split them into several slices
+        try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = randomIntBetween(6, 12);
+            max = Long.MIN_VALUE;
+            for (int i = 0; i < numSegments; i++) {
+                final int docsInSegment = randomIntBetween(1, 50);
+                for (int j = 0; j < docsInSegment; j++) {
+                    final long value = randomLongBetween(-1000, 1000);
+                    final Document doc = new Document();
+                    doc.add(new TextField("text", "foo ".repeat(randomIntBetween(1, 5)) + "bar ".repeat(randomIntBetween(0, 5)), Store.NO));
+                    // few distinct ranks so that the merge has to break ties
+                    doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 10)));
+                    doc.add(new SortedNumericDocValuesField("value", value));
+                    writer.addDocument(doc);
+                    sum += value;
+                    max = Math.max(max, value);
+                }
+                numDocs += docsInSegment;
+                writer.commit();
+            }
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void tearDownIndex() throws IOException {
+        reader.close();
+        directory.close();
+        terminate(threadPool);
+    }
+
+    public void testTopDocsMatchSequentialSearch() throws Exception {
+        final Query query = new TermQuery(new Term("text", "foo"));
+        final SortAndFormats sortByRank = new SortAndFormats(
+            new Sort(new SortField("rank", SortField.Type.LONG, randomBoolean())),
+            new DocValueFormat[] { DocValueFormat.RAW }
+        );
+        for (SortAndFormats sort : new SortAndFormats[] { null, sortByRank }) {
+            final int size = randomIntBetween(1, numDocs + 10);
+            final TopDocs expected = searchTopDocs(newSearchContext(false), query, sort, size);
+            final TopDocs actual = searchTopDocs(newSearchContext(true), query, sort, size);
+
+            assertThat(actual.totalHits, equalTo(expected.totalHits));
+            assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                // ties are broken by doc id like in a sequential search, the slices are merged without setting a shard index
+                assertThat(actual.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+                assertThat(actual.scoreDocs[i].shardIndex, equalTo(-1));
+                if (sort == null) {
+                    assertThat(actual.scoreDocs[i].score, equalTo(expected.scoreDocs[i].score));
+                } else {
+                    assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) actual.scoreDocs[i]).fields);
+                }
+            }
+        }
+    }
+
+    public void testAggregationsAreReducedAcrossSlices() throws Exception {
+        final AggregatorFactories.Builder aggregations = AggregatorFactories.builder()
+            .addAggregator(new SumAggregationBuilder("sum").field("value"))
+            .addAggregator(new MaxAggregationBuilder("max").field("value"))
+            .addAggregator(new ValueCountAggregationBuilder("count").field("value"));
+        assertTrue(aggregations.supportsSlicedCollection());
+
+        final TestSearchContext context = newSearchContext(true);
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(0);
+        setAggregations(context, aggregations);
+        assertTrue(ConcurrentQueryCollectorManager.canSearchConcurrently(context));
+
+        final AggregationPhase aggregationPhase = new AggregationPhase();
+        aggregationPhase.preProcess(context);
+        QueryPhase.executeInternal(context);
+        aggregationPhase.execute(context);
+
+        final InternalAggregations result = context.queryResult().aggregations().expand();
+        assertThat(((Sum) result.get("sum")).getValue(), equalTo((double) sum));
+        assertThat(((Max) result.get("max")).getValue(), equalTo((double) max));
+        assertThat(((ValueCount) result.get("count")).getValue(), equalTo((long) numDocs));
+    }
+
+    public void testAggregationsThatCantBeSlicedDisableConcurrency() throws Exception {
+        final AggregatorFactories.Builder aggregations = AggregatorFactories.builder()
+            .addAggregator(new SumAggregationBuilder("sum").field("value"));
+        // terms truncate their buckets per shard, even as a sub-aggregation
+        if (randomBoolean()) {
+            aggregations.addAggregator(new TermsAggregationBuilder("terms").field("value"));
+        } else {
+            aggregations.addAggregator(
+                new FilterAggregationBuilder("filter", new MatchAllQueryBuilder()).subAggregation(
+                    new TermsAggregationBuilder("terms").field("value")
+                )
+            );
+        }
+        assertFalse(aggregations.supportsSlicedCollection());
+
+        final TestSearchContext context = newSearchContext(true);
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        setAggregations(context, aggregations);
+        assertFalse(ConcurrentQueryCollectorManager.canSearchConcurrently(context));
+    }
+
+    public void testTimeoutReturnsPartialResults() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final ContextIndexSearcher searcher = newContextSearcher(true);
+        final TestSearchContext context = new TestSearchContext(null, indexShard, searcher) {
+            @Override
+            public TimeValue timeout() {
+                return TimeValue.timeValueMillis(1);
+            }
+
+            @Override
+            public long getRelativeTimeInMillis() {
+                // the first call starts the search and every later call is past its timeout
+                return clock.getAndAdd(10);
+            }
+        };
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.setSize(numDocs);
+        setAggregations(context, AggregatorFactories.builder().addAggregator(new ValueCountAggregationBuilder("count").field("value")));
+        assertTrue(ConcurrentQueryCollectorManager.canSearchConcurrently(context));
+
+        final AggregationPhase aggregationPhase = new AggregationPhase();
+        aggregationPhase.preProcess(context);
+        QueryPhase.executeInternal(context);
+        aggregationPhase.execute(context);
+
+        assertTrue(context.queryResult().searchTimedOut());
+        // the slices are merged although none of them was collected completely
+        final TopDocs topDocs = context.queryResult().topDocs().topDocs;
+        assertThat(topDocs.totalHits.value, lessThanOrEqualTo((long) numDocs));
+        assertThat((long) topDocs.scoreDocs.length, lessThanOrEqualTo(topDocs.totalHits.value));
+        final InternalAggregations result = context.queryResult().aggregations().expand();
+        assertThat(((ValueCount) result.get("count")).getValue(), lessThanOrEqualTo((long) numDocs));
+    }
+
+    public void testCancellationFailsAllSlices() throws Exception {
+        final TestSearchContext context = newSearchContext(true);
+        final SearchShardTask task = new SearchShardTask(randomLong(), "transport", "", "", TaskId.EMPTY_TASK_ID, Collections.emptyMap());
+        context.setTask(task);
+        context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        context.searcher().addQueryCancellation(task::ensureNotCancelled);
+        TaskCancelHelper.cancel(task, "simulated");
+        assertTrue(ConcurrentQueryCollectorManager.canSearchConcurrently(context));
+
+        final QueryPhaseExecutionException e = expectThrows(QueryPhaseExecutionException.class, () -> QueryPhase.executeInternal(context));
+        assertThat(ExceptionsHelper.unwrap(e, TaskCancelledException.class), notNullValue());
+    }
+
+    private TopDocs searchTopDocs(TestSearchContext context, Query query, SortAndFormats sort, int size) {
+        context.parsedQuery(new ParsedQuery(query));
+        context.setSize(size);
+        if (sort != null) {
+            context.sort(sort);
+        }
+        QueryPhase.executeInternal(context);
+        return context.queryResult().topDocs().topDocs;
+    }
+
+    private void setAggregations(TestSearchContext context, AggregatorFactories.Builder aggregations) throws IOException {
+        final AggregationContext aggregationContext = createAggregationContext(context.searcher(), new MatchAllDocsQuery(), valueFieldType);
+        context.aggregations(
+            new SearchContextAggregations(aggregations.build(aggregationContext, null), aggregations.supportsSlicedCollection())
+        );
+    }
+
+    private TestSearchContext newSearchContext(boolean concurrent) throws IOException {
+        final TestSearchContext context = new TestSearchContext(null, indexShard, newContextSearcher(concurrent));
+        context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        return context;
+    }
+
+    private ContextIndexSearcher newContextSearcher(boolean concurrent) throws IOException {
+        final ContextIndexSearcher searcher = new ContextIndexSearcher(
+            reader,
+            IndexSearcher.getDefaultSimilarity(),
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            true,
+            concurrent ? threadPool.executor(ThreadPool.Names.SEARCH_WORKER) : null
+        );
+        assertThat(searcher.hasConcurrentSlices(), equalTo(concurrent));
+        return searcher;
+    }
+}
@@ -12,6 +12,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.DeflateCompressor;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
@@ -117,4 +118,35 @@ public class DeflateTransportDecompressorTests extends ESTestCase {
 
         }
     }
+
+    public void testCompressionLevels() throws IOException {
+        int level = between(1, 9);
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput deflateStream = new OutputStreamStreamOutput(new DeflateCompressor(level).threadLocalOutputStream(
+                    Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < 10000; ++i) {
+                    deflateStream.writeInt(i);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            assertTrue(Compression.Scheme.isDeflate(bytes));
+
+            DeflateTransportDecompressor decompressor = new DeflateTransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference reference1 = decompressor.pollDecompressedPage(false);
+            ReleasableBytesReference reference2 = decompressor.pollDecompressedPage(false);
+            ReleasableBytesReference reference3 = decompressor.pollDecompressedPage(true);
+            assertNull(decompressor.pollDecompressedPage(true));
+            BytesReference composite = CompositeBytesReference.of(reference1, reference2, reference3);
+            assertEquals(4 * 10000, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < 10000; ++i) {
+                assertEquals(i, streamInput.readInt());
+            }
+            Releasables.close(reference1, reference2, reference3);
+        }
+    }
 }
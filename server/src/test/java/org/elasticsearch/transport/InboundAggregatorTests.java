@@ -9,9 +9,12 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.breaker.TestCircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -20,20 +23,26 @@ import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 
 public class InboundAggregatorTests extends ESTestCase {
 
     private final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
     private final String unBreakableAction = "non_breakable_action";
     private final String unknownAction = "unknown_action";
+    private final String streamingAction = "streaming_action";
     private InboundAggregator aggregator;
     private TestCircuitBreaker circuitBreaker;
 
@@ -253,4 +262,212 @@ public class InboundAggregatorTests extends ESTestCase {
         }
     }
 
+    public void testStreamingRequest() throws Exception {
+        final AtomicLong breakerUsed = new AtomicLong();
+        final CircuitBreaker countingBreaker = new NoopCircuitBreaker(CircuitBreaker.IN_FLIGHT_REQUESTS) {
+            @Override
+            public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+                breakerUsed.addAndGet(bytes);
+            }
+
+            @Override
+            public void addWithoutBreaking(long bytes) {
+                breakerUsed.addAndGet(bytes);
+            }
+        };
+        aggregator = new InboundAggregator(() -> countingBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(randomInt(), randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        final BytesArray bytes = new BytesArray(randomByteArrayOfLength(between(2, 100)));
+        final int split = between(1, bytes.length() - 1);
+        final ReleasableBytesReference content1 = ReleasableBytesReference.wrap(bytes.slice(0, split));
+        final InboundMessage streaming = aggregator.aggregate(content1);
+        content1.close();
+        assertThat(streaming, notNullValue());
+        assertTrue(streaming.isStreaming());
+        assertEquals(1, content1.refCount());
+        assertEquals(split, breakerUsed.get());
+
+        final InboundContentStream stream = streaming.takeContentStream();
+        streaming.close();
+        final byte[] read = new byte[bytes.length()];
+        final AtomicReference<Exception> readFailure = new AtomicReference<>();
+        final AtomicLong nextByte = new AtomicLong();
+        final Thread reader = new Thread(() -> {
+            try {
+                stream.readBytes(read, 0, read.length);
+                nextByte.set(stream.read());
+            } catch (Exception e) {
+                readFailure.set(e);
+            }
+        });
+        reader.start();
+        // the first fragment is released once it has been read, while the reader waits for the rest of the message
+        assertBusy(() -> {
+            assertEquals(0, content1.refCount());
+            assertEquals(0, breakerUsed.get());
+        });
+
+        final ReleasableBytesReference content2 = ReleasableBytesReference.wrap(bytes.slice(split, bytes.length() - split));
+        assertThat(aggregator.aggregate(content2), nullValue());
+        content2.close();
+        assertThat(aggregator.finishAggregation(), nullValue());
+        assertFalse(aggregator.isAggregating());
+
+        reader.join();
+        assertThat(readFailure.get(), nullValue());
+        assertEquals(bytes, new BytesArray(read));
+        assertEquals(-1, nextByte.get());
+        assertEquals(0, content2.refCount());
+        assertEquals(0, breakerUsed.get());
+        stream.close();
+    }
+
+    public void testStreamingRequestWithoutContent() throws IOException {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(randomInt(), randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        // the streaming message is dispatched at the end if there is no content to dispatch it with
+        try (InboundMessage streaming = aggregator.finishAggregation()) {
+            assertThat(streaming, notNullValue());
+            assertTrue(streaming.isStreaming());
+            try (InboundContentStream stream = streaming.takeContentStream()) {
+                assertEquals(-1, stream.read());
+            }
+        }
+    }
+
+    public void testCloseFailsStreamingRequest() throws IOException {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(randomInt(), randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        final ReleasableBytesReference content = ReleasableBytesReference.wrap(new BytesArray(randomByteArrayOfLength(10)));
+        final InboundMessage streaming = aggregator.aggregate(content);
+        content.close();
+        try (InboundContentStream stream = streaming.takeContentStream()) {
+            streaming.close();
+            aggregator.close();
+            expectThrows(TransportException.class, stream::readByte);
+        }
+        assertEquals(0, content.refCount());
+    }
+
+    public void testStreamingRequestBreaksOnFragment() throws IOException {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(randomInt(), randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        final ReleasableBytesReference content1 = ReleasableBytesReference.wrap(new BytesArray(randomByteArrayOfLength(10)));
+        final InboundMessage streaming = aggregator.aggregate(content1);
+        content1.close();
+        circuitBreaker.startBreaking();
+        final ReleasableBytesReference content2 = ReleasableBytesReference.wrap(new BytesArray(randomByteArrayOfLength(10)));
+        assertThat(aggregator.aggregate(content2), nullValue());
+        content2.close();
+        assertEquals(0, content2.refCount());
+        assertThat(aggregator.finishAggregation(), nullValue());
+
+        try (InboundContentStream stream = streaming.takeContentStream()) {
+            streaming.close();
+            expectThrows(CircuitBreakingException.class, stream::readByte);
+        }
+        assertEquals(0, content1.refCount());
+    }
+
+    public void testStreamingRequestEndOfContent() throws IOException {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(randomInt(), randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        final ReleasableBytesReference content = ReleasableBytesReference.wrap(new BytesArray(randomByteArrayOfLength(10)));
+        final InboundMessage streaming = aggregator.aggregate(content);
+        content.close();
+        assertThat(aggregator.finishAggregation(), nullValue());
+        try (InboundContentStream stream = streaming.takeContentStream()) {
+            streaming.close();
+            assertEquals(10, stream.available());
+            expectThrows(EOFException.class, () -> stream.readBytes(new byte[11], 0, 11));
+        }
+        assertEquals(0, content.refCount());
+    }
+
+    public void testStreamingRequestBoundsArraySizesByMessageSize() throws IOException {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        Header header = new Header(20, randomNonNegativeLong(), TransportStatus.setRequest((byte) 0), Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+
+        final BytesStreamOutput output = new BytesStreamOutput();
+        output.writeVInt(between(20, Integer.MAX_VALUE - 100));
+        final ReleasableBytesReference content = ReleasableBytesReference.wrap(output.bytes());
+        final InboundMessage streaming = aggregator.aggregate(content);
+        content.close();
+        try (InboundContentStream stream = streaming.takeContentStream()) {
+            streaming.close();
+            // fails without waiting for the rest of the message because the array can't fit into it
+            final EOFException e = expectThrows(EOFException.class, stream::readByteArray);
+            assertThat(e.getMessage(), containsString("bytes remain in the content of [" + streamingAction + "]"));
+        }
+        aggregator.close();
+        assertEquals(0, content.refCount());
+    }
+
+    public void testStreamingRequestWaitsForArrayContent() throws Exception {
+        aggregator = new InboundAggregator(() -> circuitBreaker, action -> true, streamingAction::equals);
+        final byte status = TransportStatus.setCompress(TransportStatus.setRequest((byte) 0));
+        Header header = new Header(randomIntBetween(1, 100), randomNonNegativeLong(), status, Version.CURRENT);
+        header.headers = new Tuple<>(Collections.emptyMap(), Collections.emptyMap());
+        header.actionName = streamingAction;
+        aggregator.headerReceived(header);
+        aggregator.updateCompressionScheme(randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4));
+
+        // the content of a compressed message can be larger than the message so the reader waits for the bytes of an array instead
+        final byte[] array = randomByteArrayOfLength(between(2, 1000));
+        final BytesStreamOutput output = new BytesStreamOutput();
+        output.writeByteArray(array);
+        output.writeVInt(between(1, 1000));
+        final BytesReference bytes = output.bytes();
+        final int split = between(1, bytes.length() - 2);
+        final ReleasableBytesReference content1 = ReleasableBytesReference.wrap(bytes.slice(0, split));
+        final InboundMessage streaming = aggregator.aggregate(content1);
+        content1.close();
+        final InboundContentStream stream = streaming.takeContentStream();
+        streaming.close();
+
+        final AtomicReference<byte[]> readArray = new AtomicReference<>();
+        final AtomicReference<Exception> readFailure = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            try {
+                readArray.set(stream.readByteArray());
+                stream.readByteArray();
+            } catch (Exception e) {
+                readFailure.set(e);
+            }
+        });
+        reader.start();
+        final ReleasableBytesReference content2 = ReleasableBytesReference.wrap(bytes.slice(split, bytes.length() - split));
+        assertThat(aggregator.aggregate(content2), nullValue());
+        content2.close();
+        assertThat(aggregator.finishAggregation(), nullValue());
+        reader.join();
+        assertArrayEquals(array, readArray.get());
+        // the second array doesn't fit into what remains of the message once it has been received completely
+        assertThat(readFailure.get(), instanceOf(EOFException.class));
+        stream.close();
+        aggregator.close();
+    }
 }
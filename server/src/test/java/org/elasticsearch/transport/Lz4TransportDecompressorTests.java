@@ -170,4 +170,48 @@ public class Lz4TransportDecompressorTests extends ESTestCase {
 
         }
     }
+
+    public void testHighCompressionLevels() throws IOException {
+        int intsToWrite = 50000;
+        int uncompressedLength = intsToWrite * 4;
+
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4BlockStream = new OutputStreamStreamOutput(Compression.Scheme.lz4OutputStream(
+                    Streams.flushOnCloseStream(output), between(1, 17)))) {
+                for (int i = 0; i < intsToWrite; ++i) {
+                    lz4BlockStream.writeInt(i % 1000);
+                }
+            }
+
+            BytesReference bytes = output.bytes();
+            assertTrue(Compression.Scheme.isLZ4(bytes));
+            // the high compression compressor produces blocks that the regular decompressor reads
+            assertThat(bytes.length(), lessThan(uncompressedLength / 2));
+
+            Lz4TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+
+            int numOfUncompressedPages = uncompressedLength / PageCacheRecycler.BYTE_PAGE_SIZE;
+            if (uncompressedLength % PageCacheRecycler.BYTE_PAGE_SIZE > 0) {
+                numOfUncompressedPages += 1;
+            }
+
+            ReleasableBytesReference[] polledReferences = new ReleasableBytesReference[numOfUncompressedPages];
+            for (int i = 0; i < numOfUncompressedPages - 1; ++i) {
+                polledReferences[i] = decompressor.pollDecompressedPage(false);
+            }
+
+            polledReferences[numOfUncompressedPages - 1] = decompressor.pollDecompressedPage(true);
+            assertNull(decompressor.pollDecompressedPage(true));
+
+            BytesReference composite = CompositeBytesReference.of(polledReferences);
+            assertEquals(uncompressedLength, composite.length());
+            StreamInput streamInput = composite.streamInput();
+            for (int i = 0; i < intsToWrite; ++i) {
+                assertEquals(i % 1000, streamInput.readInt());
+            }
+            Releasables.close(polledReferences);
+        }
+    }
 }
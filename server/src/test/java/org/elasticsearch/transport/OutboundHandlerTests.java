@@ -23,6 +23,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.core.TimeValue;
@@ -184,6 +185,27 @@ public class OutboundHandlerTests extends ESTestCase {
         assertEquals("header_value", header.getHeaders().v1().get("header"));
     }
 
+    public void testTrailingBytesAreReleasedOnceSent() throws IOException {
+        AtomicBoolean released = new AtomicBoolean();
+        ReleasableBytesReference bytes =
+            new ReleasableBytesReference(new BytesArray(randomByteArrayOfLength(between(1, 1024))), () -> released.set(true));
+        handler.sendRequest(node, channel, randomLongBetween(0, 300), "action", new ZeroCopyRequest(bytes), options, Version.CURRENT,
+            null, false);
+        BytesReference reference = channel.getMessageCaptor().get();
+        ActionListener<Void> sendListener = channel.getListenerCaptor().get();
+        assertEquals(bytes, reference.slice(reference.length() - bytes.length(), bytes.length()));
+
+        // the sender may release the bytes, for instance because the request timed out, while the channel still holds them
+        bytes.decRef();
+        assertFalse(released.get());
+        if (randomBoolean()) {
+            sendListener.onResponse(null);
+        } else {
+            sendListener.onFailure(new IOException("failed"));
+        }
+        assertTrue(released.get());
+    }
+
     public void testSendResponse() throws IOException {
         ThreadContext threadContext = threadPool.getThreadContext();
         Version version = randomFrom(Version.CURRENT, Version.CURRENT.minimumCompatibilityVersion());
@@ -340,4 +362,24 @@ public class OutboundHandlerTests extends ESTestCase {
             mockAppender.stop();
         }
     }
+
+    private static final class ZeroCopyRequest extends TransportRequest implements ZeroCopyWriteable {
+        private final BytesReference bytes;
+
+        ZeroCopyRequest(BytesReference bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            writeWithoutTrailingBytes(out).writeTo(out);
+        }
+
+        @Override
+        public BytesReference writeWithoutTrailingBytes(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(bytes.length());
+            return bytes;
+        }
+    }
 }
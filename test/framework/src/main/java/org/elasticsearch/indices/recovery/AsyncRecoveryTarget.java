@@ -90,6 +90,22 @@ public class AsyncRecoveryTarget implements RecoveryTargetHandler {
         }
     }
 
+    @Override
+    public void writeFileRangeChunk(StoreFileMetadata fileMetadata, long position, ReleasableBytesReference content,
+                                    int totalTranslogOps, ActionListener<Void> listener) {
+        final ReleasableBytesReference retained = content.retain();
+        final ActionListener<Void> wrappedListener = ActionListener.runBefore(listener, retained::close);
+        boolean success = false;
+        try {
+            executor.execute(() -> target.writeFileRangeChunk(fileMetadata, position, retained, totalTranslogOps, wrappedListener));
+            success = true;
+        } finally {
+            if (success == false) {
+                content.decRef();
+            }
+        }
+    }
+
     @Override
     public void restoreFileFromSnapshot(String repository,
                                         IndexId indexId,
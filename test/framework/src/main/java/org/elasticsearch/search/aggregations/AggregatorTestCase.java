@@ -496,7 +496,15 @@ public abstract class AggregatorTestCase extends ESTestCase {
             }
         } else {
             root.preCollection();
-            searcher.search(rewritten, MultiBucketCollector.wrap(true, List.of(root)));
+            BucketCollector collector = MultiBucketCollector.wrap(true, List.of(root));
+            if (randomBoolean()) {
+                // sometimes collect in blocks like the aggregation phase does
+                collector = BlockBucketCollector.wrap(collector);
+            }
+            searcher.search(rewritten, collector);
+            if (collector instanceof BlockBucketCollector) {
+                ((BlockBucketCollector) collector).flush();
+            }
             root.postCollection();
             aggs.add(root.buildTopLevel());
         }
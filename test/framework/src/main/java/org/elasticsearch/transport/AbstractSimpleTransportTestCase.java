@@ -55,6 +55,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.After;
 import org.junit.Before;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.Inet4Address;
@@ -740,6 +741,42 @@ public abstract class AbstractSimpleTransportTestCase extends ESTestCase {
         assertThat(e.getCause().getCause().getMessage(), equalTo("runtime_exception: bad message !!!"));
     }
 
+    public void testStreamingRequestHandler() throws Exception {
+        serviceA.registerStreamingRequestHandler("internal:streamHello", ThreadPool.Names.GENERIC, StringMessageRequest::new,
+            (request, channel, task) -> channel.sendResponse(new StringMessageResponse("hello " + request.message)));
+        serviceA.registerStreamingRequestHandler("internal:streamHelloTooShort", ThreadPool.Names.GENERIC, in -> {
+            final StringMessageRequest request = new StringMessageRequest(in);
+            in.readByteArray();
+            return request;
+        }, (request, channel, task) -> fail("request must not be handled if it can't be read"));
+
+        final boolean compress = randomBoolean();
+        try (MockTransportService serviceC = buildService("TS_C", CURRENT_VERSION, Settings.EMPTY)) {
+            final Settings.Builder profileSettings = Settings.builder();
+            if (compress) {
+                profileSettings.put(TransportSettings.TRANSPORT_COMPRESS.getKey(), Compression.Enabled.TRUE)
+                    .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(),
+                        randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4));
+            }
+            connectToNode(serviceC, nodeA, ConnectionProfile.buildDefaultConnectionProfile(profileSettings.build()));
+
+            // large enough to arrive in many fragments that the handler's executor reads while the rest of the request arrives
+            final String message = randomAlphaOfLength(between(1 << 16, 1 << 20));
+            final PlainActionFuture<StringMessageResponse> future = new PlainActionFuture<>();
+            serviceC.sendRequest(nodeA, "internal:streamHello", new StringMessageRequest(message), TransportRequestOptions.EMPTY,
+                new ActionListenerResponseHandler<>(future, StringMessageResponse::new, ThreadPool.Names.GENERIC));
+            assertThat(future.get().message, equalTo("hello " + message));
+
+            // reading past the end of a streamed request fails it and the failure is sent back to the caller
+            final PlainActionFuture<StringMessageResponse> failedFuture = new PlainActionFuture<>();
+            serviceC.sendRequest(nodeA, "internal:streamHelloTooShort", new StringMessageRequest(randomAlphaOfLength(between(1, 1 << 16))),
+                TransportRequestOptions.EMPTY,
+                new ActionListenerResponseHandler<>(failedFuture, StringMessageResponse::new, ThreadPool.Names.GENERIC));
+            final ExecutionException e = expectThrows(ExecutionException.class, failedFuture::get);
+            assertThat(ExceptionsHelper.unwrap(e, EOFException.class), notNullValue());
+        }
+    }
+
     public void testDisconnectListener() throws Exception {
         final CountDownLatch latch = new CountDownLatch(1);
         TransportConnectionListener disconnectListener = new TransportConnectionListener() {
@@ -186,6 +186,12 @@ public class MultiTermsAggregationBuilder extends AbstractAggregationBuilder<Mul
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice truncates its buckets to shard_size, which makes the counts of the shard less accurate
+        return false;
+    }
+
     @Override
     protected final void doWriteTo(StreamOutput out) throws IOException {
         out.writeList(terms);
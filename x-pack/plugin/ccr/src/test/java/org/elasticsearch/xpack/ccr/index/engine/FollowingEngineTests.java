@@ -269,6 +269,7 @@ public class FollowingEngineTests extends ESTestCase {
                 () -> RetentionLeases.EMPTY,
                 () -> primaryTerm.get(),
                 IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
+                null,
                 null);
     }
 
@@ -32,6 +32,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.SimpleMappedFieldType;
 import org.elasticsearch.index.mapper.SourceValueFetcher;
 import org.elasticsearch.index.mapper.TextSearchInfo;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.index.mapper.TimeSeriesParams;
 import org.elasticsearch.index.mapper.TimeSeriesParams.MetricType;
 import org.elasticsearch.index.mapper.ValueFetcher;
@@ -564,6 +565,11 @@ public class UnsignedLongFieldMapper extends FieldMapper {
             // Add the field by key so that we can validate if it has been added
             context.doc().addWithKey(fieldType().name(), new LongPoint(fieldType().name(), numericValue));
             context.doc().addAll(fields.subList(1, fields.size()));
+            // numericValue is shifted to sort as a signed long, the _tsid keeps the original unsigned value like the stored field
+            context.doc().addDimensionBytes(
+                fieldType().name(),
+                TimeSeriesIdFieldMapper.encodeTsidValue(Long.toUnsignedString(unsignedToSortableSignedLong(numericValue)))
+            );
         } else {
             context.doc().addAll(fields);
         }
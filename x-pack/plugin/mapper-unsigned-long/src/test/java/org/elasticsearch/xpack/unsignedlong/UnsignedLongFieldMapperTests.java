@@ -9,13 +9,17 @@ package org.elasticsearch.xpack.unsignedlong;
 
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperTestCase;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.index.termvectors.TermVectorsService;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -24,6 +28,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -255,6 +260,24 @@ public class UnsignedLongFieldMapperTests extends MapperTestCase {
         assertDimension(false, UnsignedLongFieldMapper.UnsignedLongFieldType::isDimension);
     }
 
+    public void testDimensionInTimeSeriesId() throws IOException {
+        Settings settings = Settings.builder()
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim")
+            .build();
+        DocumentMapper mapper = createMapperService(settings, mapping(b -> {
+            b.startObject("dim").field("type", "keyword").field("time_series_dimension", true).endObject();
+            b.startObject("field").field("type", "unsigned_long").field("time_series_dimension", true).endObject();
+        })).documentMapper();
+        for (String value : List.of("0", "9223372036854775807", "9223372036854775808", "18446744073709551615")) {
+            ParsedDocument doc = mapper.parse(source(b -> b.field("dim", "foo").field("field", value)));
+            Map<String, Object> tsid = TimeSeriesIdFieldMapper.decodeTsid(
+                doc.rootDoc().getField(TimeSeriesIdFieldMapper.NAME).binaryValue()
+            );
+            assertThat(tsid, equalTo(Map.of("dim", "foo", "field", value)));
+        }
+    }
+
     public void testDimensionIndexedAndDocvalues() {
         {
             Exception e = expectThrows(MapperParsingException.class, () -> createDocumentMapper(fieldMapping(b -> {
@@ -342,6 +342,12 @@ public class CategorizeTextAggregationBuilder extends AbstractAggregationBuilder
         return BucketCardinality.MANY;
     }
 
+    @Override
+    public boolean supportsSlicedCollection() {
+        // each slice truncates its categories to shard_size before the slices are merged
+        return false;
+    }
+
     @Override
     public String getType() {
         return NAME;
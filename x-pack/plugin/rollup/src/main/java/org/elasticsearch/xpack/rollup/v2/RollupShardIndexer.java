@@ -9,8 +9,11 @@ package org.elasticsearch.xpack.rollup.v2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -18,12 +21,14 @@ import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.action.bulk.BackoffPolicy;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
@@ -39,12 +44,15 @@ import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexMode;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.FormattedDocValues;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
@@ -76,7 +84,9 @@ import java.util.stream.Collectors;
 
 /**
  * An indexer for rollup that sorts the buckets from the provided source shard on disk and send them
- * to the target rollup index.
+ * to the target rollup index. Shards of {@link IndexMode#TIME_SERIES time series} indices that are
+ * grouped by all of their dimensions skip the sort on disk: their segments are already sorted by
+ * {@code _tsid} and {@code @timestamp} so the buckets are streamed in order from the doc values.
  */
 class RollupShardIndexer {
     private static final Logger logger = LogManager.getLogger(RollupShardIndexer.class);
@@ -96,6 +106,9 @@ class RollupShardIndexer {
     private final List<FieldValueFetcher> groupFieldFetchers;
     private final List<FieldValueFetcher> metricsFieldFetchers;
 
+    /**
+     * Sorts the buckets on disk, {@code null} if the buckets are read in index order.
+     */
     private final CompressingOfflineSorter sorter;
 
     private final BulkProcessor bulkProcessor;
@@ -175,7 +188,11 @@ class RollupShardIndexer {
                 this.metricsFieldFetchers = Collections.emptyList();
             }
 
-            this.sorter = new CompressingOfflineSorter(dir, "rollup-", keyComparator(), ramBufferSizeMB);
+            if (isSortedByRollupKey(config)) {
+                this.sorter = null;
+            } else {
+                this.sorter = new CompressingOfflineSorter(dir, "rollup-", keyComparator(), ramBufferSizeMB);
+            }
             toClose = null;
         } finally {
             IOUtils.closeWhileHandlingException(toClose);
@@ -196,12 +213,46 @@ class RollupShardIndexer {
         }
     }
 
+    /**
+     * Returns {@code true} if the documents of the shard are sorted such that all documents of a
+     * rollup bucket are adjacent. This is the case for time series indices, which are sorted by
+     * {@code _tsid} and then {@code @timestamp}, when the rollup groups by all of the dimensions
+     * of the index and the date histogram is on {@code @timestamp}.
+     */
+    private boolean isSortedByRollupKey(RollupActionConfig config) {
+        if (searchExecutionContext.getIndexSettings().getMode() != IndexMode.TIME_SERIES) {
+            return false;
+        }
+        if (timestampField.name().equals(DataStreamTimestampFieldMapper.DEFAULT_PATH) == false) {
+            return false;
+        }
+        if (config.getGroupConfig().getHistogram() != null) {
+            return false;
+        }
+        Set<String> groupFields = new HashSet<>();
+        if (config.getGroupConfig().getTerms() != null) {
+            groupFields.addAll(Arrays.asList(config.getGroupConfig().getTerms().getFields()));
+        }
+        Set<String> dimensionFields = new HashSet<>();
+        for (String field : searchExecutionContext.getMatchingFieldNames("*")) {
+            MappedFieldType fieldType = searchExecutionContext.getFieldType(field);
+            if (fieldType != null && fieldType.isDimension()) {
+                dimensionFields.add(field);
+            }
+        }
+        return groupFields.equals(dimensionFields);
+    }
+
     public long execute() throws IOException {
-        Long bucket = Long.MIN_VALUE;
         try (searcher; bulkProcessor) {
-            do {
-                bucket = computeBucket(bucket);
-            } while (bucket != null);
+            if (sorter == null) {
+                computeBucketsInIndexOrder();
+            } else {
+                Long bucket = Long.MIN_VALUE;
+                do {
+                    bucket = computeBucket(bucket);
+                } while (bucket != null);
+            }
         }
         // TODO: check that numIndexed == numSent, otherwise throw an exception
         logger.info("Successfully sent [" + numIndexed.get() + "], indexed [" + numIndexed.get() + "]");
@@ -336,6 +387,61 @@ class RollupShardIndexer {
         return nextRoundingLastValue;
     }
 
+    /**
+     * Computes all buckets of the shard in a single pass over the doc values without sorting them on disk.
+     * Every segment is sorted by {@code _tsid} and then {@code @timestamp} descending so merging the segments
+     * yields the documents of each bucket next to each other.
+     */
+    private void computeBucketsInIndexOrder() throws IOException {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        PriorityQueue<IndexOrderLeafIterator> queue = new PriorityQueue<>(leaves.size()) {
+            @Override
+            protected boolean lessThan(IndexOrderLeafIterator a, IndexOrderLeafIterator b) {
+                int cmp = a.tsid.compareTo(b.tsid);
+                if (cmp != 0) {
+                    return cmp < 0;
+                }
+                return a.timestamp > b.timestamp;
+            }
+        };
+        for (LeafReaderContext leaf : leaves) {
+            IndexOrderLeafIterator iterator = new IndexOrderLeafIterator(leaf);
+            if (iterator.next()) {
+                queue.add(iterator);
+            }
+        }
+
+        List<FieldMetricsProducer> fieldsMetrics = FieldMetricsProducer.buildMetrics(config.getMetricsConfig());
+        BytesRef lastTsid = null;
+        BucketKey lastKey = null;
+        int docCount = 0;
+        while (queue.size() > 0) {
+            IndexOrderLeafIterator top = queue.top();
+            long bucketTimestamp = rounding.round(top.timestamp);
+            if (lastKey == null || lastKey.timestamp != bucketTimestamp || lastTsid.equals(top.tsid()) == false) {
+                if (lastKey != null) {
+                    indexBucket(lastKey, fieldsMetrics, docCount);
+                    docCount = 0;
+                    for (FieldMetricsProducer producer : fieldsMetrics) {
+                        producer.reset();
+                    }
+                }
+                lastTsid = BytesRef.deepCopyOf(top.tsid());
+                lastKey = new BucketKey(bucketTimestamp, top.groupFields());
+            }
+            top.collectMetrics(fieldsMetrics);
+            ++docCount;
+            if (top.next()) {
+                queue.updateTop();
+            } else {
+                queue.pop();
+            }
+        }
+        if (lastKey != null) {
+            indexBucket(lastKey, fieldsMetrics, docCount);
+        }
+    }
+
     private Long findNextRounding(long lastRounding) throws IOException {
         Long nextRounding = null;
         for (LeafReaderContext leafReaderContext : searcher.getIndexReader().leaves()) {
@@ -486,20 +592,107 @@ class RollupShardIndexer {
             };
         }
 
-        private List<FormattedDocValues> leafFetchers(LeafReaderContext context, List<FieldValueFetcher> fetchers) {
-            List<FormattedDocValues> leaves = new ArrayList<>();
-            for (FieldValueFetcher fetcher : fetchers) {
-                leaves.add(fetcher.getLeaf(context));
-            }
-            return leaves;
-        }
-
         @Override
         public ScoreMode scoreMode() {
             return ScoreMode.COMPLETE_NO_SCORES;
         }
     }
 
+    /**
+     * Iterates the live documents of a segment of a time series index in index order.
+     */
+    private class IndexOrderLeafIterator {
+        private final LeafReaderContext context;
+        private final SortedDocValues tsids;
+        private final SortedNumericDocValues timestamps;
+        private final List<FormattedDocValues> groupFieldLeaves;
+        private final List<FormattedDocValues> metricsFieldLeaves;
+
+        private int docID = -1;
+        // the _tsid and timestamp of the current document, resolved in next() so that the queue can compare them
+        private BytesRef tsid;
+        private long timestamp;
+
+        IndexOrderLeafIterator(LeafReaderContext context) throws IOException {
+            Sort indexSort = context.reader().getMetaData().getSort();
+            if (indexSort == null || indexSort.getSort()[0].getField().equals(TimeSeriesIdFieldMapper.NAME) == false) {
+                throw new IllegalStateException(
+                    "Expected segment sorted by [" + TimeSeriesIdFieldMapper.NAME + "] but got [" + indexSort + "]"
+                );
+            }
+            this.context = context;
+            this.tsids = DocValues.unwrapSingleton(DocValues.getSortedSet(context.reader(), TimeSeriesIdFieldMapper.NAME));
+            if (tsids == null) {
+                throw new IllegalStateException("[" + TimeSeriesIdFieldMapper.NAME + "] must be single valued");
+            }
+            this.timestamps = DocValues.getSortedNumeric(context.reader(), timestampField.name());
+            this.groupFieldLeaves = leafFetchers(context, groupFieldFetchers);
+            this.metricsFieldLeaves = leafFetchers(context, metricsFieldFetchers);
+        }
+
+        /**
+         * Moves to the next live document with a {@code _tsid} and a timestamp, returns {@code false} if there is none.
+         */
+        boolean next() throws IOException {
+            final int maxDoc = context.reader().maxDoc();
+            while (++docID < maxDoc) {
+                if (context.reader().getLiveDocs() != null && context.reader().getLiveDocs().get(docID) == false) {
+                    continue;
+                }
+                if (tsids.advanceExact(docID) && timestamps.advanceExact(docID)) {
+                    tsid = tsids.lookupOrd(tsids.ordValue());
+                    timestamp = timestamps.nextValue();
+                    return true;
+                }
+            }
+            tsid = null;
+            return false;
+        }
+
+        /**
+         * The {@code _tsid} of the current document, only valid until the next call to {@link #next()}.
+         */
+        BytesRef tsid() {
+            return tsid;
+        }
+
+        List<Object> groupFields() throws IOException {
+            List<Object> values = new ArrayList<>(groupFieldLeaves.size());
+            for (FormattedDocValues leafField : groupFieldLeaves) {
+                // dimensions are single valued
+                values.add(leafField.advanceExact(docID) ? leafField.nextValue() : null);
+            }
+            return values;
+        }
+
+        void collectMetrics(List<FieldMetricsProducer> fieldsMetrics) throws IOException {
+            for (int i = 0; i < fieldsMetrics.size(); i++) {
+                FormattedDocValues formattedDocValues = metricsFieldLeaves.get(i);
+                if (formattedDocValues.advanceExact(docID) == false) {
+                    continue;
+                }
+                for (int j = 0; j < formattedDocValues.docValueCount(); j++) {
+                    Object obj = formattedDocValues.nextValue();
+                    if (obj instanceof Number == false) {
+                        throw new IllegalArgumentException("Expected [Number], got [" + obj.getClass() + "]");
+                    }
+                    double value = ((Number) obj).doubleValue();
+                    for (FieldMetricsProducer.Metric metric : fieldsMetrics.get(i).metrics) {
+                        metric.collect(value);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<FormattedDocValues> leafFetchers(LeafReaderContext context, List<FieldValueFetcher> fetchers) {
+        List<FormattedDocValues> leaves = new ArrayList<>();
+        for (FieldValueFetcher fetcher : fetchers) {
+            leaves.add(fetcher.getLeaf(context));
+        }
+        return leaves;
+    }
+
     private class NextRoundingVisitor implements PointValues.IntersectVisitor {
         final Rounding.Prepared rounding;
         final long lastRounding;
@@ -23,6 +23,7 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.cluster.metadata.ComposableIndexTemplate;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Template;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
@@ -30,6 +31,7 @@ import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.indices.IndicesService;
@@ -81,6 +83,7 @@ import java.util.concurrent.ExecutionException;
 
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 
 @LuceneTestCase.AwaitsFix(bugUrl = "https://github.com/elastic/elasticsearch/issues/69799")
@@ -362,6 +365,53 @@ public class RollupActionSingleNodeTests extends ESSingleNodeTestCase {
         assertRollupIndex(config, oldIndexName, rollupIndexName + "-2");
     }
 
+    public void testRollupTimeSeriesIndexInIndexOrder() throws IOException {
+        String tsIndex = randomAlphaOfLength(7).toLowerCase(Locale.ROOT);
+        client().admin()
+            .indices()
+            .prepareCreate(tsIndex)
+            .setSettings(
+                Settings.builder()
+                    .put("index.number_of_shards", 1)
+                    .put(IndexSettings.MODE.getKey(), "time_series")
+                    .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dimension_1")
+                    .build()
+            )
+            .setMapping(
+                timestampFieldName,
+                "type=date",
+                "dimension_1",
+                "type=keyword,time_series_dimension=true",
+                "dimension_2",
+                "type=long,time_series_dimension=true",
+                "numeric_1",
+                "type=double"
+            )
+            .get();
+        RollupActionDateHistogramGroupConfig dateHistogramGroupConfig = randomRollupActionDateHistogramGroupConfig(timestampFieldName);
+        SourceSupplier sourceSupplier = () -> XContentFactory.jsonBuilder()
+            .startObject()
+            .field(timestampFieldName, randomDateForInterval(dateHistogramGroupConfig.getInterval()))
+            .field("dimension_1", randomAlphaOfLength(1))
+            .field("dimension_2", randomIntBetween(0, 3))
+            .field("numeric_1", randomDouble())
+            .endObject();
+        RollupActionConfig config = new RollupActionConfig(
+            new RollupActionGroupConfig(dateHistogramGroupConfig, null, new TermsGroupConfig("dimension_1", "dimension_2")),
+            Collections.singletonList(new MetricConfig("numeric_1", List.of("min", "max", "sum", "value_count")))
+        );
+        bulkIndex(tsIndex, sourceSupplier);
+        rollup(tsIndex, rollupIndex, config);
+        assertRollupIndex(config, tsIndex, rollupIndex);
+
+        // the segments are sorted by _tsid and @timestamp so nothing is sorted on disk
+        IndexService indexService = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex(tsIndex));
+        IndexShard shard = indexService.getShard(0);
+        RollupShardIndexer indexer = new RollupShardIndexer(client(), indexService, shard.shardId(), config, index, 2);
+        indexer.execute();
+        assertThat(indexer.tmpFiles, empty());
+    }
+
     private RollupActionDateHistogramGroupConfig randomRollupActionDateHistogramGroupConfig(String field) {
         RollupActionDateHistogramGroupConfig randomConfig = ConfigTestHelpers.randomRollupActionDateHistogramGroupConfig(random());
         if (randomConfig instanceof RollupActionDateHistogramGroupConfig.FixedInterval) {